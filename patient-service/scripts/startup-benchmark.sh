@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Startup benchmark: milliseconds from launch to the first successful /health/check, and the
+# resident set size (VmRSS) at that moment, for the plain jar and for the fast-start launcher.
+#
+#   mvn -Pfast-start package -DskipTests
+#   scripts/startup-benchmark.sh [runs]
+#
+# Both modes get the same JAVA_OPTS and APP_ARGS and must reach the same database, by default
+# the docker-compose MySQL on localhost:3306. The first run of each mode is a discarded
+# warm-up (page cache, and a CDS archive re-recorded if the JDK or class path changed).
+# Every run is printed, then the median per mode. Logs go to target/startup-benchmark.
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+PORT=${PORT:-18082}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+URL="http://localhost:$PORT/api/v1/patients/health/check"
+JAR="$ROOT/target/patient-service-1.0.0.jar"
+LAUNCHER="$ROOT/target/fast-start/patient-service.sh"
+WORK="$ROOT/target/startup-benchmark"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+read -ra EXTRA_ARGS <<< "${APP_ARGS:-}"
+read -ra JVM_ARGS <<< "${JAVA_OPTS:-}"
+
+for file in "$JAR" "$LAUNCHER"; do
+    [ -f "$file" ] || { echo "$file not found; run mvn -Pfast-start package -DskipTests first" >&2; exit 1; }
+done
+mkdir -p "$WORK"
+
+# Prints "<ms> <rss MB>" for one start of the given mode
+measure() {
+    local mode=$1 log=$2 pid start elapsed rss
+    local args=(--server.port="$PORT" --patient.audit.directory="$WORK/audit" "${EXTRA_ARGS[@]}")
+    start=$(date +%s%N)
+    if [ "$mode" = plain ]; then
+        "$JAVA" "${JVM_ARGS[@]}" -jar "$JAR" "${args[@]}" > "$log" 2>&1 &
+    else
+        JAVA_OPTS="${JAVA_OPTS:-}" sh "$LAUNCHER" "${args[@]}" > "$log" 2>&1 &
+    fi
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2>/dev/null || [ $(( ($(date +%s%N) - start) / 1000000000 )) -ge "$TIMEOUT_SECONDS" ]; then
+            kill "$pid" 2>/dev/null || true
+            echo "$mode did not answer $URL; see $log" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    rss=$(awk '/^VmRSS/ { printf "%.0f", $2 / 1024 }' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+for mode in plain fast-start; do
+    measure "$mode" "$WORK/$mode-warmup.log" > /dev/null
+    results=()
+    for run in $(seq 1 "$RUNS"); do
+        result=$(measure "$mode" "$WORK/$mode-$run.log")
+        results+=("$result")
+        printf '%-10s run %d: %6d ms to health check, %5d MB RSS\n' "$mode" "$run" $result
+    done
+    printf '%-10s median: %6d ms to health check, %5d MB RSS\n\n' "$mode" \
+        "$(printf '%s\n' "${results[@]}" | cut -d' ' -f1 | median)" \
+        "$(printf '%s\n' "${results[@]}" | cut -d' ' -f2 | median)"
+done
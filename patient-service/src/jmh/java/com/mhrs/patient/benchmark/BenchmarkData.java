@@ -0,0 +1,128 @@
+package com.mhrs.patient.benchmark;
+
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.model.Patient;
+import java.time.LocalDate;
+
+// Fixtures shared by the benchmarks
+public final class BenchmarkData {
+
+    public static final String CSV_HEADER = "firstName,lastName,email,phoneNumber,dateOfBirth,gender,address,"
+            + "city,state,zipCode,bloodGroup,allergies,medicalHistory\n";
+
+    public static final String ALLERGIES = "Penicillin, peanuts";
+    public static final String MEDICAL_HISTORY = "Type 2 diabetes since 2015. Hypertension, controlled with medication. "
+            + "Appendectomy in 2008. Annual review due.";
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Mary", "Robert", "Priya", "Rohan",
+            "Ananya", "Vikram", "Meera", "Arjun", "Kavya", "David", "Linda", "James", "Sarah"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Brown", "Garcia", "Miller", "Sharma", "Patel",
+            "Iyer", "Reddy", "Nair", "Gupta", "Khan", "Singh", "Mehta", "Kapoor", "Wilson"};
+
+    // City, state, zip code triples for spread-out demographics
+    private static final String[][] CITIES = {{"Pune", "MH", "411001"}, {"Mumbai", "MH", "400001"},
+            {"Nagpur", "MH", "440001"}, {"Delhi", "DL", "110001"}, {"Bengaluru", "KA", "560001"},
+            {"Mysuru", "KA", "570001"}, {"Chennai", "TN", "600001"}, {"Madurai", "TN", "625001"},
+            {"Hyderabad", "TS", "500001"}, {"Kolkata", "WB", "700001"}, {"Ahmedabad", "GJ", "380001"},
+            {"Surat", "GJ", "395001"}, {"Jaipur", "RJ", "302001"}, {"Lucknow", "UP", "226001"},
+            {"Kanpur", "UP", "208001"}, {"Bhopal", "MP", "462001"}, {"Indore", "MP", "452001"},
+            {"Patna", "BR", "800001"}, {"Kochi", "KL", "682001"}, {"Chandigarh", "CH", "160001"}};
+    private static final String[] BLOOD_GROUPS = {"O+", "A+", "B+", "AB+", "O-", "A-", "B-", "AB-"};
+    private static final String[] GENDERS = {"Female", "Male", "Other"};
+
+    private BenchmarkData() {
+    }
+
+    public static Patient patient(long id) {
+        Patient patient = new Patient();
+        patient.setPatientId(id);
+        patient.setPatientUniqueId("PAT-" + (1_000_000_000L + id));
+        patient.setFirstName(firstName(id));
+        patient.setLastName(lastName(id));
+        patient.setEmail(email(id));
+        patient.setPhoneNumber("9876543210");
+        patient.setDateOfBirth(LocalDate.of(1950 + (int) (id % 60), 1 + (int) (id % 12), 1 + (int) (id % 28)));
+        patient.setGender(id % 2 == 0 ? "Male" : "Female");
+        patient.setAddress("42 MG Road, Near City Hospital");
+        patient.setCity("Pune");
+        patient.setState("MH");
+        patient.setZipCode("411001");
+        patient.setBloodGroup("O+");
+        patient.setActive(true);
+        patient.setCreatedAt(LocalDate.of(2024, 1, 1));
+        patient.setUpdatedAt(LocalDate.of(2025, 6, 1));
+        return patient;
+    }
+
+    public static CreatePatientRequest request(long id) {
+        Patient patient = patient(id);
+        return CreatePatientRequest.builder()
+                .firstName(patient.getFirstName())
+                .lastName(patient.getLastName())
+                .email(patient.getEmail())
+                .phoneNumber(patient.getPhoneNumber())
+                .dateOfBirth(patient.getDateOfBirth())
+                .gender(patient.getGender())
+                .address(patient.getAddress())
+                .city(patient.getCity())
+                .state(patient.getState())
+                .zipCode(patient.getZipCode())
+                .bloodGroup(patient.getBloodGroup())
+                .allergies(ALLERGIES)
+                .medicalHistory(MEDICAL_HISTORY)
+                .build();
+    }
+
+    // CSV rows for PatientImportService, emails email(0) .. email(count - 1)
+    public static String csv(int count) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (long id = 0; id < count; id++) {
+            csv.append(firstName(id)).append(',').append(lastName(id)).append(',').append(email(id))
+                    .append(",9876543210,1980-01-01,Female,1 Road,Pune,MH,411001,A+,None,None\n");
+        }
+        return csv.toString();
+    }
+
+    // Like csv for rows from .. to - 1, but city, blood group, gender and date of birth vary with the row
+    public static String demographicCsv(long from, long to) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (long id = from; id < to; id++) {
+            String[] city = city(id);
+            csv.append(firstName(id)).append(',').append(lastName(id)).append(',').append(email(id))
+                    .append(",9876543210,").append(dateOfBirth(id)).append(',').append(gender(id))
+                    .append(",1 Road,").append(city[0]).append(',').append(city[1]).append(',').append(city[2])
+                    .append(',').append(bloodGroup(id)).append(",None,None\n");
+        }
+        return csv.toString();
+    }
+
+    // City, state and zip code
+    public static String[] city(long id) {
+        return CITIES[(int) (id % CITIES.length)];
+    }
+
+    public static String bloodGroup(long id) {
+        return BLOOD_GROUPS[(int) ((id / 7) % BLOOD_GROUPS.length)];
+    }
+
+    public static String gender(long id) {
+        return GENDERS[(int) ((id / 3) % GENDERS.length)];
+    }
+
+    // Spread over 80 years
+    public static LocalDate dateOfBirth(long id) {
+        return LocalDate.of(1940, 1, 1).plusDays((id * 7919) % (80 * 365));
+    }
+
+    public static String email(long id) {
+        return "patient" + id + "@example.com";
+    }
+
+    public static String firstName(long id) {
+        return FIRST_NAMES[(int) (id % FIRST_NAMES.length)];
+    }
+
+    public static String lastName(long id) {
+        return LAST_NAMES[(int) ((id / FIRST_NAMES.length) % LAST_NAMES.length)];
+    }
+}
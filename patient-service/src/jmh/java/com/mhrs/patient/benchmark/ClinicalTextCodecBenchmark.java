@@ -0,0 +1,53 @@
+package com.mhrs.patient.benchmark;
+
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+// Cost of encoding clinical text on write and decoding it for a detail view, by text size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClinicalTextCodecBenchmark {
+
+    @Param({"100", "2000", "20000"})
+    private int length;
+
+    private ClinicalTextCodec codec;
+    private String text;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        codec = new ClinicalTextCodec(256, 6);
+        StringBuilder history = new StringBuilder(length + BenchmarkData.MEDICAL_HISTORY.length());
+        while (history.length() < length) {
+            history.append(BenchmarkData.MEDICAL_HISTORY).append(' ');
+        }
+        text = history.substring(0, length);
+        encoded = codec.encode(text);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(text);
+    }
+
+    @Benchmark
+    public String decode() {
+        return codec.decode(encoded);
+    }
+}
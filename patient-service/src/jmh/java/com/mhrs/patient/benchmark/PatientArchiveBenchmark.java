@@ -0,0 +1,116 @@
+package com.mhrs.patient.benchmark;
+
+import com.mhrs.patient.PatientServiceApplication;
+import com.mhrs.patient.archive.PatientArchiver;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.importer.CsvPatientRecordReader;
+import com.mhrs.patient.importer.PatientImportService;
+import com.mhrs.patient.model.Patient;
+import com.mhrs.patient.repository.PatientRepository;
+import com.mhrs.patient.service.PatientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active-patient reads on a table where most rows were soft-deleted long ago, before
+ * (archived=false) and after (archived=true) PatientArchiver has moved them out. Table
+ * sizes are printed at setup. getArchivedById shows the cost of the fallback lookup for a
+ * patient that is only in patients_archive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientArchiveBenchmark {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Param({"20000"})
+    public int rows;
+
+    // Every inactiveOutOf5 rows out of 5 are soft-deleted
+    @Param({"4"})
+    public int inactiveOutOf5;
+
+    @Param({"false", "true"})
+    public boolean archived;
+
+    private ConfigurableApplicationContext context;
+    private PatientRepository patientRepository;
+    private PatientService patientService;
+    private long minId;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(PatientServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .properties("logging.level.root=WARN", "logging.level.com.mhrs=WARN")
+                // Arguments, unlike builder properties, take precedence over application.properties
+                .run("--patient.cache.maximum-size=0", "--patient.archive.enabled=false",
+                        "--patient.archive.batch-size=1000", "--patient.archive.batch-pause=0ms");
+        patientRepository = context.getBean(PatientRepository.class);
+        patientService = context.getBean(PatientService.class);
+        context.getBean(PatientImportService.class).importPatients(
+                new CsvPatientRecordReader(new BufferedReader(new StringReader(BenchmarkData.csv(rows)))));
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        minId = jdbcTemplate.queryForObject("SELECT MIN(patient_id) FROM patients", Long.class);
+        jdbcTemplate.update("UPDATE patients SET active = FALSE, change_seq = ? WHERE MOD(patient_id - ?, 5) < ?",
+                PatientIdGenerator.maxIdAt(System.currentTimeMillis() - 60 * DAY), minId, inactiveOutOf5);
+        if (archived) {
+            context.getBean(PatientArchiver.class).archive();
+        }
+        System.out.printf("%npatients: %d rows, patients_archive: %d rows%n",
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patients", Long.class),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patients_archive", Long.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Patient> findByActiveTrue() {
+        return patientRepository.findByActiveTrue();
+    }
+
+    @Benchmark
+    public List<Patient> activePage() {
+        return patientRepository.findByActiveTrueAndPatientIdGreaterThanOrderByPatientIdAsc(minId + next(), Limit.of(50));
+    }
+
+    @Benchmark
+    public PatientResponse getArchivedById() {
+        // Offsets 0 .. inactiveOutOf5 - 1 within each block of 5 are the soft-deleted ones
+        return patientService.getPatientById(minId + next() / 5 * 5);
+    }
+
+    private long next() {
+        return counter++ % (rows - 5);
+    }
+}
@@ -0,0 +1,112 @@
+package com.mhrs.patient.benchmark;
+
+import com.mhrs.patient.PatientServiceApplication;
+import com.mhrs.patient.dto.PatientSearchCriteria;
+import com.mhrs.patient.dto.PatientSearchResponse;
+import com.mhrs.patient.importer.CsvPatientRecordReader;
+import com.mhrs.patient.importer.PatientImportService;
+import com.mhrs.patient.service.PatientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/v1/patients/filter through PatientService on a million patients with varied
+ * city, blood group, gender and date of birth (BenchmarkData.demographicCsv). Each call
+ * fetches one slice of 50; withTotal adds the COUNT(*) a caller gets with total=true.
+ * H2 numbers are for comparing query shapes, not for predicting MySQL latency.
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PatientFilterBenchmark -p rows=100000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PatientFilterBenchmark {
+
+    private static final int SLICE = 50;
+    private static final int IMPORT_CHUNK = 100_000;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private PatientService patientService;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(PatientServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .properties("logging.level.root=WARN", "logging.level.com.mhrs=WARN")
+                .run("--patient.archive.enabled=false");
+        patientService = context.getBean(PatientService.class);
+        PatientImportService importService = context.getBean(PatientImportService.class);
+        // Imported in parts so the CSV text never holds all rows at once
+        for (long from = 0; from < rows; from += IMPORT_CHUNK) {
+            String csv = BenchmarkData.demographicCsv(from, Math.min(rows, from + IMPORT_CHUNK));
+            importService.importPatients(new CsvPatientRecordReader(new BufferedReader(new StringReader(csv))));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // About 1 in 20 patients
+    @Benchmark
+    public PatientSearchResponse byCity() {
+        return filter(PatientSearchCriteria.builder().city(BenchmarkData.city(next())[0]).build(), false);
+    }
+
+    // About 1 in 20 patients, through the zip code index
+    @Benchmark
+    public PatientSearchResponse byZipCode() {
+        return filter(PatientSearchCriteria.builder().zipCode(BenchmarkData.city(next())[2]).build(), false);
+    }
+
+    // About 1 in 24 patients, narrowed further by a 20-year age band
+    @Benchmark
+    public PatientSearchResponse byBloodGroupGenderAndAge() {
+        long id = next();
+        return filter(PatientSearchCriteria.builder()
+                .bloodGroup(BenchmarkData.bloodGroup(id))
+                .gender(BenchmarkData.gender(id))
+                .minAge(30)
+                .maxAge(50)
+                .build(), false);
+    }
+
+    @Benchmark
+    public PatientSearchResponse byCityWithTotal() {
+        return filter(PatientSearchCriteria.builder().city(BenchmarkData.city(next())[0]).build(), true);
+    }
+
+    private PatientSearchResponse filter(PatientSearchCriteria criteria, boolean total) {
+        return patientService.filterPatients(criteria, null, SLICE, total);
+    }
+
+    private long next() {
+        return counter++;
+    }
+}
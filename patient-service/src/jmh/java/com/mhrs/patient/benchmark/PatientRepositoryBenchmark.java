@@ -0,0 +1,102 @@
+package com.mhrs.patient.benchmark;
+
+import com.mhrs.patient.PatientServiceApplication;
+import com.mhrs.patient.importer.CsvPatientRecordReader;
+import com.mhrs.patient.importer.PatientImportService;
+import com.mhrs.patient.model.Patient;
+import com.mhrs.patient.repository.PatientRepository;
+import com.mhrs.patient.search.PatientNameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository lookups against H2 in MySQL mode (the "h2" test profile), with the table seeded
+ * through PatientImportService. Numbers are for relative comparison only; they do not
+ * include the network round trip to a real MySQL server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatientRepositoryBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private PatientRepository patientRepository;
+    private PatientNameIndex patientNameIndex;
+    private long minId;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(PatientServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("h2")
+                .properties("logging.level.root=WARN", "logging.level.com.mhrs=WARN")
+                .run();
+        patientRepository = context.getBean(PatientRepository.class);
+        patientNameIndex = context.getBean(PatientNameIndex.class);
+        context.getBean(PatientImportService.class).importPatients(
+                new CsvPatientRecordReader(new BufferedReader(new StringReader(BenchmarkData.csv(rows)))));
+        minId = context.getBean(JdbcTemplate.class).queryForObject("SELECT MIN(patient_id) FROM patients", Long.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Patient> findById() {
+        return patientRepository.findById(minId + next());
+    }
+
+    @Benchmark
+    public Optional<Patient> findByPatientUniqueId() {
+        Optional<Patient> patient = patientRepository.findById(minId + next());
+        return patientRepository.findByPatientUniqueId(patient.map(Patient::getPatientUniqueId).orElse(""));
+    }
+
+    @Benchmark
+    public Optional<Patient> findByEmail() {
+        return patientRepository.findByEmail(BenchmarkData.email(next()));
+    }
+
+    @Benchmark
+    public List<Patient> searchByNameLike() {
+        return patientRepository.findByFirstNameContainingIgnoreCase(BenchmarkData.firstName(next()));
+    }
+
+    @Benchmark
+    public List<Patient> searchByNameIndex() {
+        return patientRepository.findAllById(patientNameIndex.search(BenchmarkData.firstName(next()), 200));
+    }
+
+    private long next() {
+        return counter++ % rows;
+    }
+}
@@ -0,0 +1,68 @@
+package com.mhrs.patient.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of PatientResponse, configured like the application's ObjectMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private PatientResponse single;
+    private List<PatientResponse> list;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        single = toResponse(BenchmarkData.patient(1));
+        list = new ArrayList<>(listSize);
+        for (long id = 1; id <= listSize; id++) {
+            list.add(toResponse(BenchmarkData.patient(id)));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeSingle() throws Exception {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return objectMapper.writeValueAsBytes(list);
+    }
+
+    private static PatientResponse toResponse(Patient patient) {
+        return new PatientResponse(patient.getPatientId(), patient.getPatientUniqueId(), patient.getFirstName(),
+                patient.getLastName(), patient.getEmail(), patient.getPhoneNumber(), patient.getDateOfBirth(),
+                patient.getGender(), patient.getAddress(), patient.getCity(), patient.getState(),
+                patient.getZipCode(), patient.getBloodGroup(), BenchmarkData.ALLERGIES, BenchmarkData.MEDICAL_HISTORY,
+                patient.isActive(), patient.getCreatedAt(), patient.getUpdatedAt(), patient.getVersion());
+    }
+}
@@ -0,0 +1,40 @@
+package com.mhrs.patient.service;
+
+import com.mhrs.patient.benchmark.BenchmarkData;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+// PatientService.convertToResponse, the entity-to-DTO copy on every read path
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientConversionBenchmark {
+
+    private PatientService patientService;
+    private Patient patient;
+
+    @Setup
+    public void setUp() {
+        patientService = new PatientService();
+        patient = BenchmarkData.patient(42);
+    }
+
+    @Benchmark
+    public PatientResponse convertToResponse() {
+        return patientService.convertToResponse(patient);
+    }
+}
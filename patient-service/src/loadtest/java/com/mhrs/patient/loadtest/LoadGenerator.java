@@ -0,0 +1,105 @@
+package com.mhrs.patient.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a workload's requests at their offsets. One platform thread keeps the schedule and
+ * hands each request to a new virtual thread, which blocks on the exchange; a slow response
+ * ties up only its own virtual thread, never the arrivals behind it. Outstanding requests are
+ * capped at max-in-flight so a stalled service cannot exhaust the generator; arrivals over
+ * the cap are reported as dropped.
+ */
+public class LoadGenerator {
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final PatientPool pool;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final Duration interval;
+
+    public LoadGenerator(HttpClient client, URI baseUri, PatientPool pool, Duration timeout, int maxInFlight,
+                         Duration interval) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.pool = pool;
+        this.timeout = timeout;
+        this.maxInFlight = maxInFlight;
+        this.interval = interval;
+    }
+
+    // Runs the workload to the end and waits for every response; progress goes to out when not null
+    public void run(Workload workload, LoadReport report, PrintStream out) throws IOException, InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long start = System.nanoTime();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(() -> report.sample(out, System.nanoTime() - start), interval.toNanos(),
+                interval.toNanos(), TimeUnit.NANOSECONDS);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            ScheduledRequest next;
+            while ((next = workload.next()) != null) {
+                long due = start + next.offsetNanos();
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                RequestTemplate request = next.request();
+                if (!inFlight.tryAcquire()) {
+                    report.dropped(request.operation());
+                    continue;
+                }
+                clients.execute(() -> {
+                    try {
+                        send(request, due, report);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            sampler.shutdownNow();
+            sampler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        report.sample(out, System.nanoTime() - start);
+    }
+
+    private void send(RequestTemplate template, long due, LoadReport report) {
+        Operation operation = template.operation();
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(pool.resolve(template.path())))
+                    .timeout(timeout);
+            if (template.body() == null) {
+                request.method(template.method(), HttpRequest.BodyPublishers.noBody());
+            } else {
+                request.header("Content-Type", "application/json")
+                        .method(template.method(), HttpRequest.BodyPublishers.ofString(pool.resolve(template.body())));
+            }
+            // The body is read in full, so latency covers the whole response
+            HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 == 2) {
+                report.success(operation, System.nanoTime() - due);
+            } else {
+                report.error(operation, response.statusCode());
+            }
+        } catch (IOException | RuntimeException e) {
+            report.error(operation, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
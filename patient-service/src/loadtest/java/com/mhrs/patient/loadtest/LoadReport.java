@@ -0,0 +1,200 @@
+package com.mhrs.patient.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation results of a run. Latencies are HDR histograms in microseconds, measured from
+ * when a request was due rather than when it was sent: a service that falls behind is charged
+ * for the queueing its callers would see, instead of the generator quietly sending less
+ * (coordinated omission). Only 2xx responses are recorded as latencies; anything else,
+ * including timeouts and refused connections (status -1), counts as an error. Dropped
+ * requests were due while --max-in-flight requests were already outstanding and were never
+ * sent.
+ */
+public class LoadReport {
+
+    private static final String SUMMARY_HEADER = "operation,requests,errors,dropped,ok_per_s,"
+            + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final Map<Integer, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+    private final HistogramLogWriter histogramLog;
+    private final long startMillis = System.currentTimeMillis();
+    private double elapsedSeconds;
+
+    // histogramLog may be null; warm-up runs are not logged
+    public LoadReport(HistogramLogWriter histogramLog) {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+        this.histogramLog = histogramLog;
+        if (histogramLog != null) {
+            histogramLog.outputStartTime(startMillis);
+            histogramLog.setBaseTime(startMillis);
+            histogramLog.outputLegend();
+        }
+    }
+
+    public void success(Operation operation, long latencyNanos) {
+        stats.get(operation).recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    public void error(Operation operation, int status) {
+        stats.get(operation).errors.increment();
+        errorsByStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    public void dropped(Operation operation) {
+        stats.get(operation).dropped.increment();
+    }
+
+    // Closes the current interval: logs its histograms and prints one progress line
+    public synchronized void sample(PrintStream out, long elapsedNanos) {
+        long completed = 0;
+        Histogram interval = new Histogram(3);
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            Histogram histogram = operationStats.recorder.getIntervalHistogram();
+            operationStats.total.add(histogram);
+            interval.add(histogram);
+            completed += histogram.getTotalCount();
+            if (histogramLog != null && histogram.getTotalCount() > 0) {
+                histogram.setTag(entry.getKey().label());
+                histogramLog.outputIntervalHistogram(histogram);
+            }
+        }
+        elapsedSeconds = elapsedNanos / 1e9;
+        if (out != null && completed > 0) {
+            out.printf(Locale.ROOT, "%7.1fs  %7d ok  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  %d errors%n",
+                    elapsedSeconds, completed, millis(interval.getValueAtPercentile(50)),
+                    millis(interval.getValueAtPercentile(99)), millis(interval.getMaxValue()), errors());
+        }
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%n%-13s %9s %7s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "requests", "errors",
+                "dropped", "ok/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Row row : rows()) {
+            out.printf(Locale.ROOT, "%-13s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", row.operation,
+                    row.requests, row.errors, row.dropped, row.throughput, row.latencies[0], row.latencies[1],
+                    row.latencies[2], row.latencies[3], row.latencies[4]);
+        }
+        if (!errorsByStatus.isEmpty()) {
+            Map<Integer, Long> byStatus = new TreeMap<>();
+            errorsByStatus.forEach((status, count) -> byStatus.put(status, count.sum()));
+            out.println("errors by status (-1: no response): " + byStatus);
+        }
+    }
+
+    public void writeSummary(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(SUMMARY_HEADER);
+        for (Row row : rows()) {
+            lines.add(String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f", row.operation,
+                    row.requests, row.errors, row.dropped, row.throughput, row.latencies[0], row.latencies[1],
+                    row.latencies[2], row.latencies[3], row.latencies[4]));
+        }
+        Files.write(file, lines);
+    }
+
+    // Throughput and tail latency against an earlier run's summary.csv
+    public void compare(Path baselineSummary, PrintStream out) throws IOException {
+        Map<String, String[]> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselineSummary)) {
+            if (!line.equals(SUMMARY_HEADER) && !line.isBlank()) {
+                String[] fields = line.split(",");
+                baseline.put(fields[0], fields);
+            }
+        }
+        out.printf(Locale.ROOT, "%ncompared with %s%n%-13s %27s %27s %27s%n", baselineSummary, "operation",
+                "ok/s", "p99 ms", "p99.9 ms");
+        for (Row row : rows()) {
+            String[] before = baseline.get(row.operation);
+            if (before == null) {
+                continue;
+            }
+            out.printf(Locale.ROOT, "%-13s %s %s %s%n", row.operation,
+                    change(Double.parseDouble(before[4]), row.throughput),
+                    change(Double.parseDouble(before[7]), row.latencies[2]),
+                    change(Double.parseDouble(before[8]), row.latencies[3]));
+        }
+    }
+
+    private long errors() {
+        return stats.values().stream().mapToLong(s -> s.errors.sum()).sum();
+    }
+
+    private List<Row> rows() {
+        List<Row> rows = new ArrayList<>();
+        Histogram all = new Histogram(3);
+        long requests = 0;
+        long errors = 0;
+        long dropped = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            long operationErrors = operationStats.errors.sum();
+            long operationDropped = operationStats.dropped.sum();
+            Histogram histogram = operationStats.total;
+            if (histogram.getTotalCount() + operationErrors + operationDropped == 0) {
+                continue;
+            }
+            rows.add(row(entry.getKey().label(), histogram, operationErrors, operationDropped));
+            all.add(histogram);
+            requests += histogram.getTotalCount() + operationErrors + operationDropped;
+            errors += operationErrors;
+            dropped += operationDropped;
+        }
+        if (requests > 0) {
+            rows.add(row("all", all, errors, dropped));
+        }
+        return rows;
+    }
+
+    private Row row(String operation, Histogram histogram, long errors, long dropped) {
+        double[] latencies = new double[PERCENTILES.length + 1];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            latencies[i] = millis(histogram.getValueAtPercentile(PERCENTILES[i]));
+        }
+        latencies[PERCENTILES.length] = millis(histogram.getMaxValue());
+        long requests = histogram.getTotalCount() + errors + dropped;
+        double throughput = elapsedSeconds > 0 ? histogram.getTotalCount() / elapsedSeconds : 0;
+        return new Row(operation, requests, errors, dropped, throughput, latencies);
+    }
+
+    private static String change(double before, double after) {
+        double percent = before == 0 ? 0 : (after - before) * 100 / before;
+        return String.format(Locale.ROOT, "%9.2f -> %9.2f %+6.1f%%", before, after, percent);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private record Row(String operation, long requests, long errors, long dropped, double throughput,
+                       double[] latencies) {
+    }
+
+    private static class OperationStats {
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram total = new Histogram(3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+    }
+}
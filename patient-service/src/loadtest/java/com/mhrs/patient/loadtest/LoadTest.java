@@ -0,0 +1,188 @@
+package com.mhrs.patient.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mhrs.patient.PatientServiceApplication;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Whole-service load test under the production request mix, for comparing releases.
+ *
+ *   mvn -Pload-test test-compile exec:exec [-Dload-test.args="--rate=300 --duration=2m"]
+ *
+ * Without --target the service is started in-process on a random port with the H2 "h2"
+ * profile standing in for MySQL, and with admission control and the archiver off, since
+ * every request comes from one client; any other --name=value argument is passed to that
+ * service (e.g. --patient.cache.maximum-size=0). The run then
+ *
+ *   1. seeds --patients patients through POST /import,
+ *   2. runs --warmup of the mix unreported, so JIT compilation and caches settle,
+ *   3. runs the mix at --rate requests per second for --duration (open model, see
+ *      RequestMix), or with --replay a request log at its recorded offsets,
+ *
+ * and prints per-operation throughput and latency percentiles. --out receives summary.csv
+ * and latency.hlog, interval histograms per operation for HdrHistogram's log tools.
+ * --record writes the measured requests as a request log; --baseline compares with an
+ * earlier summary.csv.
+ *
+ * Options and defaults: --target (in-process), --patients=10000, --rate=200, --duration=60s,
+ * --warmup=15s, --mix=by-id:35,by-unique-id:35,search:15,create:10,update:5, --seed=42,
+ * --record, --replay, --speed=1, --max-in-flight=2000, --timeout=10s, --interval=5s,
+ * --out=target/load-test, --baseline.
+ */
+public final class LoadTest {
+
+    private static final Set<String> OPTIONS = Set.of("target", "patients", "rate", "duration", "warmup", "mix",
+            "seed", "record", "replay", "speed", "max-in-flight", "timeout", "interval", "out", "baseline");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but found '" + arg + "'");
+            }
+            String name = arg.substring(2, equals);
+            if (OPTIONS.contains(name)) {
+                options.put(name, arg.substring(equals + 1));
+            } else {
+                serviceArgs.add(arg);
+            }
+        }
+        if (options.containsKey("target") && !serviceArgs.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + serviceArgs + "; service arguments only apply "
+                    + "without --target");
+        }
+
+        PrintStream out = System.out;
+        ConfigurableApplicationContext service = null;
+        try {
+            URI baseUri;
+            if (options.containsKey("target")) {
+                baseUri = URI.create(options.get("target"));
+            } else {
+                service = startService(serviceArgs);
+                baseUri = URI.create("http://localhost:" + ((WebServerApplicationContext) service).getWebServer().getPort());
+            }
+            run(options, baseUri, out);
+        } finally {
+            if (service != null) {
+                service.close();
+            }
+        }
+    }
+
+    private static void run(Map<String, String> options, URI baseUri, PrintStream out) throws Exception {
+        int patients = Integer.parseInt(options.getOrDefault("patients", "10000"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration duration = duration(options.getOrDefault("duration", "60s"));
+        Duration warmup = duration(options.getOrDefault("warmup", "15s"));
+        String mix = options.getOrDefault("mix", RequestMix.DEFAULT_MIX);
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Path outDir = Path.of(options.getOrDefault("out", "target/load-test"));
+        Files.createDirectories(outDir);
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        long seedStart = System.nanoTime();
+        PatientPool pool = PatientPool.seed(client, baseUri, objectMapper, patients, runId);
+        out.printf("Seeded %d patients into %s in %d ms (run %s)%n", pool.size(), baseUri,
+                (System.nanoTime() - seedStart) / 1_000_000, runId);
+
+        LoadGenerator generator = new LoadGenerator(client, baseUri, pool,
+                duration(options.getOrDefault("timeout", "10s")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "2000")),
+                duration(options.getOrDefault("interval", "5s")));
+        if (!warmup.isZero()) {
+            out.printf("Warming up for %s at %.0f requests/s%n", warmup, rate);
+            generator.run(new RequestMix(RequestMix.parseMix(mix), rate, warmup, patients, seed - 1, objectMapper),
+                    new LoadReport(null), null);
+        }
+
+        BufferedReader replay = null;
+        BufferedWriter record = null;
+        try (PrintStream histogramLog = new PrintStream(Files.newOutputStream(outDir.resolve("latency.hlog")))) {
+            Workload workload;
+            if (options.containsKey("replay")) {
+                replay = Files.newBufferedReader(Path.of(options.get("replay")));
+                double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+                workload = RequestLog.replay(replay, speed);
+                out.printf("Replaying %s at %sx%n", options.get("replay"), speed);
+            } else {
+                workload = new RequestMix(RequestMix.parseMix(mix), rate, duration, patients, seed, objectMapper);
+                out.printf("Running %s at %.0f requests/s for %s%n", mix, rate, duration);
+            }
+            if (options.containsKey("record")) {
+                record = Files.newBufferedWriter(Path.of(options.get("record")));
+                record.write("# patient-service request log, run " + runId + ", " + patients + " seeded patients");
+                record.newLine();
+                workload = RequestLog.record(workload, record);
+            }
+            LoadReport report = new LoadReport(new HistogramLogWriter(histogramLog));
+            generator.run(workload, report, out);
+
+            report.print(out);
+            report.writeSummary(outDir.resolve("summary.csv"));
+            if (options.containsKey("baseline")) {
+                report.compare(Path.of(options.get("baseline")), out);
+            }
+            out.printf("%nWrote %s and %s%n", outDir.resolve("summary.csv"), outDir.resolve("latency.hlog"));
+        } finally {
+            if (replay != null) {
+                replay.close();
+            }
+            if (record != null) {
+                record.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startService(List<String> serviceArgs) {
+        Map<String, String> args = new LinkedHashMap<>();
+        for (String arg : List.of("--server.port=0", "--patient.admission.enabled=false",
+                "--patient.archive.enabled=false", "--logging.level.root=WARN", "--logging.level.com.mhrs=WARN")) {
+            args.put(arg.substring(0, arg.indexOf('=')), arg);
+        }
+        // A repeated argument would be read as a list, so overrides replace the defaults
+        for (String arg : serviceArgs) {
+            args.put(arg.substring(0, arg.indexOf('=')), arg);
+        }
+        return new SpringApplicationBuilder(PatientServiceApplication.class)
+                .profiles("h2")
+                .run(args.values().toArray(new String[0]));
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+}
@@ -0,0 +1,115 @@
+package com.mhrs.patient.loadtest;
+
+import com.mhrs.patient.dto.CreatePatientRequest;
+import java.time.LocalDate;
+
+// Seed rows and request bodies; everything about patient N is a function of N
+public final class LoadTestData {
+
+    public static final String CSV_HEADER = "firstName,lastName,email,phoneNumber,dateOfBirth,gender,address,"
+            + "city,state,zipCode,bloodGroup,allergies,medicalHistory\n";
+
+    private static final String ALLERGIES = "Penicillin, peanuts";
+    private static final String MEDICAL_HISTORY = "Type 2 diabetes since 2015. Hypertension, controlled with medication. "
+            + "Appendectomy in 2008. Annual review due.";
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Mary", "Robert", "Priya", "Rohan",
+            "Ananya", "Vikram", "Meera", "Arjun", "Kavya", "David", "Linda", "James", "Sarah", "Aditya", "Isha",
+            "Karan", "Nisha", "Farhan", "Zoya", "Thomas", "Grace"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Brown", "Garcia", "Miller", "Sharma", "Patel",
+            "Iyer", "Reddy", "Nair", "Gupta", "Khan", "Singh", "Mehta", "Kapoor", "Wilson", "Menon", "Joshi",
+            "Desai", "Chopra", "Bose", "Pillai", "Das", "Verma", "Rao", "Kulkarni", "Banerjee", "Fernandes"};
+
+    // City, state, zip code triples
+    private static final String[][] CITIES = {{"Pune", "MH", "411001"}, {"Mumbai", "MH", "400001"},
+            {"Nagpur", "MH", "440001"}, {"Delhi", "DL", "110001"}, {"Bengaluru", "KA", "560001"},
+            {"Chennai", "TN", "600001"}, {"Hyderabad", "TS", "500001"}, {"Kolkata", "WB", "700001"},
+            {"Ahmedabad", "GJ", "380001"}, {"Jaipur", "RJ", "302001"}, {"Lucknow", "UP", "226001"},
+            {"Kochi", "KL", "682001"}};
+    private static final String[] BLOOD_GROUPS = {"O+", "A+", "B+", "AB+", "O-", "A-", "B-", "AB-"};
+    private static final String[] GENDERS = {"Female", "Male", "Other"};
+
+    private LoadTestData() {
+    }
+
+    // CSV rows for POST /import covering seed indexes from .. to - 1
+    public static String csv(String runId, int from, int to) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int index = from; index < to; index++) {
+            String[] city = city(index);
+            csv.append(firstName(index)).append(',').append(lastName(index)).append(',').append(email(runId, index))
+                    .append(',').append(phoneNumber(index, 0)).append(',').append(dateOfBirth(index))
+                    .append(',').append(gender(index)).append(",42 MG Road,").append(city[0]).append(',')
+                    .append(city[1]).append(',').append(city[2]).append(',').append(bloodGroup(index))
+                    .append(",\"").append(ALLERGIES).append("\",\"").append(MEDICAL_HISTORY).append("\"\n");
+        }
+        return csv.toString();
+    }
+
+    // A new patient built like seed patient N would be, with an email unique to the run
+    public static CreatePatientRequest create(long index) {
+        return request(index, "loadtest.{run}.new{seq}@example.com", 0);
+    }
+
+    // Seed patient N with a different phone number; the email placeholder keeps its own email
+    public static CreatePatientRequest update(int index, int revision) {
+        return request(index, "{email:" + index + "}", revision);
+    }
+
+    // First and last name of seed patient N, as a search for them would be typed
+    public static String fullName(long index) {
+        return firstName(index) + " " + lastName(index);
+    }
+
+    public static String email(String runId, int index) {
+        return "loadtest." + runId + "." + index + "@example.com";
+    }
+
+    private static CreatePatientRequest request(long index, String email, int revision) {
+        String[] city = city(index);
+        return CreatePatientRequest.builder()
+                .firstName(firstName(index))
+                .lastName(lastName(index))
+                .email(email)
+                .phoneNumber(phoneNumber(index, revision))
+                .dateOfBirth(dateOfBirth(index))
+                .gender(gender(index))
+                .address("42 MG Road")
+                .city(city[0])
+                .state(city[1])
+                .zipCode(city[2])
+                .bloodGroup(bloodGroup(index))
+                .allergies(ALLERGIES)
+                .medicalHistory(MEDICAL_HISTORY)
+                .build();
+    }
+
+    private static String firstName(long index) {
+        return FIRST_NAMES[(int) (index % FIRST_NAMES.length)];
+    }
+
+    private static String lastName(long index) {
+        return LAST_NAMES[(int) ((index / FIRST_NAMES.length) % LAST_NAMES.length)];
+    }
+
+    private static String phoneNumber(long index, int revision) {
+        return String.valueOf(9_000_000_000L + (index * 7919 + revision) % 1_000_000_000L);
+    }
+
+    // Spread over 80 years
+    private static LocalDate dateOfBirth(long index) {
+        return LocalDate.of(1940, 1, 1).plusDays((index * 7919) % (80 * 365));
+    }
+
+    private static String[] city(long index) {
+        return CITIES[(int) (index % CITIES.length)];
+    }
+
+    private static String bloodGroup(long index) {
+        return BLOOD_GROUPS[(int) ((index / 7) % BLOOD_GROUPS.length)];
+    }
+
+    private static String gender(long index) {
+        return GENDERS[(int) ((index / 3) % GENDERS.length)];
+    }
+}
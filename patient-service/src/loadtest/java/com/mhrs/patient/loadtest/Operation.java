@@ -0,0 +1,33 @@
+package com.mhrs.patient.loadtest;
+
+import java.util.Locale;
+
+// Request kinds the load test issues, named as in --mix and in request logs
+public enum Operation {
+    BY_ID("by-id"),
+    BY_UNIQUE_ID("by-unique-id"),
+    SEARCH("search"),
+    CREATE("create"),
+    UPDATE("update");
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static Operation parse(String label) {
+        String requested = label.trim().toLowerCase(Locale.ROOT);
+        for (Operation candidate : values()) {
+            if (candidate.label.equals(requested)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation '" + label
+                + "'; use by-id, by-unique-id, search, create or update");
+    }
+}
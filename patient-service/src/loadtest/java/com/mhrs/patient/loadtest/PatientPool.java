@@ -0,0 +1,111 @@
+package com.mhrs.patient.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhrs.patient.dto.PatientImportResponse;
+import com.mhrs.patient.dto.PatientImportRowResult;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The seeded patients a run works on. seed() imports them through POST /import and keeps, by
+ * seed index, the ID, unique ID and email the service assigned, which is what request
+ * template placeholders resolve to. Seed emails carry the run ID, so a service that already
+ * holds an earlier run's patients can be seeded again.
+ */
+public class PatientPool {
+
+    private static final int IMPORT_CHUNK = 5000;
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(id|uniqueId|email):(\\d+)}|\\{run}|\\{seq}");
+
+    private final String runId;
+    private final long[] ids;
+    private final String[] uniqueIds;
+    private final String[] emails;
+    private final AtomicLong seq = new AtomicLong();
+
+    private PatientPool(String runId, int size) {
+        this.runId = runId;
+        this.ids = new long[size];
+        this.uniqueIds = new String[size];
+        this.emails = new String[size];
+    }
+
+    public static PatientPool seed(HttpClient client, URI baseUri, ObjectMapper objectMapper, int patients,
+                                   String runId) throws IOException, InterruptedException {
+        PatientPool pool = new PatientPool(runId, patients);
+        for (int from = 0; from < patients; from += IMPORT_CHUNK) {
+            int to = Math.min(patients, from + IMPORT_CHUNK);
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/v1/patients/import"))
+                    .header("Content-Type", "text/csv")
+                    .POST(HttpRequest.BodyPublishers.ofString(LoadTestData.csv(runId, from, to)))
+                    .build();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode() + ": "
+                        + new String(response.body()));
+            }
+            Map<String, Integer> indexByEmail = new HashMap<>();
+            for (int index = from; index < to; index++) {
+                indexByEmail.put(LoadTestData.email(runId, index), index);
+            }
+            for (PatientImportRowResult row : objectMapper.readValue(response.body(), PatientImportResponse.class).getRows()) {
+                Integer index = indexByEmail.remove(row.getEmail());
+                if (index == null || row.getPatientId() == null) {
+                    throw new IllegalStateException("Seed row " + row.getRow() + " was not imported: " + row.getStatus()
+                            + " " + row.getErrors());
+                }
+                pool.ids[index] = row.getPatientId();
+                pool.uniqueIds[index] = row.getPatientUniqueId();
+                pool.emails[index] = row.getEmail();
+            }
+            if (!indexByEmail.isEmpty()) {
+                throw new IllegalStateException(indexByEmail.size() + " seed rows are missing from the import response");
+            }
+        }
+        return pool;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String runId() {
+        return runId;
+    }
+
+    // Replaces the placeholders described on RequestTemplate
+    public String resolve(String text) {
+        if (text == null || text.indexOf('{') < 0) {
+            return text;
+        }
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        StringBuilder resolved = new StringBuilder(text.length() + 32);
+        while (matcher.find()) {
+            String value;
+            if (matcher.group(1) == null) {
+                value = matcher.group().equals("{run}") ? runId : String.valueOf(seq.incrementAndGet());
+            } else {
+                int index = Integer.parseInt(matcher.group(2));
+                if (index >= ids.length) {
+                    throw new IllegalArgumentException("Request refers to seed patient " + index + " but only "
+                            + ids.length + " were seeded");
+                }
+                value = switch (matcher.group(1)) {
+                    case "id" -> String.valueOf(ids[index]);
+                    case "uniqueId" -> uniqueIds[index];
+                    default -> emails[index];
+                };
+            }
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(value));
+        }
+        return matcher.appendTail(resolved).toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.mhrs.patient.loadtest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+
+/**
+ * Request logs in the ScheduledRequest line format. A generated workload can be recorded
+ * and the log replayed later, against another build, with the same requests at the same
+ * offsets. Logs from other sources work too once converted to that format; lines starting
+ * with # are comments.
+ */
+public final class RequestLog {
+
+    private RequestLog() {
+    }
+
+    // Replays a log; speed 2 sends the same requests in half the time
+    public static Workload replay(BufferedReader reader, double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Replay speed must be positive");
+        }
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank() || line.startsWith("#"));
+            ScheduledRequest logged = ScheduledRequest.parse(line);
+            return new ScheduledRequest(Math.round(logged.offsetNanos() / speed), logged.request());
+        };
+    }
+
+    // Passes a workload through, writing each request to the log as it is scheduled
+    public static Workload record(Workload workload, BufferedWriter writer) {
+        return () -> {
+            ScheduledRequest next = workload.next();
+            if (next != null) {
+                writer.write(next.format());
+                writer.newLine();
+            }
+            return next;
+        };
+    }
+}
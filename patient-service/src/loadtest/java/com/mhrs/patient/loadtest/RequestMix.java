@@ -0,0 +1,119 @@
+package com.mhrs.patient.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Open-model workload: requests arrive at a fixed rate for a fixed time whatever the service's
+ * response times, as they do from many independent users, rather than each client waiting for
+ * its previous response. Each arrival picks an operation by weight and a seeded patient
+ * uniformly, from a seeded Random, so the same options give the same request sequence.
+ */
+public class RequestMix implements Workload {
+
+    // Patient views by ID and unique ID make up 70%
+    public static final String DEFAULT_MIX = "by-id:35,by-unique-id:35,search:15,create:10,update:5";
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final double ratePerSecond;
+    private final long durationNanos;
+    private final int patients;
+    private final Random random;
+    private final ObjectMapper objectMapper;
+    private long sent;
+
+    public RequestMix(Map<Operation, Integer> weights, double ratePerSecond, Duration duration, int patients,
+                      long seed, ObjectMapper objectMapper) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        if (patients < 1) {
+            throw new IllegalArgumentException("The mix needs at least one seeded patient");
+        }
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.durationNanos = duration.toNanos();
+        this.patients = patients;
+        this.random = new Random(seed);
+        this.objectMapper = objectMapper;
+    }
+
+    // "by-id:35,search:15,..." to weights; operations left out are not sent
+    public static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but found '" + entry + "'");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + parts[0] + " cannot be negative");
+            }
+            if (weight > 0) {
+                weights.merge(Operation.parse(parts[0]), weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+        return weights;
+    }
+
+    @Override
+    public ScheduledRequest next() {
+        long offsetNanos = Math.round(sent * 1_000_000_000.0 / ratePerSecond);
+        if (offsetNanos >= durationNanos) {
+            return null;
+        }
+        sent++;
+        return new ScheduledRequest(offsetNanos, template(pick()));
+    }
+
+    private Operation pick() {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (ticket >= cumulativeWeights[i]) {
+            i++;
+        }
+        return operations[i];
+    }
+
+    private RequestTemplate template(Operation operation) {
+        int index = random.nextInt(patients);
+        return switch (operation) {
+            case BY_ID -> new RequestTemplate(operation, "GET", "/api/v1/patients/{id:" + index + "}", null);
+            case BY_UNIQUE_ID -> new RequestTemplate(operation, "GET", "/api/v1/patients/unique/{uniqueId:" + index + "}",
+                    null);
+            case SEARCH -> new RequestTemplate(operation, "GET", "/api/v1/patients/search?name="
+                    + URLEncoder.encode(LoadTestData.fullName(index), StandardCharsets.UTF_8), null);
+            // A seed patient's twin would be refused as a duplicate, so creates draw from far beyond the seed
+            case CREATE -> new RequestTemplate(operation, "POST", "/api/v1/patients",
+                    json(LoadTestData.create(patients + (long) random.nextInt(Integer.MAX_VALUE - patients))));
+            case UPDATE -> new RequestTemplate(operation, "PUT", "/api/v1/patients/{id:" + index + "}",
+                    json(LoadTestData.update(index, random.nextInt(1000))));
+        };
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.mhrs.patient.loadtest;
+
+/**
+ * One request as generated or read from a request log. Paths and bodies may refer to seeded
+ * patients by seed index rather than by value, so a log replays against any service seeded
+ * with at least as many patients:
+ *
+ *   {id:N} {uniqueId:N} {email:N}  patient ID, unique ID and email of the Nth seeded patient
+ *   {run} {seq}                    this run's ID and a per-run counter, for new unique emails
+ *
+ * PatientPool resolves them just before the request is sent.
+ */
+public record RequestTemplate(Operation operation, String method, String path, String body) {
+}
@@ -0,0 +1,28 @@
+package com.mhrs.patient.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request and when to send it, as nanoseconds from the start of the run. In a request log
+ * it is one line: offset in microseconds, operation, method, path and body (- for none),
+ * separated by tabs.
+ */
+public record ScheduledRequest(long offsetNanos, RequestTemplate request) {
+
+    private static final String NO_BODY = "-";
+
+    public static ScheduledRequest parse(String line) {
+        String[] fields = line.split("\t", 5);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Expected 5 tab separated fields: " + line);
+        }
+        String body = NO_BODY.equals(fields[4]) ? null : fields[4];
+        return new ScheduledRequest(TimeUnit.MICROSECONDS.toNanos(Long.parseLong(fields[0])),
+                new RequestTemplate(Operation.parse(fields[1]), fields[2], fields[3], body));
+    }
+
+    public String format() {
+        return TimeUnit.NANOSECONDS.toMicros(offsetNanos) + "\t" + request.operation().label() + "\t"
+                + request.method() + "\t" + request.path() + "\t" + (request.body() == null ? NO_BODY : request.body());
+    }
+}
@@ -0,0 +1,10 @@
+package com.mhrs.patient.loadtest;
+
+import java.io.IOException;
+
+// Requests in the order and at the offsets they are to be sent
+public interface Workload {
+
+    // The next request, or null when there are no more
+    ScheduledRequest next() throws IOException;
+}
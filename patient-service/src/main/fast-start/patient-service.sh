@@ -0,0 +1,12 @@
+#!/bin/sh
+# Starts patient-service with the Spring AOT initializers and the AppCDS archive built by
+# mvn -Pfast-start package. If the JDK or class path no longer match the archive, the JVM
+# records a new one at exit instead of failing. JAVA_OPTS and arguments are passed through;
+# JAVA_OPTS=-Xlog:cds shows whether the archive was mapped.
+DIR=$(cd "$(dirname "$0")" && pwd)
+exec "${JAVA_HOME:+$JAVA_HOME/bin/}java" \
+    -XX:SharedArchiveFile="$DIR/app.jsa" -XX:+AutoCreateSharedArchive -Xlog:cds=off \
+    -Dspring.aot.enabled=true \
+    $JAVA_OPTS \
+    -jar "$DIR/@project.build.finalName@.jar" \
+    --spring.profiles.active=fast-start "$@"
@@ -0,0 +1,83 @@
+package com.mhrs.patient.admission;
+
+/**
+ * Concurrency limit that follows the latency of admitted requests, TCP Vegas style.
+ *
+ * The lowest latency seen is taken as the no-load latency. From each sample the number of
+ * requests queued behind the database is estimated as limit * (1 - noLoad / latency): while
+ * that is below alpha the limit grows by one, above beta it shrinks by one, and a request
+ * that failed for lack of a connection cuts it by backoff. The limit only grows while at
+ * least half of it is in use, so an idle service does not inflate it. The no-load latency is
+ * re-measured every probeInterval so a lasting change in the database is picked up.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long probeIntervalNanos;
+    private int limit;
+    private int inFlight;
+    private long noLoadNanos = Long.MAX_VALUE;
+    private long noLoadSince;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long probeIntervalNanos) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limit bounds must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.probeIntervalNanos = probeIntervalNanos;
+    }
+
+    // Admit a request if fewer than share of the limit are in flight
+    public synchronized boolean tryAcquire(double share) {
+        if (inFlight >= Math.max(1, (int) (limit * share))) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    // Release without a sample, for requests whose latency says nothing about the database
+    public synchronized void release() {
+        inFlight--;
+    }
+
+    // Release a request that took latencyNanos
+    public synchronized void release(long latencyNanos, long now) {
+        int busy = inFlight;
+        inFlight--;
+        if (noLoadNanos == Long.MAX_VALUE || now - noLoadSince > probeIntervalNanos) {
+            noLoadNanos = latencyNanos;
+            noLoadSince = now;
+            return;
+        }
+        noLoadNanos = Math.max(1, Math.min(noLoadNanos, latencyNanos));
+        double queued = limit * (1 - (double) noLoadNanos / Math.max(latencyNanos, 1));
+        double log = Math.max(1, Math.log10(limit));
+        if (queued < 3 * log) {
+            if (busy * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        } else if (queued > 6 * log) {
+            limit = Math.max(minLimit, limit - 1);
+        }
+    }
+
+    // Release a request that failed because the database was saturated
+    public synchronized void releaseDropped() {
+        inFlight--;
+        limit = Math.max(minLimit, (int) (limit * BACKOFF));
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,228 @@
+package com.mhrs.patient.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.db.BulkheadDataSource;
+import com.mhrs.patient.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for /api/v1/patients. Requests over their client's rate are answered
+ * 429, and requests beyond the adaptive concurrency limit 503, both at once and with
+ * Retry-After, instead of parking a Tomcat thread on the connection pool. The health check
+ * is never limited, so it keeps answering while the database is slow.
+ *
+ * Clients are told apart by remote address together with X-User-Id. The header is the
+ * caller's to set, so keyed on it alone anyone could spend another user's rate; with the
+ * address in the key a caller can only split its own traffic. Bulk and list
+ * requests may only fill bulk-share of the limit; the rest is kept for single-patient
+ * reads and writes. The limit adapts to the latencies of those that took a connection from
+ * the database bulkhead, which marks them; cache hits, 304s and existence-filter 404s say
+ * nothing about the database. Without the bulkhead the limit stays where it is. A request
+ * that failed for lack of a connection counts as a drop and backs the limit off; other 503s,
+ * such as a write to a patient a rebalance is moving, do not.
+ */
+@Component
+@ConditionalOnProperty(name = "patient.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final String PATIENTS_PATH = "/api/v1/patients";
+    private static final String HEALTH_PATH = PATIENTS_PATH + "/health/check";
+    private static final long SECOND = 1_000_000_000L;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final double clientRate;
+    private final double clientBurst;
+    private final double bulkShare;
+    private final Cache<String, TokenBucket> buckets;
+    private final AdaptiveConcurrencyLimit limit;
+    // Rejections by priority ordinal
+    private final LongAdder[] rateLimited = newCounters();
+    private final LongAdder[] concurrencyLimited = newCounters();
+
+    public AdmissionControlFilter(@Value("${patient.admission.client-rate:50}") double clientRate,
+                                  @Value("${patient.admission.client-burst:100}") double clientBurst,
+                                  @Value("${patient.admission.max-clients:10000}") long maxClients,
+                                  @Value("${patient.admission.initial-limit:20}") int initialLimit,
+                                  @Value("${patient.admission.min-limit:4}") int minLimit,
+                                  @Value("${patient.admission.max-limit:150}") int maxLimit,
+                                  @Value("${patient.admission.bulk-share:0.5}") double bulkShare,
+                                  @Value("${patient.admission.probe-interval:30s}") Duration probeInterval) {
+        this.clientRate = clientRate;
+        this.clientBurst = Math.max(1, clientBurst);
+        this.bulkShare = bulkShare;
+        // An idle client's bucket is full again after burst / rate seconds and can be dropped
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos((long) (this.clientBurst / clientRate * SECOND)).plusSeconds(1))
+                .maximumSize(maxClients)
+                .build();
+        this.limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, probeInterval.toNanos());
+        log.info("Admission control: {} requests/s per client (burst {}), concurrency limit {} in [{}, {}], "
+                + "bulk share {}", clientRate, clientBurst, initialLimit, minLimit, maxLimit, bulkShare);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith(PATIENTS_PATH) || path.equals(HEALTH_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        RequestPriority priority = RequestPriority.of(request);
+        long wait = buckets.get(clientOf(request), client -> new TokenBucket(clientRate, clientBurst, now))
+                .tryAcquire(now);
+        if (wait > 0) {
+            rateLimited[priority.ordinal()].increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, (wait + SECOND - 1) / SECOND,
+                    "Too many requests from this client, retry later");
+            return;
+        }
+        if (!limit.tryAcquire(priority == RequestPriority.BULK ? bulkShare : 1.0)) {
+            concurrencyLimited[priority.ordinal()].increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Service is at capacity, please retry");
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // Streaming bodies keep their slot until the async response completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release(released, request, priority, now, true);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release(released, request, priority, now, false);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release(released, request, priority, now, false);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                release(released, request, priority, now, completed);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("patient.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(registry);
+        Gauge.builder("patient.admission.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Admitted requests in progress")
+                .register(registry);
+        // Every series carries both tags; Prometheus rejects a name whose series differ in tag keys
+        for (RequestPriority priority : RequestPriority.values()) {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder("patient.admission.rejected", rateLimited[priority.ordinal()], LongAdder::sum)
+                    .description("Requests rejected by admission control")
+                    .tag("reason", "client-rate")
+                    .tag("priority", tag)
+                    .register(registry);
+            FunctionCounter.builder("patient.admission.rejected", concurrencyLimited[priority.ordinal()],
+                            LongAdder::sum)
+                    .description("Requests rejected by admission control")
+                    .tag("reason", "concurrency")
+                    .tag("priority", tag)
+                    .register(registry);
+        }
+    }
+
+    // Exactly once per admitted request; only completed interactive requests that used a
+    // connection are latency samples
+    private void release(AtomicBoolean released, HttpServletRequest request, RequestPriority priority, long start,
+                         boolean completed) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        if (request.getAttribute(GlobalExceptionHandler.DATABASE_UNAVAILABLE_ATTRIBUTE) != null) {
+            limit.releaseDropped();
+        } else if (completed && priority == RequestPriority.INTERACTIVE
+                && request.getAttribute(BulkheadDataSource.CONNECTION_ATTRIBUTE) != null) {
+            long now = System.nanoTime();
+            limit.release(now - start, now);
+        } else {
+            limit.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfterSeconds)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[RequestPriority.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        String user = request.getHeader(PatientAuditLog.ACTOR_HEADER);
+        return user == null || user.isBlank() ? request.getRemoteAddr() : request.getRemoteAddr() + "|" + user.trim();
+    }
+}
@@ -0,0 +1,27 @@
+package com.mhrs.patient.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+
+// Admission classes: bulk and list requests hold a connection for long and yield to the rest
+public enum RequestPriority {
+    INTERACTIVE,
+    BULK;
+
+    private static final String BASE = "/api/v1/patients";
+    private static final List<String> BULK_PREFIXES = List.of(BASE + "/page", BASE + "/stream", BASE + "/filter",
+            BASE + "/changes", BASE + "/export", BASE + "/import", BASE + "/duplicates");
+
+    public static RequestPriority of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals(BASE) || path.equals(BASE + "/")) {
+            return "GET".equals(request.getMethod()) ? BULK : INTERACTIVE;
+        }
+        for (String prefix : BULK_PREFIXES) {
+            if (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return BULK;
+            }
+        }
+        return INTERACTIVE;
+    }
+}
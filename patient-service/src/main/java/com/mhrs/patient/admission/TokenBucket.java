@@ -0,0 +1,30 @@
+package com.mhrs.patient.admission;
+
+/**
+ * Refills at rate tokens per second up to burst; each request takes one token.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double rate, double burst, long now) {
+        this.capacity = burst;
+        this.tokensPerNano = rate / 1e9;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    // 0 when a token was taken, otherwise nanoseconds until one is available
+    synchronized long tryAcquire(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+}
@@ -0,0 +1,254 @@
+package com.mhrs.patient.archive;
+
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.shard.ShardRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves soft-deleted patients out of the patients table once they have been inactive for
+ * patient.archive.after, so the hot table, its indexes and every active-patient scan only
+ * carry live rows. Archived rows go to patients_archive, where single-patient reads still
+ * find them.
+ *
+ * Candidates are found through idx_patients_change_seq: deleting a patient gives it a new
+ * change sequence, and sequences encode the time they were issued, so "inactive since
+ * before the cutoff" is a range scan. Each run only scans sequences issued since the
+ * previous run's cutoff; anything older was already archived or is still active. The scan
+ * is a plain read: locking it would put next-key locks on the change_seq index over the
+ * active rows in the range too. The candidates are then locked by primary key, and only
+ * those still inactive and unchanged since the cutoff are moved.
+ *
+ * Work is throttled: at most batch-size rows per transaction, with batch-pause between
+ * batches, on one background thread. The patient with the highest ID is never archived.
+ * MySQL before 8.0 resets AUTO_INCREMENT to MAX(id) + 1 on restart and would otherwise
+ * hand an archived ID to a new patient.
+ *
+ * With sharding every shard is archived in turn, with a scan position of its own. Archiving
+ * stops while a rebalance moves buckets, and the next run scans again from where it stopped.
+ */
+@Component
+public class PatientArchiver implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientArchiver.class);
+
+    // Let startup work (migrations, backfills, index warm-up) finish first
+    private static final Duration INITIAL_DELAY = Duration.ofMinutes(1);
+
+    private static final String COLUMNS = "patient_id, patient_unique_id, first_name, last_name, email, phone_number, "
+            + "date_of_birth, gender, address, city, state, zip_code, blood_group, active, created_at, updated_at, "
+            + "version, change_seq";
+    private static final String SELECT_CANDIDATES_SQL = "SELECT patient_id, change_seq FROM patients "
+            + "WHERE change_seq >= ? AND change_seq <= ? AND active = FALSE AND patient_id <> ? "
+            + "ORDER BY change_seq LIMIT ?";
+    private static final String LOCK_CANDIDATES_SQL = "SELECT patient_id FROM patients "
+            + "WHERE patient_id IN (%s) AND active = FALSE AND change_seq <= ? FOR UPDATE";
+    private static final String COPY_SQL = "INSERT INTO patients_archive (" + COLUMNS + ", archived_at) "
+            + "SELECT " + COLUMNS + ", ? FROM patients WHERE patient_id = ?";
+    private static final String DELETE_SQL = "DELETE FROM patients WHERE patient_id = ?";
+    private static final String DELETE_BLOCKING_KEYS_SQL = "DELETE FROM patient_blocking_keys WHERE patient_id = ?";
+    private static final String MAX_ID_SQL = "SELECT MAX(patient_id) FROM patients";
+    private static final String COUNT_HOT_SQL = "SELECT COUNT(*) FROM patients";
+    private static final String COUNT_ARCHIVE_SQL = "SELECT COUNT(*) FROM patients_archive";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${patient.archive.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${patient.archive.after:30d}")
+    private Duration archiveAfter = Duration.ofDays(30);
+
+    @Value("${patient.archive.interval:1h}")
+    private Duration interval = Duration.ofHours(1);
+
+    @Value("${patient.archive.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${patient.archive.batch-pause:500ms}")
+    private Duration batchPause = Duration.ofMillis(500);
+
+    // Per shard, change sequences below here have been scanned by an earlier run
+    private long[] scannedThrough = new long[0];
+
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final AtomicLong hotRows = new AtomicLong(-1);
+    private final AtomicLong archiveRows = new AtomicLong(-1);
+    private ScheduledExecutorService scheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "patient-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, INITIAL_DELAY.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("Archiving patients inactive for {} every {} in batches of {}", archiveAfter, interval, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // One pass over everything that became archivable since the last pass; returns how many rows moved
+    public synchronized long archive() throws InterruptedException {
+        long start = System.nanoTime();
+        long cutoff = PatientIdGenerator.maxIdAt(System.currentTimeMillis() - archiveAfter.toMillis());
+        if (scannedThrough.length != shardRouter.getShardCount()) {
+            scannedThrough = new long[shardRouter.getShardCount()];
+        }
+        long[] totals = new long[3];
+        try {
+            shardRouter.forEachShard(shard -> {
+                try {
+                    totals[0] += archiveShard(shard, cutoff);
+                } catch (InterruptedException e) {
+                    throw new ArchiveInterrupted(e);
+                }
+                totals[1] += jdbcTemplate.queryForObject(COUNT_HOT_SQL, Long.class);
+                totals[2] += jdbcTemplate.queryForObject(COUNT_ARCHIVE_SQL, Long.class);
+            });
+        } catch (ArchiveInterrupted e) {
+            throw (InterruptedException) e.getCause();
+        }
+        long moved = totals[0];
+        archived.add(moved);
+        hotRows.set(totals[1]);
+        archiveRows.set(totals[2]);
+        if (moved > 0) {
+            log.info("Archived {} inactive patients in {} ms; patients: {} rows, patients_archive: {} rows",
+                    moved, (System.nanoTime() - start) / 1_000_000, hotRows.get(), archiveRows.get());
+        }
+        return moved;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("patient.archive.archived", archived, LongAdder::sum)
+                .description("Inactive patients moved to patients_archive")
+                .register(registry);
+        FunctionTimer.builder("patient.archive.batch", this, a -> a.batches.sum(), a -> a.batchNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("Archive batch transactions")
+                .register(registry);
+        // Counted after each run; negative until the first one
+        Gauge.builder("patient.archive.table.rows", hotRows, AtomicLong::get)
+                .description("Rows in the patient tables")
+                .tag("table", "patients")
+                .register(registry);
+        Gauge.builder("patient.archive.table.rows", archiveRows, AtomicLong::get)
+                .description("Rows in the patient tables")
+                .tag("table", "patients_archive")
+                .register(registry);
+    }
+
+    // Archive the shard the current thread is routed to, from where its last pass stopped
+    private long archiveShard(int shard, long cutoff) throws InterruptedException {
+        Long maxId = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+        long moved = 0;
+        long cursor = scannedThrough[shard];
+        while (maxId != null && cursor < cutoff) {
+            if (shardRouter.isRebalancing()) {
+                // A patient archived on one shard while a rebalance copies it could come back on the other
+                return moved;
+            }
+            long batchStart = System.nanoTime();
+            long from = cursor;
+            long[] result = transactionTemplate.execute(status -> archiveBatch(from, cutoff, maxId));
+            batches.increment();
+            batchNanos.add(System.nanoTime() - batchStart);
+            moved += result[0];
+            if (result[1] < 0) {
+                break;
+            }
+            cursor = result[1];
+            Thread.sleep(batchPause.toMillis());
+        }
+        scannedThrough[shard] = Math.max(scannedThrough[shard], cutoff);
+        return moved;
+    }
+
+    // Rows moved, and the change sequence to continue from (-1 when the range is exhausted).
+    // Every selected row is moved unless it was reactivated or changed again meanwhile, and then
+    // its new sequence is past the cutoff, so continuing from the last sequence seen never
+    // repeats a row and is safe when several rows share a sequence
+    private long[] archiveBatch(long from, long cutoff, long maxId) {
+        List<long[]> candidates = jdbcTemplate.query(SELECT_CANDIDATES_SQL,
+                (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2)}, from, cutoff, maxId, batchSize);
+        List<Object[]> ids = List.of();
+        if (!candidates.isEmpty()) {
+            List<Object> args = new ArrayList<>(candidates.size() + 1);
+            candidates.forEach(candidate -> args.add(candidate[0]));
+            args.add(cutoff);
+            ids = jdbcTemplate.query(String.format(LOCK_CANDIDATES_SQL,
+                            String.join(", ", Collections.nCopies(candidates.size(), "?"))),
+                    (rs, i) -> new Object[]{rs.getLong(1)}, args.toArray());
+        }
+        if (!ids.isEmpty()) {
+            Date today = Date.valueOf(LocalDate.now());
+            jdbcTemplate.batchUpdate(COPY_SQL, ids.stream().map(id -> new Object[]{today, id[0]}).toList());
+            jdbcTemplate.batchUpdate(DELETE_SQL, ids);
+            jdbcTemplate.batchUpdate(DELETE_BLOCKING_KEYS_SQL, ids);
+        }
+        long next = candidates.size() < batchSize ? -1 : candidates.get(candidates.size() - 1)[1];
+        return new long[]{ids.size(), next};
+    }
+
+    private void runSafely() {
+        try {
+            archive();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Patient archive run failed, retrying in {}: {}", interval, e.getMessage());
+        }
+    }
+
+    // Carries an interrupt out of forEachShard, whose work cannot throw checked exceptions
+    private static final class ArchiveInterrupted extends RuntimeException {
+        ArchiveInterrupted(InterruptedException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mhrs.patient.audit;
+
+// Kind of patient read being audited; the ordinal is stored in the log, so only append
+public enum AuditAction {
+    READ_BY_ID,
+    READ_BY_UNIQUE_ID,
+    SEARCH,
+    LIST,
+    PAGE,
+    STREAM,
+    CHANGES,
+    EXPORT,
+    BATCH,
+    DUPLICATES
+}
@@ -0,0 +1,17 @@
+package com.mhrs.patient.audit;
+
+/**
+ * One audited read: who read which patients, and how. A search or list read is a single
+ * event carrying every patient ID it returned.
+ */
+public record AuditEvent(long timestamp, String actor, AuditAction action, long[] patientIds) {
+
+    public boolean concerns(long patientId) {
+        for (long id : patientIds) {
+            if (id == patientId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
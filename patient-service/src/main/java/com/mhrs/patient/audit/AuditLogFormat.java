@@ -0,0 +1,97 @@
+package com.mhrs.patient.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk layout of the audit log.
+ *
+ * The log is a directory of fixed-size segment files named audit-NNNNNNNNNNNNNNNNNNNN.log,
+ * numbered in write order. Each segment is a run of records followed by zeros:
+ *
+ *   int length | int crc32(payload) | payload
+ *   payload = long timestamp | byte action | short actorLength | actor (UTF-8) | int count | long[count] patientIds
+ *
+ * A zero length marks the end of a segment. A record whose checksum does not match is a
+ * torn write from a crash and also ends the segment.
+ */
+final class AuditLogFormat {
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+    static final int MAX_ACTOR_BYTES = 255;
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log";
+
+    private AuditLogFormat() {
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, segment, SUFFIX));
+    }
+
+    // Segment numbers present in the directory, oldest first
+    static List<Long> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> name.substring(PREFIX.length(), name.length() - SUFFIX.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static int payloadSize(byte[] actor, int patientCount) {
+        return Long.BYTES + 1 + Short.BYTES + actor.length + Integer.BYTES + patientCount * Long.BYTES;
+    }
+
+    static byte[] actorBytes(String actor) {
+        byte[] bytes = actor.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_ACTOR_BYTES) {
+            return bytes;
+        }
+        byte[] truncated = new byte[MAX_ACTOR_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, MAX_ACTOR_BYTES);
+        return truncated;
+    }
+
+    static void writePayload(ByteBuffer buffer, AuditEvent event, byte[] actor) {
+        buffer.putLong(event.timestamp());
+        buffer.put((byte) event.action().ordinal());
+        buffer.putShort((short) actor.length);
+        buffer.put(actor);
+        buffer.putInt(event.patientIds().length);
+        for (long patientId : event.patientIds()) {
+            buffer.putLong(patientId);
+        }
+    }
+
+    static AuditEvent readPayload(ByteBuffer payload) {
+        long timestamp = payload.getLong();
+        AuditAction action = AuditAction.values()[payload.get()];
+        byte[] actor = new byte[payload.getShort()];
+        payload.get(actor);
+        long[] patientIds = new long[payload.getInt()];
+        for (int i = 0; i < patientIds.length; i++) {
+            patientIds[i] = payload.getLong();
+        }
+        return new AuditEvent(timestamp, new String(actor, StandardCharsets.UTF_8), action, patientIds);
+    }
+
+    static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+}
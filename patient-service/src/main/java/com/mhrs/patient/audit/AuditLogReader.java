@@ -0,0 +1,92 @@
+package com.mhrs.patient.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Replays audit segments in write order, verifying each record's checksum. Safe to use
+ * while the writer is appending; records still being written are simply not seen yet.
+ */
+public class AuditLogReader {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogReader.class);
+
+    private final Path directory;
+
+    public AuditLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    // Every valid record, oldest first
+    public void replay(Consumer<AuditEvent> consumer) throws IOException {
+        for (long segment : AuditLogFormat.segments(directory)) {
+            try (FileChannel channel = FileChannel.open(AuditLogFormat.segmentPath(directory, segment), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int end = forEachRecord(buffer, consumer);
+                if (end < 0) {
+                    log.warn("Audit segment {} has a corrupt record; replay stopped at its last valid record", segment);
+                }
+            }
+        }
+    }
+
+    // The latest records that include the patient, newest first
+    public List<AuditEvent> findByPatientId(long patientId, int limit) throws IOException {
+        Deque<AuditEvent> latest = new ArrayDeque<>(Math.min(limit, 1024));
+        replay(event -> {
+            if (event.concerns(patientId)) {
+                if (latest.size() == limit) {
+                    latest.removeFirst();
+                }
+                latest.addLast(event);
+            }
+        });
+        List<AuditEvent> events = new ArrayList<>(latest);
+        Collections.reverse(events);
+        return events;
+    }
+
+    // Offset just past the last valid record, where appending resumes
+    static int endOfRecords(ByteBuffer segment) {
+        int end = forEachRecord(segment, event -> { });
+        return end < 0 ? -end - 1 : end;
+    }
+
+    /**
+     * Feeds valid records to the consumer and returns the offset after the last one, or
+     * -(offset + 1) if scanning stopped at a record with a bad checksum.
+     */
+    private static int forEachRecord(ByteBuffer segment, Consumer<AuditEvent> consumer) {
+        int position = 0;
+        int limit = segment.limit();
+        while (position + AuditLogFormat.HEADER_BYTES <= limit) {
+            int length = segment.getInt(position);
+            if (length == 0) {
+                return position;
+            }
+            int payloadStart = position + AuditLogFormat.HEADER_BYTES;
+            if (length < 0 || payloadStart + length > limit) {
+                return -position - 1;
+            }
+            ByteBuffer payload = segment.slice(payloadStart, length);
+            if (AuditLogFormat.checksum(payload) != segment.getInt(position + Integer.BYTES)) {
+                return -position - 1;
+            }
+            consumer.accept(AuditLogFormat.readPayload(payload));
+            position = payloadStart + length;
+        }
+        return position;
+    }
+}
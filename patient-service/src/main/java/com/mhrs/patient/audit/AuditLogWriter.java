@@ -0,0 +1,97 @@
+package com.mhrs.patient.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends audit records to memory-mapped segment files, rolling to a new segment when the
+ * current one is full. Appends are memory copies; force() msyncs the current segment and is
+ * called by the owner on its own schedule. Not thread-safe: one writer thread owns it.
+ *
+ * On open, appending resumes after the last valid record of the newest segment.
+ */
+class AuditLogWriter implements Closeable {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ByteBuffer scratch;
+
+    private long segment;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private boolean dirty;
+
+    AuditLogWriter(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.scratch = ByteBuffer.allocate(segmentSize - AuditLogFormat.HEADER_BYTES);
+        Files.createDirectories(directory);
+
+        List<Long> existing = AuditLogFormat.segments(directory);
+        if (existing.isEmpty()) {
+            open(0);
+        } else {
+            open(existing.get(existing.size() - 1));
+            mapped.position(AuditLogReader.endOfRecords(mapped));
+        }
+    }
+
+    void append(AuditEvent event) throws IOException {
+        byte[] actor = AuditLogFormat.actorBytes(event.actor());
+        int length = AuditLogFormat.payloadSize(actor, event.patientIds().length);
+        if (length > scratch.capacity()) {
+            throw new IllegalArgumentException("Audit record of " + length + " bytes exceeds segment size " + segmentSize);
+        }
+        scratch.clear();
+        AuditLogFormat.writePayload(scratch, event, actor);
+        scratch.flip();
+
+        if (mapped.remaining() < AuditLogFormat.HEADER_BYTES + length) {
+            roll();
+        }
+        int start = mapped.position();
+        mapped.position(start + Integer.BYTES);
+        mapped.putInt(AuditLogFormat.checksum(scratch));
+        mapped.put(scratch);
+        // Length goes in last so a reader never sees a length without its payload
+        mapped.putInt(start, length);
+        dirty = true;
+    }
+
+    void force() {
+        if (dirty) {
+            mapped.force();
+            dirty = false;
+        }
+    }
+
+    long currentSegment() {
+        return segment;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void roll() throws IOException {
+        force();
+        channel.close();
+        open(segment + 1);
+    }
+
+    private void open(long number) throws IOException {
+        segment = number;
+        channel = FileChannel.open(AuditLogFormat.segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+}
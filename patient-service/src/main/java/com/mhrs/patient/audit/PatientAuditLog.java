@@ -0,0 +1,212 @@
+package com.mhrs.patient.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PHI access audit trail. Request threads hand events to a lock-free ring and return; a
+ * single background thread drains the ring into the memory-mapped segment log and msyncs it
+ * every force-interval. If the ring is full the event is dropped and counted rather than
+ * blocking the request, so patient.audit.dropped should be alerted on.
+ *
+ * The actor is the X-User-Id request header, "anonymous" when absent and "system" outside
+ * a request.
+ */
+@Component
+public class PatientAuditLog implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientAuditLog.class);
+
+    public static final String ACTOR_HEADER = "X-User-Id";
+    static final String ANONYMOUS = "anonymous";
+    static final String SYSTEM = "system";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration forceInterval;
+    private final AuditRingBuffer ring;
+    private final AuditLogReader reader;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Thread writerThread;
+
+    public PatientAuditLog(@Value("${patient.audit.directory:audit}") Path directory,
+                           @Value("${patient.audit.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${patient.audit.ring-size:65536}") int ringSize,
+                           @Value("${patient.audit.force-interval:1s}") Duration forceInterval) {
+        this.directory = directory;
+        this.segmentSize = (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+        this.forceInterval = forceInterval;
+        this.ring = new AuditRingBuffer(ringSize);
+        this.reader = new AuditLogReader(directory);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        AuditLogWriter writer = new AuditLogWriter(directory, segmentSize);
+        running = true;
+        writerThread = new Thread(() -> drain(writer), "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Audit log writing to {} (segment {} bytes, ring {}, force every {} ms)",
+                directory.toAbsolutePath(), segmentSize, ring.capacity(), forceInterval.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // Record a read of one patient by the current actor
+    public void record(AuditAction action, long patientId) {
+        record(action, new long[]{patientId});
+    }
+
+    // Record a read of several patients by the current actor
+    public void record(AuditAction action, List<Long> patientIds) {
+        record(action, patientIds, currentActor());
+    }
+
+    // Record a read by an actor captured earlier, for work that outlives the request that started it
+    public void record(AuditAction action, List<Long> patientIds, String actor) {
+        long[] ids = new long[patientIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = patientIds.get(i);
+        }
+        record(action, ids, actor);
+    }
+
+    private void record(AuditAction action, long[] patientIds) {
+        record(action, patientIds, currentActor());
+    }
+
+    private void record(AuditAction action, long[] patientIds, String actor) {
+        if (patientIds.length == 0) {
+            return;
+        }
+        recorded.increment();
+        if (!ring.offer(new AuditEvent(System.currentTimeMillis(), actor, action, patientIds))) {
+            dropped.increment();
+            return;
+        }
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    // Latest reads of a patient, newest first. Events still in the ring are not included.
+    public List<AuditEvent> findByPatientId(long patientId, int limit) throws IOException {
+        return reader.findByPatientId(patientId, limit);
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public int getPendingCount() {
+        return ring.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("patient.audit.recorded", this, PatientAuditLog::getRecordedCount)
+                .description("Audit events handed to the ring")
+                .register(registry);
+        FunctionCounter.builder("patient.audit.written", this, PatientAuditLog::getWrittenCount)
+                .description("Audit events appended to the log")
+                .register(registry);
+        FunctionCounter.builder("patient.audit.dropped", this, PatientAuditLog::getDroppedCount)
+                .description("Audit events dropped because the ring was full")
+                .register(registry);
+        FunctionCounter.builder("patient.audit.failed", this, PatientAuditLog::getFailedCount)
+                .description("Audit events lost to write errors")
+                .register(registry);
+        Gauge.builder("patient.audit.pending", this, PatientAuditLog::getPendingCount)
+                .description("Audit events waiting in the ring")
+                .register(registry);
+    }
+
+    private void drain(AuditLogWriter writer) {
+        long forceIntervalNanos = forceInterval.toNanos();
+        long lastForce = System.nanoTime();
+        try (writer) {
+            while (running || ring.size() > 0) {
+                AuditEvent event = ring.poll();
+                if (event != null) {
+                    append(writer, event);
+                } else {
+                    writerParked = true;
+                    if (ring.size() == 0 && running) {
+                        LockSupport.parkNanos(this, forceIntervalNanos);
+                    }
+                    writerParked = false;
+                }
+                if (System.nanoTime() - lastForce >= forceIntervalNanos) {
+                    writer.force();
+                    lastForce = System.nanoTime();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Audit log could not be closed cleanly", e);
+        }
+    }
+
+    private void append(AuditLogWriter writer, AuditEvent event) {
+        try {
+            writer.append(event);
+            written.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.error("Failed to write audit event for {} by {}", event.action(), event.actor(), e);
+        }
+    }
+
+    // X-User-Id of the current request, "anonymous" without one, "system" outside a request
+    public static String currentActor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return SYSTEM;
+        }
+        String actor = servletAttributes.getRequest().getHeader(ACTOR_HEADER);
+        return actor == null || actor.isBlank() ? ANONYMOUS : actor.trim();
+    }
+}
@@ -0,0 +1,125 @@
+package com.mhrs.patient.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over longs and strings. Bits live in an AtomicLongArray and are
+ * only ever set, so adds and lookups run concurrently without locks. The size is derived
+ * from the expected number of entries and the false-positive rate wanted at that count;
+ * past it the rate climbs, but a key that was added is never reported absent.
+ *
+ * A key is hashed once to 64 bits and its probe positions are derived from that hash and a
+ * remix of it (Kirsch-Mitzenmacher), so neither adds nor lookups allocate.
+ */
+final class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    // Adds that set at least one new bit; close to the number of distinct keys
+    private final AtomicLong entries = new AtomicLong();
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1 but was "
+                    + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedEntries);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long wordCount = Math.max(1, (m + 63) / 64);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter for " + expectedEntries + " entries is too large");
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bits = wordCount * 64;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void add(long key) {
+        if (set(mix(key))) {
+            entries.incrementAndGet();
+        }
+    }
+
+    void add(CharSequence key) {
+        if (set(hash(key))) {
+            entries.incrementAndGet();
+        }
+    }
+
+    boolean mightContain(long key) {
+        return test(mix(key));
+    }
+
+    boolean mightContain(CharSequence key) {
+        return test(hash(key));
+    }
+
+    long entries() {
+        return entries.get();
+    }
+
+    long sizeInBytes() {
+        return bits / 8;
+    }
+
+    // Expected false-positive rate at the current number of entries
+    double falsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashes * (double) entries.get() / bits), hashes);
+    }
+
+    private boolean set(long hash) {
+        long step = mix(hash ^ GOLDEN_GAMMA) | 1;
+        long combined = hash;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bits;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = words.get(word);
+            }
+            combined += step;
+        }
+        return changed;
+    }
+
+    private boolean test(long hash) {
+        long step = mix(hash ^ GOLDEN_GAMMA) | 1;
+        long combined = hash;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += step;
+        }
+        return true;
+    }
+
+    // FNV-1a over the UTF-16 chars, then mixed, since FNV alone spreads short keys poorly
+    private static long hash(CharSequence key) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
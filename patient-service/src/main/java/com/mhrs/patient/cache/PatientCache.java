@@ -0,0 +1,130 @@
+package com.mhrs.patient.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mhrs.patient.db.ReplicaRoutingDataSource;
+import com.mhrs.patient.dto.CacheStatsResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded, TTL-evicting read-through cache of active patients, keyed by both patientId
+ * and patientUniqueId. Entries are PatientDocuments, so hits are served without Jackson.
+ * Unique IDs are matched case-insensitively, as the database matches them.
+ *
+ * Only active patients are ever stored. Loads that race with an invalidation are not
+ * cached: callers take a generation before reading the database and pass it to put(),
+ * which drops the entry if any patient was invalidated in between. The check is made
+ * inside a compute on the entry's key, so an eviction either removes the stored entry or
+ * has already moved the generation on. An entry is only replaced by one with a version at
+ * least as high, so racing refreshes keep the newest. Neither are loads read from a
+ * replica: one that has not applied a write yet would return the row from before it,
+ * after the write had already refreshed the cache.
+ *
+ * Hit, miss, eviction and size meters are published as cache.* tagged cache=patients.byId
+ * and cache=patients.byUniqueId.
+ */
+@Component
+public class PatientCache implements MeterBinder {
+
+    private final Cache<Long, PatientDocument> byId;
+    private final Cache<String, PatientDocument> byUniqueId;
+    private final AtomicLong generation = new AtomicLong();
+
+    public PatientCache(@Value("${patient.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${patient.cache.ttl:10m}") Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byUniqueId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<PatientDocument> getById(Long patientId) {
+        return Optional.ofNullable(byId.getIfPresent(patientId));
+    }
+
+    public Optional<PatientDocument> getByUniqueId(String patientUniqueId) {
+        return Optional.ofNullable(byUniqueId.getIfPresent(uniqueIdKey(patientUniqueId)));
+    }
+
+    // Take before loading from the database; pass the value to put()
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public void put(PatientDocument document, long loadedAtGeneration) {
+        if (document == null || !document.patient().isActive() || ReplicaRoutingDataSource.isReplicaRead()) {
+            return;
+        }
+        store(document, () -> generation.get() == loadedAtGeneration);
+    }
+
+    // Replace the cached copy after a successful write; loads still in flight are dropped
+    public void refresh(PatientDocument document) {
+        if (document.patient().isActive()) {
+            generation.incrementAndGet();
+            store(document, () -> true);
+        } else {
+            evict(document.patient().getPatientId(), document.patient().getPatientUniqueId());
+        }
+    }
+
+    public void evict(Long patientId, String patientUniqueId) {
+        generation.incrementAndGet();
+        if (patientId != null) {
+            byId.invalidate(patientId);
+        }
+        if (patientUniqueId != null) {
+            byUniqueId.invalidate(uniqueIdKey(patientUniqueId));
+        }
+    }
+
+    // Each key is written under its own compute, where valid is checked again
+    private void store(PatientDocument document, BooleanSupplier valid) {
+        byId.asMap().compute(document.patient().getPatientId(), (key, cached) -> newer(cached, document, valid));
+        byUniqueId.asMap().compute(uniqueIdKey(document.patient().getPatientUniqueId()),
+                (key, cached) -> newer(cached, document, valid));
+    }
+
+    private static PatientDocument newer(PatientDocument cached, PatientDocument document, BooleanSupplier valid) {
+        if (!valid.getAsBoolean() || cached != null && cached.patient().getVersion() > document.patient().getVersion()) {
+            return cached;
+        }
+        return document;
+    }
+
+    private static String uniqueIdKey(String patientUniqueId) {
+        return patientUniqueId.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "patients.byId");
+        CaffeineCacheMetrics.monitor(registry, byUniqueId, "patients.byUniqueId");
+    }
+
+    public CacheStatsResponse stats() {
+        CacheStats stats = byId.stats().plus(byUniqueId.stats());
+        return new CacheStatsResponse(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                byId.estimatedSize());
+    }
+}
@@ -0,0 +1,16 @@
+package com.mhrs.patient.cache;
+
+import com.mhrs.patient.dto.PatientResponse;
+
+/**
+ * A patient as served by the detail endpoints: the response, its JSON bytes and a strong
+ * ETag. The bytes are produced once when the document is built; cache hits write them to
+ * the response as they are.
+ */
+public record PatientDocument(PatientResponse patient, byte[] json, String etag) {
+
+    // Every write, clinical text included, bumps the version, so the tag changes with the content
+    public static String etagOf(PatientResponse patient) {
+        return "\"" + patient.getPatientId() + "." + patient.getVersion() + "\"";
+    }
+}
@@ -0,0 +1,320 @@
+package com.mhrs.patient.cache;
+
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.shard.ShardRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Negative-lookup filter: Bloom filters over the patient IDs, unique IDs and emails of every
+ * patient in patients and patients_archive. A key the filter has never seen was never
+ * issued, so a lookup for it is answered 404, or an email known to be free, without a
+ * database round trip. "Might exist" still goes to the database; a false positive (about
+ * false-positive-rate of misses at expected-entries) costs only that trip.
+ *
+ * Filled at startup by a keyset scan of both tables, then kept current by this node's
+ * writers (createPatient, the importer) and by a poll of patients.change_seq every
+ * sync-interval, which picks up patients created on other nodes. Until the scan finishes,
+ * every key might exist. With sharding, both the scan and the poll visit every shard.
+ *
+ * A miss is only trusted for keys a completed poll must have seen. Keys younger than the
+ * last poll minus the change feed's safety lag may belong to a write that had not committed
+ * yet, so they go to the database: unique IDs carry their creation time, and patient IDs
+ * are compared with the highest ID a poll saw at least safety-lag earlier.
+ *
+ * Unique IDs and emails are lowercased and stripped of accents, as MySQL's default
+ * collation compares them.
+ */
+@Component
+public class PatientExistenceFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientExistenceFilter.class);
+
+    private static final String LOAD_SQL = "SELECT patient_id, patient_unique_id, email FROM %s "
+            + "WHERE patient_id > ? ORDER BY patient_id LIMIT ?";
+    private static final String SYNC_SQL = "SELECT patient_id, patient_unique_id, email, change_seq FROM patients "
+            + "WHERE change_seq > ? ORDER BY change_seq LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final boolean enabled;
+    private final long expectedEntries;
+    private final BloomFilter ids;
+    private final BloomFilter uniqueIds;
+    private final BloomFilter emails;
+
+    @Value("${patient.existence-filter.sync-interval:1s}")
+    private Duration syncInterval = Duration.ofSeconds(1);
+
+    @Value("${patient.existence-filter.chunk-size:10000}")
+    private int chunkSize = 10_000;
+
+    @Value("${patient.changes.safety-lag:5s}")
+    private Duration safetyLag = Duration.ofSeconds(5);
+
+    private volatile boolean ready;
+    // Patient IDs up to here, and unique IDs issued up to this epoch millisecond, were seen if they exist
+    private volatile long trustedMaxId = -1;
+    private volatile long trustedUntilMillis = Long.MIN_VALUE;
+
+    // Poll state, guarded by this
+    private long syncFrom;
+    private long maxIdSeen;
+    private final Deque<long[]> syncHistory = new ArrayDeque<>();
+
+    private final LongAdder idMisses = new LongAdder();
+    private final LongAdder uniqueIdMisses = new LongAdder();
+    private final LongAdder emailMisses = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public PatientExistenceFilter(@Value("${patient.existence-filter.enabled:true}") boolean enabled,
+                                  @Value("${patient.existence-filter.expected-entries:5000000}") long expectedEntries,
+                                  @Value("${patient.existence-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.enabled = enabled;
+        this.expectedEntries = expectedEntries;
+        // A disabled filter is never ready, so its bits are never read
+        long size = enabled ? expectedEntries : 1;
+        this.ids = new BloomFilter(size, falsePositiveRate);
+        this.uniqueIds = new BloomFilter(size, falsePositiveRate);
+        this.emails = new BloomFilter(size, falsePositiveRate);
+    }
+
+    // Record a patient written on this node; call before the transaction commits
+    public void add(Long patientId, String patientUniqueId, String email) {
+        if (patientId != null) {
+            ids.add(patientId);
+        }
+        if (patientUniqueId != null) {
+            uniqueIds.add(fold(patientUniqueId));
+        }
+        if (email != null) {
+            emails.add(fold(email));
+        }
+    }
+
+    // False only when no patient has this ID
+    public boolean mightContainId(long patientId) {
+        if (!ready || patientId > trustedMaxId || ids.mightContain(patientId)) {
+            return true;
+        }
+        idMisses.increment();
+        return false;
+    }
+
+    // False only when no patient has this unique ID
+    public boolean mightContainUniqueId(String patientUniqueId) {
+        if (!ready || issuedAfter(patientUniqueId, trustedUntilMillis) || uniqueIds.mightContain(fold(patientUniqueId))) {
+            return true;
+        }
+        uniqueIdMisses.increment();
+        return false;
+    }
+
+    // False only when no patient has this email. Emails carry no time, so a patient created
+    // on another node since the last poll may be missed; the unique key on email still holds
+    public boolean mightContainEmail(String email) {
+        if (!ready || emails.mightContain(fold(email))) {
+            return true;
+        }
+        emailMisses.increment();
+        return false;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long[] loaded = {0};
+        shardRouter.forEachShard(shard -> loaded[0] += load("patients") + load("patients_archive"));
+        syncFrom = PatientIdGenerator.maxIdAt(start - safetyLag.toMillis());
+        syncHistory.addLast(new long[]{start, maxIdSeen});
+        trustedUntilMillis = start - safetyLag.toMillis();
+        ready = true;
+        log.info("Patient existence filter loaded {} patients in {} ms ({} KB per key type)",
+                loaded[0], System.currentTimeMillis() - start, ids.sizeInBytes() / 1024);
+        if (loaded[0] > expectedEntries) {
+            log.warn("{} patients exceed patient.existence-filter.expected-entries={}; false positives will rise "
+                    + "above the configured rate until it is raised", loaded[0], expectedEntries);
+        }
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "patient-existence-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncSafely, syncInterval.toMillis(), syncInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Add patients whose change sequence was issued since the previous poll's horizon
+    public synchronized void sync() {
+        long start = System.currentTimeMillis();
+        shardRouter.forEachShard(shard -> {
+            long from = syncFrom;
+            while (true) {
+                long[] last = {from};
+                int read = jdbcTemplate.query(SYNC_SQL, rs -> {
+                    int rows = 0;
+                    while (rs.next()) {
+                        addLoaded(rs.getLong(1), rs.getString(2), rs.getString(3));
+                        last[0] = rs.getLong(4);
+                        rows++;
+                    }
+                    return rows;
+                }, from, chunkSize);
+                if (read < chunkSize) {
+                    break;
+                }
+                from = last[0];
+            }
+        });
+        long horizon = start - safetyLag.toMillis();
+        syncFrom = PatientIdGenerator.maxIdAt(horizon);
+        trustedUntilMillis = horizon;
+        // The highest ID seen by a poll that started at least safety-lag before this one was
+        // allocated long enough ago to have committed, and so has been seen, as have all below it
+        syncHistory.addLast(new long[]{start, maxIdSeen});
+        while (syncHistory.size() > 1) {
+            long[] oldest = syncHistory.removeFirst();
+            if (syncHistory.peekFirst()[0] > horizon) {
+                syncHistory.addFirst(oldest);
+                break;
+            }
+        }
+        long[] oldest = syncHistory.peekFirst();
+        if (oldest[0] <= horizon) {
+            trustedMaxId = oldest[1];
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindKey(registry, "id", ids, idMisses);
+        bindKey(registry, "unique_id", uniqueIds, uniqueIdMisses);
+        bindKey(registry, "email", emails, emailMisses);
+    }
+
+    private void bindKey(MeterRegistry registry, String key, BloomFilter filter, LongAdder misses) {
+        FunctionCounter.builder("patient.existence.misses", misses, LongAdder::sum)
+                .description("Lookups answered as absent without a database query")
+                .tag("key", key)
+                .register(registry);
+        Gauge.builder("patient.existence.entries", filter, BloomFilter::entries)
+                .description("Keys in the existence filter")
+                .tag("key", key)
+                .register(registry);
+        Gauge.builder("patient.existence.false.positive.rate", filter, BloomFilter::falsePositiveRate)
+                .description("Expected share of absent keys the existence filter lets through")
+                .tag("key", key)
+                .register(registry);
+    }
+
+    private long load(String table) {
+        String sql = String.format(LOAD_SQL, table);
+        long loaded = 0;
+        long after = 0;
+        while (true) {
+            long[] last = {after};
+            int read = jdbcTemplate.query(sql, rs -> {
+                int rows = 0;
+                while (rs.next()) {
+                    last[0] = rs.getLong(1);
+                    addLoaded(last[0], rs.getString(2), rs.getString(3));
+                    rows++;
+                }
+                return rows;
+            }, after, chunkSize);
+            loaded += read;
+            if (read < chunkSize) {
+                return loaded;
+            }
+            after = last[0];
+        }
+    }
+
+    private void addLoaded(long patientId, String patientUniqueId, String email) {
+        add(patientId, patientUniqueId, email);
+        maxIdSeen = Math.max(maxIdSeen, patientId);
+    }
+
+    private void syncSafely() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            // Nothing new becomes trusted until a poll succeeds, so a failure only costs database lookups
+            log.warn("Patient existence filter poll failed, retrying in {}: {}", syncInterval, e.getMessage());
+        }
+    }
+
+    // Whether a generated unique ID (PAT-<snowflake>) was issued after the given epoch millisecond
+    private static boolean issuedAfter(String patientUniqueId, long epochMillis) {
+        String prefix = PatientIdGenerator.PREFIX;
+        int length = patientUniqueId.length();
+        if (length <= prefix.length() || length > prefix.length() + 19
+                || !patientUniqueId.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return false;
+        }
+        long id = 0;
+        for (int i = prefix.length(); i < length; i++) {
+            char c = patientUniqueId.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            id = id * 10 + (c - '0');
+            if (id < 0) {
+                return false;
+            }
+        }
+        return PatientIdGenerator.timestampOf(id) > epochMillis;
+    }
+
+    // Lowercased and, for non-ASCII input, with accents stripped; ASCII lowercase keys are returned as is
+    static String fold(String key) {
+        String lower = key.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 127) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            }
+        }
+        return lower;
+    }
+}
@@ -0,0 +1,68 @@
+package com.mhrs.patient.changes;
+
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+
+/**
+ * Gives patients written before the change feed existed a change sequence, so a consumer
+ * starting from since=0 receives them. Runs in chunks at startup and does nothing once
+ * every row has one.
+ */
+@Component
+public class ChangeSequenceBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeSequenceBackfill.class);
+
+    private static final String SELECT_MISSING_SQL =
+            "SELECT patient_id FROM patients WHERE change_seq IS NULL ORDER BY patient_id LIMIT ?";
+    private static final String UPDATE_SQL =
+            "UPDATE patients SET change_seq = ? WHERE patient_id = ? AND change_seq IS NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PatientIdGenerator patientIdGenerator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${patient.changes.backfill-chunk-size:1000}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        shardRouter.forEachShard(shard -> backfillShard());
+    }
+
+    private void backfillShard() {
+        long start = System.nanoTime();
+        long filled = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_MISSING_SQL, Long.class, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL,
+                    ids.stream().map(id -> new Object[]{patientIdGenerator.nextId(), id}).toList()));
+            filled += ids.size();
+        }
+        if (filled > 0) {
+            log.info("Assigned change sequences to {} existing patients in {} ms",
+                    filled, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
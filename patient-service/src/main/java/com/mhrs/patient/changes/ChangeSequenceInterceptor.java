@@ -0,0 +1,62 @@
+package com.mhrs.patient.changes;
+
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.model.Patient;
+import org.hibernate.Interceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+
+/**
+ * Stamps a fresh change sequence on every Patient that Hibernate inserts or updates. Hibernate
+ * only calls onFlushDirty for entities that really changed, so a PUT that changes nothing
+ * keeps its sequence (and version). Writes that bypass entity flushes (PATCH, bulk import)
+ * set change_seq themselves.
+ *
+ * Sequences come from PatientIdGenerator, so they are unique across replicas and ordered by
+ * the time they were issued. They are issued at flush, before commit; the change feed reads
+ * only up to a safety lag behind the current time so slower transactions are not skipped.
+ */
+@Component
+public class ChangeSequenceInterceptor implements Interceptor, HibernatePropertiesCustomizer {
+
+    static final String PROPERTY = "changeSeq";
+
+    @Autowired
+    private PatientIdGenerator patientIdGenerator;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.INTERCEPTOR, this);
+    }
+
+    @Override
+    public boolean onPersist(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        return stamp(entity, state, propertyNames);
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Object id, Object[] currentState, Object[] previousState,
+                                String[] propertyNames, Type[] types) {
+        return stamp(entity, currentState, propertyNames);
+    }
+
+    // The entity is updated too, otherwise the next flush would see it as dirty again
+    private boolean stamp(Object entity, Object[] state, String[] propertyNames) {
+        if (!(entity instanceof Patient patient)) {
+            return false;
+        }
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (PROPERTY.equals(propertyNames[i])) {
+                long changeSeq = patientIdGenerator.nextId();
+                state[i] = changeSeq;
+                patient.setChangeSeq(changeSeq);
+                return true;
+            }
+        }
+        return false;
+    }
+}
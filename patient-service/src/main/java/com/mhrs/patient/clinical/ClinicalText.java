@@ -0,0 +1,7 @@
+package com.mhrs.patient.clinical;
+
+// Decoded clinical texts of one patient; either may be null
+public record ClinicalText(String allergies, String medicalHistory) {
+
+    public static final ClinicalText EMPTY = new ClinicalText(null, null);
+}
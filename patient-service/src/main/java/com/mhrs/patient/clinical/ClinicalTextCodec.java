@@ -0,0 +1,153 @@
+package com.mhrs.patient.clinical;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes clinical text for storage. The first byte names the format:
+ *
+ *   0 | UTF-8 bytes                                  (below the threshold, or not shrinking)
+ *   1 | int original length | raw Deflate stream     (compressed)
+ *
+ * Texts shorter than compression-threshold bytes are stored plain; compressing them costs
+ * more CPU than the bytes it saves. Original and stored byte totals are exported so the
+ * saving can be graphed, along with encode and decode timings.
+ */
+@Component
+public class ClinicalTextCodec implements MeterBinder {
+
+    static final byte PLAIN = 0;
+    static final byte DEFLATE = 1;
+
+    private static final int DEFLATE_HEADER = 1 + Integer.BYTES;
+
+    private final int threshold;
+    private final int level;
+
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder encodes = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder decodes = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    public ClinicalTextCodec(@Value("${patient.clinical-text.compression-threshold:256}") int threshold,
+                             @Value("${patient.clinical-text.compression-level:6}") int level) {
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    public byte[] encode(String text) {
+        if (text == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = utf8.length >= threshold ? deflate(utf8) : null;
+        if (stored == null) {
+            stored = new byte[utf8.length + 1];
+            stored[0] = PLAIN;
+            System.arraycopy(utf8, 0, stored, 1, utf8.length);
+        } else {
+            compressed.increment();
+        }
+        originalBytes.add(utf8.length);
+        storedBytes.add(stored.length);
+        encodes.increment();
+        encodeNanos.add(System.nanoTime() - start);
+        return stored;
+    }
+
+    public String decode(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        String text = switch (stored[0]) {
+            case PLAIN -> new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE -> new String(inflate(stored), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Unknown clinical text format " + stored[0]);
+        };
+        decodes.increment();
+        decodeNanos.add(System.nanoTime() - start);
+        return text;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("patient.clinical_text.original", originalBytes, LongAdder::sum)
+                .description("Clinical text bytes before encoding")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("patient.clinical_text.stored", storedBytes, LongAdder::sum)
+                .description("Clinical text bytes after encoding")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("patient.clinical_text.compressed", compressed, LongAdder::sum)
+                .description("Clinical texts stored compressed")
+                .register(registry);
+        FunctionTimer.builder("patient.clinical_text.encode", this, c -> c.encodes.sum(), c -> c.encodeNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .register(registry);
+        FunctionTimer.builder("patient.clinical_text.decode", this, c -> c.decodes.sum(), c -> c.decodeNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .register(registry);
+    }
+
+    // Null when compression would not make the value smaller
+    private byte[] deflate(byte[] utf8) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            byte[] out = new byte[utf8.length + 1];
+            int length = deflater.deflate(out, DEFLATE_HEADER, out.length - DEFLATE_HEADER);
+            if (!deflater.finished()) {
+                return null;
+            }
+            out[0] = DEFLATE;
+            ByteBuffer.wrap(out, 1, Integer.BYTES).putInt(utf8.length);
+            return Arrays.copyOf(out, DEFLATE_HEADER + length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored) {
+        int length = ByteBuffer.wrap(stored, 1, Integer.BYTES).getInt();
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(stored, DEFLATE_HEADER, stored.length - DEFLATE_HEADER);
+            byte[] out = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(out, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalStateException("Clinical text truncated: expected " + length + " bytes, got " + read);
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed clinical text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mhrs.patient.clinical;
+
+import com.mhrs.patient.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves clinical text left in the legacy patients.allergies and patients.medical_history
+ * columns into patient_clinical_text. Schema updates never drop columns, so databases
+ * created before the split still carry them. Rows are moved in chunks, one transaction
+ * each, and the legacy values are cleared as they go so a restart picks up where the last
+ * run stopped. Once a run reports nothing to move the columns can be dropped by hand.
+ *
+ * The migration runs while requests are served. Each chunk is read with its rows locked and
+ * merged a field at a time: a text the side table already holds wins, and the legacy value
+ * only fills a field it lacks. Until then ClinicalTextStore reads the legacy columns itself.
+ */
+@Component
+public class ClinicalTextMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ClinicalTextMigration.class);
+
+    private static final String SELECT_LEGACY_SQL = "SELECT patient_id, allergies, medical_history FROM patients "
+            + "WHERE patient_id > ? AND (allergies IS NOT NULL OR medical_history IS NOT NULL) "
+            + "ORDER BY patient_id LIMIT ? FOR UPDATE";
+    private static final String CLEAR_LEGACY_SQL =
+            "UPDATE patients SET allergies = NULL, medical_history = NULL WHERE patient_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClinicalTextStore clinicalTextStore;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${patient.clinical-text.migration-chunk-size:500}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        boolean[] legacy = new boolean[1];
+        shardRouter.forEachShard(shard -> legacy[0] |= migrateShard());
+        if (legacy[0]) {
+            clinicalTextStore.legacyMigrated();
+        }
+    }
+
+    // Whether the shard has the legacy columns
+    private boolean migrateShard() {
+        if (!hasLegacyColumns()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        long moved = 0;
+        long lastId = 0;
+        while (true) {
+            long after = lastId;
+            List<Map<String, Object>> rows = transactionTemplate.execute(status -> {
+                List<Map<String, Object>> chunk = jdbcTemplate.queryForList(SELECT_LEGACY_SQL, after, chunkSize);
+                moveChunk(chunk);
+                return chunk;
+            });
+            if (rows.isEmpty()) {
+                break;
+            }
+            moved += rows.size();
+            lastId = ((Number) rows.get(rows.size() - 1).get("patient_id")).longValue();
+        }
+        log.info("Moved clinical text of {} patients out of the patients table in {} ms",
+                moved, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    // Text already in the side table was written after the split and wins over the legacy copy, field by field
+    private void moveChunk(List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Long> ids = rows.stream().map(row -> ((Number) row.get("patient_id")).longValue()).toList();
+        List<ClinicalText> texts = rows.stream()
+                .map(row -> new ClinicalText((String) row.get("allergies"), (String) row.get("medical_history")))
+                .toList();
+        clinicalTextStore.mergeLegacy(ids, texts);
+        jdbcTemplate.batchUpdate(CLEAR_LEGACY_SQL, ids.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    private boolean hasLegacyColumns() {
+        try {
+            jdbcTemplate.queryForList("SELECT allergies, medical_history FROM patients WHERE 1 = 0");
+            return true;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
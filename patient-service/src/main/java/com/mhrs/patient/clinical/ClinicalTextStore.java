@@ -0,0 +1,220 @@
+package com.mhrs.patient.clinical;
+
+import com.mhrs.patient.model.PatientClinicalText;
+import com.mhrs.patient.repository.PatientClinicalTextRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the clinical texts held in patient_clinical_text. Only detail views
+ * (single-patient reads and writes) go through here; lists, searches and streams never
+ * touch the table.
+ *
+ * Until ClinicalTextMigration has emptied the legacy patients.allergies and
+ * patients.medical_history columns, a text missing from the side table is read from them,
+ * and a write takes the legacy values over into the side table (a field at a time) and
+ * clears them, so the migration never brings back a text that was changed since.
+ */
+@Component
+public class ClinicalTextStore {
+
+    static final String INSERT_SQL =
+            "INSERT INTO patient_clinical_text (patient_id, allergies, medical_history) VALUES (?, ?, ?)";
+    // Fills only the fields the side table does not have yet
+    static final String MERGE_SQL = "UPDATE patient_clinical_text SET allergies = COALESCE(allergies, ?), "
+            + "medical_history = COALESCE(medical_history, ?) WHERE patient_id = ?";
+    private static final String SELECT_LEGACY_SQL = "SELECT patient_id, allergies, medical_history FROM patients "
+            + "WHERE patient_id IN (%s) AND (allergies IS NOT NULL OR medical_history IS NOT NULL)";
+    private static final String LOCK_LEGACY_SQL = "SELECT allergies, medical_history FROM patients "
+            + "WHERE patient_id = ? FOR UPDATE";
+    private static final String CLEAR_LEGACY_SQL = "UPDATE patients SET allergies = NULL, medical_history = NULL "
+            + "WHERE patient_id = ? AND (allergies IS NOT NULL OR medical_history IS NOT NULL)";
+
+    @Autowired
+    private PatientClinicalTextRepository clinicalTextRepository;
+
+    @Autowired
+    private ClinicalTextCodec codec;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Whether patients still has the legacy columns; null until first looked at
+    private volatile Boolean legacyColumns;
+    // Set once ClinicalTextMigration has emptied them
+    private volatile boolean legacyMigrated;
+
+    // Load and decode the texts of one patient
+    public ClinicalText load(Long patientId) {
+        return loadAll(List.of(patientId)).getOrDefault(patientId, ClinicalText.EMPTY);
+    }
+
+    // Load and decode the texts of several patients in one IN query; patients without texts are absent
+    public Map<Long, ClinicalText> loadAll(Collection<Long> patientIds) {
+        Map<Long, ClinicalText> texts = new HashMap<>();
+        for (PatientClinicalText row : clinicalTextRepository.findAllById(patientIds)) {
+            texts.put(row.getPatientId(), decode(row));
+        }
+        if (hasLegacyText() && !patientIds.isEmpty()) {
+            String sql = String.format(SELECT_LEGACY_SQL, String.join(", ", Collections.nCopies(patientIds.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                long patientId = rs.getLong(1);
+                ClinicalText stored = texts.getOrDefault(patientId, ClinicalText.EMPTY);
+                texts.put(patientId, new ClinicalText(
+                        stored.allergies() != null ? stored.allergies() : rs.getString(2),
+                        stored.medicalHistory() != null ? stored.medicalHistory() : rs.getString(3)));
+            }, patientIds.toArray());
+        }
+        return texts;
+    }
+
+    // Replace both texts; returns whether anything stored changed
+    public boolean replace(Long patientId, String allergies, String medicalHistory) {
+        // The new texts supersede the legacy ones too
+        boolean legacyCleared = hasLegacyText() && jdbcTemplate.update(CLEAR_LEGACY_SQL, patientId) > 0;
+        PatientClinicalText row = clinicalTextRepository.findById(patientId).orElse(null);
+        boolean persisted = row != null;
+        byte[] encodedAllergies = codec.encode(allergies);
+        byte[] encodedHistory = codec.encode(medicalHistory);
+        if (!persisted) {
+            row = new PatientClinicalText(patientId, null, null);
+        } else if (Arrays.equals(row.getAllergies(), encodedAllergies)
+                && Arrays.equals(row.getMedicalHistory(), encodedHistory)) {
+            return legacyCleared;
+        }
+        row.setAllergies(encodedAllergies);
+        row.setMedicalHistory(encodedHistory);
+        return write(row, persisted) || legacyCleared;
+    }
+
+    // Merge partial changes: null leaves a text as it is, an empty string clears it
+    public ClinicalText patch(Long patientId, String allergies, String medicalHistory) {
+        PatientClinicalText row = clinicalTextRepository.findById(patientId).orElse(null);
+        boolean persisted = row != null;
+        if (!persisted) {
+            row = new PatientClinicalText(patientId, null, null);
+        }
+        if (hasLegacyText()) {
+            takeLegacy(row);
+        }
+        if (allergies != null) {
+            row.setAllergies(allergies.isEmpty() ? null : codec.encode(allergies));
+        }
+        if (medicalHistory != null) {
+            row.setMedicalHistory(medicalHistory.isEmpty() ? null : codec.encode(medicalHistory));
+        }
+        write(row, persisted);
+        return decode(row);
+    }
+
+    // Batch insert for freshly created patients; runs in the caller's transaction
+    public void insertAll(List<Long> patientIds, List<ClinicalText> texts) {
+        List<Object[]> args = new ArrayList<>();
+        for (int i = 0; i < patientIds.size(); i++) {
+            ClinicalText text = texts.get(i);
+            if (patientIds.get(i) != null && (text.allergies() != null || text.medicalHistory() != null)) {
+                args.add(new Object[]{patientIds.get(i), codec.encode(text.allergies()), codec.encode(text.medicalHistory())});
+            }
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+        }
+    }
+
+    // Legacy texts of a migration chunk: each field goes where the side table has none, so text
+    // written after the split wins; runs in the caller's transaction
+    public void mergeLegacy(List<Long> patientIds, List<ClinicalText> texts) {
+        if (patientIds.isEmpty()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>();
+        clinicalTextRepository.findAllById(patientIds).forEach(row -> existing.add(row.getPatientId()));
+        List<Long> newIds = new ArrayList<>();
+        List<ClinicalText> newTexts = new ArrayList<>();
+        List<Object[]> merges = new ArrayList<>();
+        for (int i = 0; i < patientIds.size(); i++) {
+            ClinicalText text = texts.get(i);
+            if (existing.contains(patientIds.get(i))) {
+                merges.add(new Object[]{codec.encode(text.allergies()), codec.encode(text.medicalHistory()), patientIds.get(i)});
+            } else {
+                newIds.add(patientIds.get(i));
+                newTexts.add(text);
+            }
+        }
+        if (!merges.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_SQL, merges);
+        }
+        insertAll(newIds, newTexts);
+    }
+
+    // The legacy columns are empty for good; stop looking at them
+    public void legacyMigrated() {
+        legacyMigrated = true;
+    }
+
+    boolean hasLegacyText() {
+        if (legacyMigrated) {
+            return false;
+        }
+        Boolean columns = legacyColumns;
+        if (columns == null) {
+            try {
+                jdbcTemplate.queryForList("SELECT allergies, medical_history FROM patients WHERE 1 = 0");
+                columns = true;
+            } catch (DataAccessException e) {
+                columns = false;
+            }
+            legacyColumns = columns;
+        }
+        return columns;
+    }
+
+    // Fill the row's empty fields from the legacy columns and clear those, under a row lock
+    // that keeps the migration from moving them at the same time
+    private void takeLegacy(PatientClinicalText row) {
+        List<Map<String, Object>> legacy = jdbcTemplate.queryForList(LOCK_LEGACY_SQL, row.getPatientId());
+        if (legacy.isEmpty()) {
+            return;
+        }
+        String allergies = (String) legacy.get(0).get("allergies");
+        String medicalHistory = (String) legacy.get(0).get("medical_history");
+        if (allergies == null && medicalHistory == null) {
+            return;
+        }
+        if (row.getAllergies() == null) {
+            row.setAllergies(codec.encode(allergies));
+        }
+        if (row.getMedicalHistory() == null) {
+            row.setMedicalHistory(codec.encode(medicalHistory));
+        }
+        jdbcTemplate.update(CLEAR_LEGACY_SQL, row.getPatientId());
+    }
+
+    // A patient without any clinical text has no row
+    private boolean write(PatientClinicalText row, boolean persisted) {
+        if (row.getAllergies() == null && row.getMedicalHistory() == null) {
+            if (!persisted) {
+                return false;
+            }
+            clinicalTextRepository.delete(row);
+        } else {
+            clinicalTextRepository.save(row);
+        }
+        return true;
+    }
+
+    private ClinicalText decode(PatientClinicalText row) {
+        return new ClinicalText(codec.decode(row.getAllergies()), codec.decode(row.getMedicalHistory()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.mhrs.patient.controller;
+
+import com.mhrs.patient.audit.AuditEvent;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.dto.AuditEventResponse;
+import com.mhrs.patient.dto.AuditStatsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/audit")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AuditController {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditController.class);
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private PatientAuditLog patientAuditLog;
+
+    /**
+     * Get the latest recorded reads of a patient, newest first
+     * GET /api/v1/audit/patients/{patientId}?limit=100
+     */
+    @GetMapping("/patients/{patientId}")
+    public ResponseEntity<List<AuditEventResponse>> getPatientAccess(
+            @PathVariable Long patientId,
+            @RequestParam(defaultValue = "100") int limit) throws IOException {
+        log.info("GET request: Fetching audit trail for patient ID: {}", patientId);
+        List<AuditEvent> events = patientAuditLog.findByPatientId(patientId, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return ResponseEntity.ok(events.stream().map(AuditController::toResponse).toList());
+    }
+
+    /**
+     * Read audit pipeline counters
+     * GET /api/v1/audit/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<AuditStatsResponse> getStats() {
+        return ResponseEntity.ok(new AuditStatsResponse(
+                patientAuditLog.getRecordedCount(),
+                patientAuditLog.getWrittenCount(),
+                patientAuditLog.getDroppedCount(),
+                patientAuditLog.getFailedCount(),
+                patientAuditLog.getPendingCount()));
+    }
+
+    private static AuditEventResponse toResponse(AuditEvent event) {
+        return new AuditEventResponse(
+                Instant.ofEpochMilli(event.timestamp()),
+                event.actor(),
+                event.action().name(),
+                Arrays.stream(event.patientIds()).boxed().toList());
+    }
+}
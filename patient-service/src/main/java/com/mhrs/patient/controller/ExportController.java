@@ -0,0 +1,99 @@
+package com.mhrs.patient.controller;
+
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.dto.PatientExportJobResponse;
+import com.mhrs.patient.export.PatientExportFormat;
+import com.mhrs.patient.export.PatientExportJobs;
+import com.mhrs.patient.export.PatientExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+@RestController
+@RequestMapping("/api/v1/patients/export")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    @Autowired
+    private PatientExporter patientExporter;
+
+    @Autowired
+    private PatientExportJobs patientExportJobs;
+
+    /**
+     * Download active patients as csv, csv.gz or columnar, optionally after a patient ID
+     * GET /api/v1/patients/export?format=csv.gz&after=0
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportPatients(
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "0") long after) {
+        PatientExportFormat exportFormat = PatientExportFormat.parse(format);
+        log.info("GET request: Exporting patients as {} after ID {}", exportFormat, after);
+        // The body runs on an async thread; capture the caller now so the export is audited to them
+        String actor = PatientAuditLog.currentActor();
+        StreamingResponseBody body = outputStream -> {
+            WritableByteChannel channel = Channels.newChannel(outputStream);
+            patientExporter.export(exportFormat, after, false, actor, channel, (lastPatientId, rows, bytes) -> true);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("patients." + exportFormat.getExtension()).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Start a background export to a file on the server
+     * POST /api/v1/patients/export/jobs?format=columnar
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<PatientExportJobResponse> startJob(@RequestParam(required = false) String format)
+            throws IOException {
+        log.info("POST request: Starting export job");
+        return new ResponseEntity<>(patientExportJobs.start(PatientExportFormat.parse(format)), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Get an export job's state, progress and rows per second
+     * GET /api/v1/patients/export/jobs/{id}
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<PatientExportJobResponse> getJob(@PathVariable String id) throws IOException {
+        return ResponseEntity.of(patientExportJobs.find(id));
+    }
+
+    /**
+     * Resume an interrupted or failed export job from its last checkpoint
+     * POST /api/v1/patients/export/jobs/{id}/resume
+     */
+    @PostMapping("/jobs/{id}/resume")
+    public ResponseEntity<PatientExportJobResponse> resumeJob(@PathVariable String id) throws IOException {
+        log.info("POST request: Resuming export job {}", id);
+        return patientExportJobs.resume(id)
+                .map(job -> new ResponseEntity<>(job, HttpStatus.ACCEPTED))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cancel an export job after its current block; it can be resumed later
+     * DELETE /api/v1/patients/export/jobs/{id}
+     */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<PatientExportJobResponse> cancelJob(@PathVariable String id) throws IOException {
+        log.info("DELETE request: Cancelling export job {}", id);
+        return ResponseEntity.of(patientExportJobs.cancel(id));
+    }
+}
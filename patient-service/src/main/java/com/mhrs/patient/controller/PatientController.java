@@ -1,15 +1,42 @@
 package com.mhrs.patient.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mhrs.patient.cache.PatientDocument;
+import com.mhrs.patient.dto.CacheStatsResponse;
 import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.DuplicateCandidateResponse;
+import com.mhrs.patient.dto.DuplicateScanResponse;
+import com.mhrs.patient.dto.PatientBatchRequest;
+import com.mhrs.patient.dto.PatientBatchResponse;
+import com.mhrs.patient.dto.PatchPatientRequest;
+import com.mhrs.patient.dto.PatientChangesResponse;
+import com.mhrs.patient.dto.PatientImportResponse;
+import com.mhrs.patient.dto.PatientPageResponse;
 import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.dto.PatientSearchCriteria;
+import com.mhrs.patient.dto.PatientSearchResponse;
+import com.mhrs.patient.importer.PatientImportService;
+import com.mhrs.patient.matching.DuplicateScanner;
+import com.mhrs.patient.repository.PatientFields;
 import com.mhrs.patient.service.PatientService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -19,61 +46,195 @@ public class PatientController {
 
     private static final Logger log = LoggerFactory.getLogger(PatientController.class);
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private PatientService patientService;
 
+    @Autowired
+    private PatientImportService patientImportService;
+
+    @Autowired
+    private DuplicateScanner duplicateScanner;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
-     * Create a new patient
-     * POST /api/v1/patients
+     * Create a new patient; 409 with the candidates when it very likely is an existing patient
+     * POST /api/v1/patients or ?allowDuplicate=true once confirmed to be a different person
      */
     @PostMapping
-    public ResponseEntity<PatientResponse> createPatient(@Valid @RequestBody CreatePatientRequest request) {
-        log.info("POST request: Creating new patient");
-        PatientResponse response = patientService.createPatient(request);
+    public ResponseEntity<PatientResponse> createPatient(@Valid @RequestBody CreatePatientRequest request,
+                                                         @RequestParam(defaultValue = "false") boolean allowDuplicate) {
+        log.info("POST request: Creating new patient (allowDuplicate: {})", allowDuplicate);
+        PatientResponse response = patientService.createPatient(request, allowDuplicate);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     /**
-     * Get patient by ID
+     * Bulk import patients from a CSV (with header row) or NDJSON stream
+     * POST /api/v1/patients/import
+     */
+    @PostMapping(value = "/import", consumes = {PatientImportService.CSV, PatientImportService.NDJSON})
+    public ResponseEntity<PatientImportResponse> importPatients(HttpServletRequest request) throws IOException {
+        log.info("POST request: Importing patients ({})", request.getContentType());
+        PatientImportResponse response = patientImportService.importPatients(request.getContentType(), request.getInputStream());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get patient by ID; 304 Not Modified when If-None-Match carries the current ETag
      * GET /api/v1/patients/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<PatientResponse> getPatientById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getPatientById(@PathVariable Long id) {
         log.info("GET request: Fetching patient by ID: {}", id);
-        PatientResponse response = patientService.getPatientById(id);
-        return ResponseEntity.ok(response);
+        return documentResponse(patientService.getPatientDocumentById(id));
     }
 
     /**
-     * Get patient by unique ID
+     * Get patient by unique ID; 304 Not Modified when If-None-Match carries the current ETag
      * GET /api/v1/patients/unique/{uniqueId}
      */
     @GetMapping("/unique/{uniqueId}")
-    public ResponseEntity<PatientResponse> getPatientByUniqueId(@PathVariable String uniqueId) {
+    public ResponseEntity<byte[]> getPatientByUniqueId(@PathVariable String uniqueId) {
         log.info("GET request: Fetching patient by unique ID: {}", uniqueId);
-        PatientResponse response = patientService.getPatientByUniqueId(uniqueId);
-        return ResponseEntity.ok(response);
+        return documentResponse(patientService.getPatientDocumentByUniqueId(uniqueId));
     }
 
     /**
-     * Get all patients
-     * GET /api/v1/patients
+     * Look up many patients by ID and/or unique ID, in request order with not-found markers
+     * POST /api/v1/patients/batch
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<PatientBatchResponse> getPatientsBatch(@RequestBody PatientBatchRequest request) {
+        log.info("POST request: Fetching batch of patients");
+        return ResponseEntity.ok(patientService.getPatientsBatch(request));
+    }
+
+    /**
+     * Likely duplicates of a patient, best first
+     * GET /api/v1/patients/{id}/duplicates
+     */
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<List<DuplicateCandidateResponse>> getPossibleDuplicates(@PathVariable Long id) {
+        log.info("GET request: Finding possible duplicates of patient: {}", id);
+        return ResponseEntity.ok(patientService.getPossibleDuplicates(id));
+    }
+
+    /**
+     * Scan the whole registry for likely duplicate pairs
+     * POST /api/v1/patients/duplicates/scan?minScore=0.8&limit=100
+     */
+    @PostMapping("/duplicates/scan")
+    public ResponseEntity<DuplicateScanResponse> scanDuplicates(@RequestParam(required = false) Double minScore,
+                                                                @RequestParam(required = false) Integer limit) {
+        log.info("POST request: Scanning for duplicates with minScore: {} and limit: {}", minScore, limit);
+        return ResponseEntity.ok(duplicateScanner.scan(minScore, limit));
+    }
+
+    /**
+     * Get all patients, optionally with only some fields
+     * GET /api/v1/patients?fields=summary or ?fields=firstName,lastName,dateOfBirth
      */
     @GetMapping
-    public ResponseEntity<List<PatientResponse>> getAllPatients() {
-        log.info("GET request: Fetching all patients");
-        List<PatientResponse> response = patientService.getAllPatients();
+    public ResponseEntity<List<?>> getAllPatients(@RequestParam(required = false) String fields) {
+        log.info("GET request: Fetching all patients with fields: {}", fields);
+        if (fields == null) {
+            return ResponseEntity.ok(patientService.getAllPatients());
+        }
+        if (PatientFields.isSummary(fields)) {
+            return ResponseEntity.ok(patientService.getPatientSummaries());
+        }
+        return ResponseEntity.ok(patientService.getAllPatients(fields));
+    }
+
+    /**
+     * Get one page of patients using a keyset cursor
+     * GET /api/v1/patients/page?after=120&size=50
+     */
+    @GetMapping("/page")
+    public ResponseEntity<PatientPageResponse> getPatientsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        log.info("GET request: Fetching patients page after: {}", after);
+        PatientPageResponse response = patientService.getPatientsPage(after, size);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get patients created, updated or deleted since a change cursor
+     * GET /api/v1/patients/changes?since=0&limit=500
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<PatientChangesResponse> getPatientChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer limit) {
+        log.info("GET request: Fetching patient changes since: {}", since);
+        PatientChangesResponse response = patientService.getPatientChanges(since, limit);
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Search patients by name
-     * GET /api/v1/patients/search?name=John
+     * Stream all patients as newline-delimited JSON
+     * GET /api/v1/patients/stream
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamPatients() {
+        log.info("GET request: Streaming all patients");
+        // Let the generator's buffer decide when bytes hit the socket instead of flushing per row
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // The body runs on an async thread; carry the request over so reads are audited to its caller
+        RequestAttributes requestAttributes = RequestContextHolder.currentRequestAttributes();
+        StreamingResponseBody body = outputStream -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                patientService.streamAllPatients(patient -> {
+                    try {
+                        writer.writeValue(generator, patient);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Search patients by name, optionally with only some fields
+     * GET /api/v1/patients/search?name=John&fields=summary
      */
     @GetMapping("/search")
-    public ResponseEntity<List<PatientResponse>> searchPatients(@RequestParam String name) {
-        log.info("GET request: Searching patients with name: {}", name);
-        List<PatientResponse> response = patientService.searchPatientByName(name);
+    public ResponseEntity<List<?>> searchPatients(
+            @RequestParam String name,
+            @RequestParam(required = false) String fields) {
+        log.info("GET request: Searching patients with name: {} and fields: {}", name, fields);
+        if (fields == null) {
+            return ResponseEntity.ok(patientService.searchPatientByName(name));
+        }
+        if (PatientFields.isSummary(fields)) {
+            return ResponseEntity.ok(patientService.searchPatientSummaries(name));
+        }
+        return ResponseEntity.ok(patientService.searchPatientByName(name, fields));
+    }
+
+    /**
+     * Filter patients by city, state, zip code, blood group, gender, age range and active status
+     * GET /api/v1/patients/filter?city=Pune&bloodGroup=O%2B&minAge=40&maxAge=60&after=120&size=50&total=true
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<PatientSearchResponse> filterPatients(
+            PatientSearchCriteria criteria,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean total) {
+        log.info("GET request: Filtering patients by {} after: {}", criteria, after);
+        PatientSearchResponse response = patientService.filterPatients(criteria, after, size, total);
         return ResponseEntity.ok(response);
     }
 
@@ -90,6 +251,19 @@ public class PatientController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Partially update patient; fields left out are unchanged and version must match
+     * PATCH /api/v1/patients/{id}
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<PatientResponse> patchPatient(
+            @PathVariable Long id,
+            @Valid @RequestBody PatchPatientRequest request) {
+        log.info("PATCH request: Patching patient with ID: {}", id);
+        PatientResponse response = patientService.patchPatient(id, request);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Delete patient
      * DELETE /api/v1/patients/{id}
@@ -101,6 +275,15 @@ public class PatientController {
         return ResponseEntity.ok("Patient deleted successfully");
     }
 
+    /**
+     * Read cache statistics
+     * GET /api/v1/patients/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsResponse> getCacheStats() {
+        return ResponseEntity.ok(patientService.getCacheStats());
+    }
+
     /**
      * Health check endpoint
      * GET /api/v1/patients/health/check
@@ -109,4 +292,13 @@ public class PatientController {
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("Patient Service is running");
     }
-}
\ No newline at end of file
+
+    // Pre-serialized bytes go out as they are; Spring answers a matching If-None-Match with an empty 304
+    private static ResponseEntity<byte[]> documentResponse(PatientDocument document) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(document.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(document.json());
+    }
+}
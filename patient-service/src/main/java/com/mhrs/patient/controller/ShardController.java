@@ -0,0 +1,41 @@
+package com.mhrs.patient.controller;
+
+import com.mhrs.patient.dto.ShardRebalanceResponse;
+import com.mhrs.patient.dto.ShardResponse;
+import com.mhrs.patient.shard.ShardRebalancer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/shards")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ShardController {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardController.class);
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    /**
+     * Get each shard's routing buckets and row counts
+     * GET /api/v1/shards
+     */
+    @GetMapping
+    public ResponseEntity<List<ShardResponse>> getShards() {
+        return ResponseEntity.ok(shardRebalancer.getShards());
+    }
+
+    /**
+     * Move routing buckets, and their patients, until every shard holds an even share
+     * POST /api/v1/shards/rebalance
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<ShardRebalanceResponse> rebalance() {
+        log.info("POST request: Rebalancing shards");
+        return ResponseEntity.ok(shardRebalancer.rebalance());
+    }
+}
@@ -0,0 +1,75 @@
+package com.mhrs.patient.db;
+
+import com.mhrs.patient.shard.ShardRoutingDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps the application DataSource in a BulkheadDataSource. Enabled by default; the limit
+ * defaults to the Hikari pool size so waiting happens on the semaphore rather than in the pool.
+ * With replica routing or sharding the bulkhead sits in front of the router and defaults to
+ * the sizes of all its pools added up.
+ */
+@Configuration
+@ConditionalOnProperty(name = "patient.db.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class DatabaseBulkheadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseBulkheadConfig.class);
+
+    @Bean
+    public static BeanPostProcessor databaseBulkheadPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource
+                        || bean instanceof ReplicaRoutingDataSource || bean instanceof ShardRoutingDataSource) {
+                    return bean;
+                }
+                DataSource target = dataSource instanceof LazyConnectionDataSourceProxy lazy
+                        ? lazy.getTargetDataSource() : dataSource;
+                int poolSize = target instanceof ReplicaRoutingDataSource routing ? routing.getMaximumPoolSize()
+                        : target instanceof ShardRoutingDataSource shards ? shards.getMaximumPoolSize()
+                        : environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int maxConcurrent = environment.getProperty("patient.db.bulkhead.max-concurrent", Integer.class, poolSize);
+                Duration maxWait = environment.getProperty("patient.db.bulkhead.max-wait", Duration.class, Duration.ofSeconds(2));
+                boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+                log.info("Database bulkhead on '{}': {} concurrent connections, max wait {} ms, virtual threads {}",
+                        beanName, maxConcurrent, maxWait.toMillis(), virtualThreads ? "on" : "off");
+                return new BulkheadDataSource(dataSource, maxConcurrent, maxWait);
+            }
+        };
+    }
+
+    // Bulkhead gauges next to Boot's hikaricp.* pool meters
+    @Bean
+    public MeterBinder databaseBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (!(dataSource instanceof BulkheadDataSource bulkhead)) {
+                return;
+            }
+            Gauge.builder("patient.db.bulkhead.available", bulkhead, BulkheadDataSource::getAvailablePermits)
+                    .description("Free database permits")
+                    .register(registry);
+            Gauge.builder("patient.db.bulkhead.waiting", bulkhead, BulkheadDataSource::getQueueLength)
+                    .description("Callers waiting for a database permit")
+                    .register(registry);
+            Gauge.builder("patient.db.bulkhead.max", bulkhead, BulkheadDataSource::getMaxConcurrent)
+                    .description("Maximum concurrent database connections")
+                    .register(registry);
+            FunctionCounter.builder("patient.db.bulkhead.rejected", bulkhead, BulkheadDataSource::getRejectedCount)
+                    .description("Callers rejected after waiting max-wait for a permit")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.mhrs.patient.db;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mhrs.patient.audit.PatientAuditLog;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import java.time.Duration;
+
+/**
+ * Keeps a client's reads on the primary for a short window after it wrote, so it does not
+ * read its own change back from a replica that has not applied it yet.
+ *
+ * Clients are told apart by the X-User-Id header, falling back to the remote address. The
+ * interceptor marks the request as pinned if its client wrote within the window. A write
+ * pins the rest of its own request too. The marks live in request attributes, so they
+ * follow the request into the async thread that serves /stream.
+ */
+public class ReadYourWrites implements HandlerInterceptor {
+
+    static final String CLIENT_ATTRIBUTE = ReadYourWrites.class.getName() + ".client";
+    static final String PINNED_ATTRIBUTE = ReadYourWrites.class.getName() + ".pinned";
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window, long maximumClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumClients)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String client = clientOf(request);
+        request.setAttribute(CLIENT_ATTRIBUTE, client);
+        if (recentWriters.getIfPresent(client) != null) {
+            request.setAttribute(PINNED_ATTRIBUTE, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    // Whether reads in the current request must see this client's latest writes
+    public boolean isPinned() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    // Called when a read-write transaction takes a primary connection
+    public void recordWrite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(PINNED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        Object client = attributes.getAttribute(CLIENT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (client != null) {
+            recentWriters.put((String) client, Boolean.TRUE);
+        }
+    }
+
+    private static String clientOf(HttpServletRequest request) {
+        String user = request.getHeader(PatientAuditLog.ACTOR_HEADER);
+        return user == null || user.isBlank() ? "addr:" + request.getRemoteAddr() : "user:" + user.trim();
+    }
+}
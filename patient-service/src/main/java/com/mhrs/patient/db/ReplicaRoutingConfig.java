@@ -0,0 +1,91 @@
+package com.mhrs.patient.db;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting, off unless patient.datasource.routing.enabled=true.
+ *
+ * Replaces Boot's single pool with one Hikari pool for the primary (spring.datasource.*)
+ * and one per URL in patient.datasource.routing.replica-urls. Replica pools copy the
+ * primary's settings and are read-only. The DataSource the application sees is a
+ * LazyConnectionDataSourceProxy over a ReplicaRoutingDataSource, so a transaction only
+ * picks its target once its read-only flag is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "patient.datasource.routing.enabled", havingValue = "true")
+public class ReplicaRoutingConfig implements WebMvcConfigurer {
+
+    private final Environment environment;
+
+    public ReplicaRoutingConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites() {
+        Duration window = environment.getProperty("patient.datasource.routing.stickiness", Duration.class, Duration.ofSeconds(5));
+        long maximumClients = environment.getProperty("patient.datasource.routing.stickiness-max-clients", Long.class, 100_000L);
+        return new ReadYourWrites(window, maximumClients);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        String[] urls = environment.getProperty("patient.datasource.routing.replica-urls", String[].class, new String[0]);
+        String username = environment.getProperty("patient.datasource.routing.replica-username", primary.getUsername());
+        String password = environment.getProperty("patient.datasource.routing.replica-password", primary.getPassword());
+        int poolSize = environment.getProperty("patient.datasource.routing.replica-pool-size", Integer.class,
+                primary.getMaximumPoolSize());
+        List<HikariDataSource> replicas = new ArrayList<>(urls.length);
+        for (int i = 0; i < urls.length; i++) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(urls[i].trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            config.setMinimumIdle(Math.min(config.getMinimumIdle(), poolSize));
+            config.setReadOnly(true);
+            replicas.add(new HikariDataSource(config));
+        }
+
+        Duration maxLag = environment.getProperty("patient.datasource.routing.max-lag", Duration.class, Duration.ofSeconds(2));
+        Duration interval = environment.getProperty("patient.datasource.routing.lag-check-interval", Duration.class,
+                Duration.ofSeconds(1));
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWrites(), maxLag, interval);
+    }
+
+    // What JPA, JdbcTemplate and the transaction manager use
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWrites());
+    }
+}
@@ -0,0 +1,254 @@
+package com.mhrs.patient.db;
+
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to replica pools and everything else to the primary.
+ *
+ * The route is chosen when a transaction first needs a connection, so this must sit behind a
+ * LazyConnectionDataSourceProxy: by then the transaction's read-only flag is known. Work
+ * outside a transaction goes to the primary.
+ *
+ * Replicas are tried round-robin. A replica is skipped while its lag is above maxLag or its
+ * last check failed, and reads fall back to the primary when none is usable. Lag is
+ * measured every lagCheckInterval from patients.change_seq, whose values encode the time
+ * they were issued. A replica that has the primary's newest sequence has no lag. Otherwise
+ * its lag is the age of the oldest sequence it is missing. Every write bumps change_seq,
+ * so this also covers clinical text changes.
+ *
+ * Right after a write, reads from the same client stay on the primary for a while; see
+ * ReadYourWrites. A transaction that was sent to a replica is marked as such for its
+ * duration (isReplicaRead), so what it reads is not cached as current.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+    static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private static final String MAX_SEQ_SQL = "SELECT MAX(change_seq) FROM patients";
+    private static final String OLDEST_MISSING_SQL = "SELECT MIN(change_seq) FROM patients WHERE change_seq > ?";
+    // Transaction resource key marking a transaction routed to a replica
+    private static final Object REPLICA_READ = new Object();
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final long maxLagMillis;
+    private final Duration lagCheckInterval;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                    ReadYourWrites readYourWrites, Duration maxLag, Duration lagCheckInterval) {
+        this.primary = primary;
+        this.readYourWrites = readYourWrites;
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagCheckInterval = lagCheckInterval;
+        this.replicas = new ArrayList<>(replicaPools.size());
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (HikariDataSource pool : replicaPools) {
+            Replica replica = new Replica(pool.getPoolName(), pool);
+            replicas.add(replica);
+            targets.put(replica.key, pool);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    // Check lag once so replicas are usable right away, then keep checking in the background
+    public void start() {
+        checkLag();
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = lagCheckInterval.toMillis();
+        lagChecker.scheduleWithFixedDelay(this::checkLag, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Routing read-only transactions to {} replicas (max lag {} ms, checked every {} ms)",
+                replicas.size(), maxLagMillis, interval);
+    }
+
+    public void close() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWrites.recordWrite();
+            }
+            return PRIMARY;
+        }
+        Replica replica = readYourWrites.isPinned() ? null : chooseReplica();
+        if (replica == null) {
+            primaryReads.increment();
+            return PRIMARY;
+        }
+        replica.reads.increment();
+        markReplicaRead(replica.key);
+        return replica.key;
+    }
+
+    // Whether the current transaction reads from a replica, so may see data up to max-lag old
+    public static boolean isReplicaRead() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_READ);
+    }
+
+    private static void markReplicaRead(String replicaKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(REPLICA_READ)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_READ, replicaKey);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_READ);
+            }
+        });
+    }
+
+    // Round-robin over replicas within the lag limit
+    private Replica chooseReplica() {
+        int count = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(count, 1));
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            if (replica.lagMillis <= maxLagMillis) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    void checkLag() {
+        long primaryMax;
+        try {
+            primaryMax = queryLong(primary, MAX_SEQ_SQL, null);
+        } catch (SQLException e) {
+            log.warn("Replica lag check could not read the primary: {}", e.getMessage());
+            return;
+        }
+        for (Replica replica : replicas) {
+            long lag;
+            try {
+                long replicaMax = queryLong(replica.pool, MAX_SEQ_SQL, null);
+                if (replicaMax >= primaryMax) {
+                    lag = 0;
+                } else {
+                    long oldestMissing = queryLong(primary, OLDEST_MISSING_SQL, replicaMax);
+                    lag = Math.max(0, System.currentTimeMillis() - PatientIdGenerator.timestampOf(oldestMissing));
+                }
+            } catch (SQLException e) {
+                lag = UNAVAILABLE;
+            }
+            if ((lag > maxLagMillis) != (replica.lagMillis > maxLagMillis)) {
+                log.warn("Replica {} is {}", replica.key, lag > maxLagMillis
+                        ? "out of rotation (" + (lag == UNAVAILABLE ? "unavailable" : "lag " + lag + " ms") + ")"
+                        : "back in rotation");
+            }
+            replica.lagMillis = lag;
+        }
+    }
+
+    // Replica lag in milliseconds, UNAVAILABLE when its last check failed
+    long getLagMillis(String replicaKey) {
+        return replicas.stream().filter(r -> r.key.equals(replicaKey)).findFirst()
+                .map(r -> r.lagMillis).orElse(UNAVAILABLE);
+    }
+
+    // Pool sizes added up, for sizing the bulkhead in front of this data source
+    public int getMaximumPoolSize() {
+        return primary.getMaximumPoolSize() + replicas.stream().mapToInt(r -> r.pool.getMaximumPoolSize()).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // The pools are not beans, so Boot's hikaricp.* binding does not see them
+        bindPoolMetrics(primary, registry);
+        FunctionCounter.builder("patient.db.routing.reads", primaryReads, LongAdder::sum)
+                .description("Read-only transactions routed to each target")
+                .tag("target", PRIMARY)
+                .register(registry);
+        for (Replica replica : replicas) {
+            bindPoolMetrics(replica.pool, registry);
+            FunctionCounter.builder("patient.db.routing.reads", replica.reads, LongAdder::sum)
+                    .description("Read-only transactions routed to each target")
+                    .tag("target", replica.key)
+                    .register(registry);
+            Gauge.builder("patient.db.replica.lag", replica, r -> r.lagMillis == UNAVAILABLE ? Double.NaN : r.lagMillis / 1000.0)
+                    .description("Replication lag measured from patients.change_seq")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.key)
+                    .register(registry);
+        }
+    }
+
+    private static void bindPoolMetrics(HikariDataSource pool, MeterRegistry registry) {
+        if (pool.getMetricsTrackerFactory() == null && pool.getMetricRegistry() == null) {
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+    }
+
+    private static long queryLong(DataSource dataSource, String sql, Long parameter) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                statement.setLong(1, parameter);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static final class Replica {
+        final String key;
+        final HikariDataSource pool;
+        final LongAdder reads = new LongAdder();
+        // Unknown until the first check
+        volatile long lagMillis = UNAVAILABLE;
+
+        Replica(String key, HikariDataSource pool) {
+            this.key = key;
+            this.pool = pool;
+        }
+    }
+}
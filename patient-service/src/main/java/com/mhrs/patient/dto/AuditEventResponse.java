@@ -0,0 +1,17 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEventResponse {
+    private Instant timestamp;
+    private String actor;
+    private String action;
+    private List<Long> patientIds;
+}
@@ -0,0 +1,16 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditStatsResponse {
+    private long recorded;
+    private long written;
+    private long dropped;
+    private long failed;
+    private int pending;
+}
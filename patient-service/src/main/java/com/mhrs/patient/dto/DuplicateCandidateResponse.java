@@ -0,0 +1,18 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateCandidateResponse {
+    private Long patientId;
+    private String patientUniqueId;
+    private String firstName;
+    private String lastName;
+    private LocalDate dateOfBirth;
+    private double score;  // 0 to 1; see patient.duplicates.reject-score and review-score
+}
@@ -0,0 +1,16 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicatePairResponse {
+    private Long patientId;          // the lower ID of the pair
+    private String patientUniqueId;
+    private Long duplicateId;
+    private String duplicateUniqueId;
+    private double score;
+}
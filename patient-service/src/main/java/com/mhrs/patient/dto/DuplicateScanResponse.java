@@ -0,0 +1,19 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateScanResponse {
+    private long blocks;             // blocks with two or more patients
+    private long oversizedBlocks;    // skipped, more patients than patient.duplicates.max-block-size
+    private long keys;               // blocking key rows read
+    private long comparisons;
+    private long pairsFound;         // at or above minScore; pairs holds the highest scoring ones
+    private long elapsedMillis;
+    private List<DuplicatePairResponse> pairs;
+}
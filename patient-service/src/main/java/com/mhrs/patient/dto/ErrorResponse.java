@@ -0,0 +1,27 @@
+package com.mhrs.patient.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ErrorResponse {
+    private LocalDateTime timestamp;
+    private int status;
+    private String error;                               // reason phrase of the status
+    private String message;
+    private Map<String, String> errors;                 // field validation messages
+    private List<DuplicateCandidateResponse> candidates;  // likely duplicates of a refused patient
+
+    public ErrorResponse(HttpStatus status, String message) {
+        this(LocalDateTime.now(), status.value(), status.getReasonPhrase(), message, null, null);
+    }
+}
@@ -0,0 +1,57 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.*;
+import java.time.LocalDate;
+
+/**
+ * Partial update. Null or absent fields are left unchanged; an empty string clears
+ * allergies or medicalHistory. version must be the version the client last read.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatchPatientRequest {
+
+    @NotNull(message = "Version is required for optimistic locking")
+    private Long version;
+
+    @Size(min = 2, max = 50)
+    @Pattern(regexp = "^(?!\\s*$).+", message = "First name cannot be blank")
+    private String firstName;
+
+    @Size(min = 2, max = 50)
+    @Pattern(regexp = "^(?!\\s*$).+", message = "Last name cannot be blank")
+    private String lastName;
+
+    @Pattern(regexp = "^\\d{10}$", message = "Phone number must be 10 digits")
+    private String phoneNumber;
+
+    @PastOrPresent(message = "Date of birth must be in past or present")
+    private LocalDate dateOfBirth;
+
+    @Pattern(regexp = "^(?!\\s*$).+", message = "Gender cannot be blank")
+    private String gender;
+
+    @Pattern(regexp = "^(?!\\s*$).+", message = "Address cannot be blank")
+    private String address;
+
+    @Pattern(regexp = "^(?!\\s*$).+", message = "City cannot be blank")
+    private String city;
+
+    @Pattern(regexp = "^(?!\\s*$).+", message = "State cannot be blank")
+    private String state;
+
+    @Pattern(regexp = "^\\d{5,6}$", message = "Zip code must be 5-6 digits")
+    private String zipCode;
+
+    @Pattern(regexp = "^(?!\\s*$).+", message = "Blood group cannot be blank")
+    private String bloodGroup;
+
+    private String allergies;
+    private String medicalHistory;
+}
@@ -0,0 +1,20 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Patients to look up in one call, by patient ID, unique ID or both. Results come back
+ * in this order: ids first, then uniqueIds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientBatchRequest {
+    private List<Long> ids;
+    private List<String> uniqueIds;
+}
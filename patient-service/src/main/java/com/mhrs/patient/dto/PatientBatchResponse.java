@@ -0,0 +1,15 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientBatchResponse {
+    private List<PatientBatchResult> results;  // one per requested ID, in request order
+    private int found;
+    private int notFound;
+}
@@ -0,0 +1,17 @@
+package com.mhrs.patient.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PatientBatchResult {
+    private Long patientId;           // the requested ID, when looked up by ID
+    private String patientUniqueId;   // the requested unique ID, when looked up by unique ID
+    private boolean found;
+    private PatientResponse patient;  // null when not found
+}
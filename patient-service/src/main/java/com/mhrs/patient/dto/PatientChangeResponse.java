@@ -0,0 +1,16 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientChangeResponse {
+    private long changeSeq;
+    private Long patientId;
+    private String patientUniqueId;
+    private boolean deleted;          // tombstone: the patient was soft-deleted, drop the local copy
+    private PatientResponse patient;  // current state, null for tombstones
+}
@@ -0,0 +1,15 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientChangesResponse {
+    private List<PatientChangeResponse> changes;
+    private long nextSince;  // changeSeq to pass as "since" on the next call; unchanged when nothing new
+    private boolean hasMore;
+}
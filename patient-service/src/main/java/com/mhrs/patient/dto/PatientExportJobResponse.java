@@ -0,0 +1,25 @@
+package com.mhrs.patient.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PatientExportJobResponse {
+    private String id;
+    private String format;
+    private String state;
+    private String file;
+    private long rows;
+    private long bytes;
+    private long lastPatientId;
+    private double rowsPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
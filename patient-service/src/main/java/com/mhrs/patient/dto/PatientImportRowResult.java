@@ -0,0 +1,18 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientImportRowResult {
+    private long row;
+    private String status;  // IMPORTED, INVALID, DUPLICATE, FAILED
+    private String email;
+    private Long patientId;
+    private String patientUniqueId;
+    private List<String> errors;
+}
@@ -0,0 +1,16 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientPageResponse {
+    private List<PatientResponse> patients;
+    private int size;
+    private Long nextCursor;  // patientId to pass as "after" for the next page, null on the last page
+    private boolean hasMore;
+}
@@ -27,4 +27,5 @@ public class PatientResponse {
     private boolean active;
     private LocalDate createdAt;
     private LocalDate updatedAt;
+    private long version;
 }
@@ -0,0 +1,26 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filters for GET /api/v1/patients/filter. Every field is optional and set fields are
+ * ANDed. Text fields match exactly (case follows the column collation). Ages are whole
+ * years as of today. active defaults to true; archived patients are never included.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientSearchCriteria {
+    private String city;
+    private String state;
+    private String zipCode;
+    private String bloodGroup;
+    private String gender;
+    private Integer minAge;
+    private Integer maxAge;
+    private Boolean active;
+}
@@ -0,0 +1,19 @@
+package com.mhrs.patient.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchResponse {
+    private List<PatientResponse> patients;
+    private int size;
+    private Long nextCursor;  // patientId to pass as "after" for the next slice, null on the last one
+    private boolean hasMore;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long total;  // matching patients across all slices; only counted when asked for
+}
@@ -0,0 +1,19 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+// Narrow view for pickers and lists; built directly by JPQL constructor queries
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSummaryResponse {
+    private Long patientId;
+    private String patientUniqueId;
+    private String firstName;
+    private String lastName;
+    private LocalDate dateOfBirth;
+    private String phoneNumber;
+}
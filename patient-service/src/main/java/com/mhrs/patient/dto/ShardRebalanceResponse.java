@@ -0,0 +1,17 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardRebalanceResponse {
+    private int bucketsMoved;
+    private long patientsMoved;
+    private long archivedPatientsMoved;
+    private long elapsedMillis;
+    private List<ShardResponse> shards;  // after the move
+}
@@ -0,0 +1,15 @@
+package com.mhrs.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardResponse {
+    private int shard;
+    private int buckets;             // routing buckets mapped to this shard
+    private long patients;
+    private long archivedPatients;
+}
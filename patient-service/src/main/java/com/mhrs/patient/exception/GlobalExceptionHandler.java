@@ -1,49 +1,129 @@
 package com.mhrs.patient.exception;
 
+import com.mhrs.patient.dto.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Error bodies are one ErrorResponse each, and error counters are looked up once per exception type and status
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    static final String ERRORS_METRIC = "patient.errors";
+
+    // Set on requests that failed for lack of a database connection; admission control backs off on them
+    public static final String DATABASE_UNAVAILABLE_ATTRIBUTE = GlobalExceptionHandler.class.getName()
+            + ".databaseUnavailable";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<ErrorMeter, Counter> errorCounters = new ConcurrentHashMap<>();
+
     @ExceptionHandler(PatientNotFoundException.class)
-    public ResponseEntity<Map<String, Object>> handlePatientNotFoundException(PatientNotFoundException ex) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.NOT_FOUND.value());
-        response.put("error", "Not Found");
-        response.put("message", ex.getMessage());
-        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    public ResponseEntity<ErrorResponse> handlePatientNotFoundException(PatientNotFoundException ex) {
+        return error(ex, HttpStatus.NOT_FOUND, ex.getMessage());
     }
 
     @ExceptionHandler(PatientAlreadyExistsException.class)
-    public ResponseEntity<Map<String, Object>> handlePatientAlreadyExistsException(PatientAlreadyExistsException ex) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.CONFLICT.value());
-        response.put("error", "Conflict");
-        response.put("message", ex.getMessage());
-        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    public ResponseEntity<ErrorResponse> handlePatientAlreadyExistsException(PatientAlreadyExistsException ex) {
+        return error(ex, HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    // Likely duplicate on create; the client can review the candidates and resend with allowDuplicate=true
+    @ExceptionHandler(PossibleDuplicatePatientException.class)
+    public ResponseEntity<ErrorResponse> handlePossibleDuplicate(PossibleDuplicatePatientException ex) {
+        ResponseEntity<ErrorResponse> response = error(ex, HttpStatus.CONFLICT, ex.getMessage());
+        response.getBody().setCandidates(ex.getCandidates());
+        return response;
+    }
+
+    // Stale version on PATCH, or a concurrent update caught by Hibernate's version check
+    @ExceptionHandler({PatientVersionConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ErrorResponse> handleVersionConflict(RuntimeException ex) {
+        return error(ex, HttpStatus.CONFLICT, ex instanceof PatientVersionConflictException
+                ? ex.getMessage()
+                : "Patient was modified concurrently, reload and retry");
+    }
+
+    // A unique key taken by a concurrent write, e.g. an email registered on another node since
+    // the email pre-check (or the existence filter) last looked. JDBC reports that as a
+    // DuplicateKeyException, JPA as a plain DataIntegrityViolationException over a unique
+    // violation. Any other violation is a bug, not a conflict, and is rethrown to the default handling
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        if (!(ex instanceof DuplicateKeyException) && !(ex.getCause() instanceof ConstraintViolationException violation
+                && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE)) {
+            throw ex;
+        }
+        return error(ex, HttpStatus.CONFLICT, "Patient conflicts with an existing one, such as an email already in use");
+    }
+
+    // Bad query parameters, such as an unknown ?fields= name
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
+        return error(ex, HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("timestamp", LocalDateTime.now());
-        response.put("status", HttpStatus.BAD_REQUEST.value());
-        response.put("error", "Bad Request");
-        
+    public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        ResponseEntity<ErrorResponse> response = error(ex, HttpStatus.BAD_REQUEST, null);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(error ->
                 errors.put(error.getField(), error.getDefaultMessage())
         );
-        response.put("errors", errors);
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        response.getBody().setErrors(errors);
+        return response;
+    }
+
+    // Connection could not be obtained in time (bulkhead full, pool exhausted or database down)
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleDatabaseUnavailable(RuntimeException ex, HttpServletRequest request) {
+        request.setAttribute(DATABASE_UNAVAILABLE_ATTRIBUTE, Boolean.TRUE);
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "Database is busy, please retry"));
+    }
+
+    // A rebalance is moving the patient; writes resume once every node routes it to its new shard.
+    // The database is fine, so admission control does not treat this 503 as a drop
+    @ExceptionHandler(PatientMovingException.class)
+    public ResponseEntity<ErrorResponse> handlePatientMoving(PatientMovingException ex) {
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage()));
+    }
+
+    private ResponseEntity<ErrorResponse> error(Exception ex, HttpStatus status, String message) {
+        countError(ex, status);
+        return new ResponseEntity<>(new ErrorResponse(status, message), status);
+    }
+
+    // Counted per handled exception type and response status
+    private void countError(Exception ex, HttpStatus status) {
+        errorCounters.computeIfAbsent(new ErrorMeter(ex.getClass(), status), key -> meterRegistry.counter(ERRORS_METRIC,
+                "exception", key.type().getSimpleName(),
+                "status", String.valueOf(key.status().value()))).increment();
+    }
+
+    private record ErrorMeter(Class<?> type, HttpStatus status) {
     }
 }
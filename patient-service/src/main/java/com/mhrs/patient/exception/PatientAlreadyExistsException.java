@@ -1,7 +1,8 @@
 package com.mhrs.patient.exception;
 
+// Answered 409; like PatientNotFoundException it skips stack trace capture
 public class PatientAlreadyExistsException extends RuntimeException {
     public PatientAlreadyExistsException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
-}
\ No newline at end of file
+}
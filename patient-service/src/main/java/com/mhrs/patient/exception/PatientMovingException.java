@@ -0,0 +1,16 @@
+package com.mhrs.patient.exception;
+
+// A write to a patient whose bucket a rebalance has frozen; answered 503 with Retry-After, no stack trace
+public class PatientMovingException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PatientMovingException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
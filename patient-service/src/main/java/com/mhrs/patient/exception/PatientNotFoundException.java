@@ -1,7 +1,9 @@
 package com.mhrs.patient.exception;
 
+// Answered 404 by GlobalExceptionHandler. Lookups of unknown IDs are frequent and the trace is
+// never read, so none is captured
 public class PatientNotFoundException extends RuntimeException {
     public PatientNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package com.mhrs.patient.exception;
+
+// Answered 409 with reload-and-retry advice; no stack trace
+public class PatientVersionConflictException extends RuntimeException {
+    public PatientVersionConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,19 @@
+package com.mhrs.patient.exception;
+
+import com.mhrs.patient.dto.DuplicateCandidateResponse;
+import java.util.List;
+
+// A new patient scored as a likely duplicate of existing ones
+public class PossibleDuplicatePatientException extends PatientAlreadyExistsException {
+
+    private final List<DuplicateCandidateResponse> candidates;
+
+    public PossibleDuplicatePatientException(String message, List<DuplicateCandidateResponse> candidates) {
+        super(message);
+        this.candidates = candidates;
+    }
+
+    public List<DuplicateCandidateResponse> getCandidates() {
+        return candidates;
+    }
+}
@@ -0,0 +1,68 @@
+package com.mhrs.patient.export;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Column-oriented binary export, laid out in row groups so a reader can load one column
+ * without decoding the others. All integers are big-endian.
+ *
+ * <pre>
+ * header:    "PCOL" int32 version, int32 columnCount, per column: byte type, varint length, UTF-8 name
+ * row group: int32 rowCount (&gt; 0), per column: int32 byteLength, then rowCount values
+ *            INT64: 8 bytes; STRING: varint length + 1, UTF-8 bytes (0 for null);
+ *            DATE: int32 epoch day (Integer.MIN_VALUE for null)
+ * trailer:   int32 0
+ * </pre>
+ */
+class ColumnarExportEncoder extends PatientExportEncoder {
+
+    static final byte[] MAGIC = "PCOL".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int NULL_DATE = Integer.MIN_VALUE;
+
+    @Override
+    protected void encodeHeader(BlockBuffer out) {
+        out.writeBytes(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(ExportColumn.ALL.size());
+        for (ExportColumn column : ExportColumn.ALL) {
+            out.write(column.type().ordinal());
+            byte[] name = column.name().getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(name.length);
+            out.writeBytes(name);
+        }
+    }
+
+    @Override
+    protected void encodeBlock(List<PatientExportRow> rows, BlockBuffer out) {
+        out.writeInt(rows.size());
+        for (ExportColumn column : ExportColumn.ALL) {
+            int lengthAt = out.size();
+            out.writeInt(0);
+            for (PatientExportRow row : rows) {
+                Object value = column.value().apply(row);
+                switch (column.type()) {
+                    case INT64 -> out.writeLong((Long) value);
+                    case DATE -> out.writeInt(value == null ? NULL_DATE : (int) ((LocalDate) value).toEpochDay());
+                    case STRING -> {
+                        if (value == null) {
+                            out.writeVarint(0);
+                        } else {
+                            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                            out.writeVarint(bytes.length + 1);
+                            out.writeBytes(bytes);
+                        }
+                    }
+                }
+            }
+            out.setInt(lengthAt, out.size() - lengthAt - 4);
+        }
+    }
+
+    @Override
+    protected void encodeTrailer(BlockBuffer out) {
+        out.writeInt(0);
+    }
+}
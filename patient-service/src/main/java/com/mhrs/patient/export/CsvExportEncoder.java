@@ -0,0 +1,84 @@
+package com.mhrs.patient.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * RFC 4180 CSV with a camelCase header row, which CsvPatientRecordReader reads back. With
+ * gzip, the header and every block are separate gzip members; concatenated members are a
+ * valid gzip file, and a resumed export simply appends more of them.
+ */
+class CsvExportEncoder extends PatientExportEncoder {
+
+    private final boolean gzip;
+    private final StringBuilder line = new StringBuilder(512);
+
+    CsvExportEncoder(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    @Override
+    protected void encodeHeader(BlockBuffer out) throws IOException {
+        line.setLength(0);
+        for (ExportColumn column : ExportColumn.ALL) {
+            if (!line.isEmpty()) {
+                line.append(',');
+            }
+            line.append(column.name());
+        }
+        line.append("\r\n");
+        try (OutputStream target = open(out)) {
+            target.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    protected void encodeBlock(List<PatientExportRow> rows, BlockBuffer out) throws IOException {
+        try (OutputStream target = open(out)) {
+            for (PatientExportRow row : rows) {
+                line.setLength(0);
+                for (ExportColumn column : ExportColumn.ALL) {
+                    if (column != ExportColumn.ALL.get(0)) {
+                        line.append(',');
+                    }
+                    appendField(column.value().apply(row));
+                }
+                line.append("\r\n");
+                target.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private OutputStream open(BlockBuffer out) throws IOException {
+        // Closing either stream leaves the buffer readable; closing gzip writes the member trailer
+        return gzip ? new GZIPOutputStream(out, 8192) : out;
+    }
+
+    private void appendField(Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,28 @@
+package com.mhrs.patient.export;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Exported columns in file order, shared by every encoder
+record ExportColumn(String name, Type type, Function<PatientExportRow, Object> value) {
+
+    enum Type { INT64, STRING, DATE }
+
+    static final List<ExportColumn> ALL = List.of(
+            new ExportColumn("patientId", Type.INT64, PatientExportRow::patientId),
+            new ExportColumn("patientUniqueId", Type.STRING, PatientExportRow::patientUniqueId),
+            new ExportColumn("firstName", Type.STRING, PatientExportRow::firstName),
+            new ExportColumn("lastName", Type.STRING, PatientExportRow::lastName),
+            new ExportColumn("email", Type.STRING, PatientExportRow::email),
+            new ExportColumn("phoneNumber", Type.STRING, PatientExportRow::phoneNumber),
+            new ExportColumn("dateOfBirth", Type.DATE, PatientExportRow::dateOfBirth),
+            new ExportColumn("gender", Type.STRING, PatientExportRow::gender),
+            new ExportColumn("address", Type.STRING, PatientExportRow::address),
+            new ExportColumn("city", Type.STRING, PatientExportRow::city),
+            new ExportColumn("state", Type.STRING, PatientExportRow::state),
+            new ExportColumn("zipCode", Type.STRING, PatientExportRow::zipCode),
+            new ExportColumn("bloodGroup", Type.STRING, PatientExportRow::bloodGroup),
+            new ExportColumn("createdAt", Type.DATE, PatientExportRow::createdAt),
+            new ExportColumn("updatedAt", Type.DATE, PatientExportRow::updatedAt),
+            new ExportColumn("version", Type.INT64, PatientExportRow::version));
+}
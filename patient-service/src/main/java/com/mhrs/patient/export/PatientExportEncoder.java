@@ -0,0 +1,90 @@
+package com.mhrs.patient.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * Encodes an export as a header, self-contained blocks of rows and a trailer. A file cut
+ * after any block, minus its trailer, can be continued by appending more blocks, which is
+ * what lets an export job resume from its last checkpoint.
+ *
+ * Blocks are encoded into one reused buffer, so memory stays at one block whatever the
+ * size of the export.
+ */
+abstract class PatientExportEncoder {
+
+    private final BlockBuffer buffer = new BlockBuffer();
+
+    protected abstract void encodeHeader(BlockBuffer out) throws IOException;
+
+    protected abstract void encodeBlock(List<PatientExportRow> rows, BlockBuffer out) throws IOException;
+
+    protected void encodeTrailer(BlockBuffer out) throws IOException {
+    }
+
+    // Bytes written
+    final long writeHeader(WritableByteChannel channel) throws IOException {
+        buffer.reset();
+        encodeHeader(buffer);
+        return buffer.drainTo(channel);
+    }
+
+    final long writeBlock(List<PatientExportRow> rows, WritableByteChannel channel) throws IOException {
+        buffer.reset();
+        encodeBlock(rows, buffer);
+        return buffer.drainTo(channel);
+    }
+
+    final long writeTrailer(WritableByteChannel channel) throws IOException {
+        buffer.reset();
+        encodeTrailer(buffer);
+        return buffer.drainTo(channel);
+    }
+
+    // Growable byte array whose contents are written to a channel without copying
+    static final class BlockBuffer extends ByteArrayOutputStream {
+
+        BlockBuffer() {
+            super(64 * 1024);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        // Overwrites four bytes already written, for lengths known only after their data
+        void setInt(int position, int value) {
+            buf[position] = (byte) (value >>> 24);
+            buf[position + 1] = (byte) (value >>> 16);
+            buf[position + 2] = (byte) (value >>> 8);
+            buf[position + 3] = (byte) value;
+        }
+
+        long drainTo(WritableByteChannel channel) throws IOException {
+            ByteBuffer bytes = ByteBuffer.wrap(buf, 0, count);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mhrs.patient.export;
+
+import java.util.Locale;
+
+// Export encodings, named by their ?format= value
+public enum PatientExportFormat {
+    CSV("csv", "csv", "text/csv"),
+    CSV_GZIP("csv.gz", "csv.gz", "application/gzip"),
+    COLUMNAR("columnar", "pcol", "application/octet-stream");
+
+    private final String parameter;
+    private final String extension;
+    private final String contentType;
+
+    PatientExportFormat(String parameter, String extension, String contentType) {
+        this.parameter = parameter;
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static PatientExportFormat parse(String format) {
+        String requested = format == null ? CSV.parameter : format.trim().toLowerCase(Locale.ROOT);
+        for (PatientExportFormat candidate : values()) {
+            if (candidate.parameter.equals(requested)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format '" + format + "'; use csv, csv.gz or columnar");
+    }
+
+    PatientExportEncoder newEncoder() {
+        return switch (this) {
+            case CSV -> new CsvExportEncoder(false);
+            case CSV_GZIP -> new CsvExportEncoder(true);
+            case COLUMNAR -> new ColumnarExportEncoder();
+        };
+    }
+}
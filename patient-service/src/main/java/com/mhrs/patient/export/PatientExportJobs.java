@@ -0,0 +1,258 @@
+package com.mhrs.patient.export;
+
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.dto.PatientExportJobResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Background exports to files under patient.export.directory, one at a time.
+ *
+ * After every block the file is forced to disk and &lt;job&gt;.checkpoint records the last
+ * exported patient ID and the file length at that point. A job that was cancelled, failed
+ * or died with the process resumes by truncating the file to the checkpointed length and
+ * continuing after the checkpointed patient, so nothing is written twice or skipped. Jobs
+ * not in memory (after a restart) are loaded from their checkpoint.
+ */
+@Component
+public class PatientExportJobs {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientExportJobs.class);
+
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    public enum State { QUEUED, RUNNING, INTERRUPTED, FAILED, COMPLETED }
+
+    @Autowired
+    private PatientExporter patientExporter;
+
+    @Value("${patient.export.directory:exports}")
+    private Path directory = Path.of("exports");
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "patient-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Queue an export of all active patients, audited to the current caller
+    public PatientExportJobResponse start(PatientExportFormat format) throws IOException {
+        Files.createDirectories(directory);
+        Job job = new Job(UUID.randomUUID().toString(), format, PatientAuditLog.currentActor());
+        writeCheckpoint(job);
+        jobs.put(job.id, job);
+        submit(job);
+        log.info("Queued {} export job {}", format, job.id);
+        return job.toResponse();
+    }
+
+    public Optional<PatientExportJobResponse> find(String id) throws IOException {
+        return load(id).map(Job::toResponse);
+    }
+
+    // Continue an interrupted or failed job from its checkpoint
+    public Optional<PatientExportJobResponse> resume(String id) throws IOException {
+        Optional<Job> found = load(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Job job = found.get();
+        synchronized (job) {
+            if (job.state != State.INTERRUPTED && job.state != State.FAILED) {
+                throw new IllegalArgumentException("Export job " + id + " is " + job.state + " and cannot be resumed");
+            }
+            job.state = State.QUEUED;
+            job.cancelRequested = false;
+            job.error = null;
+            job.finishedAt = null;
+        }
+        submit(job);
+        log.info("Resuming export job {} after patient ID {}", id, job.lastPatientId);
+        return Optional.of(job.toResponse());
+    }
+
+    // Stop a job after its current block; it stays resumable
+    public Optional<PatientExportJobResponse> cancel(String id) throws IOException {
+        Optional<Job> found = load(id);
+        found.ifPresent(job -> {
+            synchronized (job) {
+                job.cancelRequested = true;
+                if (job.state == State.QUEUED) {
+                    job.state = State.INTERRUPTED;
+                    job.finishedAt = Instant.now();
+                }
+            }
+        });
+        return found.map(Job::toResponse);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        jobs.values().forEach(job -> job.cancelRequested = true);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void submit(Job job) {
+        executor.execute(() -> run(job));
+    }
+
+    private void run(Job job) {
+        synchronized (job) {
+            if (job.state != State.QUEUED) {
+                return;
+            }
+            job.state = State.RUNNING;
+            job.startedAt = Instant.now();
+        }
+        Path file = directory.resolve(job.fileName());
+        long baseRows = job.rows;
+        long baseBytes = job.bytes;
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop anything written after the last checkpoint
+            channel.truncate(baseBytes);
+            channel.position(baseBytes);
+            PatientExporter.Result result = patientExporter.export(job.format, job.lastPatientId, baseBytes > 0,
+                    job.actor, channel, (lastPatientId, rows, bytes) -> {
+                        channel.force(false);
+                        job.progress(lastPatientId, baseRows + rows, baseBytes + bytes, rows, start);
+                        writeCheckpoint(job);
+                        return !job.cancelRequested;
+                    });
+            channel.force(true);
+            job.progress(result.lastPatientId(), baseRows + result.rows(), baseBytes + result.bytes(),
+                    result.rows(), start);
+            job.complete = result.complete();
+            writeCheckpoint(job);
+            job.finish(result.complete() ? State.COMPLETED : State.INTERRUPTED, null);
+            log.info("Export job {} {}: {} rows, {} bytes at {} rows/s", job.id, job.state, job.rows, job.bytes,
+                    Math.round(job.rowsPerSecond));
+        } catch (IOException | RuntimeException e) {
+            job.finish(State.FAILED, e.getMessage());
+            log.warn("Export job {} failed after patient ID {}, resumable: {}", job.id, job.lastPatientId,
+                    e.getMessage());
+        }
+    }
+
+    private Optional<Job> load(String id) throws IOException {
+        if (!JOB_ID.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        Job job = jobs.get(id);
+        if (job != null) {
+            return Optional.of(job);
+        }
+        Properties checkpoint = new Properties();
+        try (Reader reader = Files.newBufferedReader(directory.resolve(id + CHECKPOINT_SUFFIX))) {
+            checkpoint.load(reader);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        job = Job.fromCheckpoint(id, checkpoint);
+        Job existing = jobs.putIfAbsent(id, job);
+        return Optional.of(existing != null ? existing : job);
+    }
+
+    // Written beside the export and moved into place, so a crash leaves the old or the new one
+    private void writeCheckpoint(Job job) throws IOException {
+        Path target = directory.resolve(job.id + CHECKPOINT_SUFFIX);
+        Path temporary = directory.resolve(job.id + CHECKPOINT_SUFFIX + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary)) {
+            job.toCheckpoint().store(writer, null);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class Job {
+        final String id;
+        final PatientExportFormat format;
+        final String actor;
+        volatile State state = State.QUEUED;
+        volatile boolean cancelRequested;
+        volatile boolean complete;
+        volatile long rows;
+        volatile long bytes;
+        volatile long lastPatientId;
+        volatile double rowsPerSecond;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+
+        Job(String id, PatientExportFormat format, String actor) {
+            this.id = id;
+            this.format = format;
+            this.actor = actor;
+        }
+
+        String fileName() {
+            return id + "." + format.getExtension();
+        }
+
+        void progress(long lastPatientId, long rows, long bytes, long rowsThisRun, long startNanos) {
+            this.lastPatientId = lastPatientId;
+            this.rows = rows;
+            this.bytes = bytes;
+            long elapsed = System.nanoTime() - startNanos;
+            rowsPerSecond = elapsed > 0 ? rowsThisRun * 1e9 / elapsed : 0;
+        }
+
+        synchronized void finish(State state, String error) {
+            this.state = state;
+            this.error = error;
+            finishedAt = Instant.now();
+        }
+
+        Properties toCheckpoint() {
+            Properties checkpoint = new Properties();
+            checkpoint.setProperty("format", format.name());
+            checkpoint.setProperty("actor", actor);
+            checkpoint.setProperty("lastPatientId", Long.toString(lastPatientId));
+            checkpoint.setProperty("rows", Long.toString(rows));
+            checkpoint.setProperty("bytes", Long.toString(bytes));
+            checkpoint.setProperty("complete", Boolean.toString(complete));
+            return checkpoint;
+        }
+
+        static Job fromCheckpoint(String id, Properties checkpoint) {
+            Job job = new Job(id, PatientExportFormat.valueOf(checkpoint.getProperty("format")),
+                    checkpoint.getProperty("actor"));
+            job.lastPatientId = Long.parseLong(checkpoint.getProperty("lastPatientId"));
+            job.rows = Long.parseLong(checkpoint.getProperty("rows"));
+            job.bytes = Long.parseLong(checkpoint.getProperty("bytes"));
+            job.complete = Boolean.parseBoolean(checkpoint.getProperty("complete"));
+            job.state = job.complete ? State.COMPLETED : State.INTERRUPTED;
+            return job;
+        }
+
+        PatientExportJobResponse toResponse() {
+            return new PatientExportJobResponse(id, format.name(), state.name(), fileName(), rows, bytes,
+                    lastPatientId, rowsPerSecond, startedAt, finishedAt, error);
+        }
+    }
+}
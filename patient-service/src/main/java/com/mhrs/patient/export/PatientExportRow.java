@@ -0,0 +1,25 @@
+package com.mhrs.patient.export;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * One exported patient: the list-view columns of an active patient. Clinical text is not
+ * exported.
+ */
+record PatientExportRow(long patientId, String patientUniqueId, String firstName, String lastName, String email,
+                        String phoneNumber, LocalDate dateOfBirth, String gender, String address, String city,
+                        String state, String zipCode, String bloodGroup, LocalDate createdAt, LocalDate updatedAt,
+                        long version) {
+
+    static final String SELECT_COLUMNS = "patient_id, patient_unique_id, first_name, last_name, email, phone_number, "
+            + "date_of_birth, gender, address, city, state, zip_code, blood_group, created_at, updated_at, version";
+
+    static PatientExportRow read(ResultSet rs) throws SQLException {
+        return new PatientExportRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getString(6), rs.getObject(7, LocalDate.class), rs.getString(8), rs.getString(9), rs.getString(10),
+                rs.getString(11), rs.getString(12), rs.getString(13), rs.getObject(14, LocalDate.class),
+                rs.getObject(15, LocalDate.class), rs.getLong(16));
+    }
+}
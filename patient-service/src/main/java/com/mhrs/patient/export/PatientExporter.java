@@ -0,0 +1,211 @@
+package com.mhrs.patient.export;
+
+import com.mhrs.patient.audit.AuditAction;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.shard.ShardRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes active patients in patient ID order to a channel in one of the export formats.
+ *
+ * Rows are read by keyset (patient_id &gt; last exported ID) in segments of segment-rows,
+ * each in its own read-only transaction, so an export of any size never holds a connection
+ * or a consistent-read snapshot for long, and goes to a replica when routing is enabled.
+ * Within a segment the driver streams with a fetch size (MySQL needs useCursorFetch=true),
+ * and rows are encoded block-rows at a time: memory is one block, not one table.
+ *
+ * With sharding, each segment is read from every shard in parallel, segment-rows per shard,
+ * and merged by patient ID. Rows past the lowest last ID of a shard that filled its segment
+ * are left for the next segment, since that shard may have more rows below them. A segment
+ * is then held in memory, up to segment-rows per shard.
+ */
+@Component
+public class PatientExporter implements MeterBinder {
+
+    private static final String SELECT_SQL = "SELECT " + PatientExportRow.SELECT_COLUMNS + " FROM patients "
+            + "WHERE active = TRUE AND patient_id > ? ORDER BY patient_id LIMIT ?";
+
+    // Called after each block has been written; return false to stop before the next one
+    @FunctionalInterface
+    public interface BlockListener {
+        boolean blockWritten(long lastPatientId, long rows, long bytes) throws IOException;
+    }
+
+    // Totals of one export call; complete when every matching patient was written
+    public record Result(long rows, long bytes, long lastPatientId, boolean complete) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PatientAuditLog patientAuditLog;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Value("${patient.export.block-rows:1000}")
+    private int blockRows = 1000;
+
+    @Value("${patient.export.segment-rows:50000}")
+    private int segmentRows = 50_000;
+
+    @Value("${patient.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    private final LongAdder exportedRows = new LongAdder();
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Export patients with IDs above afterPatientId. A fresh export (append=false) starts
+     * with the format's header; an appended one continues a file that already has it. The
+     * trailer is written once the last patient is out. Reads are audited as EXPORT by actor.
+     */
+    public Result export(PatientExportFormat format, long afterPatientId, boolean append, String actor,
+                         WritableByteChannel channel, BlockListener listener) throws IOException {
+        PatientExportEncoder encoder = format.newEncoder();
+        Progress progress = new Progress(afterPatientId);
+        progress.bytes = append ? 0 : encoder.writeHeader(channel);
+        List<PatientExportRow> block = new ArrayList<>(blockRows);
+        int read;
+        do {
+            long from = progress.lastPatientId;
+            if (shardRouter.isSharded()) {
+                read = exportMergedSegment(from, encoder, block, actor, channel, listener, progress);
+                if (progress.stopped) {
+                    return new Result(progress.rows, progress.bytes, progress.lastPatientId, false);
+                }
+                continue;
+            }
+            int[] segmentRead = new int[1];
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, from);
+                statement.setInt(2, segmentRows);
+                return statement;
+            }, (ResultSet rs) -> {
+                try {
+                    while (!progress.stopped && rs.next()) {
+                        block.add(PatientExportRow.read(rs));
+                        segmentRead[0]++;
+                        if (block.size() == blockRows) {
+                            writeBlock(encoder, block, actor, channel, listener, progress);
+                        }
+                    }
+                    if (!progress.stopped && !block.isEmpty()) {
+                        writeBlock(encoder, block, actor, channel, listener, progress);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            }));
+            if (progress.stopped) {
+                return new Result(progress.rows, progress.bytes, progress.lastPatientId, false);
+            }
+            read = segmentRead[0];
+        } while (read == segmentRows);
+        progress.bytes += encoder.writeTrailer(channel);
+        return new Result(progress.rows, progress.bytes, progress.lastPatientId, true);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("patient.export.rows", exportedRows, LongAdder::sum)
+                .description("Patients written by exports")
+                .register(registry);
+    }
+
+    // One segment from every shard; returns segment-rows while some shard may have more
+    private int exportMergedSegment(long from, PatientExportEncoder encoder, List<PatientExportRow> block, String actor,
+                                    WritableByteChannel channel, BlockListener listener, Progress progress)
+            throws IOException {
+        ShardRouter.Ownership owners = shardRouter.ownership();
+        List<List<PatientExportRow>> parts = shardRouter.onEveryShard(shard -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, from);
+            statement.setInt(2, segmentRows);
+            return statement;
+        }, (rs, i) -> PatientExportRow.read(rs)));
+        long cut = Long.MAX_VALUE;
+        for (List<PatientExportRow> part : parts) {
+            if (part.size() == segmentRows) {
+                cut = Math.min(cut, part.get(part.size() - 1).patientId());
+            }
+        }
+        // Copies left by a rebalance count for the cut, so that no shard is read past, but are not written
+        List<List<PatientExportRow>> owned = new ArrayList<>(parts.size());
+        for (int shard = 0; shard < parts.size(); shard++) {
+            int current = shard;
+            owned.add(parts.get(shard).stream().filter(row -> owners.owns(current, row.patientId())).toList());
+        }
+        for (PatientExportRow row : ShardRouter.merge(owned, Comparator.comparingLong(PatientExportRow::patientId),
+                Integer.MAX_VALUE)) {
+            if (progress.stopped || row.patientId() > cut) {
+                break;
+            }
+            block.add(row);
+            if (block.size() == blockRows) {
+                writeBlock(encoder, block, actor, channel, listener, progress);
+            }
+        }
+        if (!progress.stopped && !block.isEmpty()) {
+            writeBlock(encoder, block, actor, channel, listener, progress);
+        }
+        return cut == Long.MAX_VALUE ? 0 : segmentRows;
+    }
+
+    private void writeBlock(PatientExportEncoder encoder, List<PatientExportRow> block, String actor,
+                            WritableByteChannel channel, BlockListener listener, Progress progress) throws IOException {
+        progress.bytes += encoder.writeBlock(block, channel);
+        List<Long> ids = new ArrayList<>(block.size());
+        for (PatientExportRow row : block) {
+            ids.add(row.patientId());
+        }
+        patientAuditLog.record(AuditAction.EXPORT, ids, actor);
+        exportedRows.add(block.size());
+        progress.rows += block.size();
+        progress.lastPatientId = block.get(block.size() - 1).patientId();
+        block.clear();
+        progress.stopped = !listener.blockWritten(progress.lastPatientId, progress.rows, progress.bytes);
+    }
+
+    private static final class Progress {
+        long rows;
+        long bytes;
+        long lastPatientId;
+        boolean stopped;
+
+        Progress(long lastPatientId) {
+            this.lastPatientId = lastPatientId;
+        }
+    }
+}
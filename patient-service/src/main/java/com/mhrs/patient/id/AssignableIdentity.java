@@ -0,0 +1,18 @@
+package com.mhrs.patient.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Like @GeneratedValue(strategy = IDENTITY), except that an entity persisted with its ID
+ * already set is inserted with that ID. Sharded registries assign patient IDs before the
+ * insert, because the ID decides which database the row goes to.
+ */
+@IdGeneratorType(AssignableIdentityGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface AssignableIdentity {
+}
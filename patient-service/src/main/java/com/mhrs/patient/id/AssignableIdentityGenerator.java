@@ -0,0 +1,43 @@
+package com.mhrs.patient.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.mapping.Column;
+import java.lang.reflect.Member;
+
+// Database identity when the entity has no ID yet, otherwise the ID it was given; see AssignableIdentity
+public class AssignableIdentityGenerator extends IdentityGenerator implements BeforeExecutionGenerator {
+
+    public AssignableIdentityGenerator(AssignableIdentity annotation, Member member, CustomIdGeneratorCreationContext context) {
+        // Hibernate only declares the column an identity column for its own @GeneratedValue(IDENTITY)
+        context.getProperty().getValue().getSelectables().forEach(column -> ((Column) column).setIdentity(true));
+    }
+
+    @Override
+    public boolean generatedOnExecution() {
+        return true;
+    }
+
+    @Override
+    public boolean generatedOnExecution(Object owner, SharedSessionContractImplementor session) {
+        return idOf(owner, session) == null;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return idOf(owner, session);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    private static Object idOf(Object owner, SharedSessionContractImplementor session) {
+        return session.getEntityPersister(null, owner).getIdentifier(owner, session);
+    }
+}
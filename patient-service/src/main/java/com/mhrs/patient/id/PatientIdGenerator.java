@@ -0,0 +1,126 @@
+package com.mhrs.patient.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style generator for patientUniqueId values, with no database access.
+ *
+ * Layout of the 63-bit ID: 41 bits of milliseconds since 2025-01-01T00:00:00Z, 10 bits of
+ * node ID and 12 bits of per-millisecond sequence. That allows 4096 IDs per millisecond per
+ * node and about 69 years of timestamps. The last timestamp and the sequence share one
+ * AtomicLong, which is advanced with CAS, so generation is lock-free.
+ *
+ * If the wall clock goes backwards, the generator keeps counting from the last timestamp it
+ * issued instead of waiting, so IDs stay unique and monotonic on this node. When a
+ * millisecond's sequence runs out, it moves on to the next millisecond.
+ */
+@Component
+public class PatientIdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientIdGenerator.class);
+
+    public static final String PREFIX = "PAT-";
+    public static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final Clock clock;
+
+    // (milliseconds since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last issued ID
+    private final AtomicLong state = new AtomicLong();
+    private final AtomicLong clockRollbacks = new AtomicLong();
+
+    @Autowired
+    public PatientIdGenerator(@Value("${patient.id.node-id:-1}") long nodeId) {
+        this(nodeId < 0 ? deriveNodeId() : nodeId, Clock.systemUTC());
+    }
+
+    public PatientIdGenerator(long nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + " but was " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        log.info("Patient ID generator using node ID {}", nodeId);
+    }
+
+    // Next patientUniqueId, e.g. PAT-123456789012345678
+    public String nextPatientUniqueId() {
+        return PREFIX + nextId();
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = clock.millis() - EPOCH_MILLIS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or the clock went backwards: stay on the last timestamp
+                next = current + 1;
+            } else {
+                // Sequence exhausted for this millisecond: borrow the next one
+                next = (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                if (now < lastTimestamp) {
+                    clockRollbacks.incrementAndGet();
+                }
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    // Number of IDs issued while the wall clock was behind the last issued timestamp
+    public long getClockRollbacks() {
+        return clockRollbacks.get();
+    }
+
+    // Epoch milliseconds encoded in an ID produced by this generator
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    // Largest ID any node can have issued up to and including the given epoch millisecond
+    public static long maxIdAt(long epochMillis) {
+        return ((epochMillis - EPOCH_MILLIS + 1) << (NODE_BITS + SEQUENCE_BITS)) - 1;
+    }
+
+    // Node ID from host name and process ID, for deployments that don't set patient.id.node-id
+    private static long deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        String identity = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        long derived = (identity.hashCode() & 0x7fffffffL) % (MAX_NODE_ID + 1);
+        log.warn("patient.id.node-id is not set; derived node ID {} from {}. Set it explicitly per replica "
+                + "to rule out collisions.", derived, identity);
+        return derived;
+    }
+}
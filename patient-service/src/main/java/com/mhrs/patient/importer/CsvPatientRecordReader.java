@@ -0,0 +1,147 @@
+package com.mhrs.patient.importer;
+
+import com.mhrs.patient.dto.CreatePatientRequest;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads RFC 4180 CSV with a header row naming CreatePatientRequest fields, either as
+ * camelCase (firstName) or snake_case (first_name). Quoted fields may contain commas,
+ * escaped quotes and line breaks. Unknown columns are ignored.
+ */
+public class CsvPatientRecordReader implements PatientRecordReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private List<String> header;
+    private long rowNumber;
+    private int pushback = -2;
+
+    public CsvPatientRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public PatientRecord next() throws IOException {
+        if (header == null) {
+            List<String> columns = readRecord();
+            if (columns == null) {
+                return null;
+            }
+            header = new ArrayList<>();
+            for (String column : columns) {
+                header.add(column.trim().replace("_", "").toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<String> values;
+        do {
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+            rowNumber++;
+        } while (values.size() == 1 && values.get(0).isBlank());
+
+        if (values.size() != header.size()) {
+            return PatientRecord.failed(rowNumber,
+                    "Expected " + header.size() + " columns but found " + values.size());
+        }
+        CreatePatientRequest request = new CreatePatientRequest();
+        for (int i = 0; i < header.size(); i++) {
+            String value = values.get(i).isEmpty() ? null : values.get(i);
+            try {
+                apply(request, header.get(i), value);
+            } catch (DateTimeParseException e) {
+                return PatientRecord.failed(rowNumber, "Invalid dateOfBirth '" + value + "', expected yyyy-MM-dd");
+            }
+        }
+        return PatientRecord.parsed(rowNumber, request);
+    }
+
+    private static void apply(CreatePatientRequest request, String column, String value) {
+        switch (column) {
+            case "firstname" -> request.setFirstName(value);
+            case "lastname" -> request.setLastName(value);
+            case "email" -> request.setEmail(value);
+            case "phonenumber" -> request.setPhoneNumber(value);
+            case "dateofbirth" -> request.setDateOfBirth(value == null ? null : LocalDate.parse(value));
+            case "gender" -> request.setGender(value);
+            case "address" -> request.setAddress(value);
+            case "city" -> request.setCity(value);
+            case "state" -> request.setState(value);
+            case "zipcode" -> request.setZipCode(value);
+            case "bloodgroup" -> request.setBloodGroup(value);
+            case "allergies" -> request.setAllergies(value);
+            case "medicalhistory" -> request.setMedicalHistory(value);
+            default -> { }
+        }
+    }
+
+    // Returns the fields of the next record, or null at end of input
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    break;
+                }
+                if (c == '"') {
+                    int nextChar = read();
+                    if (nextChar == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = nextChar;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int nextChar = read();
+                    if (nextChar != '\n') {
+                        pushback = nextChar;
+                    }
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        values.add(field.toString());
+        return values;
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.mhrs.patient.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads one CreatePatientRequest JSON object per line. Each line is parsed on its own so a
+ * malformed row is reported and skipped instead of aborting the rest of the stream.
+ */
+public class NdjsonPatientRecordReader implements PatientRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long rowNumber;
+
+    public NdjsonPatientRecordReader(BufferedReader reader, ObjectReader objectReader) {
+        this.reader = reader;
+        this.objectReader = objectReader.forType(CreatePatientRequest.class);
+    }
+
+    @Override
+    public PatientRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            rowNumber++;
+        } while (line.isBlank());
+
+        try {
+            return PatientRecord.parsed(rowNumber, objectReader.readValue(line));
+        } catch (JsonProcessingException e) {
+            return PatientRecord.failed(rowNumber, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
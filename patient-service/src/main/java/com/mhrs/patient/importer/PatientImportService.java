@@ -0,0 +1,367 @@
+package com.mhrs.patient.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.clinical.ClinicalText;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.PatientImportResponse;
+import com.mhrs.patient.dto.PatientImportRowResult;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.MatchRecord;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.repository.ArchivedPatientRepository;
+import com.mhrs.patient.repository.PatientRepository;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.shard.ShardRouter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Streams patients from CSV or NDJSON into the patients table in chunks. Each chunk is
+ * validated against the CreatePatientRequest constraints, checked for existing emails with
+ * one IN query per table (patients and patients_archive) and inserted as one JDBC batch, together with batches for the
+ * clinical texts and the duplicate-detection blocking keys in the same transaction. Imports are
+ * not refused as likely duplicates; a duplicate scan finds those afterwards.
+ *
+ * Inserts go through JdbcTemplate rather than Hibernate because Patient uses IDENTITY keys,
+ * which make Hibernate flush every insert on its own. With rewriteBatchedStatements=true,
+ * MySQL turns each batch into multi-row INSERT statements.
+ *
+ * With sharding, patient IDs are assigned before the insert and each chunk is split into one
+ * batch per shard. Emails are checked against, and claimed in, the shard directory.
+ */
+@Service
+public class PatientImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientImportService.class);
+
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    static final String STATUS_IMPORTED = "IMPORTED";
+    static final String STATUS_INVALID = "INVALID";
+    static final String STATUS_DUPLICATE = "DUPLICATE";
+    static final String STATUS_FAILED = "FAILED";
+
+    private static final String INSERT_SQL = "INSERT INTO patients (patient_unique_id, first_name, last_name, email, "
+            + "phone_number, date_of_birth, gender, address, city, state, zip_code, blood_group, active, "
+            + "created_at, updated_at, version, change_seq) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+    // With sharding the patient ID is assigned up front
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO patients (patient_id, patient_unique_id, first_name, "
+            + "last_name, email, phone_number, date_of_birth, gender, address, city, state, zip_code, blood_group, "
+            + "active, created_at, updated_at, version, change_seq) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private ArchivedPatientRepository archivedPatientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PatientNameIndex patientNameIndex;
+
+    @Autowired
+    private PatientIdGenerator patientIdGenerator;
+
+    @Autowired
+    private ClinicalTextStore clinicalTextStore;
+
+    @Autowired
+    private PatientMatcher patientMatcher;
+
+    @Autowired
+    private PatientExistenceFilter patientExistenceFilter;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${patient.import.chunk-size:500}")
+    private int chunkSize;
+
+    // Import patients from a CSV or NDJSON stream
+    public PatientImportResponse importPatients(String contentType, InputStream body) throws IOException {
+        BufferedReader input = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 64 * 1024);
+        PatientRecordReader reader;
+        if (contentType != null && contentType.startsWith(NDJSON)) {
+            reader = new NdjsonPatientRecordReader(input, objectMapper.reader());
+        } else if (contentType != null && contentType.startsWith(CSV)) {
+            reader = new CsvPatientRecordReader(input);
+        } else {
+            throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+        }
+        try (reader) {
+            return importPatients(reader);
+        }
+    }
+
+    public PatientImportResponse importPatients(PatientRecordReader reader) throws IOException {
+        long start = System.nanoTime();
+        List<PatientImportRowResult> results = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<PatientRecord> chunk = new ArrayList<>(chunkSize);
+
+        PatientRecord record;
+        while ((record = reader.next()) != null) {
+            chunk.add(record);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, seenEmails, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seenEmails, results);
+        }
+
+        long imported = results.stream().filter(r -> STATUS_IMPORTED.equals(r.getStatus())).count();
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = results.isEmpty() ? 0 : results.size() / (elapsedNanos / 1_000_000_000.0);
+        log.info("Imported {} of {} patients in {} ms ({} rows/sec)",
+                imported, results.size(), elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+        return new PatientImportResponse(results.size(), imported, results.size() - imported,
+                elapsedNanos / 1_000_000, rowsPerSecond, results);
+    }
+
+    private void importChunk(List<PatientRecord> chunk, Set<String> seenEmails, List<PatientImportRowResult> results) {
+        List<PatientImportRowResult> chunkResults = new ArrayList<>(chunk.size());
+        List<PatientRecord> candidates = new ArrayList<>();
+        List<PatientImportRowResult> candidateResults = new ArrayList<>();
+
+        for (PatientRecord record : chunk) {
+            CreatePatientRequest request = record.request();
+            PatientImportRowResult result = new PatientImportRowResult(record.rowNumber(), null,
+                    request == null ? null : request.getEmail(), null, null, null);
+            chunkResults.add(result);
+
+            if (request == null) {
+                reject(result, STATUS_INVALID, record.parseError());
+                continue;
+            }
+            Set<ConstraintViolation<CreatePatientRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                result.setStatus(STATUS_INVALID);
+                result.setErrors(violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .sorted()
+                        .toList());
+                continue;
+            }
+            // Emails compare case-insensitively, as the database's collation does
+            if (!seenEmails.add(emailKey(request.getEmail()))) {
+                reject(result, STATUS_DUPLICATE, "Email " + request.getEmail() + " appears more than once in this import");
+                continue;
+            }
+            candidates.add(record);
+            candidateResults.add(result);
+        }
+
+        if (!candidates.isEmpty()) {
+            // Only emails the existence filter cannot rule out are looked up
+            List<String> emails = candidates.stream()
+                    .map(r -> r.request().getEmail())
+                    .filter(patientExistenceFilter::mightContainEmail)
+                    .toList();
+            List<String> found = new ArrayList<>();
+            if (!emails.isEmpty() && shardRouter.isSharded()) {
+                found.addAll(shardRouter.findClaimedEmails(emails));
+            } else if (!emails.isEmpty()) {
+                found.addAll(patientRepository.findExistingEmails(emails));
+                found.addAll(archivedPatientRepository.findExistingEmails(emails));
+            }
+            Set<String> existing = new HashSet<>();
+            found.forEach(email -> existing.add(emailKey(email)));
+            List<PatientRecord> rows = new ArrayList<>();
+            List<PatientImportRowResult> rowResults = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                PatientRecord candidate = candidates.get(i);
+                PatientImportRowResult result = candidateResults.get(i);
+                if (existing.contains(emailKey(candidate.request().getEmail()))) {
+                    reject(result, STATUS_DUPLICATE, "Patient with email " + candidate.request().getEmail() + " already exists");
+                } else if (shardRouter.isSharded()) {
+                    // IDs in buckets a rebalance has frozen are skipped
+                    long patientId = patientIdGenerator.nextId();
+                    while (shardRouter.isFrozen(patientId)) {
+                        patientId = patientIdGenerator.nextId();
+                    }
+                    result.setPatientId(patientId);
+                    result.setPatientUniqueId(PatientIdGenerator.PREFIX + patientId);
+                    rows.add(candidate);
+                    rowResults.add(result);
+                } else {
+                    result.setPatientUniqueId(patientIdGenerator.nextPatientUniqueId());
+                    rows.add(candidate);
+                    rowResults.add(result);
+                }
+            }
+            insert(rows, rowResults);
+        }
+        results.addAll(chunkResults);
+    }
+
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    // Insert the chunk as one batch per shard
+    private void insert(List<PatientRecord> rows, List<PatientImportRowResult> rowResults) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (!shardRouter.isSharded()) {
+            insertWithRetry(rows, rowResults);
+            return;
+        }
+        Map<Integer, List<Integer>> rowsByShard = shardRouter.groupByShard(
+                IntStream.range(0, rows.size()).boxed().toList(), i -> shardRouter.shardForWrite(rowResults.get(i).getPatientId()));
+        rowsByShard.forEach((shard, indexes) -> shardRouter.onShard(shard, () -> insertWithRetry(
+                indexes.stream().map(rows::get).toList(), indexes.stream().map(rowResults::get).toList())));
+    }
+
+    // Insert rows as one batch; if the batch is rejected, retry row by row to report each failure
+    private void insertWithRetry(List<PatientRecord> rows, List<PatientImportRowResult> rowResults) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(rows, rowResults));
+            indexNames(rows, rowResults);
+        } catch (DataAccessException batchFailure) {
+            log.warn("Import batch of {} rows failed, retrying individually: {}", rows.size(), batchFailure.getMessage());
+            for (int i = 0; i < rows.size(); i++) {
+                List<PatientRecord> single = List.of(rows.get(i));
+                List<PatientImportRowResult> singleResult = List.of(rowResults.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(single, singleResult));
+                    indexNames(single, singleResult);
+                } catch (DataAccessException rowFailure) {
+                    PatientImportRowResult result = rowResults.get(i);
+                    result.setPatientId(null);
+                    result.setPatientUniqueId(null);
+                    reject(result, STATUS_FAILED, rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void insertBatch(List<PatientRecord> rows, List<PatientImportRowResult> rowResults) {
+        Date today = Date.valueOf(LocalDate.now());
+        boolean assigned = shardRouter.isSharded();
+        if (assigned) {
+            // Released again if this transaction rolls back
+            shardRouter.claimEmails(IntStream.range(0, rows.size())
+                    .mapToObj(i -> new Object[]{rows.get(i).request().getEmail(), rowResults.get(i).getPatientId(),
+                            rowResults.get(i).getPatientUniqueId()})
+                    .toList());
+        }
+        BatchPreparedStatementSetter setter = new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CreatePatientRequest request = rows.get(i).request();
+                int column = 0;
+                if (assigned) {
+                    ps.setLong(++column, rowResults.get(i).getPatientId());
+                }
+                ps.setString(++column, rowResults.get(i).getPatientUniqueId());
+                ps.setString(++column, request.getFirstName());
+                ps.setString(++column, request.getLastName());
+                ps.setString(++column, request.getEmail());
+                ps.setString(++column, request.getPhoneNumber());
+                ps.setDate(++column, Date.valueOf(request.getDateOfBirth()));
+                ps.setString(++column, request.getGender());
+                ps.setString(++column, request.getAddress());
+                ps.setString(++column, request.getCity());
+                ps.setString(++column, request.getState());
+                ps.setString(++column, request.getZipCode());
+                ps.setString(++column, request.getBloodGroup());
+                ps.setBoolean(++column, true);
+                ps.setDate(++column, today);
+                ps.setDate(++column, today);
+                ps.setLong(++column, patientIdGenerator.nextId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        };
+        List<Map<String, Object>> keys;
+        if (assigned) {
+            jdbcTemplate.batchUpdate(INSERT_WITH_ID_SQL, setter);
+            keys = List.of();
+        } else {
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"patient_id"}),
+                    setter, keyHolder);
+            keys = keyHolder.getKeyList();
+        }
+
+        List<Long> patientIds = new ArrayList<>(rows.size());
+        List<ClinicalText> clinicalTexts = new ArrayList<>(rows.size());
+        List<MatchRecord> matchRecords = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            PatientImportRowResult result = rowResults.get(i);
+            Long patientId = assigned ? result.getPatientId()
+                    : i < keys.size() ? ((Number) keys.get(i).values().iterator().next()).longValue() : null;
+            result.setPatientId(patientId);
+            result.setStatus(STATUS_IMPORTED);
+            CreatePatientRequest request = rows.get(i).request();
+            patientIds.add(patientId);
+            clinicalTexts.add(new ClinicalText(request.getAllergies(), request.getMedicalHistory()));
+            matchRecords.add(MatchRecord.of(patientId, result.getPatientUniqueId(), request));
+            patientExistenceFilter.add(patientId, result.getPatientUniqueId(), request.getEmail());
+        }
+        clinicalTextStore.insertAll(patientIds, clinicalTexts);
+        patientMatcher.indexAll(matchRecords);
+    }
+
+    // Only called once the rows are committed
+    private void indexNames(List<PatientRecord> rows, List<PatientImportRowResult> rowResults) {
+        for (int i = 0; i < rows.size(); i++) {
+            CreatePatientRequest request = rows.get(i).request();
+            patientNameIndex.index(rowResults.get(i).getPatientId(), request.getFirstName(), request.getLastName());
+        }
+    }
+
+    private static void reject(PatientImportRowResult result, String status, String error) {
+        result.setStatus(status);
+        result.setErrors(List.of(error));
+    }
+}
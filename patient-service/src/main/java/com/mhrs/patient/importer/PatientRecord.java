@@ -0,0 +1,18 @@
+package com.mhrs.patient.importer;
+
+import com.mhrs.patient.dto.CreatePatientRequest;
+
+/**
+ * One parsed input row. Either request is set, or parseError explains why the row
+ * could not be turned into a request.
+ */
+public record PatientRecord(long rowNumber, CreatePatientRequest request, String parseError) {
+
+    static PatientRecord parsed(long rowNumber, CreatePatientRequest request) {
+        return new PatientRecord(rowNumber, request, null);
+    }
+
+    static PatientRecord failed(long rowNumber, String parseError) {
+        return new PatientRecord(rowNumber, null, parseError);
+    }
+}
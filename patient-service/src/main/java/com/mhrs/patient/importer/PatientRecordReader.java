@@ -0,0 +1,12 @@
+package com.mhrs.patient.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-style reader over an import stream; returns null once the input is exhausted.
+ */
+public interface PatientRecordReader extends Closeable {
+
+    PatientRecord next() throws IOException;
+}
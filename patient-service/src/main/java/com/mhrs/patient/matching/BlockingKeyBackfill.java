@@ -0,0 +1,70 @@
+package com.mhrs.patient.matching;
+
+import com.mhrs.patient.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+
+/**
+ * Gives active patients written before duplicate detection existed their blocking keys, so
+ * new patients are checked against them and scans include them. Runs in chunks at startup
+ * and does nothing once every patient has keys.
+ */
+@Component
+public class BlockingKeyBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingKeyBackfill.class);
+
+    private static final String SELECT_MISSING_SQL = "SELECT " + MatchRecord.SELECT_COLUMNS + " FROM patients p "
+            + "WHERE p.active = TRUE AND p.patient_id > ? AND NOT EXISTS "
+            + "(SELECT 1 FROM patient_blocking_keys k WHERE k.patient_id = p.patient_id) "
+            + "ORDER BY p.patient_id LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PatientMatcher patientMatcher;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${patient.duplicates.backfill-chunk-size:1000}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        shardRouter.forEachShard(shard -> backfillShard());
+    }
+
+    private void backfillShard() {
+        long start = System.nanoTime();
+        long filled = 0;
+        // Keyset, since a patient without a date of birth or zip code may have no keys at all
+        long after = 0;
+        while (true) {
+            List<MatchRecord> records = jdbcTemplate.query(SELECT_MISSING_SQL, (rs, i) -> MatchRecord.read(rs),
+                    after, chunkSize);
+            if (records.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> patientMatcher.indexAll(records));
+            filled += records.size();
+            after = records.get(records.size() - 1).patientId;
+        }
+        if (filled > 0) {
+            log.info("Computed blocking keys for {} existing patients in {} ms",
+                    filled, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mhrs.patient.matching;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Blocking keys of a patient. Two patients are only ever compared when they share a key,
+ * so each key pairs fields a duplicate is unlikely to get wrong at the same time:
+ *
+ *   LD   last name code + date of birth      misspelt or differently spelt first name
+ *   FD   first name code + date of birth     changed last name (marriage)
+ *   FLZ  both name codes + zip code          wrong or missing date of birth
+ *   DZ   date of birth + zip code            names beyond phonetic reach, swapped names
+ *
+ * Name codes are Double Metaphone, so "Jon Smith" and "John Smyth" share their LD key.
+ * A name with an alternate code gets keys for both.
+ */
+final class BlockingKeys {
+
+    static final int MAX_LENGTH = 64;
+
+    private BlockingKeys() {
+    }
+
+    static List<String> of(MatchRecord record) {
+        Set<String> keys = new LinkedHashSet<>();
+        String dateOfBirth = record.dateOfBirth == null ? "" : record.dateOfBirth.toString();
+        for (String last : record.lastNameCodes) {
+            if (!dateOfBirth.isEmpty()) {
+                keys.add("LD:" + last + ":" + dateOfBirth);
+            }
+            for (String first : record.firstNameCodes) {
+                if (!record.zipCode.isEmpty()) {
+                    keys.add("FLZ:" + first + ":" + last + ":" + record.zipCode);
+                }
+            }
+        }
+        for (String first : record.firstNameCodes) {
+            if (!dateOfBirth.isEmpty()) {
+                keys.add("FD:" + first + ":" + dateOfBirth);
+            }
+        }
+        if (!dateOfBirth.isEmpty() && !record.zipCode.isEmpty()) {
+            keys.add("DZ:" + dateOfBirth + ":" + record.zipCode);
+        }
+        List<String> truncated = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            truncated.add(key.length() > MAX_LENGTH ? key.substring(0, MAX_LENGTH) : key);
+        }
+        return truncated;
+    }
+}
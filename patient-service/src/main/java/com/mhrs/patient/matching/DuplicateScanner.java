@@ -0,0 +1,308 @@
+package com.mhrs.patient.matching;
+
+import com.mhrs.patient.dto.DuplicatePairResponse;
+import com.mhrs.patient.dto.DuplicateScanResponse;
+import com.mhrs.patient.shard.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+/**
+ * Finds likely duplicates across the whole registry. Only patients sharing a blocking key
+ * are compared, so the work is the sum of the squared block sizes rather than the square of
+ * the registry.
+ *
+ * patient_blocking_keys is read in block_key order by keyset, segment-keys rows per
+ * read-only transaction; a block cut off at the end of a segment is read again whole by the
+ * next one. The segment's patients are then loaded and its blocks scored on a fork/join
+ * pool of scan-parallelism threads, so memory is one segment and never the registry. Blocks
+ * over max-block-size (a common name and birthday in a big city) are skipped and counted;
+ * they say little about any one pair.
+ *
+ * minScore may not go below review-score: every pair above it is counted, so a lower floor
+ * would make the count, and each segment's scored pairs, grow with the comparisons. Only the
+ * best limit pairs are kept, in a min-heap.
+ *
+ * With sharding each shard is scanned on its own, one after another. A pair whose patients
+ * live on different shards is not found here, only by the create-time check and by
+ * GET /patients/{id}/duplicates, which both look at every shard.
+ */
+@Component
+public class DuplicateScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateScanner.class);
+
+    private static final String SELECT_KEYS_SQL = "SELECT block_key, patient_id FROM patient_blocking_keys "
+            + "WHERE block_key > ? ORDER BY block_key, patient_id LIMIT ?";
+    private static final int LOAD_CHUNK = 1000;
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+    // Blocks scored by one fork/join task without splitting further
+    private static final int TASK_BLOCKS = 16;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PatientMatcher patientMatcher;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Value("${patient.duplicates.max-block-size:1000}")
+    private int maxBlockSize = 1000;
+
+    @Value("${patient.duplicates.segment-keys:50000}")
+    private int segmentKeys = 50_000;
+
+    @Value("${patient.duplicates.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    @Value("${patient.duplicates.scan-parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        // A segment must hold a whole block, or a block longer than one would never be finished
+        segmentKeys = Math.max(segmentKeys, maxBlockSize + 1);
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    // Pairs of active patients scoring at least minScore (default review-score), best first, at most limit of them.
+    // One scan at a time; a second caller waits for the first
+    public synchronized DuplicateScanResponse scan(Double minScore, Integer limit) {
+        double reviewScore = patientMatcher.getReviewScore();
+        if (minScore != null && (minScore < reviewScore || minScore > 1)) {
+            throw new IllegalArgumentException("minScore must be between " + reviewScore + " and 1");
+        }
+        double threshold = minScore == null ? reviewScore : minScore;
+        int maxPairs = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        long start = System.nanoTime();
+        Totals totals = new Totals();
+        Set<PairId> found = new HashSet<>();
+        // The lowest scoring of the best pairs so far on top
+        PriorityQueue<Pair> best = new PriorityQueue<>(maxPairs + 1, Comparator.comparingDouble(Pair::score));
+        shardRouter.forEachShard(shard -> {
+            String after = "";
+            while (after != null) {
+                List<long[]> blocks = new ArrayList<>();
+                after = readSegment(after, blocks, totals);
+                if (blocks.isEmpty()) {
+                    continue;
+                }
+                Map<Long, MatchRecord> records = load(blocks);
+                Result result = pool.invoke(new ScoreBlocks(blocks, 0, blocks.size(), records, threshold));
+                totals.comparisons += result.comparisons;
+                for (Pair pair : result.pairs) {
+                    // A pair sharing several keys is found once per block; the score is the same
+                    if (found.add(new PairId(pair.a.patientId, pair.b.patientId))) {
+                        best.offer(pair);
+                        if (best.size() > maxPairs) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+        });
+        List<DuplicatePairResponse> pairs = best.stream()
+                .sorted(Comparator.comparingDouble(Pair::score).reversed())
+                .map(Pair::toResponse)
+                .toList();
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        log.info("Duplicate scan: {} keys, {} blocks ({} oversized), {} comparisons, {} pairs at {} or more in {} ms",
+                totals.keys, totals.blocks, totals.oversized, totals.comparisons, found.size(), threshold, elapsed);
+        return new DuplicateScanResponse(totals.blocks, totals.oversized, totals.keys, totals.comparisons,
+                found.size(), elapsed, pairs);
+    }
+
+    // Adds the complete blocks with keys above after; returns the key to continue from, null at the end
+    private String readSegment(String after, List<long[]> blocks, Totals totals) {
+        List<String> keys = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_KEYS_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setString(1, after);
+            statement.setInt(2, segmentKeys);
+            return statement;
+        }, (ResultSet rs) -> {
+            while (rs.next()) {
+                keys.add(rs.getString(1));
+                ids.add(rs.getLong(2));
+            }
+            return null;
+        }));
+        boolean last = keys.size() < segmentKeys;
+        int end = keys.size();
+        if (!last) {
+            // The final block may continue in the next segment; leave it for that one
+            String cut = keys.get(end - 1);
+            while (end > 0 && keys.get(end - 1).equals(cut)) {
+                end--;
+            }
+            if (end == 0) {
+                // One block filled the segment, so it is oversized; skip the rest of it
+                totals.keys += keys.size();
+                totals.oversized++;
+                return cut;
+            }
+        }
+        totals.keys += end;
+        int from = 0;
+        while (from < end) {
+            int to = from + 1;
+            while (to < end && keys.get(to).equals(keys.get(from))) {
+                to++;
+            }
+            int size = to - from;
+            if (size > maxBlockSize) {
+                totals.oversized++;
+            } else if (size > 1) {
+                long[] block = new long[size];
+                for (int i = 0; i < size; i++) {
+                    block[i] = ids.get(from + i);
+                }
+                blocks.add(block);
+                totals.blocks++;
+            }
+            from = to;
+        }
+        return last ? null : keys.get(end - 1);
+    }
+
+    // The active patients of the segment's blocks; archived and deleted ones are left out
+    private Map<Long, MatchRecord> load(List<long[]> blocks) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (long[] block : blocks) {
+            for (long id : block) {
+                ids.add(id);
+            }
+        }
+        Map<Long, MatchRecord> records = new HashMap<>(ids.size() * 2);
+        List<Long> all = new ArrayList<>(ids);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (int i = 0; i < all.size(); i += LOAD_CHUNK) {
+                List<Long> chunk = all.subList(i, Math.min(all.size(), i + LOAD_CHUNK));
+                String sql = "SELECT " + MatchRecord.SELECT_COLUMNS + " FROM patients WHERE active = TRUE "
+                        + "AND patient_id IN (" + chunk.stream().map(id -> "?").collect(Collectors.joining(", ")) + ")";
+                jdbcTemplate.query(sql, (ResultSet rs) -> {
+                    MatchRecord record = MatchRecord.read(rs);
+                    records.put(record.patientId, record);
+                }, chunk.toArray());
+            }
+        });
+        return records;
+    }
+
+    private static final class Totals {
+        long keys;
+        long blocks;
+        long oversized;
+        long comparisons;
+    }
+
+    private record PairId(long patientId, long duplicateId) {
+    }
+
+    private record Pair(MatchRecord a, MatchRecord b, double score) {
+
+        DuplicatePairResponse toResponse() {
+            return new DuplicatePairResponse(a.patientId, a.patientUniqueId, b.patientId, b.patientUniqueId,
+                    Math.round(score * 1000) / 1000.0);
+        }
+    }
+
+    private record Result(long comparisons, List<Pair> pairs) {
+    }
+
+    // Scores blocks [from, to), splitting in halves down to TASK_BLOCKS blocks per task
+    private static final class ScoreBlocks extends RecursiveTask<Result> {
+
+        private final List<long[]> blocks;
+        private final int from;
+        private final int to;
+        private final Map<Long, MatchRecord> records;
+        private final double minScore;
+
+        ScoreBlocks(List<long[]> blocks, int from, int to, Map<Long, MatchRecord> records, double minScore) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.records = records;
+            this.minScore = minScore;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > TASK_BLOCKS) {
+                int middle = (from + to) >>> 1;
+                ScoreBlocks left = new ScoreBlocks(blocks, from, middle, records, minScore);
+                left.fork();
+                Result right = new ScoreBlocks(blocks, middle, to, records, minScore).compute();
+                Result joined = left.join();
+                List<Pair> pairs = new ArrayList<>(joined.pairs);
+                pairs.addAll(right.pairs);
+                return new Result(joined.comparisons + right.comparisons, pairs);
+            }
+            long comparisons = 0;
+            List<Pair> pairs = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                List<MatchRecord> members = new ArrayList<>();
+                for (long id : blocks.get(i)) {
+                    MatchRecord record = records.get(id);
+                    if (record != null) {
+                        members.add(record);
+                    }
+                }
+                // Members are in patient ID order, so a is always the lower ID
+                for (int a = 0; a < members.size(); a++) {
+                    for (int b = a + 1; b < members.size(); b++) {
+                        double score = MatchScorer.score(members.get(a), members.get(b));
+                        comparisons++;
+                        if (score >= minScore) {
+                            pairs.add(new Pair(members.get(a), members.get(b), score));
+                        }
+                    }
+                }
+            }
+            return new Result(comparisons, pairs);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mhrs.patient.matching;
+
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.model.Patient;
+import org.apache.commons.codec.language.DoubleMetaphone;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * The fields of a patient that matching looks at, normalized once: names lowercased and
+ * reduced to letters, with their Double Metaphone codes, and phone and zip code reduced to
+ * digits. Blocking keys and scores are computed from these, never from raw input.
+ */
+public final class MatchRecord {
+
+    static final String SELECT_COLUMNS = "patient_id, patient_unique_id, first_name, last_name, phone_number, "
+            + "date_of_birth, gender, address, zip_code";
+
+    private static final DoubleMetaphone METAPHONE = new DoubleMetaphone();
+
+    final Long patientId;
+    final String patientUniqueId;
+    final String firstName;
+    final String lastName;
+    final LocalDate dateOfBirth;
+    final String normalizedFirstName;
+    final String normalizedLastName;
+    final String[] firstNameCodes;
+    final String[] lastNameCodes;
+    final String phone;
+    final String gender;
+    final String address;
+    final String zipCode;
+
+    MatchRecord(Long patientId, String patientUniqueId, String firstName, String lastName, String phoneNumber,
+                LocalDate dateOfBirth, String gender, String address, String zipCode) {
+        this.patientId = patientId;
+        this.patientUniqueId = patientUniqueId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.dateOfBirth = dateOfBirth;
+        this.normalizedFirstName = letters(firstName);
+        this.normalizedLastName = letters(lastName);
+        this.firstNameCodes = codes(normalizedFirstName);
+        this.lastNameCodes = codes(normalizedLastName);
+        this.phone = digits(phoneNumber);
+        this.gender = gender == null ? "" : gender.trim().toLowerCase(Locale.ROOT);
+        this.address = address == null ? "" : address.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        this.zipCode = digits(zipCode);
+    }
+
+    // A patient about to be created; it has no ID yet
+    public static MatchRecord of(CreatePatientRequest request) {
+        return of(null, null, request);
+    }
+
+    // A patient inserted straight from a request, as the importer does
+    public static MatchRecord of(Long patientId, String patientUniqueId, CreatePatientRequest request) {
+        return new MatchRecord(patientId, patientUniqueId, request.getFirstName(), request.getLastName(),
+                request.getPhoneNumber(), request.getDateOfBirth(), request.getGender(), request.getAddress(),
+                request.getZipCode());
+    }
+
+    public static MatchRecord of(Patient patient) {
+        return new MatchRecord(patient.getPatientId(), patient.getPatientUniqueId(), patient.getFirstName(),
+                patient.getLastName(), patient.getPhoneNumber(), patient.getDateOfBirth(), patient.getGender(),
+                patient.getAddress(), patient.getZipCode());
+    }
+
+    static MatchRecord read(ResultSet rs) throws SQLException {
+        return new MatchRecord(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getObject(6, LocalDate.class), rs.getString(7), rs.getString(8), rs.getString(9));
+    }
+
+    private static String letters(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder letters = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetter(c)) {
+                letters.append(Character.toLowerCase(c));
+            }
+        }
+        return letters.toString();
+    }
+
+    private static String digits(String value) {
+        return value == null ? "" : value.replaceAll("\\D", "");
+    }
+
+    // Primary and, when it differs, alternate code; none for a name without letters
+    private static String[] codes(String name) {
+        if (name.isEmpty()) {
+            return new String[0];
+        }
+        String primary = METAPHONE.doubleMetaphone(name, false);
+        String alternate = METAPHONE.doubleMetaphone(name, true);
+        if (primary == null || primary.isEmpty()) {
+            return new String[0];
+        }
+        return alternate == null || alternate.isEmpty() || alternate.equals(primary)
+                ? new String[]{primary}
+                : new String[]{primary, alternate};
+    }
+}
@@ -0,0 +1,126 @@
+package com.mhrs.patient.matching;
+
+import java.time.LocalDate;
+
+/**
+ * Weighted field similarity between two patients, from 0 (nothing in common) to 1. Names
+ * are compared with Jaro-Winkler, lifted to 0.9 when their Double Metaphone codes agree and
+ * the spelling is not far off (Catherine and Kathryn), and counted as 0 below 0.8, so that
+ * clearly different names add nothing rather than a little. The codes drop vowels, hence the
+ * floor: twins John and Jane share theirs. A date of birth with one wrong part, or day and month swapped, gets
+ * partial credit; the other fields must match exactly.
+ */
+final class MatchScorer {
+
+    static final double FIRST_NAME_WEIGHT = 0.20;
+    static final double LAST_NAME_WEIGHT = 0.25;
+    static final double DATE_OF_BIRTH_WEIGHT = 0.25;
+    static final double ZIP_CODE_WEIGHT = 0.10;
+    static final double PHONE_WEIGHT = 0.10;
+    static final double GENDER_WEIGHT = 0.05;
+    static final double ADDRESS_WEIGHT = 0.05;
+
+    private static final double PHONETIC_MATCH = 0.9;
+    private static final double PHONETIC_FLOOR = 0.75;
+    private static final double MIN_NAME_SIMILARITY = 0.8;
+
+    private MatchScorer() {
+    }
+
+    static double score(MatchRecord a, MatchRecord b) {
+        return FIRST_NAME_WEIGHT * nameSimilarity(a.normalizedFirstName, a.firstNameCodes, b.normalizedFirstName,
+                b.firstNameCodes)
+                + LAST_NAME_WEIGHT * nameSimilarity(a.normalizedLastName, a.lastNameCodes, b.normalizedLastName,
+                b.lastNameCodes)
+                + DATE_OF_BIRTH_WEIGHT * dateSimilarity(a.dateOfBirth, b.dateOfBirth)
+                + ZIP_CODE_WEIGHT * exact(a.zipCode, b.zipCode)
+                + PHONE_WEIGHT * exact(a.phone, b.phone)
+                + GENDER_WEIGHT * exact(a.gender, b.gender)
+                + ADDRESS_WEIGHT * exact(a.address, b.address);
+    }
+
+    static double nameSimilarity(String a, String[] aCodes, String b, String[] bCodes) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        double similarity = jaroWinkler(a, b);
+        if (similarity >= PHONETIC_FLOOR && similarity < PHONETIC_MATCH && sharesCode(aCodes, bCodes)) {
+            similarity = PHONETIC_MATCH;
+        }
+        return similarity < MIN_NAME_SIMILARITY ? 0 : similarity;
+    }
+
+    static double dateSimilarity(LocalDate a, LocalDate b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        if (a.getYear() == b.getYear() && a.getMonthValue() == b.getDayOfMonth()
+                && a.getDayOfMonth() == b.getMonthValue()) {
+            return 0.8;
+        }
+        int agreeing = (a.getYear() == b.getYear() ? 1 : 0) + (a.getMonthValue() == b.getMonthValue() ? 1 : 0)
+                + (a.getDayOfMonth() == b.getDayOfMonth() ? 1 : 0);
+        return agreeing == 2 ? 0.5 : 0;
+    }
+
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] aMatched = new boolean[a.length()];
+        boolean[] bMatched = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int end = Math.min(b.length(), i + window + 1);
+            for (int j = Math.max(0, i - window); j < end; j++) {
+                if (!bMatched[j] && a.charAt(i) == b.charAt(j)) {
+                    aMatched[i] = true;
+                    bMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (aMatched[i]) {
+                while (!bMatched[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    private static double exact(String a, String b) {
+        return !a.isEmpty() && a.equals(b) ? 1 : 0;
+    }
+
+    private static boolean sharesCode(String[] a, String[] b) {
+        for (String code : a) {
+            for (String other : b) {
+                if (code.equals(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
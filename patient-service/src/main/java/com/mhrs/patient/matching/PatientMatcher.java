@@ -0,0 +1,171 @@
+package com.mhrs.patient.matching;
+
+import com.mhrs.patient.audit.AuditAction;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.dto.DuplicateCandidateResponse;
+import com.mhrs.patient.exception.PossibleDuplicatePatientException;
+import com.mhrs.patient.shard.ShardRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Master-patient-index style duplicate detection. Every patient's blocking keys are kept in
+ * patient_blocking_keys, written in the same transaction as the patient. Finding duplicates
+ * of a patient is one indexed query for the active patients that share any of its keys, at
+ * most max-candidates of them, scored in memory by MatchScorer; nobody outside those blocks
+ * is compared, so the cost does not grow with the registry. With sharding a block can span
+ * shards, so the query runs on every shard and each contributes up to max-candidates.
+ *
+ * createPatient refuses a patient scoring reject-score or more against an existing one
+ * unless the caller confirms it is a different person. Scores from review-score up are only
+ * reported, by GET /patients/{id}/duplicates and by DuplicateScanner.
+ */
+@Component
+public class PatientMatcher implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientMatcher.class);
+
+    static final String INSERT_SQL = "INSERT INTO patient_blocking_keys (block_key, patient_id) VALUES (?, ?)";
+    static final String DELETE_SQL = "DELETE FROM patient_blocking_keys WHERE patient_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PatientAuditLog patientAuditLog;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${patient.duplicates.reject-score:0.95}")
+    private double rejectScore = 0.95;
+
+    @Value("${patient.duplicates.review-score:0.75}")
+    private double reviewScore = 0.75;
+
+    @Value("${patient.duplicates.max-candidates:200}")
+    private int maxCandidates = 200;
+
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder matchNanos = new LongAdder();
+    private final LongAdder candidatesScored = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public double getReviewScore() {
+        return reviewScore;
+    }
+
+    // Replace the blocking keys of a saved patient; runs in the caller's transaction
+    public void index(MatchRecord record) {
+        jdbcTemplate.update(DELETE_SQL, record.patientId);
+        indexAll(List.of(record));
+    }
+
+    // Replace the blocking keys of an updated patient when the fields they are built from changed
+    public void reindex(MatchRecord before, MatchRecord after) {
+        if (!BlockingKeys.of(before).equals(BlockingKeys.of(after))) {
+            index(after);
+        }
+    }
+
+    // Insert the blocking keys of freshly inserted patients in one batch; runs in the caller's transaction
+    public void indexAll(List<MatchRecord> records) {
+        List<Object[]> args = new ArrayList<>();
+        for (MatchRecord record : records) {
+            if (record.patientId != null) {
+                for (String key : BlockingKeys.of(record)) {
+                    args.add(new Object[]{key, record.patientId});
+                }
+            }
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+        }
+    }
+
+    // Active patients scoring at least minScore against the record, best first; the record itself is skipped
+    public List<DuplicateCandidateResponse> findCandidates(MatchRecord record, double minScore) {
+        long start = System.nanoTime();
+        List<String> keys = BlockingKeys.of(record);
+        List<DuplicateCandidateResponse> candidates = new ArrayList<>();
+        if (!keys.isEmpty()) {
+            String sql = "SELECT " + MatchRecord.SELECT_COLUMNS + " FROM patients WHERE active = TRUE AND patient_id IN "
+                    + "(SELECT patient_id FROM patient_blocking_keys WHERE block_key IN ("
+                    + keys.stream().map(key -> "?").collect(Collectors.joining(", ")) + ")) LIMIT ?";
+            List<Object> args = new ArrayList<>(keys);
+            args.add(maxCandidates);
+            ShardRouter.Ownership owners = shardRouter.ownership();
+            List<MatchRecord> block = shardRouter.onEveryShard(shard ->
+                            jdbcTemplate.query(sql, (rs, i) -> MatchRecord.read(rs), args.toArray()).stream()
+                                    .filter(candidate -> owners.owns(shard, candidate.patientId))
+                                    .toList()).stream()
+                    .flatMap(List::stream)
+                    .toList();
+            if (block.size() >= maxCandidates) {
+                log.debug("Duplicate check for {} {} stopped at {} candidates", record.firstName, record.lastName,
+                        maxCandidates);
+            }
+            for (MatchRecord candidate : block) {
+                if (candidate.patientId.equals(record.patientId)) {
+                    continue;
+                }
+                double score = MatchScorer.score(record, candidate);
+                if (score >= minScore) {
+                    candidates.add(toResponse(candidate, score));
+                }
+            }
+            candidates.sort(Comparator.comparingDouble(DuplicateCandidateResponse::getScore).reversed());
+            candidatesScored.add(block.size());
+        }
+        matches.increment();
+        matchNanos.add(System.nanoTime() - start);
+        return candidates;
+    }
+
+    // Refuse a new patient that is very likely someone already registered; the 409 names the candidates
+    public void checkNotDuplicate(MatchRecord record) {
+        List<DuplicateCandidateResponse> candidates = findCandidates(record, rejectScore);
+        if (!candidates.isEmpty()) {
+            rejected.increment();
+            patientAuditLog.record(AuditAction.DUPLICATES,
+                    candidates.stream().map(DuplicateCandidateResponse::getPatientId).toList());
+            DuplicateCandidateResponse best = candidates.get(0);
+            throw new PossibleDuplicatePatientException(String.format("Patient looks like existing patient %s "
+                    + "(score %.2f); resend with allowDuplicate=true if this is a different person",
+                    best.getPatientUniqueId(), best.getScore()), candidates);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("patient.duplicates.match", this, m -> m.matches.sum(), m -> m.matchNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("Duplicate lookups for one patient")
+                .register(registry);
+        FunctionCounter.builder("patient.duplicates.candidates", candidatesScored, LongAdder::sum)
+                .description("Candidates scored by duplicate lookups")
+                .register(registry);
+        FunctionCounter.builder("patient.duplicates.rejected", rejected, LongAdder::sum)
+                .description("New patients refused as likely duplicates")
+                .register(registry);
+    }
+
+    static DuplicateCandidateResponse toResponse(MatchRecord record, double score) {
+        return new DuplicateCandidateResponse(record.patientId, record.patientUniqueId, record.firstName,
+                record.lastName, record.dateOfBirth, Math.round(score * 1000) / 1000.0);
+    }
+}
@@ -0,0 +1,106 @@
+package com.mhrs.patient.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Records how many rows each Spring Data repository method returns as the
+ * patient.repository.rows summary, tagged by repository interface and method. Query timings come from Spring Boot's own
+ * spring.data.repository.invocations timer, so this aspect only counts.
+ *
+ * Streams are counted as they are consumed and recorded when the stream is closed.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    static final String ROWS_METRIC = "patient.repository.rows";
+
+    private final Map<MeterKey, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    // Application repository interface implemented by a repository proxy class
+    private static final ClassValue<String> REPOSITORY_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> proxyClass) {
+            for (Class<?> candidate : proxyClass.getInterfaces()) {
+                if (Repository.class.isAssignableFrom(candidate) && !candidate.getName().startsWith("org.springframework.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return proxyClass.getSimpleName();
+        }
+    };
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object countRows(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (result instanceof Stream<?> stream) {
+            DistributionSummary summary = summary(joinPoint.getThis().getClass(), method);
+            long[] rows = {0};
+            return stream.peek(row -> rows[0]++).onClose(() -> summary.record(rows[0]));
+        }
+        long rows = rowCount(result, method.getReturnType());
+        if (rows >= 0) {
+            summary(joinPoint.getThis().getClass(), method).record(rows);
+        }
+        return result;
+    }
+
+    private DistributionSummary summary(Class<?> proxyClass, Method method) {
+        return summaries.computeIfAbsent(new MeterKey(proxyClass, method), key -> DistributionSummary.builder(ROWS_METRIC)
+                .description("Rows returned per repository call")
+                .baseUnit("rows")
+                .tag("repository", REPOSITORY_NAMES.get(proxyClass))
+                .tag("method", method.getName())
+                .register(meterRegistry));
+    }
+
+    // -1 for methods that do not return rows (void, counts, exists checks)
+    static long rowCount(Object result, Class<?> returnType) {
+        if (returnType == void.class || returnType.isPrimitive()
+                || Number.class.isAssignableFrom(returnType) || returnType == Boolean.class) {
+            return -1;
+        }
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Iterable<?> iterable) {
+            long rows = 0;
+            for (Object ignored : iterable) {
+                rows++;
+            }
+            return rows;
+        }
+        return 1;
+    }
+
+    private record MeterKey(Class<?> proxyClass, Method method) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.mhrs.patient.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import java.time.LocalDate;
+
+/**
+ * A soft-deleted patient moved out of the patients table by PatientArchiver. Same columns
+ * as Patient, plus the day it was archived. Rows are never updated. Clinical text stays in
+ * patient_clinical_text under the same patient ID.
+ */
+@Entity
+@Table(name = "patients_archive")
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedPatient {
+
+    @Id
+    private Long patientId;
+
+    @Column(nullable = false, unique = true)
+    private String patientUniqueId;
+
+    @Column(nullable = false)
+    private String firstName;
+
+    @Column(nullable = false)
+    private String lastName;
+
+    @Column(nullable = false, unique = true)
+    private String email;
+
+    @Column(nullable = false)
+    private String phoneNumber;
+
+    @Column(nullable = false)
+    private LocalDate dateOfBirth;
+
+    @Column(nullable = false)
+    private String gender;
+
+    @Column(nullable = false)
+    private String address;
+
+    @Column(nullable = false)
+    private String city;
+
+    @Column(nullable = false)
+    private String state;
+
+    @Column(nullable = false)
+    private String zipCode;
+
+    @Column(nullable = false)
+    private String bloodGroup;
+
+    @Column(nullable = false)
+    private boolean active;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDate createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDate updatedAt;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDate archivedAt;
+
+    // Detached copy in the shape the rest of the service works with
+    public Patient toPatient() {
+        return new Patient(patientId, patientUniqueId, firstName, lastName, email, phoneNumber, dateOfBirth, gender,
+                address, city, state, zipCode, bloodGroup, active, createdAt, updatedAt, version, changeSeq);
+    }
+}
@@ -1,20 +1,32 @@
 package com.mhrs.patient.model;
 
+import com.mhrs.patient.id.AssignableIdentity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "patients")
+// Filter indexes lead with active, as every search does; InnoDB appends patient_id, so each
+// equality filter reads its matches in keyset order
+@Table(name = "patients", indexes = {
+        @Index(name = "idx_patients_change_seq", columnList = "change_seq"),
+        @Index(name = "idx_patients_active_city", columnList = "active, city"),
+        @Index(name = "idx_patients_active_state", columnList = "active, state"),
+        @Index(name = "idx_patients_active_zip_code", columnList = "active, zipCode"),
+        @Index(name = "idx_patients_active_blood_group_gender", columnList = "active, bloodGroup, gender"),
+        @Index(name = "idx_patients_active_date_of_birth", columnList = "active, dateOfBirth")
+})
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Patient {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @AssignableIdentity
     private Long patientId;
 
     @Column(nullable = false, unique = true)
@@ -53,12 +65,6 @@ public class Patient {
     @Column(nullable = false)
     private String bloodGroup;
 
-    @Column
-    private String allergies;
-
-    @Column
-    private String medicalHistory;
-
     @Column(nullable = false)
     private boolean active = true;
 
@@ -68,6 +74,15 @@ public class Patient {
     @Column(name = "updated_at")
     private LocalDate updatedAt;
 
+    // Optimistic lock; bumped by every update
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Position in the change feed; reassigned on every insert and update by ChangeSequenceInterceptor
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDate.now();
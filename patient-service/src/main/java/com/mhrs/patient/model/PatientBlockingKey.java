@@ -0,0 +1,39 @@
+package com.mhrs.patient.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+/**
+ * One blocking key of a patient, computed by BlockingKeys. Patients that share a key form a
+ * block and are the only ones compared when looking for duplicates. The primary key leads
+ * with block_key, so fetching a block is an index range scan that never reads patients.
+ * Written with JDBC by PatientMatcher; the entity only defines the table.
+ */
+@Entity
+@Table(name = "patient_blocking_keys", indexes = {
+        @Index(name = "idx_patient_blocking_keys_patient_id", columnList = "patientId")
+})
+@IdClass(PatientBlockingKey.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientBlockingKey {
+
+    @Id
+    @Column(length = 64)
+    private String blockKey;
+
+    @Id
+    private Long patientId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String blockKey;
+        private Long patientId;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mhrs.patient.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Free-text clinical fields of a patient, kept out of the patients row so that lookups,
+ * lists and duplicate checks never read them. Values are encoded by ClinicalTextCodec.
+ * A row exists only while at least one text is set.
+ */
+@Entity
+@Table(name = "patient_clinical_text")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientClinicalText {
+
+    @Id
+    private Long patientId;
+
+    @Lob
+    @Column
+    private byte[] allergies;
+
+    @Lob
+    @Column
+    private byte[] medicalHistory;
+}
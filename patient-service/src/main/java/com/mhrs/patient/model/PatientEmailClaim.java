@@ -0,0 +1,28 @@
+package com.mhrs.patient.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The patient an email belongs to, across all shards. With sharding every new patient claims
+ * its email here first, so emails stay unique although each shard only sees its own rows.
+ * Lives on shard 0 and is written with JDBC by ShardDirectory; the entity only defines the table.
+ */
+@Entity
+@Table(name = "patient_email_directory")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientEmailClaim {
+
+    @Id
+    private String email;
+
+    @Column(nullable = false)
+    private Long patientId;
+
+    @Column(nullable = false)
+    private String patientUniqueId;
+}
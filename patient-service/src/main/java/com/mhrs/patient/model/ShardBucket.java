@@ -0,0 +1,31 @@
+package com.mhrs.patient.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Which shard holds a routing bucket. Patient IDs hash to one of a fixed number of buckets,
+ * and moving a bucket to another shard is how shards are added. Lives on shard 0 and is
+ * written with JDBC by ShardDirectory; the entity only defines the table.
+ */
+@Entity
+@Table(name = "shard_buckets")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardBucket {
+
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private int shard;
+
+    // Set by a rebalance from its first copy of the bucket until the old shard's rows are deleted
+    private Boolean moving;
+
+    // Set by a rebalance while writes to the bucket's patients are refused
+    private Boolean frozen;
+}
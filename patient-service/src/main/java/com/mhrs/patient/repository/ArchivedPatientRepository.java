@@ -0,0 +1,22 @@
+package com.mhrs.patient.repository;
+
+import com.mhrs.patient.model.ArchivedPatient;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedPatientRepository extends JpaRepository<ArchivedPatient, Long> {
+
+    Optional<ArchivedPatient> findByPatientUniqueId(String patientUniqueId);
+    List<ArchivedPatient> findByPatientUniqueIdIn(Collection<String> patientUniqueIds);
+    boolean existsByEmail(String email);
+
+    // Archived patients still own their emails
+    @Query("SELECT p.email FROM ArchivedPatient p WHERE p.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+}
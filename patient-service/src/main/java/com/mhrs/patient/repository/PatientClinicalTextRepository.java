@@ -0,0 +1,9 @@
+package com.mhrs.patient.repository;
+
+import com.mhrs.patient.model.PatientClinicalText;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PatientClinicalTextRepository extends JpaRepository<PatientClinicalText, Long> {
+}
@@ -0,0 +1,19 @@
+package com.mhrs.patient.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads only the requested columns of active patients as field-name to value maps, so wide
+ * text columns are neither fetched nor hydrated unless asked for. Field names come from
+ * PatientFields.parse().
+ */
+public interface PatientFieldRepository {
+
+    List<Map<String, Object>> findActiveFields(List<String> fields);
+
+    List<Map<String, Object>> findActiveFieldsByIds(List<String> fields, Collection<Long> patientIds);
+
+    List<Map<String, Object>> findActiveFieldsByFirstName(List<String> fields, String firstName, int limit);
+}
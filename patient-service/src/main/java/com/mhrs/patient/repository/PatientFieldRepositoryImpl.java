@@ -0,0 +1,79 @@
+package com.mhrs.patient.repository;
+
+import com.mhrs.patient.model.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+// Criteria tuple queries selecting only the requested columns
+class PatientFieldRepositoryImpl implements PatientFieldRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findActiveFields(List<String> fields) {
+        return query(fields, (cb, root) -> cb.conjunction(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Map<String, Object>> findActiveFieldsByIds(List<String> fields, Collection<Long> patientIds) {
+        if (patientIds.isEmpty()) {
+            return List.of();
+        }
+        return query(fields, (cb, root) -> root.get("patientId").in(patientIds), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Map<String, Object>> findActiveFieldsByFirstName(List<String> fields, String firstName, int limit) {
+        String pattern = "%" + firstName.toLowerCase(Locale.ROOT) + "%";
+        return query(fields, (cb, root) -> cb.like(cb.lower(root.get("firstName")), pattern), limit);
+    }
+
+    private List<Map<String, Object>> query(List<String> fields,
+                                            BiFunction<CriteriaBuilder, Root<Patient>, Predicate> filter,
+                                            int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Patient> root = query.from(Patient.class);
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            if (!PatientFields.SELECTABLE.contains(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "'");
+            }
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections)
+                .where(cb.isTrue(root.get("active")), filter.apply(cb, root))
+                .orderBy(cb.asc(root.get("patientId")));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (limit != Integer.MAX_VALUE) {
+            typed.setMaxResults(limit);
+        }
+        List<Tuple> tuples = typed.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(fields.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,65 @@
+package com.mhrs.patient.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Parses the ?fields= selector into Patient attribute names. Names are the PatientResponse
+ * property names; "summary" expands to the PatientSummaryResponse columns. patientId is
+ * always selected first so results can be ordered and audited. Clinical text is not
+ * selectable; it is only returned by single-patient reads.
+ */
+public final class PatientFields {
+
+    public static final String SUMMARY = "summary";
+
+    static final List<String> SELECTABLE = List.of("patientId", "patientUniqueId", "firstName", "lastName", "email",
+            "phoneNumber", "dateOfBirth", "gender", "address", "city", "state", "zipCode", "bloodGroup", "active",
+            "createdAt", "updatedAt", "version");
+
+    static final List<String> SUMMARY_FIELDS = List.of("patientId", "patientUniqueId", "firstName", "lastName",
+            "dateOfBirth", "phoneNumber");
+
+    // Case-insensitive lookup of canonical names
+    private static final Map<String, String> BY_LOWER_NAME = SELECTABLE.stream()
+            .collect(Collectors.toUnmodifiableMap(name -> name.toLowerCase(Locale.ROOT), Function.identity()));
+
+    private PatientFields() {
+    }
+
+    public static boolean isSummary(String fields) {
+        return fields != null && SUMMARY.equalsIgnoreCase(fields.trim());
+    }
+
+    // Ordered, de-duplicated attribute names, patientId first
+    public static List<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            throw new IllegalArgumentException("fields must name at least one field");
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("patientId");
+        for (String requested : fields.split(",")) {
+            String name = requested.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (SUMMARY.equalsIgnoreCase(name)) {
+                selected.addAll(SUMMARY_FIELDS);
+                continue;
+            }
+            String attribute = BY_LOWER_NAME.get(name.toLowerCase(Locale.ROOT));
+            if (attribute == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'; selectable fields are "
+                        + String.join(", ", SELECTABLE) + " or " + SUMMARY);
+            }
+            selected.add(attribute);
+        }
+        return new ArrayList<>(selected);
+    }
+}
@@ -0,0 +1,8 @@
+package com.mhrs.patient.repository;
+
+// Projection used to bulk-load the in-memory name index without hydrating full entities
+public interface PatientNameView {
+    Long getPatientId();
+    String getFirstName();
+    String getLastName();
+}
@@ -1,15 +1,69 @@
 package com.mhrs.patient.repository;
 
+import com.mhrs.patient.dto.PatientSummaryResponse;
 import com.mhrs.patient.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, JpaSpecificationExecutor<Patient>,
+        PatientFieldRepository {
+
+    // Rows per round trip for streaming queries; with useCursorFetch=true MySQL serves them from a server-side cursor
+    String STREAM_FETCH_SIZE = "1000";
+
     Optional<Patient> findByPatientUniqueId(String patientUniqueId);
+    List<Patient> findByPatientUniqueIdIn(Collection<String> patientUniqueIds);
     Optional<Patient> findByEmail(String email);
     List<Patient> findByActiveTrue();
     List<Patient> findByFirstNameContainingIgnoreCase(String firstName);
-}
\ No newline at end of file
+
+    // Summary projections: only the picker columns are selected, no entities are hydrated
+    String SUMMARY_SELECT = "SELECT new com.mhrs.patient.dto.PatientSummaryResponse(p.patientId, p.patientUniqueId, "
+            + "p.firstName, p.lastName, p.dateOfBirth, p.phoneNumber) FROM Patient p ";
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true ORDER BY p.patientId")
+    List<PatientSummaryResponse> findSummariesByActiveTrue();
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND p.patientId IN :ids")
+    List<PatientSummaryResponse> findSummariesByPatientIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND LOWER(p.firstName) LIKE LOWER(CONCAT('%', :name, '%')) "
+            + "ORDER BY p.patientId")
+    List<PatientSummaryResponse> findSummariesByFirstNameContaining(@Param("name") String name, Limit limit);
+
+    // Duplicate check for a whole import chunk in one IN query
+    @Query("SELECT p.email FROM Patient p WHERE p.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Keyset page: active patients after the given ID, in ID order
+    List<Patient> findByActiveTrueAndPatientIdGreaterThanOrderByPatientIdAsc(Long patientId, Limit limit);
+
+    // Change feed: active and soft-deleted patients changed after one sequence, up to another
+    List<Patient> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(Long since, Long horizon,
+                                                                                         Limit limit);
+
+    // Forward-only cursor read in STREAM_FETCH_SIZE chunks
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Patient p WHERE p.active = true ORDER BY p.patientId")
+    Stream<Patient> streamByActiveTrue();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT p.patientId AS patientId, p.firstName AS firstName, p.lastName AS lastName "
+            + "FROM Patient p WHERE p.active = true")
+    Stream<PatientNameView> streamNamesByActiveTrue();
+}
@@ -0,0 +1,55 @@
+package com.mhrs.patient.repository;
+
+import com.mhrs.patient.dto.PatientSearchCriteria;
+import com.mhrs.patient.model.Patient;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns PatientSearchCriteria into one WHERE clause. Every filter is a plain comparison on
+ * its column so it can use the composite indexes declared on Patient, all of which lead
+ * with active. Age bounds become a date_of_birth range rather than a computed age.
+ */
+public final class PatientSpecifications {
+
+    private PatientSpecifications() {
+    }
+
+    public static Specification<Patient> matching(PatientSearchCriteria criteria, LocalDate today) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("active"), criteria.getActive() == null || criteria.getActive()));
+            addEqual(predicates, cb, root.get("city"), criteria.getCity());
+            addEqual(predicates, cb, root.get("state"), criteria.getState());
+            addEqual(predicates, cb, root.get("zipCode"), criteria.getZipCode());
+            addEqual(predicates, cb, root.get("bloodGroup"), criteria.getBloodGroup());
+            addEqual(predicates, cb, root.get("gender"), criteria.getGender());
+            if (criteria.getMinAge() != null) {
+                // At least minAge: born on or before today minus minAge years
+                predicates.add(cb.lessThanOrEqualTo(root.get("dateOfBirth"), today.minusYears(criteria.getMinAge())));
+            }
+            if (criteria.getMaxAge() != null) {
+                // At most maxAge: not yet maxAge + 1, so born after today minus maxAge + 1 years
+                predicates.add(cb.greaterThan(root.get("dateOfBirth"), today.minusYears(criteria.getMaxAge() + 1L)));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // Keyset cursor: patients after the last one of the previous slice
+    public static Specification<Patient> after(long patientId) {
+        return (root, query, cb) -> cb.greaterThan(root.get("patientId"), patientId);
+    }
+
+    private static void addEqual(List<Predicate> predicates, CriteriaBuilder cb, Expression<String> column,
+                                 String value) {
+        if (value != null && !value.isBlank()) {
+            predicates.add(cb.equal(column, value.trim()));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.mhrs.patient.search;
+
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-process name index over patient first and last names.
+ *
+ * Terms of three or more characters are answered from trigram postings and then verified
+ * as substrings, so they match anywhere in a name like the old LIKE '%x%' query did.
+ * Shorter terms fall back to a sorted token map and match name prefixes. Multi-word queries
+ * require every term to match the first or last name. Writes are serialized; reads are not.
+ *
+ * The index is loaded while the service already takes writes. Until it is marked ready,
+ * the IDs written through index() and remove() are remembered, and rows of the load for
+ * those IDs are dropped, so a row the scan read before a rename or delete cannot undo it.
+ */
+@Component
+public class PatientNameIndex {
+
+    private static final int GRAM = 3;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Scores per term; higher ranks first
+    private static final int EXACT_MATCH = 100;
+    private static final int PREFIX_MATCH = 50;
+    private static final int SUBSTRING_MATCH = 10;
+    private static final int FIRST_NAME_BONUS = 1;
+
+    private final Map<Long, String[]> namesById = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<Long>> tokens = new ConcurrentSkipListMap<>();
+
+    // IDs written while the index was loading
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready;
+
+    // Add or replace the names indexed for a patient
+    public synchronized void index(Long patientId, String firstName, String lastName) {
+        if (patientId == null) {
+            return;
+        }
+        if (!ready) {
+            changedWhileLoading.add(patientId);
+        }
+        put(patientId, firstName, lastName);
+    }
+
+    // Add the names the initial load read, unless the patient was written since the load began
+    public synchronized void indexLoaded(Long patientId, String firstName, String lastName) {
+        if (patientId == null || changedWhileLoading.contains(patientId)) {
+            return;
+        }
+        put(patientId, firstName, lastName);
+    }
+
+    // Drop a patient from the index
+    public synchronized void remove(Long patientId) {
+        if (patientId == null) {
+            return;
+        }
+        if (!ready) {
+            changedWhileLoading.add(patientId);
+        }
+        drop(patientId);
+    }
+
+    // Return matching patient IDs, best match first
+    public List<Long> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String[] terms = normalized.split(" ");
+
+        Map<Long, Integer> scores = null;
+        for (String term : terms) {
+            Map<Long, Integer> termScores = scoreTerm(term, scores == null ? null : scores.keySet());
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Long, Integer> merged = new HashMap<>();
+                for (Map.Entry<Long, Integer> entry : termScores.entrySet()) {
+                    Integer previous = scores.get(entry.getKey());
+                    if (previous != null) {
+                        merged.put(entry.getKey(), previous + entry.getValue());
+                    }
+                }
+                scores = merged;
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void markReady() {
+        this.ready = true;
+        changedWhileLoading.clear();
+    }
+
+    private void put(Long patientId, String firstName, String lastName) {
+        drop(patientId);
+        String[] names = {normalize(firstName), normalize(lastName)};
+        namesById.put(patientId, names);
+        for (String name : names) {
+            forEachGram(name, gram -> trigrams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(patientId));
+            for (String token : name.split(" ")) {
+                if (!token.isEmpty()) {
+                    tokens.computeIfAbsent(token, k -> ConcurrentHashMap.newKeySet()).add(patientId);
+                }
+            }
+        }
+    }
+
+    private void drop(Long patientId) {
+        String[] names = namesById.remove(patientId);
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            forEachGram(name, gram -> removePosting(trigrams, gram, patientId));
+            for (String token : name.split(" ")) {
+                removePosting(tokens, token, patientId);
+            }
+        }
+    }
+
+    private Map<Long, Integer> scoreTerm(String term, Set<Long> restrictTo) {
+        Iterable<Long> candidates = term.length() >= GRAM ? trigramCandidates(term) : prefixCandidates(term);
+        String innerPrefix = " " + term;
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Long patientId : candidates) {
+            if (restrictTo != null && !restrictTo.contains(patientId)) {
+                continue;
+            }
+            String[] names = namesById.get(patientId);
+            if (names == null) {
+                continue;
+            }
+            int score = Math.max(scoreName(names[0], term, innerPrefix) + FIRST_NAME_BONUS,
+                    scoreName(names[1], term, innerPrefix));
+            if (score > FIRST_NAME_BONUS) {
+                scores.put(patientId, score);
+            }
+        }
+        return scores;
+    }
+
+    private List<Long> trigramCandidates(String term) {
+        List<Set<Long>> postings = new ArrayList<>();
+        boolean[] missing = {false};
+        forEachGram(term, gram -> {
+            Set<Long> posting = trigrams.get(gram);
+            if (posting == null) {
+                missing[0] = true;
+            } else {
+                postings.add(posting);
+            }
+        });
+        if (missing[0] || postings.isEmpty()) {
+            return List.of();
+        }
+        // Walk the rarest trigram and probe the others
+        postings.sort(Comparator.comparingInt(Set::size));
+        List<Long> candidates = new ArrayList<>();
+        for (Long patientId : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(patientId);
+            }
+            if (inAll) {
+                candidates.add(patientId);
+            }
+        }
+        return candidates;
+    }
+
+    private List<Long> prefixCandidates(String term) {
+        List<Long> candidates = new ArrayList<>();
+        for (Set<Long> posting : tokens.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            candidates.addAll(posting);
+        }
+        return candidates;
+    }
+
+    private static int scoreName(String name, String term, String innerPrefix) {
+        if (name.equals(term)) {
+            return EXACT_MATCH;
+        }
+        if (name.startsWith(term) || name.contains(innerPrefix)) {
+            return PREFIX_MATCH;
+        }
+        if (term.length() >= GRAM && name.contains(term)) {
+            return SUBSTRING_MATCH;
+        }
+        return 0;
+    }
+
+    private static void removePosting(Map<String, Set<Long>> postings, String key, Long patientId) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(patientId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static void forEachGram(String text, Consumer<String> action) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            action.accept(text.substring(i, i + GRAM));
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+}
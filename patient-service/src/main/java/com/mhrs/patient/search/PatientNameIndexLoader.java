@@ -0,0 +1,48 @@
+package com.mhrs.patient.search;
+
+import com.mhrs.patient.repository.PatientNameView;
+import com.mhrs.patient.repository.PatientRepository;
+import com.mhrs.patient.shard.ShardRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.stream.Stream;
+
+/**
+ * Builds the name index from one streaming scan of the active patients once the
+ * application is up, shard by shard when sharded. Later changes are applied incrementally by PatientService.
+ * Those that land while the scan runs take precedence over the rows it read.
+ */
+@Component
+public class PatientNameIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientNameIndexLoader.class);
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PatientNameIndex patientNameIndex;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.nanoTime();
+        shardRouter.readEachShard(shard -> {
+            try (Stream<PatientNameView> names = patientRepository.streamNamesByActiveTrue()) {
+                names.forEach(name -> patientNameIndex.indexLoaded(name.getPatientId(), name.getFirstName(),
+                        name.getLastName()));
+            }
+        });
+        patientNameIndex.markReady();
+        log.info("Patient name index built with {} patients in {} ms",
+                patientNameIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
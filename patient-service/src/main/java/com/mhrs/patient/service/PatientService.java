@@ -1,38 +1,159 @@
 package com.mhrs.patient.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhrs.patient.audit.AuditAction;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientDocument;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.clinical.ClinicalText;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CacheStatsResponse;
 import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.DuplicateCandidateResponse;
+import com.mhrs.patient.dto.PatientBatchRequest;
+import com.mhrs.patient.dto.PatientBatchResponse;
+import com.mhrs.patient.dto.PatientBatchResult;
+import com.mhrs.patient.dto.PatchPatientRequest;
+import com.mhrs.patient.dto.PatientChangeResponse;
+import com.mhrs.patient.dto.PatientChangesResponse;
+import com.mhrs.patient.dto.PatientPageResponse;
 import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.dto.PatientSearchCriteria;
+import com.mhrs.patient.dto.PatientSearchResponse;
+import com.mhrs.patient.dto.PatientSummaryResponse;
 import com.mhrs.patient.exception.PatientAlreadyExistsException;
 import com.mhrs.patient.exception.PatientNotFoundException;
+import com.mhrs.patient.exception.PatientVersionConflictException;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.MatchRecord;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.model.ArchivedPatient;
 import com.mhrs.patient.model.Patient;
+import com.mhrs.patient.repository.ArchivedPatientRepository;
+import com.mhrs.patient.repository.PatientFields;
 import com.mhrs.patient.repository.PatientRepository;
+import com.mhrs.patient.repository.PatientSpecifications;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.shard.ShardRouter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PatientService {
 
     private static final Logger log = LoggerFactory.getLogger(PatientService.class);
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_SEARCH_RESULTS = 200;
+    static final int STREAM_AUDIT_CHUNK = 1000;
+    static final int MAX_AGE = 150;
+    static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private ArchivedPatientRepository archivedPatientRepository;
+
+    @Autowired
+    private PatientNameIndex patientNameIndex;
+
+    @Autowired
+    private PatientCache patientCache;
+
+    @Autowired
+    private PatientExistenceFilter patientExistenceFilter;
+
+    @Autowired
+    private PatientIdGenerator patientIdGenerator;
+
+    @Autowired
+    private PatientAuditLog patientAuditLog;
+
+    @Autowired
+    private ClinicalTextStore clinicalTextStore;
+
+    @Autowired
+    private PatientMatcher patientMatcher;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${patient.batch.chunk-size:200}")
+    private int batchChunkSize = 200;
+
+    @Value("${patient.changes.safety-lag:5s}")
+    private Duration changeSafetyLag = Duration.ofSeconds(5);
+
+    // Point reads check the cache and the existence filter first and only start this on a miss
+    private TransactionOperations readOnlyTransaction;
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        readOnlyTransaction = template;
+    }
+
     // Create new patient
+    @Transactional
     public PatientResponse createPatient(CreatePatientRequest request) {
+        return createPatient(request, false);
+    }
+
+    // Create new patient; unless allowDuplicate, one that very likely is an existing patient is refused
+    @Transactional
+    public PatientResponse createPatient(CreatePatientRequest request, boolean allowDuplicate) {
         if (request == null) {
             throw new IllegalArgumentException("Create patient request cannot be null");
         }
         log.info("Creating new patient: {}", request.getEmail());
 
-        // Check if patient already exists
-        if (patientRepository.findByEmail(request.getEmail()).isPresent()) {
-            throw new PatientAlreadyExistsException("Patient with email " + request.getEmail() + " already exists");
-        }
-
         Patient patient = new Patient();
         patient.setFirstName(request.getFirstName());
         patient.setLastName(request.getLastName());
@@ -45,69 +166,427 @@ public class PatientService {
         patient.setState(request.getState());
         patient.setZipCode(request.getZipCode());
         patient.setBloodGroup(request.getBloodGroup());
-        patient.setAllergies(request.getAllergies());
-        patient.setMedicalHistory(request.getMedicalHistory());
         patient.setActive(true);
 
-        // Generate unique patient ID
-        long timestamp = System.currentTimeMillis();
-        patient.setPatientUniqueId("PAT-" + timestamp);
-
-        Patient savedPatient = patientRepository.save(patient);
+        Patient savedPatient;
+        if (!shardRouter.isSharded()) {
+            // Check if patient already exists; archived patients keep their emails. An email the
+            // existence filter has never seen is free without asking the database
+            if (patientExistenceFilter.mightContainEmail(request.getEmail())
+                    && (patientRepository.findByEmail(request.getEmail()).isPresent()
+                    || archivedPatientRepository.existsByEmail(request.getEmail()))) {
+                throw new PatientAlreadyExistsException("Patient with email " + request.getEmail() + " already exists");
+            }
+            if (!allowDuplicate) {
+                patientMatcher.checkNotDuplicate(MatchRecord.of(request));
+            }
+            // Generate unique patient ID
+            patient.setPatientUniqueId(patientIdGenerator.nextPatientUniqueId());
+            savedPatient = patientRepository.save(patient);
+        } else {
+            // The ID is assigned up front because it picks the shard; the unique ID carries it. IDs
+            // in buckets a rebalance has frozen are skipped
+            long patientId = patientIdGenerator.nextId();
+            while (shardRouter.isFrozen(patientId)) {
+                patientId = patientIdGenerator.nextId();
+            }
+            patient.setPatientId(patientId);
+            patient.setPatientUniqueId(PatientIdGenerator.PREFIX + patientId);
+            // Emails are unique across shards through the directory; a rollback releases the claim
+            shardRouter.claimEmail(request.getEmail(), patientId, patient.getPatientUniqueId());
+            if (!allowDuplicate) {
+                patientMatcher.checkNotDuplicate(MatchRecord.of(request));
+            }
+            // persist rather than save: save would look the assigned ID up before inserting
+            shardRouter.bindTransaction(shardRouter.shardForWrite(patientId));
+            entityManager.persist(patient);
+            entityManager.flush();
+            savedPatient = patient;
+        }
+        clinicalTextStore.replace(savedPatient.getPatientId(), request.getAllergies(), request.getMedicalHistory());
+        patientMatcher.indexAll(List.of(MatchRecord.of(savedPatient)));
+        patientExistenceFilter.add(savedPatient.getPatientId(), savedPatient.getPatientUniqueId(), savedPatient.getEmail());
+        afterCommit(() -> patientNameIndex.index(savedPatient.getPatientId(), savedPatient.getFirstName(),
+                savedPatient.getLastName()));
         log.info("Patient created successfully with ID: {}", savedPatient.getPatientUniqueId());
 
-        return convertToResponse(savedPatient);
+        return convertToResponse(savedPatient, new ClinicalText(request.getAllergies(), request.getMedicalHistory()));
     }
 
     // Get patient by ID
     public PatientResponse getPatientById(Long patientId) {
+        return getPatientDocumentById(patientId).patient();
+    }
+
+    // Get patient by ID together with its JSON bytes and ETag
+    public PatientDocument getPatientDocumentById(Long patientId) {
         if (patientId == null) {
             throw new IllegalArgumentException("Patient ID cannot be null");
         }
         log.info("Fetching patient with ID: {}", patientId);
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + patientId));
-        return convertToResponse(patient);
+        PatientDocument document = patientCache.getById(patientId).orElseGet(() -> {
+            if (!patientExistenceFilter.mightContainId(patientId)) {
+                throw new PatientNotFoundException("Patient not found with ID: " + patientId);
+            }
+            long generation = patientCache.currentGeneration();
+            return readOnlyTransaction.execute(status -> {
+                shardRouter.bindTransaction(shardRouter.shardOf(patientId));
+                Patient patient = patientRepository.findById(patientId)
+                        .or(() -> archivedPatientRepository.findById(patientId).map(ArchivedPatient::toPatient))
+                        .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + patientId));
+                PatientDocument loaded = toDocument(convertToResponse(patient, clinicalTextStore.load(patient.getPatientId())));
+                patientCache.put(loaded, generation);
+                return loaded;
+            });
+        });
+        patientAuditLog.record(AuditAction.READ_BY_ID, document.patient().getPatientId());
+        return document;
     }
 
     // Get patient by unique ID
     public PatientResponse getPatientByUniqueId(String patientUniqueId) {
+        return getPatientDocumentByUniqueId(patientUniqueId).patient();
+    }
+
+    // Get patient by unique ID together with its JSON bytes and ETag
+    public PatientDocument getPatientDocumentByUniqueId(String patientUniqueId) {
         if (patientUniqueId == null || patientUniqueId.trim().isEmpty()) {
             throw new IllegalArgumentException("Patient unique ID cannot be null or empty");
         }
         log.info("Fetching patient with unique ID: {}", patientUniqueId);
-        Patient patient = patientRepository.findByPatientUniqueId(patientUniqueId)
-                .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + patientUniqueId));
-        return convertToResponse(patient);
+        PatientDocument document = patientCache.getByUniqueId(patientUniqueId).orElseGet(() -> {
+            if (!patientExistenceFilter.mightContainUniqueId(patientUniqueId)) {
+                throw new PatientNotFoundException("Patient not found with ID: " + patientUniqueId);
+            }
+            long generation = patientCache.currentGeneration();
+            return readOnlyTransaction.execute(status -> {
+                shardRouter.bindTransaction(shardRouter.shardOfUniqueId(patientUniqueId));
+                Patient patient = patientRepository.findByPatientUniqueId(patientUniqueId)
+                        .or(() -> archivedPatientRepository.findByPatientUniqueId(patientUniqueId)
+                                .map(ArchivedPatient::toPatient))
+                        .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + patientUniqueId));
+                PatientDocument loaded = toDocument(convertToResponse(patient, clinicalTextStore.load(patient.getPatientId())));
+                patientCache.put(loaded, generation);
+                return loaded;
+            });
+        });
+        patientAuditLog.record(AuditAction.READ_BY_UNIQUE_ID, document.patient().getPatientId());
+        return document;
+    }
+
+    // Look up many patients by ID and/or unique ID: cache first, then chunked IN queries for the misses.
+    // Results follow the request order, with a not-found entry for every ID that matched nothing
+    public PatientBatchResponse getPatientsBatch(PatientBatchRequest request) {
+        List<Long> ids = request == null || request.getIds() == null ? List.of() : request.getIds();
+        List<String> uniqueIds = request == null || request.getUniqueIds() == null ? List.of() : request.getUniqueIds();
+        if (ids.size() + uniqueIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch can look up at most " + MAX_BATCH_SIZE + " patients");
+        }
+        if (ids.stream().anyMatch(Objects::isNull) || uniqueIds.stream().anyMatch(id -> id == null || id.isBlank())) {
+            throw new IllegalArgumentException("Batch IDs cannot be null or empty");
+        }
+        log.info("Fetching batch of {} IDs and {} unique IDs", ids.size(), uniqueIds.size());
+
+        Map<Long, PatientResponse> byId = new HashMap<>();
+        Map<String, PatientResponse> byUniqueId = new HashMap<>();
+        Set<Long> missingIds = new LinkedHashSet<>();
+        Set<String> missingUniqueIds = new LinkedHashSet<>();
+        long generation = patientCache.currentGeneration();
+        // IDs the existence filter rules out are not-found without a query
+        for (Long id : ids) {
+            patientCache.getById(id).ifPresentOrElse(document -> byId.put(id, document.patient()), () -> {
+                if (patientExistenceFilter.mightContainId(id)) {
+                    missingIds.add(id);
+                }
+            });
+        }
+        for (String uniqueId : uniqueIds) {
+            patientCache.getByUniqueId(uniqueId).ifPresentOrElse(
+                    document -> byUniqueId.put(uniqueIdKey(uniqueId), document.patient()), () -> {
+                        if (patientExistenceFilter.mightContainUniqueId(uniqueId)) {
+                            missingUniqueIds.add(uniqueId);
+                        }
+                    });
+        }
+
+        // Each shard looks up its own keys, all shards in parallel
+        Map<Integer, List<Long>> idsByShard = shardRouter.groupByShard(missingIds, shardRouter::shardOf);
+        Map<Integer, List<String>> uniqueIdsByShard = shardRouter.groupByShard(missingUniqueIds,
+                shardRouter::shardOfUniqueId);
+        Set<Integer> shards = new LinkedHashSet<>(idsByShard.keySet());
+        shards.addAll(uniqueIdsByShard.keySet());
+        // A batch the cache and the existence filter answered in full needs no transaction
+        if (!shards.isEmpty()) {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                List<PatientResponse> loaded = shardRouter.onShards(shards, shard -> loadBatch(
+                        idsByShard.getOrDefault(shard, List.of()), uniqueIdsByShard.getOrDefault(shard, List.of())))
+                        .stream().flatMap(List::stream).toList();
+                for (PatientResponse patient : loaded) {
+                    PatientDocument document = toDocument(patient);
+                    patientCache.put(document, generation);
+                    byId.put(patient.getPatientId(), document.patient());
+                    byUniqueId.put(uniqueIdKey(patient.getPatientUniqueId()), document.patient());
+                }
+            });
+        }
+
+        List<PatientBatchResult> results = new ArrayList<>(ids.size() + uniqueIds.size());
+        for (Long id : ids) {
+            PatientResponse patient = byId.get(id);
+            results.add(new PatientBatchResult(id, null, patient != null, patient));
+        }
+        for (String uniqueId : uniqueIds) {
+            PatientResponse patient = byUniqueId.get(uniqueIdKey(uniqueId));
+            results.add(new PatientBatchResult(null, uniqueId, patient != null, patient));
+        }
+        List<Long> returned = results.stream()
+                .filter(PatientBatchResult::isFound)
+                .map(result -> result.getPatient().getPatientId())
+                .distinct()
+                .toList();
+        if (!returned.isEmpty()) {
+            patientAuditLog.record(AuditAction.BATCH, returned);
+        }
+        int found = (int) results.stream().filter(PatientBatchResult::isFound).count();
+        return new PatientBatchResponse(results, found, results.size() - found);
     }
 
     // Get all active patients
+    @Transactional(readOnly = true)
     public List<PatientResponse> getAllPatients() {
         log.info("Fetching all active patients");
-        return patientRepository.findByActiveTrue().stream()
-                .map(this::convertToResponse)
+        List<PatientResponse> patients = gather(shard -> withClinicalText(patientRepository.findByActiveTrue()),
+                PatientResponse::getPatientId, Integer.MAX_VALUE);
+        auditRead(AuditAction.LIST, patients, PatientResponse::getPatientId);
+        return patients;
+    }
+
+    // Get all active patients as summaries (ID, name, DOB, phone) without loading entities
+    @Transactional(readOnly = true)
+    public List<PatientSummaryResponse> getPatientSummaries() {
+        log.info("Fetching all active patient summaries");
+        List<PatientSummaryResponse> summaries = gather(shard -> patientRepository.findSummariesByActiveTrue(),
+                PatientSummaryResponse::getPatientId, Integer.MAX_VALUE);
+        auditRead(AuditAction.LIST, summaries, PatientSummaryResponse::getPatientId);
+        return summaries;
+    }
+
+    // Get all active patients with only the selected fields
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllPatients(String fields) {
+        List<String> selected = PatientFields.parse(fields);
+        log.info("Fetching all active patients with fields: {}", selected);
+        List<Map<String, Object>> rows = gather(shard -> patientRepository.findActiveFields(selected),
+                PatientService::rowId, Integer.MAX_VALUE);
+        auditRead(AuditAction.LIST, rows, PatientService::rowId);
+        return rows;
+    }
+
+    // Get one keyset page of active patients, ordered by patient ID
+    @Transactional(readOnly = true)
+    public PatientPageResponse getPatientsPage(Long afterPatientId, Integer size) {
+        if (afterPatientId != null && afterPatientId < 0) {
+            throw new IllegalArgumentException("Cursor cannot be negative");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long cursor = afterPatientId == null ? 0L : afterPatientId;
+        log.info("Fetching patients page after ID: {} with size: {}", cursor, pageSize);
+
+        // Ask for one extra row to learn whether another page exists without a COUNT query
+        ShardRouter.Ownership owners = shardRouter.ownership();
+        List<PatientResponse> patients = ShardRouter.merge(shardRouter.onEveryShard(shard -> withClinicalText(
+                        ownRows(owners, shard, cursor, pageSize + 1, after -> patientRepository
+                                .findByActiveTrueAndPatientIdGreaterThanOrderByPatientIdAsc(after, Limit.of(pageSize + 1)),
+                        Patient::getPatientId, Patient::getPatientId))),
+                Comparator.comparing(PatientResponse::getPatientId), pageSize + 1);
+        boolean hasMore = patients.size() > pageSize;
+        List<PatientResponse> page = patients.stream()
+                .limit(pageSize)
+                .collect(Collectors.toList());
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getPatientId() : null;
+        auditRead(AuditAction.PAGE, page, PatientResponse::getPatientId);
+        return new PatientPageResponse(page, pageSize, nextCursor, hasMore);
+    }
+
+    // Filter patients by demographics, one keyset slice at a time; the total is only counted on request
+    @Transactional(readOnly = true)
+    public PatientSearchResponse filterPatients(PatientSearchCriteria criteria, Long afterPatientId, Integer size,
+                                                boolean includeTotal) {
+        PatientSearchCriteria filters = criteria == null ? new PatientSearchCriteria() : criteria;
+        requireAge(filters.getMinAge(), "minAge");
+        requireAge(filters.getMaxAge(), "maxAge");
+        if (filters.getMinAge() != null && filters.getMaxAge() != null && filters.getMinAge() > filters.getMaxAge()) {
+            throw new IllegalArgumentException("minAge cannot be greater than maxAge");
+        }
+        if (afterPatientId != null && afterPatientId < 0) {
+            throw new IllegalArgumentException("Cursor cannot be negative");
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long cursor = afterPatientId == null ? 0L : afterPatientId;
+        log.info("Filtering patients by {} after ID: {} with size: {}", filters, cursor, pageSize);
+
+        Specification<Patient> matching = PatientSpecifications.matching(filters, LocalDate.now());
+        // One extra row tells whether another slice exists; each shard counts its own matches
+        ShardRouter.Ownership owners = shardRouter.ownership();
+        List<PatientSlice> parts = shardRouter.onEveryShard(shard -> new PatientSlice(
+                withClinicalText(ownRows(owners, shard, cursor, pageSize + 1, after -> patientRepository.findBy(
+                                matching.and(PatientSpecifications.after(after)),
+                                query -> query.sortBy(Sort.by("patientId")).limit(pageSize + 1).all()),
+                        Patient::getPatientId, Patient::getPatientId)),
+                includeTotal ? countOwn(owners, shard, matching) : 0));
+        List<PatientResponse> patients = ShardRouter.merge(parts.stream().map(PatientSlice::patients).toList(),
+                Comparator.comparing(PatientResponse::getPatientId), pageSize + 1);
+        boolean hasMore = patients.size() > pageSize;
+        List<PatientResponse> slice = patients.stream()
+                .limit(pageSize)
                 .collect(Collectors.toList());
+        Long nextCursor = hasMore ? slice.get(slice.size() - 1).getPatientId() : null;
+        Long total = includeTotal ? parts.stream().mapToLong(PatientSlice::count).sum() : null;
+        auditRead(AuditAction.SEARCH, slice, PatientResponse::getPatientId);
+        return new PatientSearchResponse(slice, pageSize, nextCursor, hasMore, total);
     }
 
-    // Search patients by name
-    public List<PatientResponse> searchPatientByName(String firstName) {
-        if (firstName == null || firstName.trim().isEmpty()) {
-            throw new IllegalArgumentException("First name cannot be null or empty");
+    // Patients created, updated or soft-deleted after the given change sequence, oldest change first.
+    // Not read-only on purpose: a lagging replica could hide changes below the horizon for good
+    public PatientChangesResponse getPatientChanges(Long since, Integer limit) {
+        if (since != null && since < 0) {
+            throw new IllegalArgumentException("Change cursor cannot be negative");
         }
-        log.info("Searching patients with name: {}", firstName);
-        return patientRepository.findByFirstNameContainingIgnoreCase(firstName).stream()
-                .map(this::convertToResponse)
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long cursor = since == null ? 0L : since;
+        // Sequences are issued before commit; staying behind by the safety lag keeps a change that
+        // commits late from landing behind a cursor a consumer has already moved past
+        long horizon = PatientIdGenerator.maxIdAt(System.currentTimeMillis() - changeSafetyLag.toMillis());
+        log.info("Fetching patient changes since: {} with limit: {}", cursor, pageSize);
+
+        // Change sequences are unique across shards, so merging each shard's oldest changes is exact
+        ShardRouter.Ownership owners = shardRouter.ownership();
+        List<PatientChangeResponse> merged = ShardRouter.merge(shardRouter.onEveryShard(shard -> {
+                    List<Patient> changed = ownRows(owners, shard, cursor, pageSize + 1, after -> patientRepository
+                                    .findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(after,
+                                            horizon, Limit.of(pageSize + 1)),
+                            Patient::getChangeSeq, Patient::getPatientId);
+                    // Clinical-only edits move a patient up the feed too, so the texts travel with it
+                    Map<Long, ClinicalText> texts = clinicalTextStore.loadAll(changed.stream()
+                            .filter(Patient::isActive)
+                            .map(Patient::getPatientId)
+                            .toList());
+                    return changed.stream()
+                            .map(patient -> convertToChange(patient,
+                                    texts.getOrDefault(patient.getPatientId(), ClinicalText.EMPTY)))
+                            .toList();
+                }),
+                Comparator.comparing(PatientChangeResponse::getChangeSeq), pageSize + 1);
+        boolean hasMore = merged.size() > pageSize;
+        List<PatientChangeResponse> changes = merged.stream()
+                .limit(pageSize)
                 .collect(Collectors.toList());
+        long nextSince = changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getChangeSeq();
+        auditRead(AuditAction.CHANGES, changes, PatientChangeResponse::getPatientId);
+        return new PatientChangesResponse(changes, nextSince, hasMore);
+    }
+
+    // Stream all active patients to the consumer, loading clinical text for batch-chunk-size rows at a time
+    @Transactional(readOnly = true)
+    public void streamAllPatients(Consumer<PatientResponse> consumer) {
+        log.info("Streaming all active patients");
+        List<Long> streamed = new ArrayList<>(STREAM_AUDIT_CHUNK);
+        List<Patient> pending = new ArrayList<>(batchChunkSize);
+        Consumer<Patient> emit = patient -> {
+            pending.add(patient);
+            // Keep the persistence context from growing with the table
+            entityManager.detach(patient);
+            if (pending.size() == batchChunkSize) {
+                streamChunk(pending, consumer, streamed);
+            }
+        };
+        // One shard after another; the output is in ID order within each shard only
+        try {
+            ShardRouter.Ownership owners = shardRouter.ownership();
+            shardRouter.readEachShard(shard -> {
+                try (Stream<Patient> patients = patientRepository.streamByActiveTrue()) {
+                    patients.filter(patient -> owners.owns(shard, patient.getPatientId())).forEach(emit);
+                }
+                // The texts live on the shard, so its last rows go out before the next one starts
+                streamChunk(pending, consumer, streamed);
+            });
+        } finally {
+            patientAuditLog.record(AuditAction.STREAM, streamed);
+        }
+    }
+
+    // Search patients by first or last name using the in-memory name index
+    @Transactional(readOnly = true)
+    public List<PatientResponse> searchPatientByName(String name) {
+        requireName(name);
+        log.info("Searching patients with name: {}", name);
+        List<PatientResponse> results;
+        if (!patientNameIndex.isReady()) {
+            // Index is still warming up after startup
+            results = gather(shard -> withClinicalText(patientRepository.findByFirstNameContainingIgnoreCase(name)
+                    .stream()
+                    .limit(MAX_SEARCH_RESULTS)
+                    .toList()), PatientResponse::getPatientId, MAX_SEARCH_RESULTS);
+        } else {
+            List<Long> rankedIds = patientNameIndex.search(name, MAX_SEARCH_RESULTS);
+            List<PatientResponse> patients = byIds(rankedIds, ids -> withClinicalText(patientRepository.findAllById(ids)
+                    .stream()
+                    .filter(Patient::isActive)
+                    .toList()));
+            results = inRankOrder(rankedIds, patients, PatientResponse::getPatientId);
+        }
+        auditRead(AuditAction.SEARCH, results, PatientResponse::getPatientId);
+        return results;
     }
 
-    // Update patient
+    // Search patients by name, returning summaries selected by a constructor query
+    @Transactional(readOnly = true)
+    public List<PatientSummaryResponse> searchPatientSummaries(String name) {
+        requireName(name);
+        log.info("Searching patient summaries with name: {}", name);
+        List<PatientSummaryResponse> results;
+        if (!patientNameIndex.isReady()) {
+            results = gather(shard -> patientRepository.findSummariesByFirstNameContaining(name.trim(),
+                    Limit.of(MAX_SEARCH_RESULTS)), PatientSummaryResponse::getPatientId, MAX_SEARCH_RESULTS);
+        } else {
+            List<Long> rankedIds = patientNameIndex.search(name, MAX_SEARCH_RESULTS);
+            results = inRankOrder(rankedIds, byIds(rankedIds, patientRepository::findSummariesByPatientIdIn),
+                    PatientSummaryResponse::getPatientId);
+        }
+        auditRead(AuditAction.SEARCH, results, PatientSummaryResponse::getPatientId);
+        return results;
+    }
+
+    // Search patients by name, returning only the selected fields
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> searchPatientByName(String name, String fields) {
+        requireName(name);
+        List<String> selected = PatientFields.parse(fields);
+        log.info("Searching patients with name: {} and fields: {}", name, selected);
+        List<Map<String, Object>> results;
+        if (!patientNameIndex.isReady()) {
+            results = gather(shard -> patientRepository.findActiveFieldsByFirstName(selected, name.trim(),
+                    MAX_SEARCH_RESULTS), PatientService::rowId, MAX_SEARCH_RESULTS);
+        } else {
+            List<Long> rankedIds = patientNameIndex.search(name, MAX_SEARCH_RESULTS);
+            results = inRankOrder(rankedIds, byIds(rankedIds, ids -> patientRepository.findActiveFieldsByIds(selected, ids)),
+                    PatientService::rowId);
+        }
+        auditRead(AuditAction.SEARCH, results, PatientService::rowId);
+        return results;
+    }
+
+    // Update patient; only changed columns are written and the version is checked
+    @Transactional
     public PatientResponse updatePatient(Long patientId, CreatePatientRequest request) {
         if (patientId == null) {
             throw new IllegalArgumentException("Patient ID cannot be null");
         }
         log.info("Updating patient with ID: {}", patientId);
+        shardRouter.bindTransaction(shardRouter.shardForWrite(patientId));
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + patientId));
+        MatchRecord before = MatchRecord.of(patient);
 
         patient.setFirstName(request.getFirstName());
         patient.setLastName(request.getLastName());
@@ -118,30 +597,357 @@ public class PatientService {
         patient.setState(request.getState());
         patient.setZipCode(request.getZipCode());
         patient.setBloodGroup(request.getBloodGroup());
-        patient.setAllergies(request.getAllergies());
-        patient.setMedicalHistory(request.getMedicalHistory());
         patient.setDateOfBirth(request.getDateOfBirth());
-        
-        Patient updatedPatient = patientRepository.save(patient);
+        if (clinicalTextStore.replace(patientId, request.getAllergies(), request.getMedicalHistory())) {
+            // Clinical text lives in its own table; a new change sequence makes the patients row move too
+            patient.setChangeSeq(patientIdGenerator.nextId());
+        }
+
+        // Flush now so the response carries the bumped version
+        Patient updatedPatient = patientRepository.saveAndFlush(patient);
+        patientMatcher.reindex(before, MatchRecord.of(updatedPatient));
+        PatientResponse response = convertToResponse(updatedPatient,
+                new ClinicalText(request.getAllergies(), request.getMedicalHistory()));
+        afterCommit(() -> {
+            patientNameIndex.index(response.getPatientId(), response.getFirstName(), response.getLastName());
+            patientCache.refresh(toDocument(response));
+        });
         log.info("Patient updated successfully");
-        return convertToResponse(updatedPatient);
+        return response;
+    }
+
+    // Partially update a patient with a single UPDATE ... WHERE version = ? statement
+    @Transactional
+    public PatientResponse patchPatient(Long patientId, PatchPatientRequest request) {
+        if (patientId == null) {
+            throw new IllegalArgumentException("Patient ID cannot be null");
+        }
+        if (request == null || request.getVersion() == null) {
+            throw new IllegalArgumentException("Patch request must include the patient version");
+        }
+        long expectedVersion = request.getVersion();
+        log.info("Patching patient with ID: {} at version: {}", patientId, expectedVersion);
+        shardRouter.bindTransaction(shardRouter.shardForWrite(patientId));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Patient> update = cb.createCriteriaUpdate(Patient.class);
+        Root<Patient> root = update.from(Patient.class);
+        boolean changed = set(update, root, "firstName", request.getFirstName())
+                | set(update, root, "lastName", request.getLastName())
+                | set(update, root, "phoneNumber", request.getPhoneNumber())
+                | set(update, root, "dateOfBirth", request.getDateOfBirth())
+                | set(update, root, "gender", request.getGender())
+                | set(update, root, "address", request.getAddress())
+                | set(update, root, "city", request.getCity())
+                | set(update, root, "state", request.getState())
+                | set(update, root, "zipCode", request.getZipCode())
+                | set(update, root, "bloodGroup", request.getBloodGroup());
+        // Clinical text lives in its own table, but changing it still bumps the patient version
+        boolean clinicalChanged = request.getAllergies() != null || request.getMedicalHistory() != null;
+
+        if (!changed && !clinicalChanged) {
+            Patient patient = findActivePatient(patientId);
+            checkVersion(patient, expectedVersion);
+            return convertToResponse(patient, clinicalTextStore.load(patientId));
+        }
+
+        update.set(root.<LocalDate>get("updatedAt"), LocalDate.now());
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.set(root.<Long>get("changeSeq"), patientIdGenerator.nextId());
+        update.where(
+                cb.equal(root.get("patientId"), patientId),
+                cb.equal(root.get("version"), expectedVersion),
+                cb.isTrue(root.get("active")));
+        if (entityManager.createQuery(update).executeUpdate() == 0) {
+            // Nothing matched: either the patient is gone or someone else updated it first
+            checkVersion(findActivePatient(patientId), expectedVersion);
+            throw new PatientVersionConflictException("Patient " + patientId + " changed during the update, reload and retry");
+        }
+
+        Patient patient = entityManager.find(Patient.class, patientId);
+        if (patient.getVersion() != expectedVersion + 1) {
+            // A copy loaded earlier in this persistence context does not see the bulk update
+            entityManager.refresh(patient);
+        }
+        if (request.getFirstName() != null || request.getLastName() != null || request.getDateOfBirth() != null
+                || request.getZipCode() != null) {
+            patientMatcher.index(MatchRecord.of(patient));
+        }
+        ClinicalText clinicalText = clinicalChanged
+                ? clinicalTextStore.patch(patientId, request.getAllergies(), request.getMedicalHistory())
+                : clinicalTextStore.load(patientId);
+        PatientResponse response = convertToResponse(patient, clinicalText);
+        afterCommit(() -> {
+            if (request.getFirstName() != null || request.getLastName() != null) {
+                patientNameIndex.index(response.getPatientId(), response.getFirstName(), response.getLastName());
+            }
+            patientCache.refresh(toDocument(response));
+        });
+        log.info("Patient patched successfully to version: {}", response.getVersion());
+        return response;
     }
 
     // Delete patient (soft delete)
+    @Transactional
     public void deletePatient(Long patientId) {
         if (patientId == null) {
             throw new IllegalArgumentException("Patient ID cannot be null");
         }
         log.info("Deleting patient with ID: {}", patientId);
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + patientId));
+        shardRouter.bindTransaction(shardRouter.shardForWrite(patientId));
+        Patient patient = patientRepository.findById(patientId).orElse(null);
+        if (patient == null) {
+            if (!archivedPatientRepository.existsById(patientId)) {
+                throw new PatientNotFoundException("Patient not found with ID: " + patientId);
+            }
+            log.info("Patient {} is already archived", patientId);
+            return;
+        }
         patient.setActive(false);
         patientRepository.save(patient);
+        afterCommit(() -> {
+            patientNameIndex.remove(patientId);
+            patientCache.evict(patientId, patient.getPatientUniqueId());
+        });
         log.info("Patient deleted successfully");
     }
 
-    // Helper method to convert Patient to Response
-    private PatientResponse convertToResponse(Patient patient) {
+    // Likely duplicates of an active patient among those sharing a blocking key, best first
+    @Transactional(readOnly = true)
+    public List<DuplicateCandidateResponse> getPossibleDuplicates(Long patientId) {
+        if (patientId == null) {
+            throw new IllegalArgumentException("Patient ID cannot be null");
+        }
+        log.info("Finding possible duplicates of patient with ID: {}", patientId);
+        shardRouter.bindTransaction(shardRouter.shardOf(patientId));
+        // Candidates come from every shard
+        List<DuplicateCandidateResponse> candidates = patientMatcher.findCandidates(
+                MatchRecord.of(findActivePatient(patientId)), patientMatcher.getReviewScore());
+        auditRead(AuditAction.DUPLICATES, candidates, DuplicateCandidateResponse::getPatientId);
+        return candidates;
+    }
+
+    // Read cache hit/miss/eviction counters
+    public CacheStatsResponse getCacheStats() {
+        return patientCache.stats();
+    }
+
+    private Patient findActivePatient(Long patientId) {
+        return patientRepository.findById(patientId)
+                .filter(Patient::isActive)
+                .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + patientId));
+    }
+
+    private static void checkVersion(Patient patient, long expectedVersion) {
+        if (patient.getVersion() != expectedVersion) {
+            throw new PatientVersionConflictException("Patient " + patient.getPatientId() + " is at version "
+                    + patient.getVersion() + " but the update was based on version " + expectedVersion);
+        }
+    }
+
+    private static <T> boolean set(CriteriaUpdate<Patient> update, Root<Patient> root, String attribute, T value) {
+        if (value == null) {
+            return false;
+        }
+        update.set(root.<T>get(attribute), value);
+        return true;
+    }
+
+    // Run once the surrounding transaction commits, or right away outside a transaction
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void requireAge(Integer age, String name) {
+        if (age != null && (age < 0 || age > MAX_AGE)) {
+            throw new IllegalArgumentException(name + " must be between 0 and " + MAX_AGE);
+        }
+    }
+
+    private static void requireName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be null or empty");
+        }
+    }
+
+    // Run one IN query per batch-chunk-size keys
+    private <T> void inChunks(Collection<T> keys, Consumer<List<T>> query) {
+        List<T> all = List.copyOf(keys);
+        for (int from = 0; from < all.size(); from += batchChunkSize) {
+            query.accept(all.subList(from, Math.min(from + batchChunkSize, all.size())));
+        }
+    }
+
+    // Responses for patients on the current shard, their clinical text loaded in chunked IN queries
+    private List<PatientResponse> withClinicalText(List<Patient> patients) {
+        Map<Long, ClinicalText> texts = new HashMap<>();
+        inChunks(patients.stream().map(Patient::getPatientId).toList(),
+                chunk -> texts.putAll(clinicalTextStore.loadAll(chunk)));
+        return patients.stream()
+                .map(patient -> convertToResponse(patient, texts.getOrDefault(patient.getPatientId(), ClinicalText.EMPTY)))
+                .collect(Collectors.toList());
+    }
+
+    // Send the pending rows with their clinical text, auditing every STREAM_AUDIT_CHUNK of them
+    private void streamChunk(List<Patient> pending, Consumer<PatientResponse> consumer, List<Long> streamed) {
+        for (PatientResponse patient : withClinicalText(pending)) {
+            consumer.accept(patient);
+            streamed.add(patient.getPatientId());
+            if (streamed.size() == STREAM_AUDIT_CHUNK) {
+                patientAuditLog.record(AuditAction.STREAM, streamed);
+                streamed.clear();
+            }
+        }
+        pending.clear();
+    }
+
+    // Hot and archived patients with the given keys, all on the current shard, with their clinical text
+    private List<PatientResponse> loadBatch(List<Long> ids, List<String> uniqueIds) {
+        Set<Long> missingIds = new LinkedHashSet<>(ids);
+        Set<String> missingUniqueIds = new LinkedHashSet<>(uniqueIds);
+        Map<Long, Patient> loaded = new LinkedHashMap<>();
+        inChunks(missingIds, chunk -> patientRepository.findAllById(chunk)
+                .forEach(patient -> loaded.put(patient.getPatientId(), patient)));
+        inChunks(missingUniqueIds, chunk -> patientRepository.findByPatientUniqueIdIn(chunk)
+                .forEach(patient -> loaded.put(patient.getPatientId(), patient)));
+        // Whatever is still missing may have been archived
+        missingIds.removeAll(loaded.keySet());
+        Set<String> loadedUniqueIds = loaded.values().stream()
+                .map(patient -> uniqueIdKey(patient.getPatientUniqueId()))
+                .collect(Collectors.toSet());
+        missingUniqueIds.removeIf(uniqueId -> loadedUniqueIds.contains(uniqueIdKey(uniqueId)));
+        inChunks(missingIds, chunk -> archivedPatientRepository.findAllById(chunk)
+                .forEach(archived -> loaded.put(archived.getPatientId(), archived.toPatient())));
+        inChunks(missingUniqueIds, chunk -> archivedPatientRepository.findByPatientUniqueIdIn(chunk)
+                .forEach(archived -> loaded.put(archived.getPatientId(), archived.toPatient())));
+
+        Map<Long, ClinicalText> texts = new HashMap<>();
+        inChunks(loaded.keySet(), chunk -> texts.putAll(clinicalTextStore.loadAll(chunk)));
+        return loaded.values().stream()
+                .map(patient -> convertToResponse(patient, texts.getOrDefault(patient.getPatientId(), ClinicalText.EMPTY)))
+                .toList();
+    }
+
+    // Unique IDs compare case-insensitively, as the database's collation does
+    private static String uniqueIdKey(String patientUniqueId) {
+        return patientUniqueId.toLowerCase(Locale.ROOT);
+    }
+
+    // Run a query on every shard and merge the results by patient ID, up to limit rows. Without
+    // sharding the one shard's rows come back in the order the query returned them
+    private <T> List<T> gather(Function<Integer, List<T>> query, Function<T, Long> idOf, int limit) {
+        Comparator<T> byId = Comparator.comparing(idOf);
+        ShardRouter.Ownership owners = shardRouter.ownership();
+        return ShardRouter.merge(shardRouter.onEveryShard(shard -> {
+            if (!shardRouter.isSharded()) {
+                return query.apply(shard);
+            }
+            return query.apply(shard).stream()
+                    .filter(row -> owners.owns(shard, idOf.apply(row)))
+                    .sorted(byId)
+                    .toList();
+        }), byId, limit);
+    }
+
+    // Up to limit of the shard's own rows after the cursor, in key order. Copies a rebalance left
+    // on the shard are dropped, and reading goes on past them so that a page is not cut short
+    private <T> List<T> ownRows(ShardRouter.Ownership owners, int shard, long cursor, int limit,
+                                LongFunction<List<T>> query, Function<T, Long> keyOf, Function<T, Long> idOf) {
+        List<T> rows = query.apply(cursor);
+        if (!shardRouter.isSharded()) {
+            return rows;
+        }
+        List<T> owned = new ArrayList<>(rows.size());
+        while (true) {
+            rows.stream().filter(row -> owners.owns(shard, idOf.apply(row))).forEach(owned::add);
+            if (rows.size() < limit || owned.size() >= limit) {
+                return owned;
+            }
+            rows = query.apply(keyOf.apply(rows.get(rows.size() - 1)));
+        }
+    }
+
+    // Matching active patients the shard owns; COUNT(*) would include the copies of a rebalance, so
+    // while one runs the IDs are read and checked instead
+    private long countOwn(ShardRouter.Ownership owners, int shard, Specification<Patient> matching) {
+        if (!shardRouter.isRebalancing()) {
+            return patientRepository.count(matching);
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Patient> root = query.from(Patient.class);
+        query.select(root.get("patientId")).where(matching.toPredicate(root, query, cb));
+        try (Stream<Long> ids = entityManager.createQuery(query).getResultStream()) {
+            return ids.filter(id -> owners.owns(shard, id)).count();
+        }
+    }
+
+    // Rows for the given IDs, fetched from the shards that hold them
+    private <T> List<T> byIds(List<Long> ids, Function<List<Long>, List<T>> query) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<Long>> idsByShard = shardRouter.groupByShard(ids, shardRouter::shardOf);
+        return shardRouter.onShards(idsByShard.keySet(), shard -> query.apply(idsByShard.get(shard))).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    // Reorder rows fetched with IN (...) to the index ranking; IDs that did not come back are dropped
+    private static <T> List<T> inRankOrder(List<Long> rankedIds, List<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return rankedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static Long rowId(Map<String, Object> row) {
+        return (Long) row.get("patientId");
+    }
+
+    // One shard's share of a filtered slice, with its match count when asked for
+    private record PatientSlice(List<PatientResponse> patients, long count) {
+    }
+
+    // Record which patients a list-style read returned
+    private <T> void auditRead(AuditAction action, List<T> rows, Function<T, Long> idOf) {
+        if (!rows.isEmpty()) {
+            patientAuditLog.record(action, rows.stream().map(idOf).toList());
+        }
+    }
+
+    // Helper method to convert Patient to Response without its clinical text
+    PatientResponse convertToResponse(Patient patient) {
+        return convertToResponse(patient, ClinicalText.EMPTY);
+    }
+
+    // Serialize once; the bytes are reused for every response until the patient changes
+    private PatientDocument toDocument(PatientResponse response) {
+        try {
+            return new PatientDocument(response, objectMapper.writeValueAsBytes(response), PatientDocument.etagOf(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize patient " + response.getPatientId(), e);
+        }
+    }
+
+    // Soft-deleted patients become tombstones carrying only their IDs
+    private PatientChangeResponse convertToChange(Patient patient, ClinicalText clinicalText) {
+        return new PatientChangeResponse(patient.getChangeSeq(), patient.getPatientId(), patient.getPatientUniqueId(),
+                !patient.isActive(), patient.isActive() ? convertToResponse(patient, clinicalText) : null);
+    }
+
+    // Detail views carry the decoded clinical text
+    PatientResponse convertToResponse(Patient patient, ClinicalText clinicalText) {
         return new PatientResponse(
                 patient.getPatientId(),
                 patient.getPatientUniqueId(),
@@ -156,11 +962,12 @@ public class PatientService {
                 patient.getState(),
                 patient.getZipCode(),
                 patient.getBloodGroup(),
-                patient.getAllergies(),
-                patient.getMedicalHistory(),
+                clinicalText.allergies(),
+                clinicalText.medicalHistory(),
                 patient.isActive(),
                 patient.getCreatedAt(),
-                patient.getUpdatedAt()
+                patient.getUpdatedAt(),
+                patient.getVersion()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.mhrs.patient.shard;
+
+import com.mhrs.patient.exception.PatientAlreadyExistsException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The tables every shard relies on, kept on shard 0 and reached through its own pool rather
+ * than the routing data source: patient_email_directory, which makes emails unique across
+ * shards, and shard_buckets, which maps each routing bucket to the shard holding it.
+ *
+ * A new patient's email is claimed here, in its own transaction, before the patient is
+ * inserted on its shard; a duplicate email fails the claim. If the shard insert then rolls
+ * back, the claim is released again. A process that dies between the two leaves a claim
+ * without a patient, which blocks that email until the row is deleted by hand.
+ */
+public class ShardDirectory {
+
+    static final String CLAIM_SQL = "INSERT INTO patient_email_directory (email, patient_id, patient_unique_id) "
+            + "VALUES (?, ?, ?)";
+    static final String RELEASE_SQL = "DELETE FROM patient_email_directory WHERE email = ? AND patient_id = ?";
+    static final String EXISTING_SQL = "SELECT email FROM patient_email_directory WHERE email IN (%s)";
+    static final String LOAD_BUCKETS_SQL = "SELECT bucket, shard FROM shard_buckets";
+    static final String INSERT_BUCKET_SQL = "INSERT INTO shard_buckets (bucket, shard) VALUES (?, ?)";
+    static final String MOVE_BUCKET_SQL = "UPDATE shard_buckets SET shard = ? WHERE bucket = ?";
+    static final String LOAD_MOVING_SQL = "SELECT bucket FROM shard_buckets WHERE moving = TRUE";
+    static final String MARK_MOVING_SQL = "UPDATE shard_buckets SET moving = ? WHERE bucket = ?";
+    static final String LOAD_FROZEN_SQL = "SELECT bucket FROM shard_buckets WHERE frozen = TRUE";
+    static final String MARK_FROZEN_SQL = "UPDATE shard_buckets SET frozen = ? WHERE bucket = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ShardDirectory(DataSource shardZero) {
+        this.jdbcTemplate = new JdbcTemplate(shardZero);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(shardZero));
+    }
+
+    // Reserve an email for a patient about to be inserted
+    public void claim(String email, long patientId, String patientUniqueId) {
+        try {
+            jdbcTemplate.update(CLAIM_SQL, email, patientId, patientUniqueId);
+        } catch (DuplicateKeyException e) {
+            throw new PatientAlreadyExistsException("Patient with email " + email + " already exists");
+        }
+    }
+
+    // Reserve several emails at once: all of them or, on any duplicate, none
+    public void claimAll(List<Object[]> claims) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(CLAIM_SQL, claims));
+    }
+
+    // Give up claims whose patients were not inserted after all
+    public void release(String email, long patientId) {
+        jdbcTemplate.update(RELEASE_SQL, email, patientId);
+    }
+
+    public void releaseAll(List<Object[]> claims) {
+        jdbcTemplate.batchUpdate(RELEASE_SQL, claims.stream().map(claim -> new Object[]{claim[0], claim[1]}).toList());
+    }
+
+    // Which of the given emails are already claimed
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        String sql = String.format(EXISTING_SQL, emails.stream().map(email -> "?").collect(Collectors.joining(", ")));
+        return new HashSet<>(jdbcTemplate.queryForList(sql, String.class, emails.toArray()));
+    }
+
+    // Shard of every bucket; on first start the buckets are dealt round-robin over shardCount shards
+    public int[] loadBuckets(int buckets, int shardCount) {
+        int[] map = readBuckets(buckets);
+        if (map != null) {
+            return map;
+        }
+        List<Object[]> rows = new ArrayList<>(buckets);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            rows.add(new Object[]{bucket, bucket % shardCount});
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_BUCKET_SQL, rows));
+        } catch (DuplicateKeyException e) {
+            // Another node wrote the map first
+        }
+        return readBuckets(buckets);
+    }
+
+    // Point buckets at new shards in one transaction
+    public void moveBuckets(Map<Integer, Integer> shardByBucket) {
+        List<Object[]> rows = shardByBucket.entrySet().stream()
+                .map(move -> new Object[]{move.getValue(), move.getKey()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(MOVE_BUCKET_SQL, rows));
+    }
+
+    // Buckets a rebalance is moving, whose patients may be on two shards
+    public Set<Integer> loadMoving() {
+        return new HashSet<>(jdbcTemplate.queryForList(LOAD_MOVING_SQL, Integer.class));
+    }
+
+    public void markMoving(Collection<Integer> buckets, boolean moving) {
+        jdbcTemplate.batchUpdate(MARK_MOVING_SQL, buckets.stream().map(bucket -> new Object[]{moving, bucket}).toList());
+    }
+
+    // Buckets whose patients may not be written
+    public Set<Integer> loadFrozen() {
+        return new HashSet<>(jdbcTemplate.queryForList(LOAD_FROZEN_SQL, Integer.class));
+    }
+
+    public void markFrozen(Collection<Integer> buckets, boolean frozen) {
+        jdbcTemplate.batchUpdate(MARK_FROZEN_SQL, buckets.stream().map(bucket -> new Object[]{frozen, bucket}).toList());
+    }
+
+    // Null while the table is empty
+    private int[] readBuckets(int buckets) {
+        int[] map = new int[buckets];
+        int read = jdbcTemplate.query(LOAD_BUCKETS_SQL, rs -> {
+            int rows = 0;
+            while (rs.next()) {
+                map[rs.getInt(1)] = rs.getInt(2);
+                rows++;
+            }
+            return rows;
+        });
+        if (read == 0) {
+            return null;
+        }
+        if (read != buckets) {
+            throw new IllegalStateException("shard_buckets has " + read + " rows, expected " + buckets);
+        }
+        return map;
+    }
+}
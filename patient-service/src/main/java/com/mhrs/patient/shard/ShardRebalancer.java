@@ -0,0 +1,341 @@
+package com.mhrs.patient.shard;
+
+import com.mhrs.patient.dto.ShardRebalanceResponse;
+import com.mhrs.patient.dto.ShardResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Spreads the routing buckets evenly over the configured shards, typically after a shard
+ * was added to patient.sharding.shard-urls and every node restarted with it. Only the
+ * buckets needed to even out the shards move, so adding a fourth shard to three moves a
+ * quarter of the patients and leaves the rest where they are.
+ *
+ * A move flags the buckets as moving and waits two map refresh intervals for every node to
+ * see the flag; copies the patients of the moving buckets, with their clinical text, blocking
+ * keys and archived rows, to the new shard while the old one keeps serving them; freezes the
+ * buckets and waits two intervals for writes to them to stop everywhere; copies again
+ * whatever changed meanwhile (newer change_seq wins); points the buckets at the new shard;
+ * waits two intervals for every node to follow; unfreezes them; and finally deletes the moved
+ * rows from the old shard and clears the flag. Patient IDs do not change. Until then a
+ * moving patient is on two shards, and reads over all shards skip the copy on the shard that
+ * does not own it (ShardRouter.ownership).
+ *
+ * While frozen, writes to the buckets' patients are answered 503 with Retry-After, and new
+ * patients get IDs in other buckets. No write lands on the old shard after the second copy,
+ * and none on the new shard before it, so none is lost. An interrupted rebalance leaves its
+ * buckets flagged, possibly frozen; the next one finishes them first.
+ *
+ * Every pass reads the old shard's tables whole, rebalance-chunk rows at a time, since the
+ * bucket is a hash of the patient ID and not a column. Rebalance from one node.
+ */
+@Component
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String SCAN_SQL = "SELECT * FROM %s WHERE patient_id > ? ORDER BY patient_id LIMIT ?";
+    private static final String SCAN_IDS_SQL = "SELECT patient_id FROM %s WHERE patient_id > ? ORDER BY patient_id LIMIT ?";
+    private static final String SELECT_BY_IDS_SQL = "SELECT * FROM %s WHERE patient_id IN (%s)";
+    private static final String CHANGE_SEQ_SQL = "SELECT patient_id, change_seq FROM patients WHERE patient_id IN (%s)";
+    private static final String ARCHIVED_IDS_SQL = "SELECT patient_id FROM patients_archive WHERE patient_id IN (%s)";
+    private static final String DELETE_SQL = "DELETE FROM %s WHERE patient_id IN (%s)";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM %s";
+    // Rows that live on the patient's shard, besides the patient itself
+    private static final List<String> CHILD_TABLES = List.of("patient_clinical_text", "patient_blocking_keys");
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${patient.sharding.rebalance-chunk:1000}")
+    private int chunk = 1000;
+
+    // Buckets and rows per shard
+    public List<ShardResponse> getShards() {
+        int[] shardByBucket = shardRouter.getShardByBucket();
+        int[] buckets = new int[shardRouter.getShardCount()];
+        for (int shard : shardByBucket) {
+            buckets[shard]++;
+        }
+        return shardRouter.onEveryShard(shard -> new ShardResponse(shard, buckets[shard],
+                count("patients"), count("patients_archive")));
+    }
+
+    // Move buckets until every shard holds its share. One rebalance at a time
+    public synchronized ShardRebalanceResponse rebalance() {
+        if (!shardRouter.isSharded()) {
+            throw new IllegalArgumentException("Sharding is not enabled");
+        }
+        long start = System.nanoTime();
+        finishInterruptedMoves();
+        Map<Integer, Integer> moves = plan(shardRouter.getShardByBucket(), shardRouter.getShardCount());
+        if (moves.isEmpty()) {
+            return new ShardRebalanceResponse(0, 0, 0, (System.nanoTime() - start) / 1_000_000, getShards());
+        }
+        Map<Transfer, Set<Integer>> transfers = new LinkedHashMap<>();
+        int[] current = shardRouter.getShardByBucket();
+        moves.forEach((bucket, target) ->
+                transfers.computeIfAbsent(new Transfer(current[bucket], target), t -> new HashSet<>()).add(bucket));
+        log.info("Rebalancing {} buckets over {} shards: {}", moves.size(), shardRouter.getShardCount(),
+                transfers.entrySet().stream()
+                        .map(t -> t.getValue().size() + " from shard " + t.getKey().source + " to " + t.getKey().target)
+                        .collect(Collectors.joining(", ")));
+
+        // Every node must know the buckets are moving before their patients appear on two shards
+        shardRouter.markMoving(moves.keySet(), true);
+        awaitMapRefresh("before copying");
+        transfers.forEach(this::copy);
+        // Stop writes to the buckets everywhere, then copy what was written since the first pass
+        shardRouter.freeze(moves.keySet(), true);
+        awaitMapRefresh("after freezing the buckets");
+        transfers.forEach(this::copy);
+        shardRouter.moveBuckets(moves);
+        // Let every node load the new map before writes resume, on the new shard only
+        awaitMapRefresh("after moving the buckets");
+        shardRouter.freeze(moves.keySet(), false);
+        long[] removed = new long[2];
+        transfers.forEach((transfer, buckets) -> {
+            removed[0] += delete(transfer.source, "patients", buckets);
+            removed[1] += delete(transfer.source, "patients_archive", buckets);
+        });
+        shardRouter.markMoving(moves.keySet(), false);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        log.info("Rebalanced {} buckets in {} ms: {} patients and {} archived patients moved",
+                moves.size(), elapsed, removed[0], removed[1]);
+        return new ShardRebalanceResponse(moves.size(), removed[0], removed[1], elapsed, getShards());
+    }
+
+    // Buckets still flagged as moving were left by an interrupted rebalance, and their patients may be on
+    // any shard. The owning shard takes the newer rows from the others, then the others' copies go
+    private void finishInterruptedMoves() {
+        Set<Integer> moving = shardRouter.getMovingBuckets();
+        if (moving.isEmpty()) {
+            return;
+        }
+        log.warn("Finishing {} buckets left moving by an interrupted rebalance", moving.size());
+        // Every node must have loaded the bucket map the interrupted rebalance left
+        awaitMapRefresh("finishing an interrupted rebalance");
+        int[] current = shardRouter.getShardByBucket();
+        Map<Transfer, Set<Integer>> transfers = new LinkedHashMap<>();
+        for (int bucket : moving) {
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                if (shard != current[bucket]) {
+                    transfers.computeIfAbsent(new Transfer(shard, current[bucket]), t -> new HashSet<>()).add(bucket);
+                }
+            }
+        }
+        transfers.forEach(this::copy);
+        transfers.forEach((transfer, buckets) -> {
+            delete(transfer.source, "patients", buckets);
+            delete(transfer.source, "patients_archive", buckets);
+        });
+        shardRouter.freeze(moving, false);
+        shardRouter.markMoving(moving, false);
+    }
+
+    private void awaitMapRefresh(String stage) {
+        try {
+            Thread.sleep(shardRouter.getMapRefreshInterval().multipliedBy(2).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rebalance interrupted " + stage + "; run it again to finish", e);
+        }
+    }
+
+    // Fewest bucket moves (bucket to new shard) that leave every shard with BUCKETS / shardCount
+    // buckets, or one more; the fullest shards keep the extra ones
+    static Map<Integer, Integer> plan(int[] shardByBucket, int shardCount) {
+        int[] load = new int[shardCount];
+        for (int shard : shardByBucket) {
+            load[shard]++;
+        }
+        int[] share = new int[shardCount];
+        Integer[] fullestFirst = IntStream.range(0, shardCount).boxed().toArray(Integer[]::new);
+        Arrays.sort(fullestFirst, Comparator.comparingInt((Integer shard) -> -load[shard]).thenComparing(shard -> shard));
+        for (int i = 0; i < shardCount; i++) {
+            share[fullestFirst[i]] = shardByBucket.length / shardCount + (i < shardByBucket.length % shardCount ? 1 : 0);
+        }
+        List<Integer> spare = new ArrayList<>();
+        int[] remaining = load.clone();
+        for (int bucket = shardByBucket.length - 1; bucket >= 0; bucket--) {
+            int shard = shardByBucket[bucket];
+            if (remaining[shard] > share[shard]) {
+                spare.add(bucket);
+                remaining[shard]--;
+            }
+        }
+        Collections.reverse(spare);
+        Map<Integer, Integer> moves = new TreeMap<>();
+        int next = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            while (remaining[shard] < share[shard]) {
+                moves.put(spare.get(next++), shard);
+                remaining[shard]++;
+            }
+        }
+        return moves;
+    }
+
+    // Copy the buckets' patients and archived patients that the target lacks or has an older version of
+    private void copy(Transfer transfer, Set<Integer> buckets) {
+        scan(transfer.source, "patients", buckets, rows -> copyPatients(transfer, rows));
+        scan(transfer.source, "patients_archive", buckets, rows -> copyArchived(transfer, rows));
+    }
+
+    private void copyPatients(Transfer transfer, List<Map<String, Object>> rows) {
+        List<Object> ids = rows.stream().map(row -> row.get("patient_id")).toList();
+        Map<Long, Long> targetSeqs = new HashMap<>();
+        shardRouter.onShard(transfer.target, () -> jdbcTemplate.query(String.format(CHANGE_SEQ_SQL, in(ids.size())),
+                rs -> {
+                    targetSeqs.put(rs.getLong(1), rs.getLong(2));
+                }, ids.toArray()));
+        List<Map<String, Object>> stale = rows.stream()
+                .filter(row -> {
+                    Long targetSeq = targetSeqs.get(((Number) row.get("patient_id")).longValue());
+                    return targetSeq == null || targetSeq < seq(row.get("change_seq"));
+                })
+                .toList();
+        if (!stale.isEmpty()) {
+            replace(transfer, "patients", stale);
+        }
+    }
+
+    // Archived rows never change, so a copy is only missing; a patient archived on the source
+    // after the first copy leaves its patients row on the target, which goes now
+    private void copyArchived(Transfer transfer, List<Map<String, Object>> rows) {
+        List<Object> ids = rows.stream().map(row -> row.get("patient_id")).toList();
+        Set<Long> present = new HashSet<>(shardRouter.onShard(transfer.target, () ->
+                jdbcTemplate.queryForList(String.format(ARCHIVED_IDS_SQL, in(ids.size())), Long.class, ids.toArray())));
+        List<Map<String, Object>> missing = rows.stream()
+                .filter(row -> !present.contains(((Number) row.get("patient_id")).longValue()))
+                .toList();
+        if (!missing.isEmpty()) {
+            replace(transfer, "patients_archive", missing);
+        }
+    }
+
+    // Overwrite the target's rows of these patients in table and the child tables with the source's
+    private void replace(Transfer transfer, String table, List<Map<String, Object>> rows) {
+        List<Object> ids = rows.stream().map(row -> row.get("patient_id")).toList();
+        String placeholders = in(ids.size());
+        Map<String, List<Map<String, Object>>> children = new LinkedHashMap<>();
+        shardRouter.onShard(transfer.source, () -> CHILD_TABLES.forEach(child -> children.put(child,
+                jdbcTemplate.queryForList(String.format(SELECT_BY_IDS_SQL, child, placeholders), ids.toArray()))));
+        shardRouter.onShard(transfer.target, () -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(String.format(DELETE_SQL, "patients", placeholders), ids.toArray());
+            jdbcTemplate.update(String.format(DELETE_SQL, "patients_archive", placeholders), ids.toArray());
+            for (String child : CHILD_TABLES) {
+                jdbcTemplate.update(String.format(DELETE_SQL, child, placeholders), ids.toArray());
+            }
+            insert(table, rows);
+            if (table.equals("patients")) {
+                children.forEach(this::insert);
+            } else {
+                // Only clinical text outlives archiving
+                insert(CHILD_TABLES.get(0), children.get(CHILD_TABLES.get(0)));
+            }
+        }));
+    }
+
+    // Delete the buckets' rows of table, with their child rows, from a shard; returns how many went
+    private long delete(int shard, String table, Set<Integer> buckets) {
+        long[] deleted = new long[1];
+        shardRouter.onShard(shard, () -> {
+            long after = 0;
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(String.format(SCAN_IDS_SQL, table), Long.class, after, chunk);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                after = ids.get(ids.size() - 1);
+                Object[] moved = ids.stream().filter(id -> buckets.contains(ShardRouter.bucketOf(id))).toArray();
+                if (moved.length > 0) {
+                    String placeholders = in(moved.length);
+                    transactionTemplate.executeWithoutResult(status -> {
+                        deleted[0] += jdbcTemplate.update(String.format(DELETE_SQL, table, placeholders), moved);
+                        for (String child : CHILD_TABLES) {
+                            jdbcTemplate.update(String.format(DELETE_SQL, child, placeholders), moved);
+                        }
+                    });
+                }
+                if (ids.size() < chunk) {
+                    break;
+                }
+            }
+        });
+        return deleted[0];
+    }
+
+    // Hand the buckets' rows of table on a shard to work, a chunk at a time
+    private void scan(int shard, String table, Set<Integer> buckets, Consumer<List<Map<String, Object>>> work) {
+        long after = 0;
+        while (true) {
+            long from = after;
+            List<Map<String, Object>> rows = shardRouter.onShard(shard, () ->
+                    jdbcTemplate.queryForList(String.format(SCAN_SQL, table), from, chunk));
+            if (rows.isEmpty()) {
+                return;
+            }
+            after = ((Number) rows.get(rows.size() - 1).get("patient_id")).longValue();
+            List<Map<String, Object>> moving = rows.stream()
+                    .filter(row -> buckets.contains(ShardRouter.bucketOf(((Number) row.get("patient_id")).longValue())))
+                    .toList();
+            if (!moving.isEmpty()) {
+                work.accept(moving);
+            }
+            if (rows.size() < chunk) {
+                return;
+            }
+        }
+    }
+
+    private void insert(String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + in(columns.size()) + ")";
+        jdbcTemplate.batchUpdate(sql, rows.stream().map(row -> columns.stream().map(row::get).toArray()).toList());
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject(String.format(COUNT_SQL, table), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private static long seq(Object changeSeq) {
+        return changeSeq == null ? 0 : ((Number) changeSeq).longValue();
+    }
+
+    private static String in(int size) {
+        return String.join(", ", Collections.nCopies(size, "?"));
+    }
+
+    private record Transfer(int source, int target) {
+    }
+}
@@ -0,0 +1,498 @@
+package com.mhrs.patient.shard;
+
+import com.mhrs.patient.exception.PatientMovingException;
+import com.mhrs.patient.id.PatientIdGenerator;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Decides which shard a patient lives on and runs work there.
+ *
+ * A patient ID hashes to one of BUCKETS routing buckets, and shard_buckets says which shard
+ * holds each bucket. With sharding, IDs are assigned before the insert and the unique ID is
+ * PAT-{patientId}, so a lookup by either key goes straight to one shard. The ID fixes the
+ * bucket, not the shard, so moving buckets to a new shard (ShardRebalancer) changes no ID.
+ * The bucket map is reloaded every map-refresh-interval.
+ *
+ * While a rebalance moves a bucket, its patients are on both the old and the new shard. A
+ * scatter keeps each shard's rows only where ownership() says the shard holds the patient,
+ * judged by one snapshot of the map for all shards, so a moving patient shows up once.
+ * Writes go through shardForWrite, which refuses patients whose bucket the rebalance has
+ * frozen, and new patients get IDs outside frozen buckets.
+ *
+ * A transaction belongs to one shard: the first onShard or bindTransaction in it picks the
+ * shard, and it stays there until it completes. Queries over all shards (onShards,
+ * onEveryShard) run in parallel on virtual threads, one read-only transaction per shard, and
+ * see only committed data.
+ *
+ * Without patient.sharding.enabled there is one shard and everything runs inline, in the
+ * caller's transaction.
+ */
+@Component
+public class ShardRouter implements SmartInitializingSingleton, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    // Fixed for the life of the registry; at most this many shards
+    public static final int BUCKETS = 1024;
+
+    @Autowired(required = false)
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired(required = false)
+    private ShardDirectory shardDirectory;
+
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${patient.sharding.map-refresh-interval:5s}")
+    private Duration mapRefreshInterval = Duration.ofSeconds(5);
+
+    private volatile int[] shardByBucket = new int[BUCKETS];
+    private volatile Set<Integer> movingBuckets = Set.of();
+    private volatile Set<Integer> frozenBuckets = Set.of();
+    private TransactionTemplate shardTransaction;
+    private ExecutorService workers;
+    private ScheduledExecutorService refresher;
+
+    private final LongAdder scatters = new LongAdder();
+    private final LongAdder scatterNanos = new LongAdder();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isSharded()) {
+            return;
+        }
+        shardTransaction = new TransactionTemplate(transactionManager);
+        shardTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        shardTransaction.setReadOnly(true);
+        workers = Executors.newVirtualThreadPerTaskExecutor();
+        refresh();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-map-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = mapRefreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refreshSafely, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Routing patients over {} shards ({} buckets, map refreshed every {} ms)",
+                getShardCount(), BUCKETS, interval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    public boolean isSharded() {
+        return shardRoutingDataSource != null;
+    }
+
+    public int getShardCount() {
+        return isSharded() ? shardRoutingDataSource.getShardCount() : 1;
+    }
+
+    public Duration getMapRefreshInterval() {
+        return mapRefreshInterval;
+    }
+
+    // Copy of the current bucket-to-shard map
+    public int[] getShardByBucket() {
+        return shardByBucket.clone();
+    }
+
+    public int shardOf(long patientId) {
+        return shardByBucket[bucketOf(patientId)];
+    }
+
+    // Unique IDs that are not PAT-{patientId} can only be on shard 0
+    public int shardOfUniqueId(String patientUniqueId) {
+        Long patientId = idOf(patientUniqueId);
+        return patientId == null ? 0 : shardOf(patientId);
+    }
+
+    // Reload the bucket map from the directory
+    public void refresh() {
+        int[] map = shardDirectory.loadBuckets(BUCKETS, getShardCount());
+        for (int bucket = 0; bucket < map.length; bucket++) {
+            if (map[bucket] < 0 || map[bucket] >= getShardCount()) {
+                throw new IllegalStateException("Bucket " + bucket + " is on shard " + map[bucket]
+                        + " but only " + getShardCount() + " shards are configured");
+            }
+        }
+        shardByBucket = map;
+        movingBuckets = Set.copyOf(shardDirectory.loadMoving());
+        frozenBuckets = Set.copyOf(shardDirectory.loadFrozen());
+    }
+
+    // Point buckets at other shards and reload the map; other nodes follow within map-refresh-interval
+    public void moveBuckets(Map<Integer, Integer> shardByBucket) {
+        shardDirectory.moveBuckets(shardByBucket);
+        refresh();
+    }
+
+    // Flag buckets as being moved, or done moving; other nodes follow within map-refresh-interval
+    public void markMoving(Collection<Integer> buckets, boolean moving) {
+        shardDirectory.markMoving(buckets, moving);
+        refresh();
+    }
+
+    // Whether some shard may hold copies of patients it does not own
+    public boolean isRebalancing() {
+        return !movingBuckets.isEmpty();
+    }
+
+    public Set<Integer> getMovingBuckets() {
+        return movingBuckets;
+    }
+
+    // Refuse, or allow again, writes to the buckets' patients; other nodes follow within map-refresh-interval
+    public void freeze(Collection<Integer> buckets, boolean frozen) {
+        shardDirectory.markFrozen(buckets, frozen);
+        refresh();
+    }
+
+    public boolean isFrozen(long patientId) {
+        return frozenBuckets.contains(bucketOf(patientId));
+    }
+
+    // Shard to write a patient on; refused while a rebalance has the patient's bucket frozen
+    public int shardForWrite(long patientId) {
+        if (isFrozen(patientId)) {
+            throw new PatientMovingException("Patient " + patientId + " is being moved to another shard, please retry",
+                    Math.max(1, mapRefreshInterval.multipliedBy(2).toSeconds()));
+        }
+        return shardOf(patientId);
+    }
+
+    // Which shard owns each patient, as of now; the map is replaced on refresh, never changed in place
+    public Ownership ownership() {
+        return new Ownership(isSharded() ? shardByBucket : null);
+    }
+
+    // Pin the current transaction to a shard before it runs its first statement
+    public void bindTransaction(int shard) {
+        if (!isSharded()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Binding to shard " + shard + " needs a transaction");
+        }
+        ShardBinding binding = currentBinding();
+        if (binding == null) {
+            binding = new ShardBinding(shard, ShardRoutingDataSource.current());
+            TransactionSynchronizationManager.registerSynchronization(binding);
+            ShardRoutingDataSource.select(shard);
+        } else if (binding.shard != shard) {
+            throw new IllegalStateException("Transaction is on shard " + binding.shard + ", not shard " + shard);
+        }
+    }
+
+    // Run work on a shard: in a transaction, the transaction is pinned to it; outside one, each
+    // statement the work runs goes there
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            bindTransaction(shard);
+            return work.get();
+        }
+        Integer previous = ShardRoutingDataSource.current();
+        ShardRoutingDataSource.select(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardRoutingDataSource.select(previous);
+        }
+    }
+
+    public void onShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Run work once per shard, one after another on this thread and outside any transaction;
+    // for background jobs, which start their own transactions
+    public void forEachShard(IntConsumer work) {
+        if (!isSharded()) {
+            work.accept(0);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("forEachShard cannot run inside a transaction");
+        }
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int current = shard;
+            onShard(shard, () -> work.accept(current));
+        }
+    }
+
+    // Run work once per shard, one after another on this thread, each in a read-only transaction of its own
+    public void readEachShard(IntConsumer work) {
+        if (!isSharded()) {
+            work.accept(0);
+            return;
+        }
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int current = shard;
+            shardTransaction.executeWithoutResult(status -> onShard(current, () -> work.accept(current)));
+        }
+    }
+
+    // Scatter a query to every shard and gather the results in shard order
+    public <T> List<T> onEveryShard(IntFunction<T> query) {
+        return onShards(IntStream.range(0, getShardCount()).boxed().toList(), query);
+    }
+
+    // Scatter a query to the given shards, in parallel, and gather the results in shard order
+    public <T> List<T> onShards(Collection<Integer> shards, IntFunction<T> query) {
+        if (!isSharded()) {
+            return shards.stream().map(query::apply).toList();
+        }
+        long start = System.nanoTime();
+        List<CompletableFuture<T>> results = shards.stream()
+                .sorted()
+                .map(shard -> CompletableFuture.supplyAsync(() -> shardTransaction.execute(status ->
+                        onShard(shard, () -> query.apply(shard))), workers))
+                .toList();
+        try {
+            List<T> gathered = new ArrayList<>(results.size());
+            for (CompletableFuture<T> result : results) {
+                gathered.add(result.join());
+            }
+            return gathered;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        } finally {
+            scatters.increment();
+            scatterNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // Keys grouped by the shard that holds them, shards in ascending order
+    public <K> Map<Integer, List<K>> groupByShard(Collection<K> keys, ToIntFunction<K> shardOf) {
+        Map<Integer, List<K>> groups = new TreeMap<>();
+        for (K key : keys) {
+            groups.computeIfAbsent(isSharded() ? shardOf.applyAsInt(key) : 0, shard -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+
+    // Reserve an email in the directory; released again if the current transaction rolls back
+    public void claimEmail(String email, long patientId, String patientUniqueId) {
+        shardDirectory.claim(email, patientId, patientUniqueId);
+        releaseOnRollback(List.<Object[]>of(new Object[]{email, patientId, patientUniqueId}));
+    }
+
+    // Reserve (email, patientId, patientUniqueId) rows all at once; released if the current transaction rolls back
+    public void claimEmails(List<Object[]> claims) {
+        if (claims.isEmpty()) {
+            return;
+        }
+        shardDirectory.claimAll(claims);
+        releaseOnRollback(claims);
+    }
+
+    // Which of the given emails are claimed by any shard's patients
+    public Set<String> findClaimedEmails(Collection<String> emails) {
+        return shardDirectory.findExistingEmails(emails);
+    }
+
+    // Merge lists that are each sorted by order into one sorted list of at most limit elements
+    public static <T> List<T> merge(List<List<T>> parts, Comparator<? super T> order, int limit) {
+        if (parts.size() == 1) {
+            List<T> only = parts.get(0);
+            return only.size() <= limit ? only : List.copyOf(only.subList(0, limit));
+        }
+        // Heads of the parts: {part index, position}
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) ->
+                order.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1])));
+        for (int i = 0; i < parts.size(); i++) {
+            if (!parts.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> part = parts.get(head[0]);
+            merged.add(part.get(head[1]));
+            if (++head[1] < part.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    // Bucket of a patient ID: its hash, so that IDs issued close together spread over all buckets
+    public static int bucketOf(long patientId) {
+        return (int) Long.remainderUnsigned(mix(patientId), BUCKETS);
+    }
+
+    // The patient ID in a unique ID of the form PAT-{patientId}; null for any other form
+    public static Long idOf(String patientUniqueId) {
+        String prefix = PatientIdGenerator.PREFIX;
+        if (patientUniqueId == null || patientUniqueId.length() <= prefix.length()
+                || patientUniqueId.length() > prefix.length() + 19
+                || !patientUniqueId.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return null;
+        }
+        long id = 0;
+        for (int i = prefix.length(); i < patientUniqueId.length(); i++) {
+            char c = patientUniqueId.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            id = id * 10 + (c - '0');
+            if (id < 0) {
+                return null;
+            }
+        }
+        return id;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!isSharded()) {
+            return;
+        }
+        FunctionTimer.builder("patient.shard.scatter", this, r -> r.scatters.sum(), r -> r.scatterNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("Queries scattered to several shards, timed until the last shard answered")
+                .register(registry);
+        Gauge.builder("patient.shard.count", this, ShardRouter::getShardCount)
+                .description("Configured shards")
+                .register(registry);
+    }
+
+    private void releaseOnRollback(List<Object[]> claims) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    try {
+                        shardDirectory.releaseAll(claims);
+                    } catch (RuntimeException e) {
+                        log.error("Could not release {} email claims after a rollback: {}", claims.size(), e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Shard map refresh failed, keeping the current map: {}", e.getMessage());
+        }
+    }
+
+    private static ShardBinding currentBinding() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ShardBinding binding) {
+                return binding;
+            }
+        }
+        return null;
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    // A snapshot of the bucket map for filtering rows found on a shard; without sharding every row is owned
+    public static final class Ownership {
+        private final int[] shardByBucket;
+
+        private Ownership(int[] shardByBucket) {
+            this.shardByBucket = shardByBucket;
+        }
+
+        public boolean owns(int shard, long patientId) {
+            return shardByBucket == null || shardByBucket[bucketOf(patientId)] == shard;
+        }
+    }
+
+    // The shard a transaction is pinned to; kept among its synchronizations, so that a
+    // REQUIRES_NEW transaction, which suspends them, starts unpinned
+    private static final class ShardBinding implements TransactionSynchronization {
+        final int shard;
+        final Integer previous;
+
+        ShardBinding(int shard, Integer previous) {
+            this.shard = shard;
+            this.previous = previous;
+        }
+
+        @Override
+        public void suspend() {
+            ShardRoutingDataSource.select(previous);
+        }
+
+        @Override
+        public void resume() {
+            ShardRoutingDataSource.select(shard);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            ShardRoutingDataSource.select(previous);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.mhrs.patient.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One Hikari pool per shard; a connection comes from the shard ShardRouter has selected on
+ * the current thread, shard 0 when none is. Like ReplicaRoutingDataSource this must sit
+ * behind a LazyConnectionDataSourceProxy, so that a transaction picks its shard when it
+ * first runs a statement rather than when it begins. A transaction stays on that shard.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    // The pool of one shard, for work that must bypass routing, such as the directory on shard 0
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    // Pool sizes added up, for sizing the bulkhead in front of this data source
+    public int getMaximumPoolSize() {
+        return shards.stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // The pools are not beans, so Boot's hikaricp.* binding does not see them
+        for (HikariDataSource pool : shards) {
+            if (pool.getMetricsTrackerFactory() == null && pool.getMetricRegistry() == null) {
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+        }
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void select(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.mhrs.patient.shard;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropRegistryNotAvailableImpl;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies spring.jpa.hibernate.ddl-auto to every shard, not just the one Hibernate connects
+ * to at startup (shard 0). Registered as a Hibernate integrator to capture the mapping, then
+ * run once per other shard with that shard selected. create-drop creates only; the tables on
+ * those shards are not dropped at shutdown.
+ */
+public class ShardSchema implements Integrator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchema.class);
+
+    private volatile Metadata metadata;
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+        this.sessionFactory = null;
+    }
+
+    // Shard 0 was handled by Hibernate itself
+    public void apply(ShardRoutingDataSource shards) {
+        if (metadata == null) {
+            throw new IllegalStateException("Hibernate has not started; the shard schema integrator is not registered");
+        }
+        Map<String, Object> settings = new HashMap<>(
+                sessionFactory.getServiceRegistry().requireService(ConfigurationService.class).getSettings());
+        settings.replaceAll((key, value) -> "create-drop".equals(value) ? "create" : value);
+        for (int shard = 1; shard < shards.getShardCount(); shard++) {
+            Integer previous = ShardRoutingDataSource.current();
+            ShardRoutingDataSource.select(shard);
+            try {
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings,
+                        DelayedDropRegistryNotAvailableImpl.INSTANCE);
+            } finally {
+                ShardRoutingDataSource.select(previous);
+            }
+            log.info("Applied {}={} to shard {}", AvailableSettings.HBM2DDL_AUTO,
+                    settings.getOrDefault(AvailableSettings.HBM2DDL_AUTO, "none"), shard);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mhrs.patient.shard;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash sharding of the patient tables, off unless patient.sharding.enabled=true.
+ *
+ * Replaces Boot's single pool with one Hikari pool per shard: shard 0 is spring.datasource.*,
+ * and every URL in patient.sharding.shard-urls adds a shard with the same pool settings. All
+ * shards carry the full schema. Shard 0 also holds the email directory and the bucket map
+ * (ShardDirectory). The DataSource the application sees is a LazyConnectionDataSourceProxy
+ * over a ShardRoutingDataSource, so a transaction picks its shard when ShardRouter pins it.
+ *
+ * Cannot be combined with patient.datasource.routing.enabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "patient.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private final Environment environment;
+
+    public ShardingConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties) {
+        if (environment.getProperty("patient.datasource.routing.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("patient.sharding.enabled and patient.datasource.routing.enabled "
+                    + "cannot both be set");
+        }
+        HikariDataSource first = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(first));
+        if (first.getPoolName() == null) {
+            first.setPoolName("shard-0");
+        }
+
+        String[] urls = environment.getProperty("patient.sharding.shard-urls", String[].class, new String[0]);
+        if (urls.length + 1 > ShardRouter.BUCKETS) {
+            throw new IllegalStateException("At most " + ShardRouter.BUCKETS + " shards are supported");
+        }
+        String username = environment.getProperty("patient.sharding.shard-username", first.getUsername());
+        String password = environment.getProperty("patient.sharding.shard-password", first.getPassword());
+        List<HikariDataSource> shards = new ArrayList<>(urls.length + 1);
+        shards.add(first);
+        for (int i = 0; i < urls.length; i++) {
+            HikariConfig config = new HikariConfig();
+            first.copyStateTo(config);
+            config.setPoolName("shard-" + (i + 1));
+            config.setJdbcUrl(urls[i].trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            shards.add(new HikariDataSource(config));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    // What JPA, JdbcTemplate and the transaction manager use
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardDirectory shardDirectory(ShardRoutingDataSource shardRoutingDataSource) {
+        return new ShardDirectory(shardRoutingDataSource.getShard(0));
+    }
+
+    @Bean
+    public ShardSchema shardSchema() {
+        return new ShardSchema();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchema shardSchema) {
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(shardSchema));
+    }
+
+    // Once Hibernate has set up shard 0, do the same on the others
+    @Bean
+    public SmartInitializingSingleton shardSchemaExport(ShardSchema shardSchema, ShardRoutingDataSource shardRoutingDataSource,
+                                                        EntityManagerFactory entityManagerFactory) {
+        return () -> shardSchema.apply(shardRoutingDataSource);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mhrs.patient.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long PROBE = 60_000 * MS;
+
+    @Test
+    @DisplayName("Should grow while busy at no-load latency and shrink as latency builds up")
+    void testFollowsLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 50, PROBE);
+
+        fill(limit, 10);
+        for (int i = 0; i < 10; i++) {
+            limit.release(5 * MS, i);
+            assertTrue(limit.tryAcquire(1.0));
+        }
+        assertEquals(19, limit.getLimit());
+
+        // Latency doubled: about half the limit is queueing
+        for (int i = 0; i < 5; i++) {
+            limit.release(10 * MS, 100 + i);
+            assertTrue(limit.tryAcquire(1.0));
+        }
+        assertEquals(14, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should not grow while mostly idle")
+    void testIdleDoesNotGrow() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 50, PROBE);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire(1.0));
+            limit.release(5 * MS, i);
+        }
+        assertEquals(10, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should back off on drops and keep bulk requests to their share")
+    void testDropsAndShares() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 50, PROBE);
+
+        fill(limit, 5);
+        assertFalse(limit.tryAcquire(0.5));
+        assertTrue(limit.tryAcquire(1.0));
+
+        limit.releaseDropped();
+        assertEquals(9, limit.getLimit());
+        for (int i = 0; i < 10; i++) {
+            limit.releaseDropped();
+            limit.tryAcquire(1.0);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    private static void fill(AdaptiveConcurrencyLimit limit, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limit.tryAcquire(1.0));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mhrs.patient.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mhrs.patient.db.BulkheadDataSource;
+import com.mhrs.patient.exception.GlobalExceptionHandler;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // 1 request/s with a burst of 3, limit 2 of which bulk may use 1
+        filter = new AdmissionControlFilter(1, 3, 100, 2, 1, 10, 0.5, Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After once a client's burst is used up")
+    void testClientRate() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, call("GET", "/api/v1/patients/1", "alice", new MockFilterChain()).getStatus());
+        }
+        MockHttpServletResponse limited = call("GET", "/api/v1/patients/1", "alice", new MockFilterChain());
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(limited.getContentAsString().contains("Too many requests"));
+
+        assertEquals(200, call("GET", "/api/v1/patients/1", "bob", new MockFilterChain()).getStatus());
+        assertEquals(200, call("GET", "/api/v1/patients/health/check", "alice", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should not let a caller spend another address's rate by sending its X-User-Id")
+    void testClientKeyedByAddress() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/patients/1");
+            request.setRemoteAddr("10.0.0.9");
+            request.addHeader("X-User-Id", "alice");
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        assertEquals(200, call("GET", "/api/v1/patients/1", "alice", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should answer 503 beyond the concurrency limit, rejecting bulk requests first")
+    void testConcurrencyLimit() throws Exception {
+        MockHttpServletResponse[] inner = new MockHttpServletResponse[2];
+        // Each chain issues the next request while its own is still in flight
+        FilterChain third = (request, response) -> inner[1] = call("GET", "/api/v1/patients/2", "carol",
+                new MockFilterChain());
+        FilterChain second = (request, response) -> {
+            inner[0] = call("GET", "/api/v1/patients/stream", "bob", new MockFilterChain());
+            assertEquals(200, call("GET", "/api/v1/patients/2", "bob", third).getStatus());
+        };
+
+        assertEquals(200, call("GET", "/api/v1/patients/page", "alice", second).getStatus());
+
+        assertEquals(503, inner[0].getStatus());
+        assertEquals("1", inner[0].getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(503, inner[1].getStatus());
+        assertEquals(2, filter.getLimit());
+        assertEquals(200, call("GET", "/api/v1/patients/stream", "bob", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should adapt the limit only to requests that took a database connection")
+    void testSamplesOnlyDatabaseRequests() throws Exception {
+        // Two interactive requests in flight keep the limit of 2 busy enough to grow
+        FilterChain cached = (request, response) -> call("GET", "/api/v1/patients/2", "bob", new MockFilterChain());
+        call("GET", "/api/v1/patients/1", "alice", cached);
+        assertEquals(2, filter.getLimit());
+
+        FilterChain queried = (request, response) -> {
+            request.setAttribute(BulkheadDataSource.CONNECTION_ATTRIBUTE, Boolean.TRUE);
+            call("GET", "/api/v1/patients/2", "bob", (inner, innerResponse) ->
+                    inner.setAttribute(BulkheadDataSource.CONNECTION_ATTRIBUTE, Boolean.TRUE));
+        };
+        call("GET", "/api/v1/patients/1", "alice", queried);
+        assertEquals(3, filter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should back off only on requests that failed for lack of a database connection")
+    void testBackOffOnDatabaseDrops() throws Exception {
+        call("POST", "/api/v1/patients/1", "alice", (request, response) ->
+                ((HttpServletResponse) response).setStatus(503));
+        assertEquals(2, filter.getLimit());
+
+        call("POST", "/api/v1/patients/1", "alice", (request, response) -> {
+            request.setAttribute(GlobalExceptionHandler.DATABASE_UNAVAILABLE_ATTRIBUTE, Boolean.TRUE);
+            ((HttpServletResponse) response).setStatus(503);
+        });
+        assertEquals(1, filter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should publish every rejection series to Prometheus")
+    void testPrometheusMeters() throws Exception {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        filter.bindTo(registry);
+        for (int i = 0; i < 4; i++) {
+            call("GET", "/api/v1/patients/page", "alice", new MockFilterChain());
+        }
+
+        String scrape = registry.scrape();
+        assertTrue(scrape.contains("patient_admission_rejected_total{priority=\"bulk\",reason=\"client-rate\"} 1.0"),
+                scrape);
+        assertTrue(scrape.contains("patient_admission_rejected_total{priority=\"interactive\",reason=\"concurrency\"} 0.0"),
+                scrape);
+        assertTrue(scrape.contains("patient_admission_limit 2.0"), scrape);
+    }
+
+    private MockHttpServletResponse call(String method, String uri, String user, FilterChain chain)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.addHeader("X-User-Id", user);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,86 @@
+package com.mhrs.patient.archive;
+
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.model.ArchivedPatient;
+import com.mhrs.patient.repository.ArchivedPatientRepository;
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:patient_archive;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "patient.archive.enabled=false",
+        "patient.archive.after=30d",
+        "patient.archive.batch-size=2",
+        "patient.archive.batch-pause=0ms"
+})
+@Import({PatientArchiver.class, ShardRouter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Patient Archiver Tests")
+class PatientArchiverTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Autowired
+    private PatientArchiver patientArchiver;
+
+    @Autowired
+    private ArchivedPatientRepository archivedPatientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should move long-inactive patients to the archive in batches and leave the rest")
+    void testArchiveLongInactivePatients() throws InterruptedException {
+        insert(1, false, 90);
+        insert(2, true, 90);
+        insert(3, false, 60);
+        insert(4, false, 45);
+        insert(5, false, 40);
+        insert(6, false, 1);
+        // Highest ID stays so AUTO_INCREMENT can never hand it out again
+        insert(7, false, 90);
+
+        assertEquals(4, patientArchiver.archive());
+
+        assertEquals(List.of(2L, 6L, 7L),
+                jdbcTemplate.queryForList("SELECT patient_id FROM patients ORDER BY patient_id", Long.class));
+        assertEquals(List.of(1L, 3L, 4L, 5L),
+                archivedPatientRepository.findAll().stream().map(ArchivedPatient::getPatientId).sorted().toList());
+        ArchivedPatient archived = archivedPatientRepository.findByPatientUniqueId("PAT-ARCHIVE-3").orElseThrow();
+        assertFalse(archived.isActive());
+        assertEquals("archive3@example.com", archived.getEmail());
+        assertEquals(LocalDate.now(), archived.getArchivedAt());
+        assertTrue(archivedPatientRepository.existsByEmail("archive1@example.com"));
+
+        // The next run only looks at sequences issued since this one's cutoff
+        assertEquals(0, patientArchiver.archive());
+    }
+
+    private void insert(long id, boolean active, int daysSinceChange) {
+        long changeSeq = PatientIdGenerator.maxIdAt(System.currentTimeMillis() - daysSinceChange * DAY);
+        jdbcTemplate.update("INSERT INTO patients (patient_id, patient_unique_id, first_name, last_name, email, "
+                        + "phone_number, date_of_birth, gender, address, city, state, zip_code, blood_group, "
+                        + "active, created_at, updated_at, version, change_seq) "
+                        + "VALUES (?, ?, 'John', 'Doe', ?, '9876543210', DATE '1990-05-15', 'Male', '1 Road', "
+                        + "'Pune', 'MH', '411001', 'O+', ?, CURRENT_DATE, CURRENT_DATE, 1, ?)",
+                id, "PAT-ARCHIVE-" + id, "archive" + id + "@example.com", active, changeSeq);
+    }
+}
@@ -0,0 +1,89 @@
+package com.mhrs.patient.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Audit Log Unit Tests")
+class AuditLogTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should drop instead of blocking when the ring is full")
+    void testRingBufferFull() {
+        AuditRingBuffer ring = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(event("alice", i)));
+        }
+        assertFalse(ring.offer(event("alice", 99)));
+        assertEquals(4, ring.size());
+
+        assertEquals(0, ring.poll().patientIds()[0]);
+        assertTrue(ring.offer(event("alice", 4)));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ring.poll().patientIds()[0]);
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    @DisplayName("Should replay records across rolled segments and query by patient ID")
+    void testRoundTripAcrossSegments() throws IOException {
+        try (AuditLogWriter writer = new AuditLogWriter(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 20; i++) {
+                writer.append(new AuditEvent(1000 + i, "user-" + i, AuditAction.SEARCH, new long[]{i, 100}));
+            }
+            assertTrue(writer.currentSegment() > 0);
+        }
+
+        List<AuditEvent> replayed = new ArrayList<>();
+        new AuditLogReader(directory).replay(replayed::add);
+        assertEquals(20, replayed.size());
+        assertEquals("user-7", replayed.get(7).actor());
+        assertEquals(AuditAction.SEARCH, replayed.get(7).action());
+
+        List<AuditEvent> latest = new AuditLogReader(directory).findByPatientId(100, 3);
+        assertEquals(List.of(1019L, 1018L, 1017L), latest.stream().map(AuditEvent::timestamp).toList());
+        assertEquals(1, new AuditLogReader(directory).findByPatientId(5, 10).size());
+    }
+
+    @Test
+    @DisplayName("Should stop at a torn record and resume appending after the last valid one")
+    void testTornRecordRecovery() throws IOException {
+        try (AuditLogWriter writer = new AuditLogWriter(directory, SEGMENT_SIZE)) {
+            writer.append(event("alice", 1));
+            writer.append(event("bob", 2));
+        }
+        // Corrupt the second record's payload
+        Path segment = AuditLogFormat.segmentPath(directory, 0);
+        int second = AuditLogFormat.HEADER_BYTES + AuditLogFormat.payloadSize(AuditLogFormat.actorBytes("alice"), 1);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), second + AuditLogFormat.HEADER_BYTES + 3);
+        }
+
+        try (AuditLogWriter writer = new AuditLogWriter(directory, SEGMENT_SIZE)) {
+            writer.append(event("carol", 3));
+        }
+
+        List<String> actors = new ArrayList<>();
+        new AuditLogReader(directory).replay(e -> actors.add(e.actor()));
+        assertEquals(List.of("alice", "carol"), actors);
+    }
+
+    private static AuditEvent event(String actor, long patientId) {
+        return new AuditEvent(System.currentTimeMillis(), actor, AuditAction.READ_BY_ID, new long[]{patientId});
+    }
+}
@@ -0,0 +1,54 @@
+package com.mhrs.patient.cache;
+
+import com.mhrs.patient.dto.PatientResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Patient Cache Unit Tests")
+class PatientCacheTest {
+
+    private PatientCache patientCache;
+
+    @BeforeEach
+    void setUp() {
+        patientCache = new PatientCache(100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Should drop a load that raced with an eviction")
+    void testStaleLoadDropped() {
+        long generation = patientCache.currentGeneration();
+        patientCache.evict(1L, "PAT-1");
+        patientCache.put(document(1, true), generation);
+
+        assertTrue(patientCache.getById(1L).isEmpty());
+        assertTrue(patientCache.getByUniqueId("pat-1").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep the newest version when refreshes and loads arrive out of order")
+    void testKeepsNewestVersion() {
+        patientCache.refresh(document(3, true));
+        patientCache.refresh(document(2, true));
+        patientCache.put(document(1, true), patientCache.currentGeneration());
+
+        assertEquals(3, patientCache.getById(1L).orElseThrow().patient().getVersion());
+        assertEquals(3, patientCache.getByUniqueId("PAT-1").orElseThrow().patient().getVersion());
+
+        patientCache.refresh(document(4, false));
+        assertTrue(patientCache.getById(1L).isEmpty());
+    }
+
+    private static PatientDocument document(long version, boolean active) {
+        PatientResponse patient = new PatientResponse();
+        patient.setPatientId(1L);
+        patient.setPatientUniqueId("PAT-1");
+        patient.setActive(active);
+        patient.setVersion(version);
+        return new PatientDocument(patient, new byte[0], PatientDocument.etagOf(patient));
+    }
+}
@@ -0,0 +1,175 @@
+package com.mhrs.patient.cache;
+
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.exception.PatientNotFoundException;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.model.Patient;
+import com.mhrs.patient.repository.PatientRepository;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.service.PatientService;
+import com.mhrs.patient.shard.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@TestPropertySource(properties = {"patient.changes.safety-lag=0s", "patient.existence-filter.sync-interval=1h"})
+@Import({PatientService.class, PatientNameIndex.class, PatientCache.class, PatientIdGenerator.class,
+        PatientExistenceFilter.class, ClinicalTextStore.class, ClinicalTextCodec.class, PatientMatcher.class,
+        ShardRouter.class})
+@DisplayName("Patient Existence Filter Tests")
+class PatientExistenceFilterTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientExistenceFilter patientExistenceFilter;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private PatientIdGenerator patientIdGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    @Test
+    @DisplayName("Should answer every key as possibly present until loaded")
+    void testNotReady() {
+        PatientExistenceFilter filter = new PatientExistenceFilter(true, 1000, 0.01);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContainId(1));
+        assertTrue(filter.mightContainUniqueId("PAT-1"));
+        assertTrue(filter.mightContainEmail("nobody@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should answer 404 for IDs it never saw and find loaded patients")
+    void testMisses() {
+        // Saved past the service, so the filter never sees its ID, and gone before the load
+        Patient gone = patientRepository.saveAndFlush(newPatient("gone@example.com"));
+        patientRepository.delete(gone);
+        patientRepository.flush();
+        PatientResponse second = create("second@example.com");
+        patientExistenceFilter.load();
+        patientExistenceFilter.sync();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        patientExistenceFilter.bindTo(registry);
+
+        assertFalse(patientExistenceFilter.mightContainId(gone.getPatientId()));
+        assertTrue(patientExistenceFilter.mightContainId(second.getPatientId()));
+        assertThrows(PatientNotFoundException.class, () -> patientService.getPatientById(gone.getPatientId()));
+        assertThrows(PatientNotFoundException.class, () -> patientService.getPatientByUniqueId("PAT-1"));
+        assertEquals(second.getEmail(), patientService.getPatientByUniqueId(second.getPatientUniqueId()).getEmail());
+        assertEquals(2.0, registry.get("patient.existence.misses").tag("key", "id").functionCounter().count());
+        assertEquals(1.0, registry.get("patient.existence.misses").tag("key", "unique_id").functionCounter().count());
+
+        // Not yet seen by a poll, so it might exist
+        assertTrue(patientExistenceFilter.mightContainId(second.getPatientId() + 1));
+    }
+
+    @Test
+    @DisplayName("Should pick up patients written by other nodes on the next poll")
+    void testSync() {
+        patientExistenceFilter.load();
+        PatientResponse created = create("elsewhere@example.com");
+        // As another node would write it: a new email this node never added, with a fresh change sequence
+        jdbcTemplate.update("UPDATE patients SET email = ?, change_seq = ? WHERE patient_id = ?", "moved@example.com",
+                patientIdGenerator.nextId(), created.getPatientId());
+        assertFalse(patientExistenceFilter.mightContainEmail("Moved@Example.com"));
+
+        patientExistenceFilter.sync();
+
+        assertTrue(patientExistenceFilter.mightContainEmail("Moved@Example.com"));
+        assertTrue(patientExistenceFilter.mightContainId(created.getPatientId()));
+        assertFalse(patientExistenceFilter.mightContainEmail("nobody@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should fold case and accents as the database collation does")
+    void testFold() {
+        assertEquals("jose@example.com", PatientExistenceFilter.fold("José@Example.com"));
+        assertEquals("pat-42", PatientExistenceFilter.fold("PAT-42"));
+    }
+
+    @Test
+    @DisplayName("Should never report an added key as absent")
+    void testBloomFilter() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (long key = 0; key < 10_000; key++) {
+            filter.add(key * 7);
+            filter.add("patient" + key + "@example.com");
+        }
+        int falsePositives = 0;
+        for (long key = 0; key < 10_000; key++) {
+            assertTrue(filter.mightContain(key * 7));
+            assertTrue(filter.mightContain("patient" + key + "@example.com"));
+            if (filter.mightContain("other" + key + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        // 20,000 keys in a filter sized for 10,000 at 1% should stay well under 20%
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1.5));
+    }
+
+    private static Patient newPatient(String email) {
+        Patient patient = new Patient();
+        patient.setPatientUniqueId("PAT-GONE");
+        patient.setFirstName("Gone");
+        patient.setLastName("Patient");
+        patient.setEmail(email);
+        patient.setPhoneNumber("9876543210");
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        patient.setGender("Female");
+        patient.setAddress("1 Road");
+        patient.setCity("Pune");
+        patient.setState("MH");
+        patient.setZipCode("411001");
+        patient.setBloodGroup("A+");
+        patient.setActive(true);
+        return patient;
+    }
+
+    private PatientResponse create(String email) {
+        return patientService.createPatient(CreatePatientRequest.builder()
+                .firstName("Asha")
+                .lastName("Patil")
+                .email(email)
+                .phoneNumber("9876543210")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender("Female")
+                .address("12 MG Road")
+                .city("Pune")
+                .state("MH")
+                .zipCode("411001")
+                .bloodGroup("O+")
+                .build(), true);
+    }
+}
@@ -0,0 +1,57 @@
+package com.mhrs.patient.clinical;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Clinical Text Codec Unit Tests")
+class ClinicalTextCodecTest {
+
+    private final ClinicalTextCodec codec = new ClinicalTextCodec(64, 6);
+
+    @Test
+    @DisplayName("Should store short text plain and round-trip it")
+    void testShortTextStoredPlain() {
+        byte[] encoded = codec.encode("Penicillin – rash");
+
+        assertEquals(ClinicalTextCodec.PLAIN, encoded[0]);
+        assertEquals("Penicillin – rash", codec.decode(encoded));
+        assertNull(codec.encode(null));
+        assertNull(codec.decode(null));
+        assertEquals("", codec.decode(codec.encode("")));
+    }
+
+    @Test
+    @DisplayName("Should compress long text and report the bytes saved")
+    void testLongTextCompressed() {
+        String history = "Type 2 diabetes since 2015. Hypertension, controlled with medication. ".repeat(40);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        codec.bindTo(registry);
+
+        byte[] encoded = codec.encode(history);
+
+        assertEquals(ClinicalTextCodec.DEFLATE, encoded[0]);
+        assertTrue(encoded.length < history.length() / 4);
+        assertEquals(history, codec.decode(encoded));
+        assertEquals(history.length(), registry.get("patient.clinical_text.original").functionCounter().count());
+        assertEquals(encoded.length, registry.get("patient.clinical_text.stored").functionCounter().count());
+        assertEquals(1, registry.get("patient.clinical_text.decode").functionTimer().count());
+    }
+
+    @Test
+    @DisplayName("Should keep text plain when compression does not shrink it")
+    void testIncompressibleTextStoredPlain() {
+        StringBuilder random = new StringBuilder();
+        java.util.Random rng = new java.util.Random(42);
+        for (int i = 0; i < 100; i++) {
+            random.append((char) ('!' + rng.nextInt(90)));
+        }
+
+        byte[] encoded = codec.encode(random.toString());
+
+        assertEquals(ClinicalTextCodec.PLAIN, encoded[0]);
+        assertEquals(random.toString(), codec.decode(encoded));
+    }
+}
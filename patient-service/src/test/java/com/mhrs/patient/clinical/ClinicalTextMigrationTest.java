@@ -0,0 +1,80 @@
+package com.mhrs.patient.clinical;
+
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:clinical_migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "patient.clinical-text.migration-chunk-size=2"
+})
+@Import({ClinicalTextMigration.class, ClinicalTextStore.class, ClinicalTextCodec.class, ShardRouter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Clinical Text Migration Tests")
+class ClinicalTextMigrationTest {
+
+    @Autowired
+    private ClinicalTextMigration clinicalTextMigration;
+
+    @Autowired
+    private ClinicalTextStore clinicalTextStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should move legacy inline text into the clinical text table field by field and clear it")
+    void testMigrateLegacyColumns() {
+        jdbcTemplate.execute("ALTER TABLE patients ADD COLUMN allergies VARCHAR(255)");
+        jdbcTemplate.execute("ALTER TABLE patients ADD COLUMN medical_history TEXT");
+        insertLegacy(1, "Penicillin", "Asthma");
+        insertLegacy(2, null, "Long history ".repeat(100));
+        insertLegacy(3, "Peanuts", null);
+        insertLegacy(4, null, null);
+        insertLegacy(5, "Latex", "Diabetes");
+        insertLegacy(6, "Dust", "Migraine");
+        clinicalTextStore.insertAll(List.of(3L), List.of(new ClinicalText("Peanuts, shellfish", "")));
+        // Written while the migration has not reached them yet
+        jdbcTemplate.update("INSERT INTO patient_clinical_text (patient_id, allergies) VALUES (6, NULL)");
+        jdbcTemplate.update("UPDATE patient_clinical_text SET allergies = ? WHERE patient_id = 6",
+                (Object) new ClinicalTextCodec(256, 6).encode("Dust, pollen"));
+        assertEquals(new ClinicalText("Latex", "Diabetes"), clinicalTextStore.load(5L));
+        assertEquals(new ClinicalText("Dust, pollen", "Migraine"), clinicalTextStore.load(6L));
+        assertEquals(new ClinicalText("Latex, rubber", "Diabetes"), clinicalTextStore.patch(5L, "Latex, rubber", null));
+
+        clinicalTextMigration.migrate();
+
+        assertEquals(new ClinicalText("Penicillin", "Asthma"), clinicalTextStore.load(1L));
+        assertEquals("Long history ".repeat(100), clinicalTextStore.load(2L).medicalHistory());
+        assertEquals("Peanuts, shellfish", clinicalTextStore.load(3L).allergies());
+        assertEquals(ClinicalText.EMPTY, clinicalTextStore.load(4L));
+        assertEquals(new ClinicalText("Latex, rubber", "Diabetes"), clinicalTextStore.load(5L));
+        assertEquals(new ClinicalText("Dust, pollen", "Migraine"), clinicalTextStore.load(6L));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patients "
+                + "WHERE allergies IS NOT NULL OR medical_history IS NOT NULL", Integer.class));
+    }
+
+    private void insertLegacy(long id, String allergies, String medicalHistory) {
+        jdbcTemplate.update("INSERT INTO patients (patient_id, patient_unique_id, first_name, last_name, email, "
+                        + "phone_number, date_of_birth, gender, address, city, state, zip_code, blood_group, "
+                        + "allergies, medical_history, active, created_at, updated_at, version) "
+                        + "VALUES (?, ?, 'John', 'Doe', ?, '9876543210', DATE '1990-05-15', 'Male', '1 Road', "
+                        + "'Pune', 'MH', '411001', 'O+', ?, ?, TRUE, CURRENT_DATE, CURRENT_DATE, 0)",
+                id, "PAT-LEGACY-" + id, "legacy" + id + "@example.com", allergies, medicalHistory);
+    }
+}
@@ -1,18 +1,35 @@
 package com.mhrs.patient.controller;
 
+import com.mhrs.patient.cache.PatientDocument;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.importer.PatientImportService;
+import com.mhrs.patient.matching.DuplicateScanner;
 import com.mhrs.patient.service.PatientService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(PatientController.class)
+@Import(SimpleMeterRegistry.class)
 public class PatientControllerTest {
 
     @Autowired
@@ -21,6 +38,12 @@ public class PatientControllerTest {
     @MockBean
     private PatientService patientService;
 
+    @MockBean
+    private PatientImportService patientImportService;
+
+    @MockBean
+    private DuplicateScanner duplicateScanner;
+
     @Test
     @DisplayName("Should return 200 OK and status message for health check")
     public void testHealthCheck() throws Exception {
@@ -28,4 +51,41 @@ public class PatientControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Patient Service is running"));
     }
+
+    @Test
+    @DisplayName("Should serve cached patient bytes with an ETag and answer a matching If-None-Match with 304")
+    public void testGetPatientConditional() throws Exception {
+        PatientResponse patient = new PatientResponse();
+        patient.setPatientId(1L);
+        patient.setVersion(2);
+        String json = "{\"patientId\":1,\"version\":2}";
+        when(patientService.getPatientDocumentById(1L)).thenReturn(
+                new PatientDocument(patient, json.getBytes(StandardCharsets.UTF_8), PatientDocument.etagOf(patient)));
+
+        mockMvc.perform(get("/api/v1/patients/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1.2\""))
+                .andExpect(content().json(json));
+        mockMvc.perform(get("/api/v1/patients/1").header(HttpHeaders.IF_NONE_MATCH, "\"1.2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/v1/patients/1").header(HttpHeaders.IF_NONE_MATCH, "\"1.1\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should answer 409 only for a unique key conflict")
+    public void testIntegrityViolations() throws Exception {
+        when(patientService.getPatientDocumentById(1L)).thenThrow(new DuplicateKeyException("email taken"));
+        when(patientService.getPatientDocumentById(2L)).thenThrow(new DataIntegrityViolationException("unique",
+                new ConstraintViolationException("unique", new SQLException("duplicate", "23505"), null,
+                        ConstraintViolationException.ConstraintKind.UNIQUE, "uk_patients_email")));
+        when(patientService.getPatientDocumentById(3L)).thenThrow(new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", new SQLException("null", "23502"), null,
+                        ConstraintViolationException.ConstraintKind.OTHER, null)));
+
+        mockMvc.perform(get("/api/v1/patients/1")).andExpect(status().isConflict());
+        mockMvc.perform(get("/api/v1/patients/2")).andExpect(status().isConflict());
+        assertThrows(ServletException.class, () -> mockMvc.perform(get("/api/v1/patients/3")));
+    }
 }
@@ -0,0 +1,82 @@
+package com.mhrs.patient.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Bulkhead DataSource Unit Tests")
+class BulkheadDataSourceTest {
+
+    private DataSource target;
+    private BulkheadDataSource bulkhead;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        bulkhead = new BulkheadDataSource(target, 2, Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("Should fail fast once all permits are taken")
+    void testFailFastWhenFull() throws SQLException {
+        Connection first = bulkhead.getConnection();
+        Connection second = bulkhead.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> bulkhead.getConnection());
+        assertEquals(0, bulkhead.getAvailablePermits());
+        assertEquals(1, bulkhead.getRejectedCount());
+
+        first.close();
+        assertNotNull(bulkhead.getConnection());
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Should release the permit only once when a connection is closed twice")
+    void testDoubleCloseReleasesOnce() throws SQLException {
+        Connection connection = bulkhead.getConnection();
+        connection.close();
+        connection.close();
+
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    @DisplayName("Should return the permit when the pool fails to hand out a connection")
+    void testReleaseOnPoolFailure() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+
+        assertThrows(SQLException.class, () -> bulkhead.getConnection());
+        assertEquals(2, bulkhead.getAvailablePermits());
+    }
+
+    @Test
+    @DisplayName("Should mark the current request once it gets a connection")
+    void testMarksRequest() throws SQLException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+            assertThrows(SQLException.class, () -> bulkhead.getConnection());
+            assertNull(request.getAttribute(BulkheadDataSource.CONNECTION_ATTRIBUTE));
+
+            doReturn(mock(Connection.class)).when(target).getConnection();
+            bulkhead.getConnection().close();
+            assertEquals(Boolean.TRUE, request.getAttribute(BulkheadDataSource.CONNECTION_ATTRIBUTE));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.mhrs.patient.db;
+
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Replica Routing DataSource Tests")
+class ReplicaRoutingDataSourceTest {
+
+    private static final String WHERE_AM_I = "SELECT name FROM node";
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReadYourWrites readYourWrites;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = pool("primary", "routing_primary");
+        replica = pool("replica-0", "routing_replica");
+        for (HikariDataSource pool : List.of(primary, replica)) {
+            JdbcTemplate jdbc = new JdbcTemplate(pool);
+            jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+            jdbc.execute("CREATE TABLE patients (change_seq BIGINT)");
+            jdbc.update("INSERT INTO node VALUES (?)", pool.getPoolName());
+        }
+
+        readYourWrites = new ReadYourWrites(Duration.ofMinutes(1), 100);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), readYourWrites,
+                Duration.ofSeconds(2), Duration.ofHours(1));
+        routing.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        for (HikariDataSource pool : List.of(primary, replica)) {
+            new JdbcTemplate(pool).execute("DROP ALL OBJECTS");
+        }
+        routing.close();
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to a caught-up replica and writes to the primary")
+    void testRoutesByReadOnlyFlag() {
+        routing.checkLag();
+
+        assertEquals(0, routing.getLagMillis("replica-0"));
+        assertEquals("replica-0", readOnly.execute(status -> jdbcTemplate.queryForObject(WHERE_AM_I, String.class)));
+        assertEquals("primary", readWrite.execute(status -> jdbcTemplate.queryForObject(WHERE_AM_I, String.class)));
+        assertEquals("primary", jdbcTemplate.queryForObject(WHERE_AM_I, String.class));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary while the replica lags behind")
+    void testFallsBackWhenReplicaLags() {
+        long oneMinuteAgo = PatientIdGenerator.maxIdAt(System.currentTimeMillis() - 60_000);
+        new JdbcTemplate(primary).update("INSERT INTO patients VALUES (?)", oneMinuteAgo);
+        routing.checkLag();
+
+        assertTrue(routing.getLagMillis("replica-0") >= 60_000);
+        assertEquals("primary", readOnly.execute(status -> jdbcTemplate.queryForObject(WHERE_AM_I, String.class)));
+
+        new JdbcTemplate(replica).update("INSERT INTO patients VALUES (?)", oneMinuteAgo);
+        routing.checkLag();
+
+        assertEquals("replica-0", readOnly.execute(status -> jdbcTemplate.queryForObject(WHERE_AM_I, String.class)));
+    }
+
+    @Test
+    @DisplayName("Should keep a client's reads on the primary after it wrote")
+    void testReadYourWrites() {
+        routing.checkLag();
+
+        request("alice");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO patients VALUES (1)"));
+        assertEquals("primary", readOnly.execute(status -> jdbcTemplate.queryForObject(WHERE_AM_I, String.class)));
+
+        request("alice");
+        assertEquals("primary", readOnly.execute(status -> jdbcTemplate.queryForObject(WHERE_AM_I, String.class)));
+
+        request("bob");
+        assertEquals("replica-0", readOnly.execute(status -> jdbcTemplate.queryForObject(WHERE_AM_I, String.class)));
+    }
+
+    @Test
+    @DisplayName("Should mark a transaction as a replica read only while it runs on a replica")
+    void testReplicaReadMarker() {
+        routing.checkLag();
+
+        assertEquals(Boolean.TRUE, readOnly.execute(status -> {
+            jdbcTemplate.queryForObject(WHERE_AM_I, String.class);
+            return ReplicaRoutingDataSource.isReplicaRead();
+        }));
+        assertFalse(ReplicaRoutingDataSource.isReplicaRead());
+        assertEquals(Boolean.FALSE, readWrite.execute(status -> {
+            jdbcTemplate.queryForObject(WHERE_AM_I, String.class);
+            return ReplicaRoutingDataSource.isReplicaRead();
+        }));
+    }
+
+    @Test
+    @DisplayName("Should size the bulkhead to all pools together")
+    void testMaximumPoolSize() {
+        assertEquals(primary.getMaximumPoolSize() + replica.getMaximumPoolSize(), routing.getMaximumPoolSize());
+    }
+
+    // Starts a request for the given user, as the MVC interceptor would
+    private void request(String user) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-User-Id", user);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        readYourWrites.preHandle(request, new MockHttpServletResponse(), null);
+    }
+
+    private static HikariDataSource pool(String name, String database) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        pool.setMaximumPoolSize(2);
+        return pool;
+    }
+}
@@ -0,0 +1,141 @@
+package com.mhrs.patient.db;
+
+import com.mhrs.patient.PatientServiceApplication;
+import com.mhrs.patient.importer.PatientImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the service twice against H2, once on platform threads and once on virtual threads,
+ * and drives GET /api/v1/patients/{id} from many concurrent clients with the read cache
+ * disabled so every request reaches the bulkhead and the pool. Reports throughput, p50, p99
+ * and how many requests were shed with 503.
+ *
+ *   mvn test -Dtest=VirtualThreadLoadBenchmark -Dbenchmark.concurrency=2000 -Dbenchmark.seconds=20
+ */
+class VirtualThreadLoadBenchmark {
+
+    private static final int PATIENTS = 1_000;
+
+    @Test
+    @DisplayName("Compare platform and virtual thread request handling under high concurrency")
+    void compareThreadModes() throws Exception {
+        int concurrency = Integer.getInteger("benchmark.concurrency", 1_000);
+        int seconds = Integer.getInteger("benchmark.seconds", 10);
+
+        Result platform = run(false, concurrency, seconds);
+        Result virtual = run(true, concurrency, seconds);
+
+        System.out.printf("%-9s %10s %9s %9s %9s %8s%n", "mode", "req/sec", "p50 ms", "p99 ms", "max ms", "503s");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-9s %10.0f %9.2f %9.2f %9.2f %8d%n", result.mode, result.throughput,
+                    result.p50Millis, result.p99Millis, result.maxMillis, result.shed);
+        }
+        assertTrue(platform.throughput > 0 && virtual.throughput > 0);
+    }
+
+    private Result run(boolean virtualThreads, int concurrency, int seconds) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PatientServiceApplication.class)
+                .profiles("h2")
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "patient.cache.maximum-size=0",
+                        "logging.level.com.mhrs=WARN")
+                .run()) {
+            seed(context.getBean(PatientImportService.class));
+            int port = context.getEnvironment().getProperty("local.server.port", Integer.class);
+            return drive(mode, "http://localhost:" + port + "/api/v1/patients/", concurrency, seconds);
+        }
+    }
+
+    private static void seed(PatientImportService importService) throws Exception {
+        StringBuilder csv = new StringBuilder("firstName,lastName,email,phoneNumber,dateOfBirth,gender,address,"
+                + "city,state,zipCode,bloodGroup,allergies,medicalHistory\n");
+        for (int i = 0; i < PATIENTS; i++) {
+            csv.append("Load,Patient,load").append(i).append("@example.com,9876543210,1990-01-01,Female,")
+                    .append("1 Road,Pune,MH,411001,A+,None,None\n");
+        }
+        importService.importPatients(PatientImportService.CSV,
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Result drive(String mode, String baseUrl, int concurrency, int seconds) throws Exception {
+        AtomicLong shed = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(clients).version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build()) {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < concurrency; c++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long id = 1 + ThreadLocalRandom.current().nextInt(PATIENTS);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + id)).GET().build();
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        long elapsed = System.nanoTime() - start;
+                        if (response.statusCode() == 503) {
+                            shed.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = elapsed;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            long total = 0;
+            List<long[]> all = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                all.add(latencies);
+                total += latencies.length;
+            }
+            long[] merged = new long[(int) total];
+            int offset = 0;
+            for (long[] latencies : all) {
+                System.arraycopy(latencies, 0, merged, offset, latencies.length);
+                offset += latencies.length;
+            }
+            Arrays.sort(merged);
+            return new Result(mode, total / (double) seconds,
+                    percentile(merged, 0.50), percentile(merged, 0.99),
+                    merged.length == 0 ? 0 : merged[merged.length - 1] / 1_000_000.0, shed.get());
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, double maxMillis, long shed) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.mhrs.patient.export;
+
+import com.mhrs.patient.audit.AuditAction;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.dto.PatientExportJobResponse;
+import com.mhrs.patient.importer.CsvPatientRecordReader;
+import com.mhrs.patient.importer.PatientRecord;
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:patient_export;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "patient.export.block-rows=2",
+        "patient.export.segment-rows=3"
+})
+@Import({PatientExporter.class, PatientExportJobs.class, ShardRouter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Patient Export Tests")
+class PatientExportTest {
+
+    private static final Path DIRECTORY = Path.of("target/exports");
+
+    @Autowired
+    private PatientExporter patientExporter;
+
+    @Autowired
+    private PatientExportJobs patientExportJobs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM patients");
+        for (long id = 1; id <= 6; id++) {
+            insert(id, id != 4);
+        }
+    }
+
+    @Test
+    @DisplayName("Should export active patients as CSV that the importer reads back")
+    void testCsvExport() throws IOException {
+        byte[] csv = export(PatientExportFormat.CSV, 0);
+
+        List<PatientRecord> records = readCsv(csv);
+        assertEquals(List.of("p1@example.com", "p2@example.com", "p3@example.com", "p5@example.com",
+                "p6@example.com"), records.stream().map(record -> record.request().getEmail()).toList());
+        assertEquals("1 Road, \"Block\" A", records.get(0).request().getAddress());
+        assertEquals(LocalDate.of(1990, 5, 15), records.get(0).request().getDateOfBirth());
+        assertTrue(new String(csv, StandardCharsets.UTF_8).startsWith("patientId,patientUniqueId,firstName"));
+        // Three blocks of at most two rows, across two segments
+        verify(patientAuditLog, times(3)).record(eq(AuditAction.EXPORT), anyList(), eq("exporter"));
+
+        assertEquals(List.of("p5@example.com", "p6@example.com"), readCsv(export(PatientExportFormat.CSV, 3))
+                .stream().map(record -> record.request().getEmail()).toList());
+    }
+
+    @Test
+    @DisplayName("Should write gzip CSV as concatenated members with the same content")
+    void testGzipExport() throws IOException {
+        byte[] gzip = export(PatientExportFormat.CSV_GZIP, 0);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertArrayEquals(export(PatientExportFormat.CSV, 0), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the columnar format in row groups")
+    void testColumnarExport() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(export(PatientExportFormat.COLUMNAR, 0)));
+
+        assertArrayEquals(ColumnarExportEncoder.MAGIC, in.readNBytes(4));
+        assertEquals(ColumnarExportEncoder.VERSION, in.readInt());
+        int columns = in.readInt();
+        assertEquals(ExportColumn.ALL.size(), columns);
+        for (int i = 0; i < columns; i++) {
+            assertEquals(ExportColumn.ALL.get(i).type().ordinal(), in.readByte());
+            assertEquals(ExportColumn.ALL.get(i).name(), new String(in.readNBytes(in.readByte()), StandardCharsets.UTF_8));
+        }
+        List<Long> ids = new ArrayList<>();
+        List<Integer> groupSizes = new ArrayList<>();
+        int rows;
+        while ((rows = in.readInt()) > 0) {
+            groupSizes.add(rows);
+            // patientId is the first column; skip the rest of the group by their lengths
+            assertEquals(rows * 8, in.readInt());
+            for (int i = 0; i < rows; i++) {
+                ids.add(in.readLong());
+            }
+            for (int column = 1; column < columns; column++) {
+                in.skipNBytes(in.readInt());
+            }
+        }
+        assertEquals(List.of(1L, 2L, 3L, 5L, 6L), ids);
+        assertEquals(List.of(2, 1, 2), groupSizes);
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    @DisplayName("Should resume a job from its checkpoint, dropping bytes written after it")
+    void testResumeFromCheckpoint() throws IOException, InterruptedException {
+        // A job that checkpointed after its first block, then died partway through the next
+        ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        PatientExporter.Result first = patientExporter.export(PatientExportFormat.CSV_GZIP, 0, false, "exporter",
+                Channels.newChannel(partial), (lastPatientId, rows, bytes) -> false);
+        assertEquals(2, first.lastPatientId());
+        assertFalse(first.complete());
+
+        String id = "resume-" + System.nanoTime();
+        Files.createDirectories(DIRECTORY);
+        Files.write(DIRECTORY.resolve(id + ".csv.gz"), concat(partial.toByteArray(), new byte[]{31, -117, 8, 0}));
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("format", PatientExportFormat.CSV_GZIP.name());
+        checkpoint.setProperty("actor", "exporter");
+        checkpoint.setProperty("lastPatientId", Long.toString(first.lastPatientId()));
+        checkpoint.setProperty("rows", Long.toString(first.rows()));
+        checkpoint.setProperty("bytes", Long.toString(first.bytes()));
+        checkpoint.setProperty("complete", "false");
+        try (var writer = Files.newBufferedWriter(DIRECTORY.resolve(id + ".checkpoint"))) {
+            checkpoint.store(writer, null);
+        }
+
+        assertEquals("INTERRUPTED", patientExportJobs.find(id).orElseThrow().getState());
+        patientExportJobs.resume(id);
+        PatientExportJobResponse done = await(id);
+
+        assertEquals("COMPLETED", done.getState());
+        assertEquals(5, done.getRows());
+        assertEquals(6, done.getLastPatientId());
+        byte[] file = Files.readAllBytes(DIRECTORY.resolve(id + ".csv.gz"));
+        assertEquals(done.getBytes(), file.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(file))) {
+            assertArrayEquals(export(PatientExportFormat.CSV, 0), in.readAllBytes());
+        }
+        assertThrows(IllegalArgumentException.class, () -> patientExportJobs.resume(id));
+    }
+
+    @Test
+    @DisplayName("Should run a new job to completion and reject unknown or unsafe IDs")
+    void testStartJob() throws IOException, InterruptedException {
+        String id = patientExportJobs.start(PatientExportFormat.CSV).getId();
+
+        PatientExportJobResponse done = await(id);
+        assertEquals("COMPLETED", done.getState());
+        assertArrayEquals(export(PatientExportFormat.CSV, 0), Files.readAllBytes(DIRECTORY.resolve(done.getFile())));
+        assertTrue(patientExportJobs.find("../" + id).isEmpty());
+        assertTrue(patientExportJobs.find("missing").isEmpty());
+    }
+
+    private byte[] export(PatientExportFormat format, long after) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PatientExporter.Result result = patientExporter.export(format, after, false, "exporter",
+                Channels.newChannel(out), (lastPatientId, rows, bytes) -> true);
+        assertTrue(result.complete());
+        assertEquals(out.size(), result.bytes());
+        return out.toByteArray();
+    }
+
+    private PatientExportJobResponse await(String id) throws IOException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            PatientExportJobResponse job = patientExportJobs.find(id).orElseThrow();
+            if (!job.getState().equals("QUEUED") && !job.getState().equals("RUNNING")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Export job " + id + " did not finish");
+    }
+
+    private static List<PatientRecord> readCsv(byte[] csv) throws IOException {
+        CsvPatientRecordReader reader = new CsvPatientRecordReader(
+                new InputStreamReader(new ByteArrayInputStream(csv), StandardCharsets.UTF_8));
+        List<PatientRecord> records = new ArrayList<>();
+        for (PatientRecord record = reader.next(); record != null; record = reader.next()) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] joined = new byte[a.length + b.length];
+        System.arraycopy(a, 0, joined, 0, a.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    private void insert(long id, boolean active) {
+        jdbcTemplate.update("INSERT INTO patients (patient_id, patient_unique_id, first_name, last_name, email, "
+                        + "phone_number, date_of_birth, gender, address, city, state, zip_code, blood_group, "
+                        + "active, created_at, updated_at, version, change_seq) "
+                        + "VALUES (?, ?, 'John', 'Doe', ?, '9876543210', DATE '1990-05-15', 'Male', "
+                        + "'1 Road, \"Block\" A', 'Pune', 'MH', '411001', 'O+', ?, CURRENT_DATE, CURRENT_DATE, 1, ?)",
+                id, "PAT-EXPORT-" + id, "p" + id + "@example.com", active, id);
+    }
+}
@@ -0,0 +1,140 @@
+package com.mhrs.patient.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Patient ID Generator Unit Tests")
+class PatientIdGeneratorTest {
+
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    @DisplayName("Should generate unique, per-thread increasing IDs under contention")
+    void testConcurrentUniqueness() throws Exception {
+        PatientIdGenerator generator = new PatientIdGenerator(7, Clock.systemUTC());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            long[][] ids = new long[THREADS][IDS_PER_THREAD];
+            for (int t = 0; t < THREADS; t++) {
+                long[] out = ids[t];
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        out[i] = generator.nextId();
+                    }
+                    return null;
+                });
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            double idsPerSecond = THREADS * (double) IDS_PER_THREAD / ((System.nanoTime() - begin) / 1_000_000_000.0);
+
+            Set<Long> unique = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+            for (long[] threadIds : ids) {
+                for (int i = 0; i < threadIds.length; i++) {
+                    assertTrue(unique.add(threadIds[i]), "Duplicate ID " + threadIds[i]);
+                    if (i > 0) {
+                        assertTrue(threadIds[i] > threadIds[i - 1], "IDs must increase within a thread");
+                    }
+                    assertEquals(7, (threadIds[i] >>> PatientIdGenerator.SEQUENCE_BITS) & PatientIdGenerator.MAX_NODE_ID);
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, unique.size());
+            assertTrue(idsPerSecond > 50_000, "Expected tens of thousands of IDs per second but got " + idsPerSecond);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should stay monotonic when the clock moves backwards")
+    void testClockRollback() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:10Z"));
+        PatientIdGenerator generator = new PatientIdGenerator(1, clock);
+
+        long beforeRollback = generator.nextId();
+        clock.instant = Instant.parse("2026-01-01T00:00:05Z");
+        long duringRollback = generator.nextId();
+        clock.instant = Instant.parse("2026-01-01T00:00:11Z");
+        long afterRecovery = generator.nextId();
+
+        assertTrue(duringRollback > beforeRollback);
+        assertTrue(afterRecovery > duringRollback);
+        assertEquals(1, generator.getClockRollbacks());
+        assertEquals(Instant.parse("2026-01-01T00:00:11Z").toEpochMilli(), PatientIdGenerator.timestampOf(afterRecovery));
+    }
+
+    @Test
+    @DisplayName("Should borrow the next millisecond when the sequence is exhausted")
+    void testSequenceExhaustion() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        PatientIdGenerator generator = new PatientIdGenerator(1, clock);
+
+        long previous = -1;
+        for (int i = 0; i <= PatientIdGenerator.SEQUENCE_MASK + 1; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(clock.millis() + 1, PatientIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    @DisplayName("Should bound the IDs any node issued up to a millisecond")
+    void testMaxIdAt() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+        long id = new PatientIdGenerator(PatientIdGenerator.MAX_NODE_ID, clock).nextId();
+
+        assertTrue(id <= PatientIdGenerator.maxIdAt(clock.millis()));
+        assertTrue(id > PatientIdGenerator.maxIdAt(clock.millis() - 1));
+    }
+
+    @Test
+    @DisplayName("Should reject node IDs outside the 10-bit range")
+    void testInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new PatientIdGenerator(1024, Clock.systemUTC()));
+        assertTrue(new PatientIdGenerator(3, Clock.systemUTC()).nextPatientUniqueId().startsWith("PAT-"));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mhrs.patient.importer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CSV Patient Record Reader Unit Tests")
+class CsvPatientRecordReaderTest {
+
+    private static final String HEADER = "first_name,lastName,email,phoneNumber,date_of_birth,gender,address,city,"
+            + "state,zipCode,bloodGroup,allergies,medicalHistory\r\n";
+
+    @Test
+    @DisplayName("Should map snake_case and camelCase headers and honour quoting")
+    void testParseQuotedRow() throws IOException {
+        String csv = HEADER + "John,Doe,john@example.com,9876543210,1990-05-15,Male,"
+                + "\"12 Main St, Apt \"\"B\"\"\",Pune,MH,411001,O+,,\"Asthma\nsince 2001\"\r\n";
+        try (CsvPatientRecordReader reader = new CsvPatientRecordReader(new StringReader(csv))) {
+            PatientRecord record = reader.next();
+
+            assertNull(record.parseError());
+            assertEquals(1, record.rowNumber());
+            assertEquals("John", record.request().getFirstName());
+            assertEquals(LocalDate.of(1990, 5, 15), record.request().getDateOfBirth());
+            assertEquals("12 Main St, Apt \"B\"", record.request().getAddress());
+            assertNull(record.request().getAllergies());
+            assertEquals("Asthma\nsince 2001", record.request().getMedicalHistory());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report bad rows without stopping the stream")
+    void testBadRows() throws IOException {
+        String csv = HEADER + "Jane,Doe,jane@example.com\n"
+                + "Jane,Doe,jane@example.com,9876543210,15/05/1990,Female,1 Road,Pune,MH,411001,A+,,\n"
+                + "\n"
+                + "Mary,Lee,mary@example.com,9876543210,1991-01-01,Female,1 Road,Pune,MH,411001,B+,,\n";
+        try (CsvPatientRecordReader reader = new CsvPatientRecordReader(new StringReader(csv))) {
+            assertTrue(reader.next().parseError().startsWith("Expected 13 columns"));
+            assertTrue(reader.next().parseError().startsWith("Invalid dateOfBirth"));
+            PatientRecord last = reader.next();
+            assertEquals(4, last.rowNumber());
+            assertEquals("Mary", last.request().getFirstName());
+            assertNull(reader.next());
+        }
+    }
+}
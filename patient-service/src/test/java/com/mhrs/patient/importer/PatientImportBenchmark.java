@@ -0,0 +1,79 @@
+package com.mhrs.patient.importer;
+
+import com.mhrs.patient.dto.PatientImportResponse;
+import com.mhrs.patient.model.Patient;
+import com.mhrs.patient.repository.PatientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Import throughput of the batched path against the one-by-one path (findByEmail followed by
+ * a single-row save, as createPatient does) on H2 in MySQL mode. H2 has no network round
+ * trip, so the gap against a real MySQL server is larger than reported here.
+ *
+ *   mvn test -Dtest=PatientImportBenchmark -Dbenchmark.rows=20000
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("h2")
+class PatientImportBenchmark {
+
+    @Autowired
+    private PatientImportService patientImportService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    @DisplayName("Benchmark batched import against one-by-one inserts")
+    void benchmarkImport() throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 10_000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            String email = "single" + i + "@example.com";
+            if (patientRepository.findByEmail(email).isEmpty()) {
+                patientRepository.save(newPatient(i, email));
+            }
+        }
+        double singleRowsPerSecond = rows / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        StringBuilder csv = new StringBuilder("firstName,lastName,email,phoneNumber,dateOfBirth,gender,address,"
+                + "city,state,zipCode,bloodGroup,allergies,medicalHistory\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Batch,Patient,batch").append(i).append("@example.com,9876543210,1990-01-01,Female,")
+                    .append("1 Road,Pune,MH,411001,A+,None,None\n");
+        }
+        PatientImportResponse response = patientImportService.importPatients(PatientImportService.CSV,
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        System.out.printf("One-by-one: %,.0f rows/sec%n", singleRowsPerSecond);
+        System.out.printf("Batched:    %,.0f rows/sec (%d ms)%n", response.getRowsPerSecond(), response.getElapsedMillis());
+        assertEquals(rows, response.getImported());
+    }
+
+    private static Patient newPatient(int i, String email) {
+        Patient patient = new Patient();
+        patient.setPatientUniqueId("PAT-SINGLE-" + i);
+        patient.setFirstName("Single");
+        patient.setLastName("Patient");
+        patient.setEmail(email);
+        patient.setPhoneNumber("9876543210");
+        patient.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        patient.setGender("Female");
+        patient.setAddress("1 Road");
+        patient.setCity("Pune");
+        patient.setState("MH");
+        patient.setZipCode("411001");
+        patient.setBloodGroup("A+");
+        patient.setActive(true);
+        return patient;
+    }
+}
@@ -0,0 +1,176 @@
+package com.mhrs.patient.matching;
+
+import com.mhrs.patient.audit.AuditAction;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.DuplicateCandidateResponse;
+import com.mhrs.patient.dto.DuplicatePairResponse;
+import com.mhrs.patient.dto.DuplicateScanResponse;
+import com.mhrs.patient.dto.PatchPatientRequest;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.exception.PossibleDuplicatePatientException;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.service.PatientService;
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@TestPropertySource(properties = {"patient.duplicates.max-block-size=3", "patient.duplicates.segment-keys=4"})
+@Import({PatientService.class, PatientNameIndex.class, PatientCache.class, PatientIdGenerator.class,
+        PatientExistenceFilter.class, ClinicalTextStore.class, ClinicalTextCodec.class, PatientMatcher.class,
+        DuplicateScanner.class, BlockingKeyBackfill.class, ShardRouter.class})
+@DisplayName("Duplicate Patient Detection Tests")
+class DuplicateDetectionTest {
+
+    private static final LocalDate SMITH_BIRTHDAY = LocalDate.of(1985, 3, 7);
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private DuplicateScanner duplicateScanner;
+
+    @Autowired
+    private BlockingKeyBackfill blockingKeyBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    @Test
+    @DisplayName("Should refuse a likely duplicate unless the caller allows it")
+    void testRejectDuplicate() {
+        PatientResponse registered = create("John", "Smyth", "john.smyth@example.com", SMITH_BIRTHDAY, false);
+
+        PossibleDuplicatePatientException ex = assertThrows(PossibleDuplicatePatientException.class,
+                () -> create("Jon", "Smith", "jon.smith@example.com", SMITH_BIRTHDAY, false));
+        assertEquals(List.of(registered.getPatientId()),
+                ex.getCandidates().stream().map(DuplicateCandidateResponse::getPatientId).toList());
+        assertTrue(ex.getCandidates().get(0).getScore() >= 0.95);
+        verify(patientAuditLog).record(AuditAction.DUPLICATES, List.of(registered.getPatientId()));
+
+        PatientResponse confirmed = create("Jon", "Smith", "jon.smith@example.com", SMITH_BIRTHDAY, true);
+        List<DuplicateCandidateResponse> duplicates = patientService.getPossibleDuplicates(registered.getPatientId());
+        assertEquals(List.of(confirmed.getPatientId()),
+                duplicates.stream().map(DuplicateCandidateResponse::getPatientId).toList());
+    }
+
+    @Test
+    @DisplayName("Should let twins register without confirmation")
+    void testTwins() {
+        create("John", "Doe", "john.doe@example.com", SMITH_BIRTHDAY, false);
+        PatientResponse jane = create("Jane", "Doe", "jane.doe@example.com", SMITH_BIRTHDAY, false);
+
+        assertNotNull(jane.getPatientId());
+    }
+
+    @Test
+    @DisplayName("Should move the blocking keys when the date of birth is corrected")
+    void testRekeyOnUpdate() {
+        PatientResponse patient = create("John", "Smyth", "john.smyth@example.com", SMITH_BIRTHDAY, false);
+        assertEquals(List.of("LD:SM0:1985-03-07"), keys(patient.getPatientId(), "LD:SM0:%"));
+
+        patientService.patchPatient(patient.getPatientId(), PatchPatientRequest.builder()
+                .version(patient.getVersion()).dateOfBirth(LocalDate.of(1985, 7, 3)).build());
+
+        assertEquals(List.of("LD:SM0:1985-07-03"), keys(patient.getPatientId(), "LD:SM0:%"));
+    }
+
+    @Test
+    @DisplayName("Should scan blocks across segments and skip oversized ones")
+    void testScan() {
+        List<Long> ravi = List.of(
+                create("Ravi", "Kumar", "ravi1@example.com", LocalDate.of(1970, 1, 1), true).getPatientId(),
+                create("Ravi", "Kumar", "ravi2@example.com", LocalDate.of(1970, 1, 1), true).getPatientId(),
+                create("Ravi", "Kumar", "ravi3@example.com", LocalDate.of(1970, 1, 1), true).getPatientId());
+        for (int i = 0; i < 4; i++) {
+            create("Asha", "Patil", "asha" + i + "@example.com", LocalDate.of(1992, 11, 20), true);
+        }
+        PatientResponse smyth = create("John", "Smyth", "john.smyth@example.com", SMITH_BIRTHDAY, false);
+        PatientResponse smith = create("Jon", "Smith", "jon.smith@example.com", SMITH_BIRTHDAY, true);
+        create("Meera", "Iyer", "meera@example.com", LocalDate.of(2000, 6, 15), false);
+
+        DuplicateScanResponse scan = duplicateScanner.scan(null, 10);
+
+        assertEquals(4, scan.getPairsFound());
+        assertTrue(scan.getOversizedBlocks() > 0);
+        assertTrue(scan.getComparisons() >= 4);
+        List<List<Long>> pairs = scan.getPairs().stream()
+                .map(pair -> List.of(pair.getPatientId(), pair.getDuplicateId()))
+                .toList();
+        assertTrue(pairs.containsAll(List.of(List.of(ravi.get(0), ravi.get(1)), List.of(ravi.get(0), ravi.get(2)),
+                List.of(ravi.get(1), ravi.get(2)), List.of(smyth.getPatientId(), smith.getPatientId()))),
+                pairs.toString());
+        assertEquals(1.0, scan.getPairs().get(0).getScore());
+
+        List<DuplicatePairResponse> best = duplicateScanner.scan(0.99, 2).getPairs();
+        assertEquals(2, best.size());
+        assertThrows(IllegalArgumentException.class, () -> duplicateScanner.scan(1.5, null));
+        assertThrows(IllegalArgumentException.class, () -> duplicateScanner.scan(0.0, null));
+
+        // Only the best pair is kept, but all of them are counted
+        DuplicateScanResponse top = duplicateScanner.scan(null, 1);
+        assertEquals(4, top.getPairsFound());
+        assertEquals(List.of(1.0), top.getPairs().stream().map(DuplicatePairResponse::getScore).toList());
+    }
+
+    @Test
+    @DisplayName("Should backfill blocking keys of patients that have none")
+    void testBackfill() {
+        PatientResponse patient = create("John", "Smyth", "john.smyth@example.com", SMITH_BIRTHDAY, false);
+        jdbcTemplate.update("DELETE FROM patient_blocking_keys");
+
+        blockingKeyBackfill.backfill();
+
+        assertEquals(List.of("LD:SM0:1985-03-07"), keys(patient.getPatientId(), "LD:SM0:%"));
+        assertThrows(PossibleDuplicatePatientException.class,
+                () -> create("Jon", "Smith", "jon.smith@example.com", SMITH_BIRTHDAY, false));
+    }
+
+    private List<String> keys(Long patientId, String pattern) {
+        return jdbcTemplate.queryForList("SELECT block_key FROM patient_blocking_keys WHERE patient_id = ? "
+                + "AND block_key LIKE ? ORDER BY block_key", String.class, patientId, pattern);
+    }
+
+    private PatientResponse create(String firstName, String lastName, String email, LocalDate dateOfBirth,
+                                   boolean allowDuplicate) {
+        return patientService.createPatient(CreatePatientRequest.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(email)
+                .phoneNumber("9876543210")
+                .dateOfBirth(dateOfBirth)
+                .gender("Male")
+                .address("12 MG Road")
+                .city("Pune")
+                .state("MH")
+                .zipCode("411001")
+                .bloodGroup("B+")
+                .build(), allowDuplicate);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mhrs.patient.matching;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Duplicate Match Scoring Unit Tests")
+class MatchScorerTest {
+
+    private static final LocalDate BIRTHDAY = LocalDate.of(1985, 3, 7);
+
+    @Test
+    @DisplayName("Should score a misspelt registration of the same person above the reject score")
+    void testMisspeltDuplicate() {
+        MatchRecord registered = record(1L, "John", "Smyth", "Male", BIRTHDAY);
+        MatchRecord again = record(null, "Jon", "Smith", "male", BIRTHDAY);
+
+        assertTrue(MatchScorer.score(registered, again) >= 0.95);
+        assertEquals(1.0, MatchScorer.score(registered, registered), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Should keep twins with phonetically equal names below the reject score")
+    void testTwins() {
+        MatchRecord john = record(1L, "John", "Doe", "Male", BIRTHDAY);
+        MatchRecord jane = record(2L, "Jane", "Doe", "Female", BIRTHDAY);
+
+        assertEquals(0, MatchScorer.nameSimilarity("john", john.firstNameCodes, "jane", jane.firstNameCodes));
+        assertTrue(MatchScorer.score(john, jane) < 0.95);
+    }
+
+    @Test
+    @DisplayName("Should credit names that sound alike but are spelt differently")
+    void testPhoneticNames() {
+        MatchRecord catherine = record(1L, "Catherine", "Doe", "Female", BIRTHDAY);
+        MatchRecord kathryn = record(2L, "Kathryn", "Doe", "Female", BIRTHDAY);
+
+        assertTrue(MatchScorer.jaroWinkler("catherine", "kathryn") < 0.8);
+        assertEquals(0.9, MatchScorer.nameSimilarity("catherine", catherine.firstNameCodes, "kathryn",
+                kathryn.firstNameCodes), 1e-9);
+        assertEquals(0, MatchScorer.nameSimilarity("priya", new String[]{"PR"}, "pooja", new String[]{"PJ"}));
+    }
+
+    @Test
+    @DisplayName("Should give partial credit for swapped or single wrong date parts")
+    void testDateSimilarity() {
+        assertEquals(1, MatchScorer.dateSimilarity(BIRTHDAY, LocalDate.of(1985, 3, 7)));
+        assertEquals(0.8, MatchScorer.dateSimilarity(BIRTHDAY, LocalDate.of(1985, 7, 3)));
+        assertEquals(0.5, MatchScorer.dateSimilarity(BIRTHDAY, LocalDate.of(1958, 3, 7)));
+        assertEquals(0, MatchScorer.dateSimilarity(BIRTHDAY, LocalDate.of(1990, 1, 7)));
+        assertEquals(0, MatchScorer.dateSimilarity(BIRTHDAY, null));
+    }
+
+    @Test
+    @DisplayName("Should put phonetic variants into a shared block")
+    void testBlockingKeys() {
+        MatchRecord registered = record(1L, "John", "Smyth", "Male", BIRTHDAY);
+        MatchRecord again = record(null, "Jon", "Smith", "Male", BIRTHDAY);
+
+        assertTrue(BlockingKeys.of(registered).contains("LD:SM0:1985-03-07"), BlockingKeys.of(registered).toString());
+        assertTrue(BlockingKeys.of(again).stream().anyMatch(BlockingKeys.of(registered)::contains));
+        assertTrue(BlockingKeys.of(new MatchRecord(3L, null, "", "", null, null, null, null, null)).isEmpty());
+    }
+
+    private static MatchRecord record(Long id, String firstName, String lastName, String gender, LocalDate dateOfBirth) {
+        return new MatchRecord(id, id == null ? null : "PAT-" + id, firstName, lastName, "+91 98765-43210",
+                dateOfBirth, gender, "12  MG Road", "411 001");
+    }
+}
@@ -0,0 +1,33 @@
+package com.mhrs.patient.metrics;
+
+import com.mhrs.patient.model.Patient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Repository Metrics Aspect Unit Tests")
+class RepositoryMetricsAspectTest {
+
+    @Test
+    @DisplayName("Should count rows for collections, pages, optionals and entities")
+    void testRowCount() {
+        assertEquals(3, RepositoryMetricsAspect.rowCount(List.of(1, 2, 3), List.class));
+        assertEquals(2, RepositoryMetricsAspect.rowCount(new PageImpl<>(List.of(1, 2)), PageImpl.class));
+        assertEquals(1, RepositoryMetricsAspect.rowCount(Optional.of(new Patient()), Optional.class));
+        assertEquals(0, RepositoryMetricsAspect.rowCount(Optional.empty(), Optional.class));
+        assertEquals(1, RepositoryMetricsAspect.rowCount(new Patient(), Patient.class));
+        assertEquals(0, RepositoryMetricsAspect.rowCount(null, Patient.class));
+    }
+
+    @Test
+    @DisplayName("Should skip methods that do not return rows")
+    void testNonRowResults() {
+        assertEquals(-1, RepositoryMetricsAspect.rowCount(5L, long.class));
+        assertEquals(-1, RepositoryMetricsAspect.rowCount(true, Boolean.class));
+        assertEquals(-1, RepositoryMetricsAspect.rowCount(null, void.class));
+    }
+}
@@ -0,0 +1,91 @@
+package com.mhrs.patient.repository;
+
+import com.mhrs.patient.dto.PatientSummaryResponse;
+import com.mhrs.patient.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Patient Projection Tests")
+class PatientProjectionTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private Long johnId;
+
+    @BeforeEach
+    void setUp() {
+        johnId = persist("John", "Doe", "john@example.com", true).getPatientId();
+        persist("Johanna", "Smith", "johanna@example.com", false);
+        persist("Mary", "Jones", "mary@example.com", true);
+        testEntityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should build summaries of active patients with a constructor query")
+    void testSummaries() {
+        List<PatientSummaryResponse> summaries = patientRepository.findSummariesByActiveTrue();
+
+        assertEquals(2, summaries.size());
+        assertEquals("John", summaries.get(0).getFirstName());
+        assertEquals(LocalDate.of(1990, 5, 15), summaries.get(0).getDateOfBirth());
+        assertEquals(1, patientRepository.findSummariesByFirstNameContaining("joh", Limit.of(10)).size());
+    }
+
+    @Test
+    @DisplayName("Should select only the requested fields, patientId first")
+    void testSelectedFields() {
+        List<Map<String, Object>> rows = patientRepository.findActiveFieldsByIds(
+                PatientFields.parse("lastName,DATEOFBIRTH"), List.of(johnId));
+
+        assertEquals(1, rows.size());
+        assertEquals(List.of("patientId", "lastName", "dateOfBirth"), List.copyOf(rows.get(0).keySet()));
+        assertEquals(johnId, rows.get(0).get("patientId"));
+        assertEquals("Doe", rows.get(0).get("lastName"));
+    }
+
+    @Test
+    @DisplayName("Should expand the summary alias and reject unknown fields")
+    void testParseFields() {
+        assertEquals(PatientFields.SUMMARY_FIELDS, PatientFields.parse("summary"));
+        assertThrows(IllegalArgumentException.class, () -> PatientFields.parse("firstName,password"));
+        assertThrows(IllegalArgumentException.class, () -> PatientFields.parse("medicalHistory"));
+        assertThrows(IllegalArgumentException.class, () -> PatientFields.parse(" "));
+    }
+
+    private Patient persist(String firstName, String lastName, String email, boolean active) {
+        Patient patient = new Patient();
+        patient.setPatientUniqueId("PAT-" + email);
+        patient.setFirstName(firstName);
+        patient.setLastName(lastName);
+        patient.setEmail(email);
+        patient.setPhoneNumber("9876543210");
+        patient.setDateOfBirth(LocalDate.of(1990, 5, 15));
+        patient.setGender("Female");
+        patient.setAddress("123 Main St");
+        patient.setCity("Pune");
+        patient.setState("MH");
+        patient.setZipCode("411001");
+        patient.setBloodGroup("O+");
+        patient.setActive(active);
+        return testEntityManager.persistAndFlush(patient);
+    }
+}
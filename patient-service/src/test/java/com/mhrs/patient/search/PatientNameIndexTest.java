@@ -0,0 +1,78 @@
+package com.mhrs.patient.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Patient Name Index Unit Tests")
+class PatientNameIndexTest {
+
+    private PatientNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PatientNameIndex();
+        index.index(1L, "John", "Doe");
+        index.index(2L, "Johnathan", "Smith");
+        index.index(3L, "Mary", "Johnson");
+        index.index(4L, "Anna", "Lee");
+    }
+
+    @Test
+    @DisplayName("Should rank exact, then prefix, then substring matches")
+    void testRanking() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("john", 10));
+        assertEquals(List.of(2L), index.search("athan", 10));
+    }
+
+    @Test
+    @DisplayName("Should require every term to match first or last name")
+    void testMultiTermQuery() {
+        assertEquals(List.of(2L), index.search("john smith", 10));
+        assertTrue(index.search("john lee", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should answer short queries by name prefix")
+    void testShortQuery() {
+        assertEquals(List.of(4L), index.search("an", 10));
+        assertEquals(List.of(4L), index.search("L", 10));
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and removals")
+    void testIncrementalUpdates() {
+        index.index(4L, "Anna", "Johns");
+        assertTrue(index.search("john", 10).contains(4L));
+
+        index.remove(1L);
+        assertFalse(index.search("john", 10).contains(1L));
+        assertTrue(index.search("doe", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Should honour the result limit")
+    void testLimit() {
+        assertEquals(List.of(1L), index.search("john", 1));
+    }
+
+    @Test
+    @DisplayName("Should not let rows read by the initial load undo writes made during it")
+    void testWritesDuringLoad() {
+        PatientNameIndex loading = new PatientNameIndex();
+        loading.index(1L, "Johnny", "Doe");
+        loading.remove(2L);
+        loading.indexLoaded(1L, "John", "Doe");
+        loading.indexLoaded(2L, "Jane", "Roe");
+        loading.indexLoaded(3L, "Jim", "Poe");
+        loading.markReady();
+
+        assertEquals(List.of(1L), loading.search("johnny", 10));
+        assertTrue(loading.search("jane", 10).isEmpty());
+        assertEquals(List.of(3L), loading.search("jim", 10));
+    }
+}
@@ -0,0 +1,112 @@
+package com.mhrs.patient.search;
+
+import com.mhrs.patient.repository.PatientNameView;
+import com.mhrs.patient.repository.PatientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Compares the in-memory name index with the LIKE '%x%' repository query on an H2 table in
+ * MySQL mode. Not part of the default test run:
+ *
+ *   mvn test -Dtest=PatientNameSearchBenchmark -Dbenchmark.rows=200000
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PatientNameSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Mary", "Robert", "Patricia", "David",
+            "Linda", "James", "Elizabeth", "William", "Susan", "Richard", "Jessica", "Joseph", "Sarah", "Thomas",
+            "Karen", "Charles", "Nancy", "Aarav", "Priya", "Rohan", "Ananya", "Vikram", "Meera", "Arjun", "Kavya"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Wilson", "Anderson", "Thomas", "Taylor",
+            "Sharma", "Patel", "Iyer", "Reddy", "Nair", "Gupta", "Khan", "Singh", "Mehta", "Kapoor"};
+    private static final String[] QUERIES = {"john", "ann", "sharma", "mar", "patel", "li", "rodri", "kavya iyer"};
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Test
+    @DisplayName("Benchmark name index against LIKE query")
+    void benchmarkNameSearch() {
+        int rows = Integer.getInteger("benchmark.rows", 100_000);
+        seed(rows);
+
+        PatientNameIndex index = new PatientNameIndex();
+        long buildStart = System.nanoTime();
+        try (Stream<PatientNameView> names = patientRepository.streamNamesByActiveTrue()) {
+            names.forEach(name -> index.index(name.getPatientId(), name.getFirstName(), name.getLastName()));
+        }
+        testEntityManager.clear();
+        System.out.printf("Index build: %d patients in %d ms%n", index.size(), (System.nanoTime() - buildStart) / 1_000_000);
+
+        for (String query : QUERIES) {
+            double like = measure(q -> patientRepository.findByFirstNameContainingIgnoreCase(q).size(), query);
+            double lookup = measure(q -> index.search(q, 200).size(), query);
+            double indexed = measure(q -> patientRepository.findAllById(index.search(q, 200)).size(), query);
+            System.out.printf("%-12s LIKE: %8.3f ms   index lookup: %7.3f ms   index + fetch: %8.3f ms   speedup: %6.1fx%n",
+                    query, like, lookup, indexed, like / indexed);
+        }
+        assertFalse(index.search("john", 1).isEmpty());
+    }
+
+    // Average milliseconds per search after warm-up
+    private double measure(Function<String, Integer> search, String query) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            search.apply(query);
+            testEntityManager.clear();
+        }
+        long total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            search.apply(query);
+            total += System.nanoTime() - start;
+            testEntityManager.clear();
+        }
+        return total / (MEASURED_ROUNDS * 1_000_000.0);
+    }
+
+    private void seed(int rows) {
+        Random random = new Random(42);
+        Date today = Date.valueOf(LocalDate.now());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{"PAT-BENCH-" + i,
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    "bench" + i + "@example.com", "9876543210", Date.valueOf(LocalDate.of(1950 + i % 60, 1 + i % 12, 1 + i % 28)),
+                    i % 2 == 0 ? "Male" : "Female", "123 Main St", "Pune", "MH", "411001", "O+", true, today, today});
+            if (batch.size() == 1_000 || i == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO patients (patient_unique_id, first_name, last_name, email, "
+                        + "phone_number, date_of_birth, gender, address, city, state, zip_code, blood_group, active, "
+                        + "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", batch);
+                batch.clear();
+            }
+        }
+        System.out.printf("Seeded %d patients%n", rows);
+    }
+}
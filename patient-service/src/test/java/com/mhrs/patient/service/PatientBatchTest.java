@@ -0,0 +1,146 @@
+package com.mhrs.patient.service;
+
+import com.mhrs.patient.audit.AuditAction;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.PatientBatchRequest;
+import com.mhrs.patient.dto.PatientBatchResponse;
+import com.mhrs.patient.dto.PatientBatchResult;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@TestPropertySource(properties = "patient.batch.chunk-size=2")
+@Import({PatientService.class, PatientNameIndex.class, PatientCache.class, PatientIdGenerator.class,
+        PatientExistenceFilter.class, ClinicalTextStore.class, ClinicalTextCodec.class, PatientMatcher.class,
+        ShardRouter.class})
+@DisplayName("Patient Batch Lookup Tests")
+class PatientBatchTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientCache patientCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    @Test
+    @DisplayName("Should return patients in request order with not-found markers")
+    void testBatchLookup() {
+        PatientResponse a = create("batch-a@example.com", "Peanuts");
+        PatientResponse b = create("batch-b@example.com", null);
+        PatientResponse c = create("batch-c@example.com", null);
+        jdbcTemplate.update("INSERT INTO patients_archive (patient_id, patient_unique_id, first_name, last_name, "
+                + "email, phone_number, date_of_birth, gender, address, city, state, zip_code, blood_group, active, "
+                + "created_at, updated_at, version, change_seq, archived_at) VALUES (900001, 'PAT-ARCHIVED', 'Old', "
+                + "'Patient', 'old@example.com', '9876543210', DATE '1950-01-01', 'Male', '1 Road', 'Pune', 'MH', "
+                + "'411001', 'O+', FALSE, CURRENT_DATE, CURRENT_DATE, 1, 1, CURRENT_DATE)");
+        // One of them is already cached
+        patientService.getPatientById(b.getPatientId());
+
+        PatientBatchResponse response = patientService.getPatientsBatch(PatientBatchRequest.builder()
+                .ids(List.of(c.getPatientId(), 123456789L, a.getPatientId(), b.getPatientId(), 900001L))
+                .uniqueIds(List.of(a.getPatientUniqueId(), "PAT-MISSING", "PAT-ARCHIVED"))
+                .build());
+
+        List<PatientBatchResult> results = response.getResults();
+        assertEquals(List.of(true, false, true, true, true, true, false, true),
+                results.stream().map(PatientBatchResult::isFound).toList());
+        assertEquals(c.getPatientId(), results.get(0).getPatient().getPatientId());
+        assertEquals(123456789L, results.get(1).getPatientId());
+        assertNull(results.get(1).getPatient());
+        assertEquals("Peanuts", results.get(2).getPatient().getAllergies());
+        assertEquals(b.getPatientId(), results.get(3).getPatient().getPatientId());
+        assertFalse(results.get(4).getPatient().isActive());
+        assertEquals(a.getPatientId(), results.get(5).getPatient().getPatientId());
+        assertEquals("PAT-MISSING", results.get(6).getPatientUniqueId());
+        assertEquals(900001L, results.get(7).getPatient().getPatientId());
+        assertEquals(6, response.getFound());
+        assertEquals(2, response.getNotFound());
+
+        // Loaded patients are cached for the next caller; archived ones are not
+        assertTrue(patientCache.getById(a.getPatientId()).isPresent());
+        assertTrue(patientCache.getById(900001L).isEmpty());
+        verify(patientAuditLog).record(AuditAction.BATCH,
+                List.of(c.getPatientId(), a.getPatientId(), b.getPatientId(), 900001L));
+    }
+
+    @Test
+    @DisplayName("Should match unique IDs regardless of case")
+    void testBatchUniqueIdCase() {
+        PatientResponse a = create("batch-case@example.com", null);
+        patientService.getPatientById(a.getPatientId());
+        String lowerCase = a.getPatientUniqueId().toLowerCase();
+
+        PatientBatchResponse response = patientService.getPatientsBatch(PatientBatchRequest.builder()
+                .uniqueIds(List.of(lowerCase))
+                .build());
+
+        PatientBatchResult result = response.getResults().get(0);
+        assertTrue(result.isFound());
+        assertEquals(lowerCase, result.getPatientUniqueId());
+        assertEquals(a.getPatientId(), result.getPatient().getPatientId());
+    }
+
+    @Test
+    @DisplayName("Should reject oversized batches and empty IDs")
+    void testInvalidBatch() {
+        List<Long> tooMany = new ArrayList<>(Collections.nCopies(PatientService.MAX_BATCH_SIZE, 1L));
+        assertThrows(IllegalArgumentException.class, () -> patientService.getPatientsBatch(
+                PatientBatchRequest.builder().ids(tooMany).uniqueIds(List.of("PAT-1")).build()));
+        assertThrows(IllegalArgumentException.class, () -> patientService.getPatientsBatch(
+                PatientBatchRequest.builder().uniqueIds(List.of(" ")).build()));
+        assertEquals(0, patientService.getPatientsBatch(new PatientBatchRequest()).getResults().size());
+    }
+
+    private PatientResponse create(String email, String allergies) {
+        // Every fixture is the same John Doe, which duplicate detection would refuse
+        return patientService.createPatient(CreatePatientRequest.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .phoneNumber("9876543210")
+                .dateOfBirth(LocalDate.of(1990, 5, 15))
+                .gender("Male")
+                .address("123 Main St")
+                .city("Pune")
+                .state("MH")
+                .zipCode("411001")
+                .bloodGroup("O+")
+                .allergies(allergies)
+                .build(), true);
+    }
+}
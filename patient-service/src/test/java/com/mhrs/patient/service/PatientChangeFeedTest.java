@@ -0,0 +1,114 @@
+package com.mhrs.patient.service;
+
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.changes.ChangeSequenceInterceptor;
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.PatchPatientRequest;
+import com.mhrs.patient.dto.PatientChangeResponse;
+import com.mhrs.patient.dto.PatientChangesResponse;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@TestPropertySource(properties = "patient.changes.safety-lag=0s")
+@Import({PatientService.class, PatientNameIndex.class, PatientCache.class, PatientIdGenerator.class,
+        PatientExistenceFilter.class, ClinicalTextStore.class, ClinicalTextCodec.class, PatientMatcher.class,
+        ChangeSequenceInterceptor.class, ShardRouter.class})
+@DisplayName("Patient Change Feed Tests")
+class PatientChangeFeedTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientIdGenerator patientIdGenerator;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    @Test
+    @DisplayName("Should page through changes in sequence order with tombstones for deletions")
+    void testChangeFeed() {
+        long start = patientIdGenerator.nextId();
+        // The same John Doe three times, which duplicate detection would refuse
+        PatientResponse first = patientService.createPatient(request("first@example.com"), true);
+        PatientResponse second = patientService.createPatient(request("second@example.com"), true);
+        PatientResponse third = patientService.createPatient(request("third@example.com"), true);
+
+        patientService.patchPatient(first.getPatientId(), PatchPatientRequest.builder().version(0L).city("Mumbai").build());
+        patientService.deletePatient(second.getPatientId());
+        // Nothing changes, so the patient keeps its place in the feed
+        patientService.updatePatient(third.getPatientId(), request("third@example.com"));
+
+        PatientChangesResponse page = patientService.getPatientChanges(start, 2);
+        assertEquals(List.of(third.getPatientId(), first.getPatientId()), ids(page));
+        assertTrue(page.isHasMore());
+        assertEquals("Mumbai", page.getChanges().get(1).getPatient().getCity());
+        assertEquals("None", page.getChanges().get(0).getPatient().getAllergies());
+
+        page = patientService.getPatientChanges(page.getNextSince(), 2);
+        PatientChangeResponse tombstone = page.getChanges().get(0);
+        assertEquals(List.of(second.getPatientId()), ids(page));
+        assertTrue(tombstone.isDeleted());
+        assertNull(tombstone.getPatient());
+        assertEquals(second.getPatientUniqueId(), tombstone.getPatientUniqueId());
+        assertFalse(page.isHasMore());
+
+        long since = page.getNextSince();
+        page = patientService.getPatientChanges(since, 2);
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(since, page.getNextSince());
+
+        // A clinical-only edit is reported with the new text
+        patientService.patchPatient(third.getPatientId(), PatchPatientRequest.builder().version(0L)
+                .allergies("Penicillin").build());
+        page = patientService.getPatientChanges(since, 2);
+        assertEquals(List.of(third.getPatientId()), ids(page));
+        assertEquals("Penicillin", page.getChanges().get(0).getPatient().getAllergies());
+    }
+
+    private static List<Long> ids(PatientChangesResponse page) {
+        return page.getChanges().stream().map(PatientChangeResponse::getPatientId).toList();
+    }
+
+    private static CreatePatientRequest request(String email) {
+        return CreatePatientRequest.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .phoneNumber("9876543210")
+                .dateOfBirth(LocalDate.of(1990, 5, 15))
+                .gender("Male")
+                .address("123 Main St")
+                .city("Pune")
+                .state("MH")
+                .zipCode("411001")
+                .bloodGroup("O+")
+                .allergies("None")
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.mhrs.patient.service;
+
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.dto.PatientSearchCriteria;
+import com.mhrs.patient.dto.PatientSearchResponse;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@Import({PatientService.class, PatientNameIndex.class, PatientCache.class, PatientIdGenerator.class,
+        PatientExistenceFilter.class, ClinicalTextStore.class, ClinicalTextCodec.class, PatientMatcher.class,
+        ShardRouter.class})
+@DisplayName("Patient Filter Tests")
+class PatientFilterTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    @Test
+    @DisplayName("Should AND the criteria and page through matches by keyset")
+    void testFilterByCriteria() {
+        LocalDate today = LocalDate.now();
+        long a = create("a@example.com", "Nagpur", "O+", "Female", today.minusYears(40)).getPatientId();
+        long b = create("b@example.com", "Nagpur", "O+", "Female", today.minusYears(45)).getPatientId();
+        create("c@example.com", "Nagpur", "A+", "Female", today.minusYears(42));
+        create("d@example.com", "Nashik", "O+", "Female", today.minusYears(42));
+        long e = create("e@example.com", "Nagpur", "O+", "Female", today.minusYears(61).plusDays(1)).getPatientId();
+        long deleted = create("f@example.com", "Nagpur", "O+", "Female", today.minusYears(50)).getPatientId();
+        patientService.deletePatient(deleted);
+
+        PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                .city("Nagpur").bloodGroup("O+").gender("Female").minAge(40).maxAge(60).build();
+
+        PatientSearchResponse first = patientService.filterPatients(criteria, null, 2, false);
+        assertEquals(List.of(a, b), ids(first));
+        assertTrue(first.isHasMore());
+        assertEquals(b, first.getNextCursor());
+        assertNull(first.getTotal());
+
+        PatientSearchResponse second = patientService.filterPatients(criteria, first.getNextCursor(), 2, true);
+        assertEquals(List.of(e), ids(second));
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        assertEquals(3, second.getTotal());
+
+        criteria.setActive(false);
+        assertEquals(List.of(deleted), ids(patientService.filterPatients(criteria, null, null, false)));
+    }
+
+    @Test
+    @DisplayName("Should apply age bounds in whole years as of today")
+    void testAgeBounds() {
+        LocalDate today = LocalDate.now();
+        long turnsThirtyToday = create("g@example.com", "Satara", "B+", "Male", today.minusYears(30)).getPatientId();
+        long turnsThirtyTomorrow = create("h@example.com", "Satara", "B+", "Male",
+                today.minusYears(30).plusDays(1)).getPatientId();
+
+        assertEquals(List.of(turnsThirtyToday), ids(patientService.filterPatients(
+                PatientSearchCriteria.builder().city("Satara").minAge(30).build(), null, null, false)));
+        assertEquals(List.of(turnsThirtyTomorrow), ids(patientService.filterPatients(
+                PatientSearchCriteria.builder().city("Satara").maxAge(29).build(), null, null, false)));
+    }
+
+    @Test
+    @DisplayName("Should reject an inverted or out of range age range")
+    void testInvalidAgeRange() {
+        assertThrows(IllegalArgumentException.class, () -> patientService.filterPatients(
+                PatientSearchCriteria.builder().minAge(50).maxAge(40).build(), null, null, false));
+        assertThrows(IllegalArgumentException.class, () -> patientService.filterPatients(
+                PatientSearchCriteria.builder().minAge(-1).build(), null, null, false));
+    }
+
+    @Test
+    @DisplayName("Should create the composite filter indexes")
+    void testFilterIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList("SELECT LOWER(index_name) FROM information_schema.indexes "
+                + "WHERE LOWER(table_name) = 'patients'", String.class);
+
+        assertTrue(indexes.containsAll(List.of("idx_patients_active_city", "idx_patients_active_state",
+                "idx_patients_active_zip_code", "idx_patients_active_blood_group_gender",
+                "idx_patients_active_date_of_birth")), indexes.toString());
+    }
+
+    private static List<Long> ids(PatientSearchResponse response) {
+        return response.getPatients().stream().map(PatientResponse::getPatientId).toList();
+    }
+
+    private PatientResponse create(String email, String city, String bloodGroup, String gender, LocalDate dateOfBirth) {
+        // Every fixture is the same John Doe, which duplicate detection would refuse
+        return patientService.createPatient(CreatePatientRequest.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .phoneNumber("9876543210")
+                .dateOfBirth(dateOfBirth)
+                .gender(gender)
+                .address("123 Main St")
+                .city(city)
+                .state("MH")
+                .zipCode("411001")
+                .bloodGroup(bloodGroup)
+                .build(), true);
+    }
+}
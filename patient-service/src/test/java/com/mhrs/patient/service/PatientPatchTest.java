@@ -0,0 +1,128 @@
+package com.mhrs.patient.service;
+
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.PatchPatientRequest;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.exception.PatientNotFoundException;
+import com.mhrs.patient.exception.PatientVersionConflictException;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.model.Patient;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@Import({PatientService.class, PatientNameIndex.class, PatientCache.class, PatientIdGenerator.class,
+        PatientExistenceFilter.class, ClinicalTextStore.class, ClinicalTextCodec.class, PatientMatcher.class,
+        ShardRouter.class})
+@DisplayName("Patient PATCH Tests")
+class PatientPatchTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private ClinicalTextStore clinicalTextStore;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        patient = new Patient();
+        patient.setPatientUniqueId("PAT-PATCH-1");
+        patient.setFirstName("John");
+        patient.setLastName("Doe");
+        patient.setEmail("patch@example.com");
+        patient.setPhoneNumber("9876543210");
+        patient.setDateOfBirth(LocalDate.of(1990, 5, 15));
+        patient.setGender("Male");
+        patient.setAddress("123 Main St");
+        patient.setCity("Pune");
+        patient.setState("MH");
+        patient.setZipCode("411001");
+        patient.setBloodGroup("O+");
+        patient = testEntityManager.persistFlushFind(patient);
+        clinicalTextStore.replace(patient.getPatientId(), "Penicillin", "Asthma");
+    }
+
+    @Test
+    @DisplayName("Should update only the given fields and bump the version")
+    void testPatchChangedFields() {
+        PatchPatientRequest request = PatchPatientRequest.builder()
+                .version(0L)
+                .city("Mumbai")
+                .allergies("")
+                .build();
+
+        PatientResponse response = patientService.patchPatient(patient.getPatientId(), request);
+
+        assertEquals(1L, response.getVersion());
+        assertEquals("Mumbai", response.getCity());
+        assertNull(response.getAllergies());
+        assertEquals("Asthma", response.getMedicalHistory());
+        assertEquals("John", response.getFirstName());
+    }
+
+    @Test
+    @DisplayName("Should bump the version when only clinical text changes")
+    void testPatchClinicalTextOnly() {
+        PatchPatientRequest request = PatchPatientRequest.builder()
+                .version(0L)
+                .medicalHistory("Asthma, seasonal")
+                .build();
+
+        PatientResponse response = patientService.patchPatient(patient.getPatientId(), request);
+
+        assertEquals(1L, response.getVersion());
+        assertEquals("Penicillin", response.getAllergies());
+        assertEquals("Asthma, seasonal", clinicalTextStore.load(patient.getPatientId()).medicalHistory());
+    }
+
+    @Test
+    @DisplayName("Should reject a patch based on a stale version")
+    void testPatchStaleVersion() {
+        patientService.patchPatient(patient.getPatientId(), PatchPatientRequest.builder().version(0L).city("Mumbai").build());
+
+        PatchPatientRequest stale = PatchPatientRequest.builder().version(0L).city("Delhi").build();
+        assertThrows(PatientVersionConflictException.class,
+                () -> patientService.patchPatient(patient.getPatientId(), stale));
+        assertEquals("Mumbai", patientService.getPatientById(patient.getPatientId()).getCity());
+    }
+
+    @Test
+    @DisplayName("Should return not found for a missing or deleted patient")
+    void testPatchMissingPatient() {
+        PatchPatientRequest request = PatchPatientRequest.builder().version(0L).city("Mumbai").build();
+        assertThrows(PatientNotFoundException.class, () -> patientService.patchPatient(999_999L, request));
+
+        patientService.deletePatient(patient.getPatientId());
+        assertThrows(PatientNotFoundException.class, () -> patientService.patchPatient(patient.getPatientId(), request));
+    }
+}
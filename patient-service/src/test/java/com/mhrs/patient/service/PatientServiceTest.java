@@ -1,18 +1,44 @@
 package com.mhrs.patient.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhrs.patient.audit.AuditAction;
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.cache.PatientDocument;
+import com.mhrs.patient.clinical.ClinicalText;
+import com.mhrs.patient.clinical.ClinicalTextStore;
 import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.PatientPageResponse;
 import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.dto.PatientSummaryResponse;
 import com.mhrs.patient.exception.PatientNotFoundException;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.model.ArchivedPatient;
 import com.mhrs.patient.model.Patient;
+import com.mhrs.patient.repository.ArchivedPatientRepository;
 import com.mhrs.patient.repository.PatientRepository;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.shard.ShardRouter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,6 +50,44 @@ class PatientServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private ArchivedPatientRepository archivedPatientRepository;
+
+    @Spy
+    private PatientNameIndex patientNameIndex = new PatientNameIndex();
+
+    @Spy
+    private PatientCache patientCache = new PatientCache(100, Duration.ofMinutes(1));
+
+    // Never loaded, so every key might exist and lookups reach the repository
+    @Spy
+    private PatientExistenceFilter patientExistenceFilter = new PatientExistenceFilter(true, 1000, 0.01);
+
+    @Spy
+    private PatientIdGenerator patientIdGenerator = new PatientIdGenerator(1, Clock.systemUTC());
+
+    @Mock
+    private PatientAuditLog patientAuditLog;
+
+    @Mock
+    private ClinicalTextStore clinicalTextStore;
+
+    @Mock
+    private PatientMatcher patientMatcher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    // Not sharded, so everything runs inline on the one database
+    @Spy
+    private ShardRouter shardRouter = new ShardRouter();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    private TransactionOperations readOnlyTransaction = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private PatientService patientService;
 
@@ -63,11 +127,11 @@ class PatientServiceTest {
         patient.setState("NY");
         patient.setZipCode("10001");
         patient.setBloodGroup("O+");
-        patient.setAllergies("None");
-        patient.setMedicalHistory("No major illnesses");
         patient.setActive(true);
         patient.setCreatedAt(LocalDate.now());
         patient.setUpdatedAt(LocalDate.now());
+
+        when(clinicalTextStore.load(1L)).thenReturn(new ClinicalText("None", "No major illnesses"));
     }
 
     @Test
@@ -82,7 +146,9 @@ class PatientServiceTest {
         assertNotNull(response);
         assertEquals("John", response.getFirstName());
         assertEquals("john.doe@example.com", response.getEmail());
+        assertEquals("None", response.getAllergies());
         verify(patientRepository, times(1)).save(any());
+        verify(clinicalTextStore).replace(1L, "None", "No major illnesses");
     }
 
     @Test
@@ -95,6 +161,7 @@ class PatientServiceTest {
         assertNotNull(response);
         assertEquals(1L, response.getPatientId());
         assertEquals("John", response.getFirstName());
+        assertEquals("No major illnesses", response.getMedicalHistory());
     }
 
     @Test
@@ -104,4 +171,166 @@ class PatientServiceTest {
 
         assertThrows(PatientNotFoundException.class, () -> patientService.getPatientById(999L));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should answer an ID the existence filter rules out without a transaction")
+    void testGetPatientRuledOutByFilter() {
+        doReturn(false).when(patientExistenceFilter).mightContainId(999L);
+
+        assertThrows(PatientNotFoundException.class, () -> patientService.getPatientById(999L));
+        verify(readOnlyTransaction, never()).execute(any());
+        verify(patientRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the archive when the patient is no longer in the hot table")
+    void testGetArchivedPatientById() {
+        ArchivedPatient archived = new ArchivedPatient(1L, "PAT-001", "John", "Doe", "john.doe@example.com",
+                "9876543210", LocalDate.of(1990, 5, 15), "Male", "123 Main St", "Mumbai", "Maharashtra", "400001",
+                "O+", false, LocalDate.now(), LocalDate.now(), 2L, 42L, LocalDate.now());
+        when(patientRepository.findById(1L)).thenReturn(Optional.empty());
+        when(archivedPatientRepository.findById(1L)).thenReturn(Optional.of(archived));
+
+        PatientResponse response = patientService.getPatientById(1L);
+
+        assertFalse(response.isActive());
+        assertEquals("PAT-001", response.getPatientUniqueId());
+        assertEquals(2L, response.getVersion());
+        assertEquals("No major illnesses", response.getMedicalHistory());
+    }
+
+    @Test
+    @DisplayName("Should return keyset page with next cursor when more rows exist")
+    void testGetPatientsPage() {
+        Patient second = new Patient();
+        second.setPatientId(2L);
+        second.setFirstName("Jane");
+        when(patientRepository.findByActiveTrueAndPatientIdGreaterThanOrderByPatientIdAsc(0L, Limit.of(2)))
+                .thenReturn(List.of(patient, second));
+
+        PatientPageResponse page = patientService.getPatientsPage(null, 1);
+
+        assertEquals(1, page.getPatients().size());
+        assertTrue(page.isHasMore());
+        assertEquals(1L, page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should clamp page size to the maximum")
+    void testGetPatientsPageClampsSize() {
+        when(patientRepository.findByActiveTrueAndPatientIdGreaterThanOrderByPatientIdAsc(any(), any()))
+                .thenReturn(List.of(patient));
+
+        PatientPageResponse page = patientService.getPatientsPage(0L, 100_000);
+
+        assertEquals(PatientService.MAX_PAGE_SIZE, page.getSize());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(patientRepository).findByActiveTrueAndPatientIdGreaterThanOrderByPatientIdAsc(0L,
+                Limit.of(PatientService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    @DisplayName("Should search by last name through the name index without a LIKE query")
+    void testSearchPatientByLastName() {
+        patientNameIndex.index(1L, "John", "Doe");
+        patientNameIndex.markReady();
+        when(patientRepository.findAllById(List.of(1L))).thenReturn(List.of(patient));
+        when(clinicalTextStore.loadAll(List.of(1L))).thenReturn(Map.of(1L, new ClinicalText("None", "Asthma")));
+
+        List<PatientResponse> results = patientService.searchPatientByName("doe");
+
+        assertEquals(1, results.size());
+        assertEquals(1L, results.get(0).getPatientId());
+        assertEquals("Asthma", results.get(0).getMedicalHistory());
+        verify(patientRepository, never()).findByFirstNameContainingIgnoreCase(any());
+        verify(clinicalTextStore, never()).load(any());
+    }
+
+    @Test
+    @DisplayName("Should stream patients with their clinical text, loaded once per chunk")
+    void testStreamAllPatients() {
+        Patient other = new Patient();
+        other.setPatientId(2L);
+        other.setFirstName("Jane");
+        other.setLastName("Doe");
+        when(patientRepository.streamByActiveTrue()).thenReturn(Stream.of(patient, other));
+        when(clinicalTextStore.loadAll(List.of(1L, 2L))).thenReturn(Map.of(1L, new ClinicalText("Penicillin", null)));
+
+        List<PatientResponse> streamed = new ArrayList<>();
+        patientService.streamAllPatients(streamed::add);
+
+        assertEquals(List.of(1L, 2L), streamed.stream().map(PatientResponse::getPatientId).toList());
+        assertEquals("Penicillin", streamed.get(0).getAllergies());
+        assertNull(streamed.get(1).getAllergies());
+        verify(clinicalTextStore, times(1)).loadAll(any());
+        verify(patientAuditLog).record(AuditAction.STREAM, List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Should return search summaries in index rank order")
+    void testSearchPatientSummaries() {
+        patientNameIndex.index(1L, "Jon", "Smith");
+        patientNameIndex.index(2L, "Jonathan", "Doe");
+        patientNameIndex.index(3L, "Jon", "Baker");
+        patientNameIndex.markReady();
+        when(patientRepository.findSummariesByPatientIdIn(List.of(1L, 3L, 2L))).thenReturn(List.of(
+                new PatientSummaryResponse(2L, "PAT-2", "Jonathan", "Doe", LocalDate.of(1980, 1, 1), "9876543210"),
+                new PatientSummaryResponse(1L, "PAT-1", "Jon", "Smith", LocalDate.of(1981, 1, 1), "9876543210")));
+
+        List<PatientSummaryResponse> results = patientService.searchPatientSummaries("jon");
+
+        assertEquals(List.of(1L, 2L), results.stream().map(PatientSummaryResponse::getPatientId).toList());
+        verify(patientRepository, never()).findAllById(any());
+        verify(patientAuditLog).record(AuditAction.SEARCH, List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the cache by ID and unique ID")
+    void testGetPatientCached() {
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+
+        patientService.getPatientById(1L);
+        PatientResponse cached = patientService.getPatientById(1L);
+        PatientResponse byUniqueId = patientService.getPatientByUniqueId("PAT-123456789");
+
+        assertEquals("John", cached.getFirstName());
+        assertEquals(1L, byUniqueId.getPatientId());
+        verify(patientRepository, times(1)).findById(1L);
+        verify(patientRepository, never()).findByPatientUniqueId(any());
+        // Only the first read missed the cache and opened a transaction
+        verify(readOnlyTransaction, times(1)).execute(any());
+        assertEquals(2, patientService.getCacheStats().getHits());
+        verify(patientAuditLog, times(2)).record(AuditAction.READ_BY_ID, 1L);
+        verify(patientAuditLog).record(AuditAction.READ_BY_UNIQUE_ID, 1L);
+    }
+
+    @Test
+    @DisplayName("Should cache the serialized patient with a version-based ETag")
+    void testGetPatientDocument() throws Exception {
+        patient.setVersion(3);
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+
+        PatientDocument loaded = patientService.getPatientDocumentById(1L);
+        PatientDocument cached = patientService.getPatientDocumentById(1L);
+
+        assertEquals("\"1.3\"", loaded.etag());
+        assertSame(loaded.json(), cached.json());
+        assertEquals("John", objectMapper.readTree(cached.json()).get("firstName").asText());
+        verify(objectMapper, times(1)).writeValueAsBytes(any());
+    }
+
+    @Test
+    @DisplayName("Should not serve a soft-deleted patient from the cache")
+    void testDeleteEvictsCache() {
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+        patientService.getPatientById(1L);
+
+        patientService.deletePatient(1L);
+        PatientResponse afterDelete = patientService.getPatientById(1L);
+
+        assertFalse(afterDelete.isActive());
+        verify(patientRepository, times(3)).findById(1L);
+        assertTrue(patientCache.getById(1L).isEmpty());
+    }
+}
@@ -0,0 +1,73 @@
+package com.mhrs.patient.shard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Shard Routing Tests")
+class ShardRouterTest {
+
+    @Test
+    @DisplayName("Should spread consecutive patient IDs over all buckets")
+    void testBucketOf() {
+        int[] perBucket = new int[ShardRouter.BUCKETS];
+        long first = 7_300_000_000_000L;
+        for (long id = first; id < first + 100 * ShardRouter.BUCKETS; id++) {
+            int bucket = ShardRouter.bucketOf(id);
+            assertTrue(bucket >= 0 && bucket < ShardRouter.BUCKETS);
+            perBucket[bucket]++;
+        }
+        for (int count : perBucket) {
+            assertTrue(count > 50 && count < 150, "bucket holds " + count + " of about 100");
+        }
+    }
+
+    @Test
+    @DisplayName("Should read the patient ID back from a unique ID")
+    void testIdOf() {
+        assertEquals(123456789L, ShardRouter.idOf("PAT-123456789"));
+        assertEquals(Long.MAX_VALUE, ShardRouter.idOf("PAT-" + Long.MAX_VALUE));
+        assertNull(ShardRouter.idOf("PAT-" + Long.MAX_VALUE + "0"));
+        assertNull(ShardRouter.idOf("PAT-9223372036854775808"));
+        assertNull(ShardRouter.idOf("PAT-1A2B3C4D"));
+        assertNull(ShardRouter.idOf("PAT-"));
+        assertNull(ShardRouter.idOf(null));
+    }
+
+    @Test
+    @DisplayName("Should merge sorted parts up to the limit")
+    void testMerge() {
+        List<List<Integer>> parts = List.of(List.of(1, 4, 9), List.of(), List.of(2, 3, 10), List.of(5));
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 9, 10), ShardRouter.merge(parts, Comparator.naturalOrder(), 100));
+        assertEquals(List.of(1, 2, 3, 4), ShardRouter.merge(parts, Comparator.naturalOrder(), 4));
+        assertEquals(List.of(3, 5), ShardRouter.merge(List.of(List.of(3, 5, 8)), Comparator.naturalOrder(), 2));
+    }
+
+    @Test
+    @DisplayName("Should move only the buckets needed to even out the shards")
+    void testRebalancePlan() {
+        int[] threeShards = new int[ShardRouter.BUCKETS];
+        for (int bucket = 0; bucket < threeShards.length; bucket++) {
+            threeShards[bucket] = bucket % 3;
+        }
+        assertTrue(ShardRebalancer.plan(threeShards, 3).isEmpty());
+
+        // A fourth shard takes a quarter of the buckets, a third of them from each old shard
+        Map<Integer, Integer> moves = ShardRebalancer.plan(threeShards, 4);
+        assertEquals(ShardRouter.BUCKETS / 4, moves.size());
+        assertTrue(moves.values().stream().allMatch(shard -> shard == 3));
+        int[] after = threeShards.clone();
+        moves.forEach((bucket, shard) -> after[bucket] = shard);
+        int[] perShard = new int[4];
+        for (int shard : after) {
+            perShard[shard]++;
+        }
+        assertArrayEquals(new int[]{256, 256, 256, 256}, perShard);
+        assertTrue(ShardRebalancer.plan(after, 4).isEmpty());
+    }
+}
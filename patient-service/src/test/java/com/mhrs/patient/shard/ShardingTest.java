@@ -0,0 +1,282 @@
+package com.mhrs.patient.shard;
+
+import com.mhrs.patient.audit.PatientAuditLog;
+import com.mhrs.patient.cache.PatientCache;
+import com.mhrs.patient.cache.PatientExistenceFilter;
+import com.mhrs.patient.clinical.ClinicalTextCodec;
+import com.mhrs.patient.clinical.ClinicalTextStore;
+import com.mhrs.patient.dto.CreatePatientRequest;
+import com.mhrs.patient.dto.PatchPatientRequest;
+import com.mhrs.patient.dto.PatientPageResponse;
+import com.mhrs.patient.dto.PatientResponse;
+import com.mhrs.patient.dto.PatientSearchCriteria;
+import com.mhrs.patient.dto.PatientSearchResponse;
+import com.mhrs.patient.dto.ShardRebalanceResponse;
+import com.mhrs.patient.dto.ShardResponse;
+import com.mhrs.patient.exception.PatientAlreadyExistsException;
+import com.mhrs.patient.exception.PatientMovingException;
+import com.mhrs.patient.id.PatientIdGenerator;
+import com.mhrs.patient.matching.PatientMatcher;
+import com.mhrs.patient.search.PatientNameIndex;
+import com.mhrs.patient.service.PatientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJson;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureJson
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:patient_shard0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "patient.sharding.enabled=true",
+        "patient.sharding.shard-urls=jdbc:h2:mem:patient_shard1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:patient_shard2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "patient.sharding.map-refresh-interval=100ms",
+        "patient.sharding.rebalance-chunk=7"
+})
+@Import({ShardingConfig.class, ShardRouter.class, ShardRebalancer.class, PatientService.class, PatientNameIndex.class,
+        PatientCache.class, PatientIdGenerator.class, PatientExistenceFilter.class, ClinicalTextStore.class,
+        ClinicalTextCodec.class, PatientMatcher.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Patient Sharding Tests")
+class ShardingTest {
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PatientAuditLog patientAuditLog;
+
+    @BeforeEach
+    void setUp() {
+        shardRouter.forEachShard(shard -> {
+            for (String table : List.of("patients", "patients_archive", "patient_clinical_text", "patient_blocking_keys")) {
+                jdbcTemplate.update("DELETE FROM " + table);
+            }
+        });
+        shardRouter.onShard(0, () -> jdbcTemplate.update("DELETE FROM patient_email_directory"));
+        Map<Integer, Integer> roundRobin = new HashMap<>();
+        for (int bucket = 0; bucket < ShardRouter.BUCKETS; bucket++) {
+            roundRobin.put(bucket, bucket % 3);
+        }
+        shardRouter.moveBuckets(roundRobin);
+        shardRouter.markMoving(roundRobin.keySet(), false);
+        shardRouter.freeze(roundRobin.keySet(), false);
+    }
+
+    @Test
+    @DisplayName("Should store each patient on the shard its ID routes to and find it there")
+    void testPointLookups() {
+        List<PatientResponse> created = create(12);
+
+        int[] perShard = new int[3];
+        for (PatientResponse patient : created) {
+            int shard = shardRouter.shardOf(patient.getPatientId());
+            perShard[shard]++;
+            assertEquals("PAT-" + patient.getPatientId(), patient.getPatientUniqueId());
+            assertEquals(shard, shardRouter.shardOfUniqueId(patient.getPatientUniqueId()));
+            assertEquals(1, countOn(shard, patient.getPatientId()));
+            assertEquals(patient.getEmail(), patientService.getPatientById(patient.getPatientId()).getEmail());
+            assertEquals(patient.getPatientId(),
+                    patientService.getPatientByUniqueId(patient.getPatientUniqueId()).getPatientId());
+        }
+        assertEquals(12, perShard[0] + perShard[1] + perShard[2]);
+        assertTrue(perShard[0] > 0 && perShard[1] > 0 && perShard[2] > 0, "patients spread over every shard");
+    }
+
+    @Test
+    @DisplayName("Should refuse an email in use on any shard, also by a deleted patient")
+    void testGlobalEmailUniqueness() {
+        PatientResponse first = create(1).get(0);
+
+        // The second patient gets another ID and so, most likely, another shard
+        assertThrows(PatientAlreadyExistsException.class, () -> patientService.createPatient(request(first.getEmail()), true));
+        assertEquals(1, (int) shardRouter.onShard(0, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM patient_email_directory", Integer.class)));
+
+        patientService.deletePatient(first.getPatientId());
+        assertThrows(PatientAlreadyExistsException.class, () -> patientService.createPatient(request(first.getEmail()), true));
+    }
+
+    @Test
+    @DisplayName("Should merge lists, pages and name searches from every shard in patient ID order")
+    void testScatterGather() {
+        List<Long> ids = create(10).stream().map(PatientResponse::getPatientId).sorted().toList();
+
+        assertEquals(ids, patientService.getAllPatients().stream().map(PatientResponse::getPatientId).toList());
+
+        List<Long> paged = new ArrayList<>();
+        Long cursor = null;
+        PatientPageResponse page;
+        do {
+            page = patientService.getPatientsPage(cursor, 3);
+            assertTrue(page.getPatients().size() <= 3);
+            page.getPatients().forEach(patient -> paged.add(patient.getPatientId()));
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+        assertEquals(ids, paged);
+
+        assertEquals(ids, patientService.searchPatientByName("shar").stream().map(PatientResponse::getPatientId).toList());
+    }
+
+    @Test
+    @DisplayName("Should move buckets and their patients onto shards that hold too few")
+    void testRebalance() {
+        Map<Integer, Integer> allOnFirst = new HashMap<>();
+        for (int bucket = 0; bucket < ShardRouter.BUCKETS; bucket++) {
+            allOnFirst.put(bucket, 0);
+        }
+        shardRouter.moveBuckets(allOnFirst);
+        List<PatientResponse> created = create(30);
+        patientService.deletePatient(created.get(0).getPatientId());
+        assertEquals(30, shardRebalancer.getShards().get(0).getPatients());
+
+        ShardRebalanceResponse response = shardRebalancer.rebalance();
+
+        assertEquals(ShardRouter.BUCKETS - ShardRouter.BUCKETS / 3 - 1, response.getBucketsMoved());
+        assertEquals(List.of(342, 341, 341), response.getShards().stream().map(ShardResponse::getBuckets).toList());
+        assertEquals(30, response.getShards().stream().mapToLong(ShardResponse::getPatients).sum());
+        assertEquals(response.getPatientsMoved(), 30 - response.getShards().get(0).getPatients());
+        for (PatientResponse patient : created) {
+            assertEquals(1, countOn(shardRouter.shardOf(patient.getPatientId()), patient.getPatientId()));
+            assertEquals(patient.getEmail(), patientService.getPatientById(patient.getPatientId()).getEmail());
+        }
+        assertEquals(29, patientService.getAllPatients().size());
+        assertEquals(0, shardRebalancer.rebalance().getBucketsMoved());
+    }
+
+    @Test
+    @DisplayName("Should list a patient a rebalance has copied to a second shard once, before and after the switch")
+    void testScatterWhileMoving() {
+        Map<Integer, Integer> allOnFirst = new HashMap<>();
+        for (int bucket = 0; bucket < ShardRouter.BUCKETS; bucket++) {
+            allOnFirst.put(bucket, 0);
+        }
+        shardRouter.moveBuckets(allOnFirst);
+        List<Long> ids = create(10).stream().map(PatientResponse::getPatientId).sorted().toList();
+        Map<Integer, Integer> moves = new HashMap<>();
+        for (long id : ids.subList(0, 5)) {
+            moves.put(ShardRouter.bucketOf(id), 1);
+        }
+        shardRouter.markMoving(moves.keySet(), true);
+        for (long id : ids.subList(0, 5)) {
+            Map<String, Object> row = shardRouter.onShard(0, () -> jdbcTemplate.queryForMap(
+                    "SELECT * FROM patients WHERE patient_id = ?", id));
+            List<String> columns = new ArrayList<>(row.keySet());
+            shardRouter.onShard(1, () -> jdbcTemplate.update("INSERT INTO patients (" + String.join(", ", columns)
+                    + ") VALUES (" + String.join(", ", columns.stream().map(column -> "?").toList()) + ")",
+                    columns.stream().map(row::get).toArray()));
+        }
+
+        assertListedOnce(ids);
+        shardRouter.moveBuckets(moves);
+        assertListedOnce(ids);
+
+        // A rebalance finishes the interrupted move before planning its own
+        shardRebalancer.rebalance();
+        assertFalse(shardRouter.isRebalancing());
+        for (long id : ids) {
+            assertEquals(1, countOn(0, id) + countOn(1, id) + countOn(2, id));
+        }
+        assertListedOnce(ids);
+    }
+
+    @Test
+    @DisplayName("Should refuse writes to patients in frozen buckets and create new ones elsewhere")
+    void testFrozenBuckets() {
+        PatientResponse patient = create(1).get(0);
+        Set<Integer> frozen = Set.of(ShardRouter.bucketOf(patient.getPatientId()));
+        shardRouter.freeze(frozen, true);
+
+        PatientMovingException refused = assertThrows(PatientMovingException.class, () -> patientService.patchPatient(
+                patient.getPatientId(), PatchPatientRequest.builder().version(0L).city("Mumbai").build()));
+        assertTrue(refused.getRetryAfterSeconds() >= 1);
+        assertThrows(PatientMovingException.class, () -> patientService.deletePatient(patient.getPatientId()));
+        assertEquals(patient.getEmail(), patientService.getPatientById(patient.getPatientId()).getEmail());
+        for (int i = 0; i < 20; i++) {
+            PatientResponse created = patientService.createPatient(request("frozen-" + i + "@example.com"), true);
+            assertFalse(frozen.contains(ShardRouter.bucketOf(created.getPatientId())));
+        }
+
+        shardRouter.freeze(frozen, false);
+        assertEquals("Mumbai", patientService.patchPatient(patient.getPatientId(),
+                PatchPatientRequest.builder().version(0L).city("Mumbai").build()).getCity());
+    }
+
+    private void assertListedOnce(List<Long> ids) {
+        assertEquals(ids, patientService.getAllPatients().stream().map(PatientResponse::getPatientId).toList());
+
+        List<Long> paged = new ArrayList<>();
+        Long cursor = null;
+        PatientPageResponse page;
+        do {
+            page = patientService.getPatientsPage(cursor, 3);
+            page.getPatients().forEach(patient -> paged.add(patient.getPatientId()));
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+        assertEquals(ids, paged);
+
+        PatientSearchResponse filtered = patientService.filterPatients(new PatientSearchCriteria(), null, 100, true);
+        assertEquals(ids, filtered.getPatients().stream().map(PatientResponse::getPatientId).toList());
+        assertEquals(Long.valueOf(ids.size()), filtered.getTotal());
+    }
+
+    private List<PatientResponse> create(int count) {
+        List<PatientResponse> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            created.add(patientService.createPatient(request("shard-" + i + "@example.com"), true));
+        }
+        return created;
+    }
+
+    private int countOn(int shard, long patientId) {
+        return shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM patients WHERE patient_id = ?", Integer.class, patientId));
+    }
+
+    private static CreatePatientRequest request(String email) {
+        return CreatePatientRequest.builder()
+                .firstName("Sharon")
+                .lastName("Doe")
+                .email(email)
+                .phoneNumber("9876543210")
+                .dateOfBirth(LocalDate.of(1990, 5, 15))
+                .gender("Female")
+                .address("123 Main St")
+                .city("Pune")
+                .state("MH")
+                .zipCode("411001")
+                .bloodGroup("O+")
+                .allergies("Peanuts")
+                .build();
+    }
+}